@@ -0,0 +1,26 @@
+-- 基线：核心表 user / memo / note 的初始结构（此前由 Hibernate ddl-auto=update 自动创建）
+-- 已有数据库中这些表已存在，IF NOT EXISTS 不会改动现有结构；后续字段由 V1 起的脚本补齐
+CREATE TABLE IF NOT EXISTS user (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(255) NULL UNIQUE,
+    password VARCHAR(255) NULL
+);
+
+CREATE TABLE IF NOT EXISTS memo (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    title VARCHAR(255) NULL,
+    description VARCHAR(255) NULL,
+    deadline DATETIME(6) NULL,
+    user_id BIGINT NULL,
+    FOREIGN KEY (user_id) REFERENCES user(id)
+);
+
+CREATE TABLE IF NOT EXISTS note (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    title VARCHAR(255) NULL,
+    content TEXT NULL,
+    created_at DATETIME(6) NULL,
+    updated_at DATETIME(6) NULL,
+    user_id BIGINT NULL,
+    FOREIGN KEY (user_id) REFERENCES user(id)
+);
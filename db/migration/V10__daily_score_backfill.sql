@@ -0,0 +1,9 @@
+-- daily_score 回填标记：DailyScoreMaterializer.rebuild 完成后写入一行
+-- 回填任务只检查该标记，不再以「已有物化行」判断（事件可能在回填前写入部分日期的行）
+-- 升级后已有用户没有标记，下次启动回填时会各重建一次
+
+CREATE TABLE IF NOT EXISTS daily_score_backfill (
+    user_id BIGINT NOT NULL,
+    completed_at DATETIME NOT NULL,
+    PRIMARY KEY (user_id)
+);
@@ -1,4 +1,4 @@
--- 手动迁移脚本（若使用 ddl-auto=update 可跳过，Hibernate 会自动执行）
+-- 迁移脚本（启动时由 SchemaMigrationRunner 自动执行）
 -- 若某列已存在会报错，可跳过该句继续执行其余语句
 ALTER TABLE memo ADD COLUMN status VARCHAR(20) NULL;
 ALTER TABLE memo ADD COLUMN granularity VARCHAR(20) NULL;
@@ -0,0 +1,18 @@
+-- 热点查询的复合索引
+-- 若索引已存在会报错（Duplicate key name），可跳过该句继续执行其余语句
+
+-- 今日可行动任务：user_id + status + deadline 范围
+CREATE INDEX idx_memo_user_status_deadline ON memo (user_id, status, deadline);
+
+-- 模糊任务拆分提示：user_id + granularity + status + created_at 范围
+CREATE INDEX idx_memo_user_granularity_status_created ON memo (user_id, granularity, status, created_at);
+
+-- Link 正向/反向查找（含第三列，覆盖按目标类型过滤的批量查询）
+CREATE INDEX idx_link_source ON link (source_type, source_id, target_type);
+CREATE INDEX idx_link_target ON link (target_type, target_id, source_type);
+
+-- 有效目标：user_id + archived_at IS NULL
+CREATE INDEX idx_goal_user_archived ON goal (user_id, archived_at);
+
+-- 笔记按用户、创建日期聚合
+CREATE INDEX idx_note_user_created ON note (user_id, created_at);
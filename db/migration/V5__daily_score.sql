@@ -0,0 +1,14 @@
+-- Insight 评分物化表：每个用户每天一行单日分量，主键即区间查询所用的索引
+CREATE TABLE IF NOT EXISTS daily_score (
+    user_id BIGINT NOT NULL,
+    score_date DATE NOT NULL,
+    planned_tasks INT NOT NULL,
+    completed_tasks INT NOT NULL,
+    planned_weight DOUBLE NOT NULL,
+    completed_weight DOUBLE NOT NULL,
+    note_count INT NOT NULL,
+    goals_completed INT NOT NULL,
+    touched_goals INT NOT NULL,
+    updated_at DATETIME NOT NULL,
+    PRIMARY KEY (user_id, score_date)
+);
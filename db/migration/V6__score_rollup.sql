@@ -0,0 +1,18 @@
+-- Insight 评分周/月预聚合：由 daily_score 汇总，主键即区间查询所用的索引
+CREATE TABLE IF NOT EXISTS score_rollup (
+    user_id BIGINT NOT NULL,
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start DATE NOT NULL,
+    planned_tasks INT NOT NULL,
+    completed_tasks INT NOT NULL,
+    planned_weight DOUBLE NOT NULL,
+    completed_weight DOUBLE NOT NULL,
+    note_count INT NOT NULL,
+    goals_completed INT NOT NULL,
+    touched_goals INT NOT NULL,
+    local_score_sum DOUBLE NOT NULL,
+    note_factor_sum DOUBLE NOT NULL,
+    active_days INT NOT NULL,
+    updated_at DATETIME NOT NULL,
+    PRIMARY KEY (user_id, granularity, bucket_start)
+);
@@ -0,0 +1,7 @@
+-- 关键字检索的数据库侧方案：ngram 分词的全文索引（search.backend=fulltext 时使用）
+-- ngram 按 ngram_token_size（默认 2）切分中文，查询见 TaskMapper.searchTasksFulltext / NoteRepository.searchFulltext
+-- 若索引已存在会报错（Duplicate key name），可跳过该句继续执行其余语句
+
+ALTER TABLE memo ADD FULLTEXT INDEX ft_memo_title_description (title, description) WITH PARSER ngram;
+
+ALTER TABLE note ADD FULLTEXT INDEX ft_note_title_content (title, content) WITH PARSER ngram;
@@ -0,0 +1,5 @@
+-- 检索结果的键集分页（TaskMapper.searchTasksPage）：按 (deadline, id) 倒序翻页
+-- InnoDB 二级索引隐含主键，(user_id, deadline) 即按 (user_id, deadline, id) 有序，每页都是一次索引范围扫描
+-- 若索引已存在会报错（Duplicate key name），可跳过该句继续执行其余语句
+
+CREATE INDEX idx_memo_user_deadline ON memo (user_id, deadline);
@@ -0,0 +1,15 @@
+-- 目标进度计数器：关联任务总数 / 已完成（DONE、ARCHIVED）任务数
+-- 由任务事件与关联变更增量维护（GoalProgressService），GoalProgressReconciler 定期按 link 表校正
+-- 若列已存在会报错（Duplicate column name），可跳过该句继续执行其余语句
+
+ALTER TABLE goal ADD COLUMN total_tasks INT NOT NULL DEFAULT 0;
+ALTER TABLE goal ADD COLUMN done_tasks INT NOT NULL DEFAULT 0;
+
+-- 按现有关联初始化（只统计与目标同一用户的任务，同一任务的重复链接只算一次）
+UPDATE goal g SET
+    total_tasks = (SELECT COUNT(DISTINCT t.id) FROM link l JOIN memo t ON t.id = l.source_id
+                   WHERE l.source_type = 'TASK' AND l.target_type = 'GOAL' AND l.target_id = g.id
+                     AND t.user_id = g.user_id),
+    done_tasks = (SELECT COUNT(DISTINCT t.id) FROM link l JOIN memo t ON t.id = l.source_id
+                  WHERE l.source_type = 'TASK' AND l.target_type = 'GOAL' AND l.target_id = g.id
+                    AND t.user_id = g.user_id AND t.status IN ('DONE', 'ARCHIVED'));
@@ -0,0 +1,172 @@
+package org.zhzssp.memorandum.bench;
+
+import org.zhzssp.memorandum.entity.EnergyLevel;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.MentalLoad;
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.NoteType;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskGranularity;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.entity.TimeSlot;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 基准用的合成数据：用户、任务、笔记、目标、Task→Goal 链接，全部在内存中生成（不落库）。
+ *
+ * 同一 (seed, taskCount, userCount, anchor) 生成的数据完全相同，两次基准运行之间可直接比较。
+ * 任务按轮询分配给用户；截止日期分布在 anchor 前后 180 天内，约 10% 的任务没有截止日期。
+ * 规模比例：笔记 = 任务 / 5，每个用户的目标 = max(5, 该用户任务数 / 100)，链接 ≈ 任务 × 1.2。
+ */
+public final class SyntheticDataset {
+
+    public static final long DEFAULT_SEED = 20240601L;
+
+    private final List<User> users;
+    private final List<Task> tasks;
+    private final List<Note> notes;
+    private final List<Goal> goals;
+    private final List<Link> links;
+
+    private SyntheticDataset(List<User> users, List<Task> tasks, List<Note> notes, List<Goal> goals, List<Link> links) {
+        this.users = users;
+        this.tasks = tasks;
+        this.notes = notes;
+        this.goals = goals;
+        this.links = links;
+    }
+
+    public static SyntheticDataset generate(int taskCount, int userCount, LocalDate anchor) {
+        return generate(DEFAULT_SEED, taskCount, userCount, anchor);
+    }
+
+    public static SyntheticDataset generate(long seed, int taskCount, int userCount, LocalDate anchor) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime base = anchor.atStartOfDay();
+
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            User u = new User();
+            u.setId((long) i + 1);
+            u.setUsername("bench-user-" + (i + 1));
+            users.add(u);
+        }
+
+        List<Goal> goals = new ArrayList<>();
+        List<List<Goal>> goalsByUser = new ArrayList<>(userCount);
+        long goalId = 1;
+        for (User u : users) {
+            int perUser = Math.max(5, taskCount / userCount / 100);
+            List<Goal> own = new ArrayList<>(perUser);
+            for (int i = 0; i < perUser; i++) {
+                Goal g = new Goal();
+                g.setId(goalId++);
+                g.setName("goal-" + g.getId());
+                g.setUser(u);
+                g.setCreatedAt(base.minusDays(200 + random.nextInt(100)));
+                if (random.nextInt(4) == 0) {
+                    g.setArchivedAt(base.plusDays(random.nextInt(361) - 180).plusHours(18));
+                }
+                own.add(g);
+            }
+            goals.addAll(own);
+            goalsByUser.add(own);
+        }
+
+        List<Task> tasks = new ArrayList<>(taskCount);
+        List<Link> links = new ArrayList<>(taskCount + taskCount / 5);
+        long linkId = 1;
+        for (int i = 0; i < taskCount; i++) {
+            int userIndex = i % userCount;
+            Task t = new Task();
+            t.setId((long) i + 1);
+            t.setTitle("task-" + (i + 1));
+            t.setUser(users.get(userIndex));
+            LocalDateTime created = base.minusDays(random.nextInt(200)).plusMinutes(random.nextInt(24 * 60));
+            t.setCreatedAt(created);
+            if (random.nextInt(10) != 0) {
+                t.setDeadline(base.plusDays(random.nextInt(361) - 180).plusHours(random.nextInt(24)));
+            }
+            t.setStatus(pick(random, TaskStatus.values(), true));
+            t.setGranularity(pick(random, TaskGranularity.values(), true));
+            t.setEnergyRequirement(pick(random, EnergyLevel.values(), true));
+            t.setMentalLoad(pick(random, MentalLoad.values(), true));
+            t.setPreferredSlot(pick(random, TimeSlot.values(), true));
+            tasks.add(t);
+
+            // 约 80% 的任务关联 1 个目标，其中四分之一再关联第 2 个
+            List<Goal> own = goalsByUser.get(userIndex);
+            int linkCount = random.nextInt(5) == 0 ? 0 : (random.nextInt(4) == 0 ? 2 : 1);
+            for (int k = 0; k < linkCount; k++) {
+                Link l = new Link();
+                l.setId(linkId++);
+                l.setSourceType(Link.LinkSourceType.TASK);
+                l.setSourceId(t.getId());
+                l.setTargetType(Link.LinkTargetType.GOAL);
+                l.setTargetId(own.get(random.nextInt(own.size())).getId());
+                links.add(l);
+            }
+        }
+
+        int noteCount = taskCount / 5;
+        List<Note> notes = new ArrayList<>(noteCount);
+        for (int i = 0; i < noteCount; i++) {
+            Note n = new Note();
+            n.setId((long) i + 1);
+            n.setTitle("note-" + (i + 1));
+            n.setType(pick(random, NoteType.values(), false));
+            n.setUser(users.get(i % userCount));
+            n.setCreatedAt(base.plusDays(random.nextInt(361) - 180).plusHours(20));
+            notes.add(n);
+        }
+
+        return new SyntheticDataset(List.copyOf(users), tasks, notes, goals, links);
+    }
+
+    /** 随机取枚举值；nullable 时约 1/8 的概率为 null（兼容旧数据） */
+    private static <E> E pick(SplittableRandom random, E[] values, boolean nullable) {
+        if (nullable && random.nextInt(8) == 0) {
+            return null;
+        }
+        return values[random.nextInt(values.length)];
+    }
+
+    public List<User> users() {
+        return users;
+    }
+
+    public List<Task> tasks() {
+        return tasks;
+    }
+
+    public List<Note> notes() {
+        return notes;
+    }
+
+    public List<Goal> goals() {
+        return goals;
+    }
+
+    public List<Link> links() {
+        return links;
+    }
+
+    public List<Task> tasksOf(User user) {
+        return tasks.stream().filter(t -> t.getUser() == user).toList();
+    }
+
+    public List<Note> notesOf(User user) {
+        return notes.stream().filter(n -> n.getUser() == user).toList();
+    }
+
+    public List<Goal> goalsOf(User user) {
+        return goals.stream().filter(g -> g.getUser() == user).toList();
+    }
+}
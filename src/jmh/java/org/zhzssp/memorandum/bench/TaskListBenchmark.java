@@ -0,0 +1,70 @@
+package org.zhzssp.memorandum.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.zhzssp.memorandum.core.service.TaskService;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.UserPreference;
+import org.zhzssp.memorandum.service.UserPreferenceService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard 任务列表热点：按时间段/精力排序、按用户偏好过滤。
+ * 数据以固定日期为锚点生成，偏好过滤也以该日期作为「今天」区分未来任务，不同日期的运行结果可直接比较。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TaskListBenchmark {
+
+    private static final LocalDate ANCHOR = LocalDate.of(2025, 1, 1);
+
+    @Param({"100", "10000", "1000000"})
+    public int taskCount;
+
+    private List<Task> tasks;
+    private UserPreferenceService preferenceService;
+    private UserPreference hideFuture;
+    private UserPreference limitVisible;
+
+    @Setup
+    public void setup() {
+        tasks = SyntheticDataset.generate(taskCount, 1, ANCHOR).tasks();
+        // 只调用不访问数据库的重载，无需注入依赖
+        preferenceService = new UserPreferenceService();
+
+        hideFuture = new UserPreference();
+        hideFuture.setShowFutureTasks(false);
+
+        limitVisible = new UserPreference();
+        limitVisible.setShowFutureTasks(true);
+        limitVisible.setMaxVisibleTasks(50);
+    }
+
+    @Benchmark
+    public List<Task> sortBySlotAndEnergy() {
+        List<Task> copy = new ArrayList<>(tasks);
+        copy.sort(TaskService.taskComparatorBySlotAndEnergy());
+        return copy;
+    }
+
+    @Benchmark
+    public List<Task> applyTaskFiltersHideFuture() {
+        return preferenceService.applyTaskFilters(tasks, hideFuture, ANCHOR);
+    }
+
+    @Benchmark
+    public List<Task> applyTaskFiltersLimitVisible() {
+        return preferenceService.applyTaskFilters(tasks, limitVisible, ANCHOR);
+    }
+}
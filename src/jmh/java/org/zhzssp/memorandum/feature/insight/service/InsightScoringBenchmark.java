@@ -0,0 +1,77 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.zhzssp.memorandum.bench.SyntheticDataset;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.ScoreInputs;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insight 评分热点：单任务权重、365 天区间计分（列式引擎 / 对照实现 / 已构建快照上的计分）。
+ * 与被测方法同包，以便直接调用包内可见的 taskWeight 和对照实现。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class InsightScoringBenchmark {
+
+    /** 固定锚点日期，保证两次运行的数据一致 */
+    private static final LocalDate ANCHOR = LocalDate.of(2025, 1, 1);
+
+    @Param({"100", "10000", "1000000"})
+    public int taskCount;
+
+    private List<Task> tasks;
+    private ScoreInputs inputs;
+    private ColumnarScoreEngine engine;
+    private LocalDate start;
+    private LocalDate end;
+
+    @Setup
+    public void setup() {
+        SyntheticDataset data = SyntheticDataset.generate(taskCount, 1, ANCHOR);
+        User user = data.users().get(0);
+        tasks = data.tasksOf(user);
+        inputs = new ScoreInputs(tasks, data.notesOf(user), data.goalsOf(user), data.links());
+        engine = ColumnarScoreEngine.build(inputs);
+        start = ANCHOR.minusDays(182);
+        end = start.plusDays(364);
+    }
+
+    /** 全部任务的权重之和（返回值防止被 JIT 消除） */
+    @Benchmark
+    public double taskWeight() {
+        double sum = 0.0;
+        for (Task t : tasks) {
+            sum += InsightScoreService.taskWeight(t, ANCHOR);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<DailyScore> calculateScores() {
+        return InsightScoreService.calculateScores(inputs, start, end);
+    }
+
+    @Benchmark
+    public List<DailyScore> calculateScoresReference() {
+        return InsightScoreService.calculateScoresReference(inputs, start, end);
+    }
+
+    @Benchmark
+    public List<DailyScore> columnarScorePass() {
+        return engine.score(start, end);
+    }
+}
@@ -0,0 +1,80 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 总结 Prompt 构造：逐日原始数据与压缩统计随区间长度的耗时和长度对比。
+ * Prompt 字符数通过辅助计数器与耗时一起出现在结果中（rawPrompt:promptChars / compactPrompt:promptChars）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SummaryPromptBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+    private static final int BUDGET = 6000;
+
+    @Param({"14", "90", "365", "1825", "3650"})
+    public int days;
+
+    private List<DailyScore> scores;
+    private LocalDate end;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(20240601L);
+        scores = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            // 每 90 天切换一次水平，给变化点检测留出可识别的结构
+            int level = (i / 90) % 2 == 0 ? 55 : 75;
+            int total = Math.max(0, Math.min(100, level + random.nextInt(21) - 10));
+            DailyScore d = new DailyScore();
+            d.setDate(START.plusDays(i));
+            d.setTotalScore(total);
+            d.setPlannedTasks(random.nextInt(8));
+            d.setCompletedTasks(Math.min(d.getPlannedTasks(), total / 20));
+            d.setNoteCount(random.nextInt(4));
+            d.setWeightedTaskCompletionRate(total / 100.0);
+            d.setGoalsCompletedToday(random.nextInt(20) == 0 ? 1 : 0);
+            d.setAvgGoalProgress(Math.min(1.0, i / (double) days));
+            scores.add(d);
+        }
+        end = START.plusDays(days - 1L);
+    }
+
+    /** 最近一次构造的 Prompt 字符数 */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PromptSize {
+        public long promptChars;
+    }
+
+    @Benchmark
+    public String rawPrompt(PromptSize size) {
+        String prompt = SummaryPromptBuilder.buildRaw(START, end, scores, "规则总结");
+        size.promptChars = prompt.length();
+        return prompt;
+    }
+
+    @Benchmark
+    public String compactPrompt(PromptSize size) {
+        String prompt = SummaryPromptBuilder.build(START, end, scores, "规则总结", BUDGET);
+        size.promptChars = prompt.length();
+        return prompt;
+    }
+}
@@ -0,0 +1,78 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.zhzssp.memorandum.feature.search.service.NGramIndex.DocType;
+import org.zhzssp.memorandum.feature.search.service.NGramIndex.Hit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务检索：n-gram 索引查询与逐条子串匹配（等价于 LIKE '%kw%' 全表扫描）随任务数增长的耗时对比。
+ * 查询词是一个低频词，命中数大致固定，索引查询耗时应基本不随任务数变化。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SearchIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "整理", "周报", "复盘", "学习", "计划", "阅读", "锻炼", "会议", "需求", "评审",
+            "上线", "测试", "文档", "预算", "采购", "面试", "培训", "总结", "调研", "设计"
+    };
+    private static final String RARE = "年度述职";
+
+    @Param({"1000", "10000", "100000"})
+    public int taskCount;
+
+    private NGramIndex index;
+    private List<String> texts;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(20240601L);
+        index = new NGramIndex();
+        texts = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int k = 0; k < 3; k++) {
+                title.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            // 固定 20 个文档包含低频词
+            if (i % (taskCount / 20) == 0) {
+                title.append(RARE);
+            }
+            StringBuilder body = new StringBuilder();
+            for (int k = 0; k < 12; k++) {
+                body.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            index.upsert(DocType.TASK, i, title.toString(), body.toString(), null);
+            texts.add(NGramIndex.normalize(title.toString()) + "\n" + NGramIndex.normalize(body.toString()));
+        }
+    }
+
+    @Benchmark
+    public List<Hit> indexQuery() {
+        return index.search(DocType.TASK, RARE, null);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int matches = 0;
+        for (String text : texts) {
+            if (text.contains(RARE)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,10 @@
+package org.zhzssp.memorandum.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** 启用 @Scheduled 定时任务（如目标进度计数器校正） */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,28 @@
+package org.zhzssp.memorandum.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 启动时执行 db/migration 脚本，取代 ddl-auto=update。
+ * 迁移在 JPA EntityManagerFactory 初始化之前完成，保证实体映射的表结构已就绪。
+ */
+@Configuration
+@ConditionalOnProperty(name = "migration.enabled", havingValue = "true", matchIfMissing = true)
+public class SchemaMigrationConfig {
+
+    @Bean
+    public SchemaMigrationRunner schemaMigrationRunner(JdbcTemplate jdbcTemplate,
+                                                       @Value("${migration.location:classpath:db/migration}") String location) {
+        return new SchemaMigrationRunner(jdbcTemplate, location);
+    }
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaMigration() {
+        return new EntityManagerFactoryDependsOnPostProcessor("schemaMigrationRunner");
+    }
+}
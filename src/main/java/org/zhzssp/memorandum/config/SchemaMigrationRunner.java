@@ -0,0 +1,156 @@
+package org.zhzssp.memorandum.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * 数据库迁移执行器：启动时按版本号顺序执行 db/migration 下的 V{n}__{描述}.sql，
+ * 并把执行结果记录到 schema_migration 表，已记录的版本不会重复执行。
+ *
+ * 早期脚本并非幂等（脚本注释约定「若某列已存在会报错，可跳过该句」），
+ * 因此对「表/列/索引已存在」这类错误只跳过当前语句，其余错误会中止启动。
+ */
+public class SchemaMigrationRunner implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrationRunner.class);
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    /**
+     * 可跳过的 MySQL 错误码：
+     * 1050 表已存在，1060 列已存在，1061 索引名已存在，1091 要删除的列/索引不存在。
+     */
+    private static final Set<Integer> SKIPPABLE_ERROR_CODES = Set.of(1050, 1060, 1061, 1091);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String location;
+
+    public SchemaMigrationRunner(JdbcTemplate jdbcTemplate, String location) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.location = location;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        migrate();
+    }
+
+    public void migrate() throws IOException {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migration ("
+                + "version INT PRIMARY KEY, "
+                + "description VARCHAR(200) NOT NULL, "
+                + "script VARCHAR(200) NOT NULL, "
+                + "checksum BIGINT NOT NULL, "
+                + "skipped_statements INT NOT NULL, "
+                + "installed_at DATETIME NOT NULL)");
+
+        Map<Integer, Long> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT version, checksum FROM schema_migration",
+                rs -> { applied.put(rs.getInt("version"), rs.getLong("checksum")); });
+
+        for (MigrationScript script : findScripts()) {
+            Long appliedChecksum = applied.get(script.version());
+            if (appliedChecksum != null) {
+                if (appliedChecksum != script.checksum()) {
+                    log.warn("迁移脚本 {} 在执行后被修改过（checksum 不一致），不会重新执行", script.name());
+                }
+                continue;
+            }
+            int skipped = apply(script);
+            jdbcTemplate.update("INSERT INTO schema_migration "
+                            + "(version, description, script, checksum, skipped_statements, installed_at) "
+                            + "VALUES (?, ?, ?, ?, ?, ?)",
+                    script.version(), script.description(), script.name(), script.checksum(), skipped,
+                    LocalDateTime.now());
+            log.info("已执行迁移脚本 {}（跳过 {} 条已生效语句）", script.name(), skipped);
+        }
+    }
+
+    private int apply(MigrationScript script) {
+        int skipped = 0;
+        for (String statement : splitStatements(script.sql())) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (DataAccessException e) {
+                Integer code = mysqlErrorCode(e);
+                if (code == null || !SKIPPABLE_ERROR_CODES.contains(code)) {
+                    throw e;
+                }
+                skipped++;
+                log.debug("跳过已生效的语句（错误码 {}）：{}", code, statement);
+            }
+        }
+        return skipped;
+    }
+
+    private List<MigrationScript> findScripts() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(location + "/V*__*.sql");
+        List<MigrationScript> scripts = new ArrayList<>();
+        for (Resource resource : resources) {
+            String name = resource.getFilename();
+            Matcher m = name != null ? SCRIPT_NAME.matcher(name) : null;
+            if (m == null || !m.matches()) {
+                continue;
+            }
+            String sql = resource.getContentAsString(StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            scripts.add(new MigrationScript(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '),
+                    name, sql, crc.getValue()));
+        }
+        scripts.sort(Comparator.comparingInt(MigrationScript::version));
+        return scripts;
+    }
+
+    /** 按行尾分号拆分语句，忽略以 -- 开头的注释行 */
+    static List<String> splitStatements(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : sql.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String statement = current.toString().trim();
+                statements.add(statement.substring(0, statement.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static Integer mysqlErrorCode(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sqlException) {
+                return sqlException.getErrorCode();
+            }
+        }
+        return null;
+    }
+
+    private record MigrationScript(int version, String description, String name, String sql, long checksum) {}
+}
@@ -33,6 +33,9 @@ public class WebSecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // 允许访问根路径与登录、注册及静态资源
                         .requestMatchers("/", "/register", "/login", "/css/**", "/js/**", "/user-logged-in").permitAll()
+                        // 缓存统计是全局数据，只对管理员开放（security.admin-usernames）
+                        .requestMatchers("/api/dashboard-cache/stats", "/insight/score/summary/cache-stats", "/api/link-graph/stats")
+                        .hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .formLogin(login -> login
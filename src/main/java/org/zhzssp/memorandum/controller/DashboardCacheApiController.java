@@ -0,0 +1,36 @@
+package org.zhzssp.memorandum.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.zhzssp.memorandum.service.DashboardSnapshotService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dashboard 快照缓存统计：命中/未命中次数等，用于观察缓存效果。
+ * 统计覆盖所有用户，仅管理员可访问（见 WebSecurityConfig）。
+ */
+@RestController
+@RequestMapping("/api")
+public class DashboardCacheApiController {
+
+    @Autowired
+    private DashboardSnapshotService dashboardSnapshotService;
+
+    @GetMapping("/dashboard-cache/stats")
+    public Map<String, Object> stats() {
+        CacheStats stats = dashboardSnapshotService.stats();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", dashboardSnapshotService.size());
+        body.put("hitCount", stats.hitCount());
+        body.put("missCount", stats.missCount());
+        body.put("hitRate", stats.hitRate());
+        body.put("evictionCount", stats.evictionCount());
+        body.put("averageLoadPenaltyMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return body;
+    }
+}
@@ -0,0 +1,41 @@
+package org.zhzssp.memorandum.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.zhzssp.memorandum.service.LinkGraphService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Link 关系图缓存统计：缓存的用户数、边数、估算内存与每条边的平均占用。
+ * 统计覆盖所有用户，仅管理员可访问（见 WebSecurityConfig）。
+ */
+@RestController
+@RequestMapping("/api")
+public class LinkGraphApiController {
+
+    @Autowired
+    private LinkGraphService linkGraphService;
+
+    @GetMapping("/link-graph/stats")
+    public Map<String, Object> stats() {
+        CacheStats stats = linkGraphService.stats();
+        long edges = linkGraphService.edgeCount();
+        long bytes = linkGraphService.estimatedBytes();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", linkGraphService.size());
+        body.put("edgeCount", edges);
+        body.put("estimatedBytes", bytes);
+        body.put("bytesPerEdge", edges == 0 ? 0.0 : (double) bytes / edges);
+        body.put("hitCount", stats.hitCount());
+        body.put("missCount", stats.missCount());
+        body.put("hitRate", stats.hitRate());
+        body.put("evictionCount", stats.evictionCount());
+        body.put("averageLoadPenaltyMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return body;
+    }
+}
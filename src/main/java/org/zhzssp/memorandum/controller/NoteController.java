@@ -2,12 +2,17 @@ package org.zhzssp.memorandum.controller;
 
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.zhzssp.memorandum.core.event.NoteSavedEvent;
 import org.zhzssp.memorandum.entity.Note;
 import org.zhzssp.memorandum.entity.NoteType;
 import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.search.service.SearchIndexService;
+import org.zhzssp.memorandum.mapper.FulltextQuery;
 import org.zhzssp.memorandum.repository.NoteRepository;
 import org.zhzssp.memorandum.repository.UserRepository;
 
@@ -24,12 +29,32 @@ public class NoteController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Value("${search.backend:memory}")
+    private String searchBackend;
+
     @GetMapping("/list")
     public List<Note> listNotes(Principal principal) {
         User user = userRepository.findByUsername(principal.getName()).orElseThrow();
         return noteRepository.findByUser(user);
     }
 
+    /** 按关键字检索笔记标题与内容（内存 n-gram 索引，search.backend=fulltext 时走全文索引），按相关度排序 */
+    @GetMapping("/search")
+    public List<Note> searchNotes(@RequestParam String keyword, Principal principal) {
+        User user = userRepository.findByUsername(principal.getName()).orElseThrow();
+        if ("fulltext".equals(searchBackend)) {
+            String query = FulltextQuery.booleanQuery(keyword);
+            return query == null ? List.of() : noteRepository.searchFulltext(user.getId(), query);
+        }
+        return searchIndexService.searchNotes(user, keyword);
+    }
+
     @PostMapping("/add")
     public ResponseEntity<?> addNote(@RequestBody NewNoteDto dto, Principal principal) {
         if (!StringUtils.hasText(dto.getTitle()) && !StringUtils.hasText(dto.getContent())) {
@@ -51,6 +76,7 @@ public class NoteController {
 
         note.setUser(user);
         noteRepository.save(note);
+        eventPublisher.publishEvent(new NoteSavedEvent(note, user));
         return ResponseEntity.ok(note.getId());
     }
 
@@ -2,24 +2,27 @@ package org.zhzssp.memorandum.controller;
 
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.zhzssp.memorandum.entity.*;
-import org.zhzssp.memorandum.repository.NoteRepository;
 import org.zhzssp.memorandum.repository.TaskRepository;
 import org.zhzssp.memorandum.repository.UserRepository;
 import org.zhzssp.memorandum.core.service.TaskService;
 import org.zhzssp.memorandum.feature.goal.dto.GoalWithTasks;
 import org.zhzssp.memorandum.feature.goal.entity.Goal;
 import org.zhzssp.memorandum.feature.goal.service.GoalService;
+import org.zhzssp.memorandum.feature.search.service.SearchIndexService;
+import org.zhzssp.memorandum.service.DashboardSnapshot;
+import org.zhzssp.memorandum.service.DashboardSnapshotService;
+import org.zhzssp.memorandum.service.DashboardSnapshot.PreferenceView;
+import org.zhzssp.memorandum.service.DashboardSnapshot.TaskView;
 import org.zhzssp.memorandum.service.UserPreferenceService;
 import org.zhzssp.memorandum.entity.UserPreference;
-import org.zhzssp.memorandum.entity.Note;
 
 import java.util.Map;
-import java.util.HashMap;
 
 import java.security.Principal;
 import java.time.LocalDate;
@@ -51,15 +54,23 @@ public class TaskController {
     private UserPreferenceService userPreferenceService;
 
     @Autowired
-    private NoteRepository noteRepository;
+    private DashboardSnapshotService dashboardSnapshotService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    /** 关键字检索后端：memory（内存 n-gram 索引，按相关度排序）、like（数据库 LIKE 查询）或 fulltext（MySQL ngram 全文索引，需 V7 迁移） */
+    @Value("${search.backend:memory}")
+    private String searchBackend;
 
     @GetMapping("/dashboard")
     public String dashboard(@NotNull Model model,
                             Principal principal,
                             @RequestParam(name = "taskView", required = false) String taskView,
                             jakarta.servlet.http.HttpSession session) {
-        User user = userRepository.findByUsername(principal.getName()).orElseThrow();
-        List<Task> allTasks = taskRepository.findByUser(user);
+        // 快照命中时整个页面不访问数据库；任务/目标/偏好等写操作会通过事件使快照失效
+        DashboardSnapshot snapshot = dashboardSnapshotService.getSnapshot(principal.getName());
+        List<TaskView> allTasks = snapshot.allTasks();
 
         // 思维模式：execute/learn/plan
         String mindsetMode = FeatureSelectionController.getMindsetMode(session);
@@ -74,16 +85,16 @@ public class TaskController {
         model.addAttribute("mindsetMode", mindsetMode);
 
         // 获取用户偏好
-        UserPreference preference = userPreferenceService.getOrCreatePreference(user);
+        PreferenceView preference = snapshot.preference();
         model.addAttribute("preference", preference);
-        model.addAttribute("theme", preference.getTheme() != null ? preference.getTheme() : "light");
-        model.addAttribute("goalTaskTree", goalService.findGoalTaskTree(user));
+        model.addAttribute("theme", preference.theme() != null ? preference.theme() : "light");
+        model.addAttribute("goalTaskTree", snapshot.goalTaskTree());
 
         // 规划模式下使用用户偏好的默认视图；非规划模式固定为今日
         if ("plan".equals(mindsetMode)) {
             if (taskView == null || taskView.isEmpty() || !List.of("today", "slot", "energy").contains(taskView)) {
-                taskView = (preference.getDefaultTaskView() != null && List.of("slot", "energy").contains(preference.getDefaultTaskView()))
-                        ? preference.getDefaultTaskView() : "today";
+                taskView = (preference.defaultTaskView() != null && List.of("slot", "energy").contains(preference.defaultTaskView()))
+                        ? preference.defaultTaskView() : "today";
             }
         } else {
             taskView = "today";
@@ -91,13 +102,13 @@ public class TaskController {
         model.addAttribute("taskView", taskView);
 
         // 今日视图的基础任务集合（PENDING + deadline=今天或未设置）
-        List<Task> todayTasks = taskService.getTodayActionableTasks(user);
+        List<TaskView> todayTasks = snapshot.todayTasks();
 
         // 根据思维模式应用不同的数据准备逻辑
         if ("execute".equals(mindsetMode)) {
             // 执行模式：低信息密度，只看今日+当前任务
             // 应用用户偏好过滤
-            List<Task> filteredTasks = userPreferenceService.applyTaskFilters(todayTasks, user);
+            List<TaskView> filteredTasks = userPreferenceService.applyTaskFilters(todayTasks, preference);
             model.addAttribute("tasks", filteredTasks);
             model.addAttribute("memos", filteredTasks); // 兼容模板
 
@@ -107,13 +118,12 @@ public class TaskController {
 
         } else if ("learn".equals(mindsetMode)) {
             // 学习模式：中信息密度，任务+笔记并排
-            List<Task> filteredTasks = userPreferenceService.applyTaskFilters(todayTasks, user);
+            List<TaskView> filteredTasks = userPreferenceService.applyTaskFilters(todayTasks, preference);
             model.addAttribute("tasks", filteredTasks);
             model.addAttribute("memos", filteredTasks);
 
             // 获取笔记列表
-            List<Note> notes = noteRepository.findByUser(user);
-            model.addAttribute("notes", notes);
+            model.addAttribute("notes", snapshot.notes());
 
             // 显示笔记创建功能，但不显示目标管理
             model.addAttribute("showGoals", false);
@@ -122,24 +132,21 @@ public class TaskController {
         } else if ("plan".equals(mindsetMode)) {
             // 规划模式：高信息密度，目标/项目/全局
             // 显示所有任务（包括未来任务，如果用户偏好允许）
-            List<Task> allPendingTasks = allTasks.stream()
-                    .filter(t -> t.getEffectiveStatus() == TaskStatus.PENDING)
-                    .collect(Collectors.toList());
-            List<Task> filteredTasks = userPreferenceService.applyTaskFilters(allPendingTasks, user);
+            List<TaskView> filteredTasks = userPreferenceService.applyTaskFilters(snapshot.pendingTasks(), preference);
 
             // 时间段视图分组（如果 taskView=slot）
             if ("slot".equals(taskView)) {
-                List<Task> morningTasks = filteredTasks.stream()
-                        .filter(t -> t.getPreferredSlot() == TimeSlot.MORNING)
+                List<TaskView> morningTasks = filteredTasks.stream()
+                        .filter(t -> t.preferredSlot() == TimeSlot.MORNING)
                         .collect(Collectors.toList());
-                List<Task> afternoonTasks = filteredTasks.stream()
-                        .filter(t -> t.getPreferredSlot() == TimeSlot.AFTERNOON)
+                List<TaskView> afternoonTasks = filteredTasks.stream()
+                        .filter(t -> t.preferredSlot() == TimeSlot.AFTERNOON)
                         .collect(Collectors.toList());
-                List<Task> eveningTasks = filteredTasks.stream()
-                        .filter(t -> t.getPreferredSlot() == TimeSlot.EVENING)
+                List<TaskView> eveningTasks = filteredTasks.stream()
+                        .filter(t -> t.preferredSlot() == TimeSlot.EVENING)
                         .collect(Collectors.toList());
-                List<Task> otherSlotTasks = filteredTasks.stream()
-                        .filter(t -> t.getPreferredSlot() == null)
+                List<TaskView> otherSlotTasks = filteredTasks.stream()
+                        .filter(t -> t.preferredSlot() == null)
                         .collect(Collectors.toList());
                 model.addAttribute("morningTasks", morningTasks);
                 model.addAttribute("afternoonTasks", afternoonTasks);
@@ -147,17 +154,17 @@ public class TaskController {
                 model.addAttribute("otherSlotTasks", otherSlotTasks);
             } else if ("energy".equals(taskView)) {
                 // 精力视图：按精力需求分组
-                List<Task> highEnergyTasks = filteredTasks.stream()
-                        .filter(t -> t.getEnergyRequirement() == EnergyLevel.HIGH)
+                List<TaskView> highEnergyTasks = filteredTasks.stream()
+                        .filter(t -> t.energyRequirement() == EnergyLevel.HIGH)
                         .collect(Collectors.toList());
-                List<Task> mediumEnergyTasks = filteredTasks.stream()
-                        .filter(t -> t.getEnergyRequirement() == EnergyLevel.MEDIUM)
+                List<TaskView> mediumEnergyTasks = filteredTasks.stream()
+                        .filter(t -> t.energyRequirement() == EnergyLevel.MEDIUM)
                         .collect(Collectors.toList());
-                List<Task> lowEnergyTasks = filteredTasks.stream()
-                        .filter(t -> t.getEnergyRequirement() == EnergyLevel.LOW)
+                List<TaskView> lowEnergyTasks = filteredTasks.stream()
+                        .filter(t -> t.energyRequirement() == EnergyLevel.LOW)
                         .collect(Collectors.toList());
-                List<Task> otherEnergyTasks = filteredTasks.stream()
-                        .filter(t -> t.getEnergyRequirement() == null)
+                List<TaskView> otherEnergyTasks = filteredTasks.stream()
+                        .filter(t -> t.energyRequirement() == null)
                         .collect(Collectors.toList());
                 model.addAttribute("highEnergyTasks", highEnergyTasks);
                 model.addAttribute("mediumEnergyTasks", mediumEnergyTasks);
@@ -170,15 +177,15 @@ public class TaskController {
             }
 
             // 显示目标管理、统计等（可由偏好关闭）
-            model.addAttribute("showGoals", preference.getShowGoals() != Boolean.FALSE);
-            model.addAttribute("showScoreSection", preference.getShowScoreSection() != Boolean.FALSE);
-            model.addAttribute("showStatistics", preference.getShowStatistics());
+            model.addAttribute("showGoals", preference.showGoals() != Boolean.FALSE);
+            model.addAttribute("showScoreSection", preference.showScoreSection() != Boolean.FALSE);
+            model.addAttribute("showStatistics", preference.showStatistics());
 
             // 计算统计信息（如果用户偏好允许）
-            if (preference.getShowStatistics()) {
+            if (preference.showStatistics()) {
                 long totalTasks = allTasks.size();
                 long doneTasks = allTasks.stream()
-                        .filter(t -> t.getEffectiveStatus() == TaskStatus.DONE)
+                        .filter(t -> t.effectiveStatus() == TaskStatus.DONE)
                         .count();
                 double completionRate = totalTasks > 0 ? (doneTasks * 100.0 / totalTasks) : 0.0;
                 model.addAttribute("totalTasks", totalTasks);
@@ -187,41 +194,22 @@ public class TaskController {
             }
         }
 
-        // 任务→目标弱关联（用于展示标签）- 仅在需要时计算
-        Map<Long, List<Goal>> taskToGoals = new HashMap<>();
-        List<Task> tasksForGoals = "plan".equals(mindsetMode) || "learn".equals(mindsetMode)
-                ? (model.getAttribute("tasks") != null ? (List<Task>) model.getAttribute("tasks") : todayTasks)
-                : todayTasks;
-        for (Task t : tasksForGoals) {
-            taskToGoals.put(t.getId(), goalService.findGoalsByTaskId(t.getId(), user));
-        }
-        model.addAttribute("taskToGoals", taskToGoals);
+        // 任务→目标弱关联（用于展示标签）：快照中已包含全部待办任务的标签
+        model.addAttribute("taskToGoals", snapshot.taskToGoals());
 
         // 仅在规划模式下显示目标管理
         if ("plan".equals(mindsetMode)) {
-            model.addAttribute("goals", goalService.findActiveGoalsByUser(user));
+            model.addAttribute("goals", snapshot.activeGoals());
         }
 
-        // 模糊任务 N 天存在提示（仅在规划模式且偏好允许时显示）
-        if ("plan".equals(mindsetMode) && preference.getShowFuzzyHint() != Boolean.FALSE) {
-            int fuzzyDays = preference.getFuzzyTaskDaysThreshold() != null && preference.getFuzzyTaskDaysThreshold() >= 0
-                    ? preference.getFuzzyTaskDaysThreshold() : 5;
-            if (fuzzyDays > 0) {
-                List<Task> fuzzyNeedSplit = taskService.findFuzzyTasksNeedingSplit(user, fuzzyDays);
-                model.addAttribute("fuzzyNeedSplit", fuzzyNeedSplit);
-            } else {
-                model.addAttribute("fuzzyNeedSplit", List.of());
-            }
-        } else if ("plan".equals(mindsetMode)) {
-            model.addAttribute("fuzzyNeedSplit", List.of());
+        // 模糊任务 N 天存在提示（仅在规划模式时显示；偏好关闭或阈值为 0 时快照中为空）
+        if ("plan".equals(mindsetMode)) {
+            model.addAttribute("fuzzyNeedSplit", snapshot.fuzzyNeedSplit());
         }
 
         // 已完成 / 归档 / 搁置任务，仅在规划模式且偏好允许时折叠展示
-        if ("plan".equals(mindsetMode) && preference.getShowArchivedSection() != Boolean.FALSE) {
-            List<Task> archivedOrShelved = allTasks.stream()
-                    .filter(t -> t.getEffectiveStatus() != TaskStatus.PENDING)
-                    .collect(Collectors.toList());
-            model.addAttribute("archivedOrShelved", archivedOrShelved);
+        if ("plan".equals(mindsetMode) && preference.showArchivedSection() != Boolean.FALSE) {
+            model.addAttribute("archivedOrShelved", snapshot.archivedOrShelved());
         } else if ("plan".equals(mindsetMode)) {
             model.addAttribute("archivedOrShelved", List.of());
         }
@@ -256,15 +244,16 @@ public class TaskController {
             // ignore
         }
 
-        List<Task> tasks = taskService.searchTasks(user.getId(), keyword, start, end);
+        // 只有日期条件时仍走数据库查询
+        List<Task> tasks = "memory".equals(searchBackend) && StringUtils.hasText(keyword)
+                ? searchIndexService.searchTasks(user, keyword, start, end)
+                : taskService.searchTasks(user.getId(), keyword, start, end);
         model.addAttribute("tasks", tasks);
         model.addAttribute("memos", tasks);
         model.addAttribute("mode", "tasks");
 
-        Map<Long, List<Goal>> taskToGoals = new HashMap<>();
-        for (Task t : tasks) {
-            taskToGoals.put(t.getId(), goalService.findGoalsByTaskId(t.getId(), user));
-        }
+        Map<Long, List<Goal>> taskToGoals = goalService.findGoalsByTaskIds(
+                tasks.stream().map(Task::getId).toList(), user);
         model.addAttribute("taskToGoals", taskToGoals);
         model.addAttribute("goals", goalService.findActiveGoalsByUser(user));
 
@@ -355,7 +344,7 @@ public class TaskController {
             if (!task.getUser().getId().equals(user.getId())) {
                 return "error:unauthorized";
             }
-            taskRepository.delete(task);
+            taskService.deleteTask(task, user);
             return "success";
         } catch (Exception e) {
             return "error:failed";
@@ -389,9 +378,7 @@ public class TaskController {
             if (!task.getUser().getId().equals(user.getId())) {
                 return "error:unauthorized";
             }
-            task.setStatus(TaskStatus.SHELVED);
-            task.setShelvedAt(LocalDateTime.now());
-            taskRepository.save(task);
+            taskService.shelveTask(task, user);
             return "success";
         } catch (Exception e) {
             return "error:failed";
@@ -0,0 +1,25 @@
+package org.zhzssp.memorandum.core.event;
+
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.User;
+
+/**
+ * 笔记保存事件。用于插件扩展，如缓存失效、检索索引更新等。
+ */
+public class NoteSavedEvent {
+    private final Note note;
+    private final User user;
+
+    public NoteSavedEvent(Note note, User user) {
+        this.note = note;
+        this.user = user;
+    }
+
+    public Note getNote() {
+        return note;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
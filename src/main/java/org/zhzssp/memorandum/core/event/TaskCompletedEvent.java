@@ -1,6 +1,7 @@
 package org.zhzssp.memorandum.core.event;
 
 import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskStatus;
 import org.zhzssp.memorandum.entity.User;
 
 /**
@@ -9,10 +10,12 @@ import org.zhzssp.memorandum.entity.User;
 public class TaskCompletedEvent {
     private final Task task;
     private final User user;
+    private final TaskStatus previousStatus;
 
-    public TaskCompletedEvent(Task task, User user) {
+    public TaskCompletedEvent(Task task, User user, TaskStatus previousStatus) {
         this.task = task;
         this.user = user;
+        this.previousStatus = previousStatus;
     }
 
     public Task getTask() {
@@ -22,4 +25,9 @@ public class TaskCompletedEvent {
     public User getUser() {
         return user;
     }
+
+    /** 变更前的有效状态（null 视为 PENDING） */
+    public TaskStatus getPreviousStatus() {
+        return previousStatus;
+    }
 }
@@ -0,0 +1,25 @@
+package org.zhzssp.memorandum.core.event;
+
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+
+/**
+ * 任务删除事件。用于插件扩展，如缓存失效、统计更新等。
+ */
+public class TaskDeletedEvent {
+    private final Task task;
+    private final User user;
+
+    public TaskDeletedEvent(Task task, User user) {
+        this.task = task;
+        this.user = user;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
@@ -0,0 +1,33 @@
+package org.zhzssp.memorandum.core.event;
+
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.entity.User;
+
+/**
+ * 任务搁置事件。用于插件扩展，如缓存失效、统计更新等。
+ */
+public class TaskShelvedEvent {
+    private final Task task;
+    private final User user;
+    private final TaskStatus previousStatus;
+
+    public TaskShelvedEvent(Task task, User user, TaskStatus previousStatus) {
+        this.task = task;
+        this.user = user;
+        this.previousStatus = previousStatus;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    /** 变更前的有效状态（null 视为 PENDING） */
+    public TaskStatus getPreviousStatus() {
+        return previousStatus;
+    }
+}
@@ -0,0 +1,12 @@
+package org.zhzssp.memorandum.core.event;
+
+import org.zhzssp.memorandum.entity.TaskStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批量任务事件中单个任务在变更前的状态（不加载完整实体）。
+ *
+ * @param status 变更前的状态（null 视为 PENDING）
+ */
+public record TaskSnapshot(Long id, TaskStatus status, LocalDateTime deadline) {}
@@ -0,0 +1,32 @@
+package org.zhzssp.memorandum.core.event;
+
+import org.zhzssp.memorandum.entity.User;
+
+import java.util.List;
+
+/**
+ * 批量任务删除事件：一批任务被批量 DELETE（如删除目标时连带删除任务），每个分块发布一次。
+ * 与单个任务的 TaskDeletedEvent 含义相同，监听方按批处理以避免逐条查询。
+ */
+public class TasksDeletedEvent {
+    private final List<TaskSnapshot> tasks;
+    private final User user;
+
+    public TasksDeletedEvent(List<TaskSnapshot> tasks, User user) {
+        this.tasks = List.copyOf(tasks);
+        this.user = user;
+    }
+
+    /** 受影响的任务（变更前的状态） */
+    public List<TaskSnapshot> getTasks() {
+        return tasks;
+    }
+
+    public List<Long> getTaskIds() {
+        return tasks.stream().map(TaskSnapshot::id).toList();
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
@@ -0,0 +1,25 @@
+package org.zhzssp.memorandum.core.event;
+
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.entity.UserPreference;
+
+/**
+ * 用户偏好变更事件。用于插件扩展，如缓存失效等。
+ */
+public class UserPreferenceChangedEvent {
+    private final UserPreference preference;
+    private final User user;
+
+    public UserPreferenceChangedEvent(UserPreference preference, User user) {
+        this.preference = preference;
+        this.user = user;
+    }
+
+    public UserPreference getPreference() {
+        return preference;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
@@ -0,0 +1,62 @@
+package org.zhzssp.memorandum.core.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 任务检索的键集分页游标：上一页最后一条的 (deadline, id)。
+ *
+ * 对外是不透明的 Base64URL 字符串，客户端只需原样传回；deadline 为 null 表示上一页已翻到无截止时间的任务
+ * （排序中无截止时间排最后）。
+ */
+public record TaskSearchCursor(LocalDateTime deadline, long id) {
+
+    private static final String VERSION = "1";
+
+    /** 分页顺序：截止时间倒序（无截止时间排最后），同一时间按 id 倒序；数据库与内存检索共用 */
+    public static <T> Comparator<T> pageOrder(Function<? super T, LocalDateTime> deadlineOf,
+                                              ToLongFunction<? super T> idOf) {
+        return Comparator.<T, LocalDateTime>comparing(deadlineOf, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(Comparator.<T>comparingLong(idOf).reversed());
+    }
+
+    /** (deadline, id) 在分页顺序中排在游标之后，即属于下一页及以后；与 TaskMapper.searchTasksPage 的游标条件一致 */
+    public boolean precedes(LocalDateTime otherDeadline, long otherId) {
+        if (deadline == null) {
+            return otherDeadline == null && otherId < id;
+        }
+        return otherDeadline == null
+                || otherDeadline.isBefore(deadline)
+                || (otherDeadline.isEqual(deadline) && otherId < id);
+    }
+
+    public String encode() {
+        String raw = VERSION + "|" + (deadline == null ? "" : deadline.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return 空串或 null 时返回 null（第一页）
+     * @throws IllegalArgumentException 游标格式不合法
+     */
+    public static TaskSearchCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("invalid cursor");
+            }
+            LocalDateTime deadline = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new TaskSearchCursor(deadline, Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid cursor", e);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package org.zhzssp.memorandum.core.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.zhzssp.memorandum.core.event.TaskArchivedEvent;
 import org.zhzssp.memorandum.core.event.TaskCompletedEvent;
 import org.zhzssp.memorandum.core.event.TaskCreatedEvent;
+import org.zhzssp.memorandum.core.event.TaskDeletedEvent;
+import org.zhzssp.memorandum.core.event.TaskShelvedEvent;
 import org.zhzssp.memorandum.entity.*;
+import org.zhzssp.memorandum.mapper.FulltextQuery;
 import org.zhzssp.memorandum.mapper.TaskMapper;
 import org.zhzssp.memorandum.repository.TaskRepository;
 
@@ -21,6 +25,9 @@ import java.util.List;
 @Service
 public class TaskService {
 
+    /** 检索分页的每页上限 */
+    public static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private TaskMapper taskMapper;
 
@@ -30,10 +37,50 @@ public class TaskService {
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    /** 数据库检索方式：search.backend=fulltext 时关键字走全文索引，其余取值走 LIKE */
+    @Value("${search.backend:memory}")
+    private String searchBackend;
+
     public List<Task> searchTasks(Long userId, String keyword, LocalDateTime start, LocalDateTime end) {
+        if ("fulltext".equals(searchBackend)) {
+            String query = FulltextQuery.booleanQuery(keyword);
+            if (query != null) {
+                return taskMapper.searchTasksFulltext(userId, query, start, end);
+            }
+        }
         return taskMapper.searchTasks(userId, keyword, start, end);
     }
 
+    /** 一页检索结果；next 为 null 表示没有下一页 */
+    public record TaskPage(List<Task> tasks, TaskSearchCursor next) {}
+
+    /**
+     * 键集分页检索：按截止时间倒序（无截止时间排最后，同一时间按 id 倒序），每页代价与翻页深度无关。
+     * 关键字条件与 {@link #searchTasks} 一致（search.backend=fulltext 时走全文索引）。
+     *
+     * @param after 上一页返回的游标，null 表示第一页
+     * @param size  每页条数，限制在 [1, MAX_PAGE_SIZE]
+     */
+    public TaskPage searchTasksPage(Long userId, String keyword, LocalDateTime start, LocalDateTime end,
+                                    TaskSearchCursor after, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String query = "fulltext".equals(searchBackend) ? FulltextQuery.booleanQuery(keyword) : null;
+        // 多取一条判断是否还有下一页
+        List<Task> rows = taskMapper.searchTasksPage(userId, keyword, query, start, end,
+                after != null ? after.deadline() : null, after != null ? after.id() : null, limit + 1);
+        return toPage(rows, limit);
+    }
+
+    /** 多取的一条用于判断是否还有下一页 */
+    private static TaskPage toPage(List<Task> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new TaskPage(rows, null);
+        }
+        List<Task> page = rows.subList(0, limit);
+        Task last = page.get(limit - 1);
+        return new TaskPage(page, new TaskSearchCursor(last.getDeadline(), last.getId()));
+    }
+
     /**
      * 查找「需要拆分提示」的任务：模糊 + 待办 + 创建时间早于 now - days。
      */
@@ -49,15 +96,11 @@ public class TaskService {
 
     /**
      * 今日可行动任务：状态 PENDING，且 deadline 为今天或未设置。
+     * 过滤与排序都在 SQL 中完成，只取回当天需要的行。
      */
     public List<Task> getTodayActionableTasks(User user) {
-        List<Task> all = taskRepository.findByUser(user);
         LocalDate today = LocalDate.now();
-        return all.stream()
-                .filter(t -> t.getEffectiveStatus() == TaskStatus.PENDING)
-                .filter(t -> t.getDeadline() == null || t.getDeadline().toLocalDate().isEqual(today))
-                .sorted(taskComparatorBySlotAndEnergy())
-                .toList();
+        return taskRepository.findTodayActionable(user, today.atStartOfDay(), today.plusDays(1).atStartOfDay());
     }
 
     /**
@@ -74,9 +117,10 @@ public class TaskService {
      * 完成任务并发布完成事件。
      */
     public Task completeTask(Task task, User user) {
+        TaskStatus previous = task.getEffectiveStatus();
         task.setStatus(TaskStatus.DONE);
         Task saved = taskRepository.save(task);
-        eventPublisher.publishEvent(new TaskCompletedEvent(saved, user));
+        eventPublisher.publishEvent(new TaskCompletedEvent(saved, user, previous));
         return saved;
     }
 
@@ -84,22 +128,44 @@ public class TaskService {
      * 归档任务并发布归档事件。
      */
     public Task archiveTask(Task task, User user) {
+        TaskStatus previous = task.getEffectiveStatus();
         task.setStatus(TaskStatus.ARCHIVED);
         Task saved = taskRepository.save(task);
-        eventPublisher.publishEvent(new TaskArchivedEvent(saved, user));
+        eventPublisher.publishEvent(new TaskArchivedEvent(saved, user, previous));
         return saved;
     }
 
+    /**
+     * 搁置任务并发布搁置事件。
+     */
+    public Task shelveTask(Task task, User user) {
+        TaskStatus previous = task.getEffectiveStatus();
+        task.setStatus(TaskStatus.SHELVED);
+        task.setShelvedAt(LocalDateTime.now());
+        Task saved = taskRepository.save(task);
+        eventPublisher.publishEvent(new TaskShelvedEvent(saved, user, previous));
+        return saved;
+    }
+
+    /**
+     * 删除任务并发布删除事件。
+     */
+    public void deleteTask(Task task, User user) {
+        taskRepository.delete(task);
+        eventPublisher.publishEvent(new TaskDeletedEvent(task, user));
+    }
+
     /**
      * 用于今日视图排序：先按时间段（上午/下午/晚上/未指定），再按精力需求（HIGH/MEDIUM/LOW）。
+     * 今日视图的排序已下推到 TaskRepository#findTodayActionable，两者须保持一致；此比较器用于内存中已加载的任务列表。
      */
-    private Comparator<Task> taskComparatorBySlotAndEnergy() {
+    public static Comparator<Task> taskComparatorBySlotAndEnergy() {
         return Comparator
                 .comparing((Task t) -> slotOrder(t.getPreferredSlot()))
                 .thenComparing(t -> energyOrder(t.getEnergyRequirement()));
     }
 
-    private int slotOrder(TimeSlot slot) {
+    private static int slotOrder(TimeSlot slot) {
         if (slot == null) return 3;
         return switch (slot) {
             case MORNING -> 0;
@@ -108,7 +174,7 @@ public class TaskService {
         };
     }
 
-    private int energyOrder(EnergyLevel level) {
+    private static int energyOrder(EnergyLevel level) {
         if (level == null) return 3;
         return switch (level) {
             case HIGH -> 0;
@@ -0,0 +1,7 @@
+package org.zhzssp.memorandum.feature.goal.dto;
+
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+
+/** 目标与其关联任务的一条配对记录（JPQL 投影），用于在内存中组装 {@link GoalWithTasks} */
+public record GoalTaskPair(Goal goal, Task task) {}
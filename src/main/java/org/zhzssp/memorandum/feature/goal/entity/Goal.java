@@ -34,7 +34,23 @@ public class Goal {
     @Column(name = "archived_at", nullable = true)
     private LocalDateTime archivedAt;
 
+    /**
+     * 关联任务总数 / 已完成（DONE、ARCHIVED）的关联任务数。
+     * 只由 GoalProgressService 在数据库中原子加减，实体保存时不写回，避免旧值覆盖并发更新。
+     */
+    @Column(name = "total_tasks", insertable = false, updatable = false)
+    private int totalTasks;
+
+    @Column(name = "done_tasks", insertable = false, updatable = false)
+    private int doneTasks;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
+
+    /** 完成比例 0~1，没有关联任务时为 0 */
+    public double progress() {
+        if (totalTasks <= 0) return 0.0;
+        return Math.min(1.0, Math.max(0, doneTasks) * 1.0 / totalTasks);
+    }
 }
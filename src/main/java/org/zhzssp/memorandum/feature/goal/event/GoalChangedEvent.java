@@ -0,0 +1,40 @@
+package org.zhzssp.memorandum.feature.goal.event;
+
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 目标变更事件（插件层）：目标新建、归档、删除，或任务↔目标关联被修改时发布。
+ */
+public class GoalChangedEvent {
+    private final Goal goal;
+    private final Collection<Long> taskIds;
+    private final User user;
+
+    public GoalChangedEvent(Goal goal, Collection<Long> taskIds, User user) {
+        this.goal = goal;
+        this.taskIds = taskIds != null ? List.copyOf(taskIds) : List.of();
+        this.user = user;
+    }
+
+    /** 变更涉及的目标（删除时为删除前的状态）；仅修改任务关联时为 null */
+    public Goal getGoal() {
+        return goal;
+    }
+
+    public Long getGoalId() {
+        return goal != null ? goal.getId() : null;
+    }
+
+    /** 关联关系或状态受影响的任务 ID */
+    public Collection<Long> getTaskIds() {
+        return taskIds;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
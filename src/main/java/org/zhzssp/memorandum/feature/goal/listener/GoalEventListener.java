@@ -2,48 +2,66 @@ package org.zhzssp.memorandum.feature.goal.listener;
 
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.zhzssp.memorandum.core.event.TaskArchivedEvent;
 import org.zhzssp.memorandum.core.event.TaskCompletedEvent;
 import org.zhzssp.memorandum.core.event.TaskCreatedEvent;
-import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.core.event.TaskDeletedEvent;
+import org.zhzssp.memorandum.core.event.TaskShelvedEvent;
+import org.zhzssp.memorandum.core.event.TaskSnapshot;
+import org.zhzssp.memorandum.core.event.TasksArchivedEvent;
+import org.zhzssp.memorandum.core.event.TasksDeletedEvent;
 import org.zhzssp.memorandum.entity.TaskStatus;
-import org.zhzssp.memorandum.feature.goal.entity.Goal;
-import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
-import org.zhzssp.memorandum.repository.LinkRepository;
-
-import java.util.List;
+import org.zhzssp.memorandum.feature.goal.service.GoalProgressService;
 
 /**
  * 目标功能的事件监听器（插件层）。
- * 通过监听核心事件来扩展目标相关行为，而不直接修改核心代码。
+ * 通过监听核心事件来扩展目标相关行为，而不直接修改核心代码：任务的创建、状态变化和删除会更新其关联目标的进度计数器。
  */
 @Component
 public class GoalEventListener {
 
-    private final GoalRepository goalRepository;
-    private final LinkRepository linkRepository;
+    private final GoalProgressService goalProgressService;
 
-    public GoalEventListener(GoalRepository goalRepository, LinkRepository linkRepository) {
-        this.goalRepository = goalRepository;
-        this.linkRepository = linkRepository;
+    public GoalEventListener(GoalProgressService goalProgressService) {
+        this.goalProgressService = goalProgressService;
     }
 
-    /**
-     * 监听任务创建事件。
-     * 可以用于：目标聚类、任务分析等（未来扩展）。
-     */
     @EventListener
     public void onTaskCreated(TaskCreatedEvent event) {
-        // 未来可以在这里实现：自动聚类任务到目标、分析任务类型等
-        // 目前保持空实现，展示事件驱动的扩展点
+        goalProgressService.onTaskAdded(event.getTask());
     }
 
-    /**
-     * 监听任务完成事件。
-     * 可以用于：更新目标进度、推荐相关笔记等（未来扩展）。
-     */
     @EventListener
     public void onTaskCompleted(TaskCompletedEvent event) {
-        // 未来可以在这里实现：更新目标完成度、推荐学习笔记等
-        // 目前保持空实现，展示事件驱动的扩展点
+        goalProgressService.onTaskStatusChanged(event.getTask(), event.getPreviousStatus());
+    }
+
+    @EventListener
+    public void onTaskArchived(TaskArchivedEvent event) {
+        goalProgressService.onTaskStatusChanged(event.getTask(), event.getPreviousStatus());
+    }
+
+    @EventListener
+    public void onTaskShelved(TaskShelvedEvent event) {
+        goalProgressService.onTaskStatusChanged(event.getTask(), event.getPreviousStatus());
+    }
+
+    @EventListener
+    public void onTaskDeleted(TaskDeletedEvent event) {
+        goalProgressService.onTaskRemoved(event.getTask());
+    }
+
+    /** 批量归档：原本未完成的任务计入其关联目标的完成数 */
+    @EventListener
+    public void onTasksArchived(TasksArchivedEvent event) {
+        goalProgressService.onTasksCompleted(event.getTasks().stream()
+                .filter(t -> t.status() != TaskStatus.DONE && t.status() != TaskStatus.ARCHIVED)
+                .map(TaskSnapshot::id)
+                .toList());
+    }
+
+    @EventListener
+    public void onTasksDeleted(TasksDeletedEvent event) {
+        goalProgressService.onTasksRemoved(event.getTasks());
     }
 }
@@ -1,9 +1,19 @@
 package org.zhzssp.memorandum.feature.goal.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import org.zhzssp.memorandum.core.event.TaskSnapshot;
+import org.zhzssp.memorandum.entity.Link;
 import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.dto.GoalTaskPair;
 import org.zhzssp.memorandum.feature.goal.entity.Goal;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface GoalRepository extends JpaRepository<Goal, Long> {
@@ -12,4 +22,74 @@ public interface GoalRepository extends JpaRepository<Goal, Long> {
 
     /** 有效目标（未归档） */
     List<Goal> findByUserAndArchivedAtIsNull(User user);
+
+    /** 归档时间落在 [start, end) 的目标数 */
+    long countByUserAndArchivedAtGreaterThanEqualAndArchivedAtLessThan(User user, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * 一次查询取出用户所有有效目标与其关联任务的配对（经 link 表连接），按目标、任务 ID 排序。
+     * 目标与任务都必须属于该用户；无关联的目标不会出现在结果中。
+     */
+    @Query("SELECT new org.zhzssp.memorandum.feature.goal.dto.GoalTaskPair(g, t) "
+            + "FROM Goal g, Link l, Task t "
+            + "WHERE g.user = :user AND g.archivedAt IS NULL "
+            + "AND l.targetType = :targetType AND l.targetId = g.id "
+            + "AND l.sourceType = :sourceType AND l.sourceId = t.id "
+            + "AND t.user = :user "
+            + "ORDER BY g.id, t.id")
+    List<GoalTaskPair> findActiveGoalTaskPairs(@Param("user") User user,
+                                               @Param("sourceType") Link.LinkSourceType sourceType,
+                                               @Param("targetType") Link.LinkTargetType targetType);
+
+    /**
+     * 目标关联的、属于该用户的任务（只取 ID、状态、截止时间），按任务 ID 递增、从 afterId 之后开始分块读取。
+     * 用于目标归档/删除时的批量处理，不加载任务实体；重复链接只返回一次。
+     */
+    @Query("SELECT DISTINCT new org.zhzssp.memorandum.core.event.TaskSnapshot(t.id, t.status, t.deadline) "
+            + "FROM Link l, Task t "
+            + "WHERE l.targetType = org.zhzssp.memorandum.entity.Link.LinkTargetType.GOAL AND l.targetId = :goalId "
+            + "AND l.sourceType = org.zhzssp.memorandum.entity.Link.LinkSourceType.TASK AND l.sourceId = t.id "
+            + "AND t.user = :user AND t.id > :afterId "
+            + "ORDER BY t.id")
+    List<TaskSnapshot> findLinkedTaskSnapshots(@Param("goalId") Long goalId,
+                                               @Param("user") User user,
+                                               @Param("afterId") Long afterId,
+                                               Pageable page);
+
+    /** 在数据库中原子地加减一组目标的进度计数器（不读旧值，并发更新不会丢失） */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE goal SET total_tasks = total_tasks + :totalDelta, done_tasks = done_tasks + :doneDelta "
+            + "WHERE id IN (:goalIds)", nativeQuery = true)
+    int adjustTaskCounters(@Param("goalIds") Collection<Long> goalIds,
+                           @Param("totalDelta") int totalDelta,
+                           @Param("doneDelta") int doneDelta);
+
+    /** 按主键顺序读取 afterId 之后的最多 limit 个目标 ID（键集分块，主键范围扫描） */
+    @Query(value = "SELECT g.id FROM goal g WHERE g.id > :afterId ORDER BY g.id LIMIT :limit", nativeQuery = true)
+    List<Long> findGoalIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 一组目标中计数器与实际关联不一致的目标 ID：逐个目标用相关子查询（走 idx_link_target）重新统计，
+     * 只算与目标同一用户的任务，重复链接算一次。
+     */
+    @Query(value = "SELECT g.id FROM goal g WHERE g.id IN (:goalIds) AND ("
+            + "g.total_tasks <> (SELECT COUNT(DISTINCT t.id) FROM link l JOIN memo t ON t.id = l.source_id "
+            + "WHERE l.source_type = 'TASK' AND l.target_type = 'GOAL' AND l.target_id = g.id AND t.user_id = g.user_id) "
+            + "OR g.done_tasks <> (SELECT COUNT(DISTINCT t.id) FROM link l JOIN memo t ON t.id = l.source_id "
+            + "WHERE l.source_type = 'TASK' AND l.target_type = 'GOAL' AND l.target_id = g.id AND t.user_id = g.user_id "
+            + "AND t.status IN ('DONE', 'ARCHIVED')))", nativeQuery = true)
+    List<Long> findGoalIdsWithCounterDrift(@Param("goalIds") Collection<Long> goalIds);
+
+    /** 按 link 表重新统计一组目标的计数器（口径与 findGoalIdsWithCounterDrift 一致） */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE goal g SET "
+            + "total_tasks = (SELECT COUNT(DISTINCT t.id) FROM link l JOIN memo t ON t.id = l.source_id "
+            + "WHERE l.source_type = 'TASK' AND l.target_type = 'GOAL' AND l.target_id = g.id AND t.user_id = g.user_id), "
+            + "done_tasks = (SELECT COUNT(DISTINCT t.id) FROM link l JOIN memo t ON t.id = l.source_id "
+            + "WHERE l.source_type = 'TASK' AND l.target_type = 'GOAL' AND l.target_id = g.id AND t.user_id = g.user_id "
+            + "AND t.status IN ('DONE', 'ARCHIVED')) "
+            + "WHERE g.id IN (:goalIds)", nativeQuery = true)
+    int recountTaskCounters(@Param("goalIds") Collection<Long> goalIds);
 }
@@ -0,0 +1,62 @@
+package org.zhzssp.memorandum.feature.goal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+
+import java.util.List;
+
+/**
+ * 目标进度计数器的定期校正：找出计数与 link 表实际统计不一致的目标并重新统计。
+ * 按目标主键分块（键集，每块 CHUNK_SIZE 个）检查，每块用相关子查询只统计该块目标的关联，不做全表聚合；
+ * 增量维护正常时每块只有两条只读查询、没有写入。偏差来自遗漏的事件（如绕过服务层直接改库）或并发交错。
+ */
+@Component
+@ConditionalOnProperty(name = "goal.progress.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class GoalProgressReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(GoalProgressReconciler.class);
+
+    /** 每块检查（及重算）的目标数 */
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Scheduled(initialDelayString = "${goal.progress.reconcile.initial-delay-ms:60000}",
+            fixedDelayString = "${goal.progress.reconcile.interval-ms:3600000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("目标进度计数器校正失败", e);
+        }
+    }
+
+    /** @return 被修正的目标数 */
+    public int reconcile() {
+        int fixed = 0;
+        long afterId = 0L;
+        List<Long> chunk;
+        do {
+            chunk = goalRepository.findGoalIdsAfter(afterId, CHUNK_SIZE);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            List<Long> drifted = goalRepository.findGoalIdsWithCounterDrift(chunk);
+            if (!drifted.isEmpty()) {
+                goalRepository.recountTaskCounters(drifted);
+                fixed += drifted.size();
+            }
+            afterId = chunk.get(chunk.size() - 1);
+        } while (chunk.size() == CHUNK_SIZE);
+        if (fixed > 0) {
+            log.info("目标进度计数器校正：修正 {} 个目标", fixed);
+        }
+        return fixed;
+    }
+}
@@ -0,0 +1,157 @@
+package org.zhzssp.memorandum.feature.goal.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.zhzssp.memorandum.core.event.TaskSnapshot;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.repository.LinkRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 目标进度计数器（插件层）：每个目标记录关联任务总数与已完成数（{@link Goal#getTotalTasks()} / {@link Goal#getDoneTasks()}）。
+ *
+ * 任务状态变化、任务删除和关联变更时按差量在数据库中原子加减，读取进度只需目标行本身；
+ * 计数口径与 {@code InsightScoreService} 一致：DONE / ARCHIVED 计为完成，同一任务的重复链接只算一次。
+ * 事件遗漏或并发造成的偏差由 {@link GoalProgressReconciler} 定期校正。
+ */
+@Service
+public class GoalProgressService {
+
+    private static final Comparator<Link> GOAL_LINK_ORDER = Comparator.comparingLong(Link::getTargetId)
+            .thenComparingLong(Link::getSourceId);
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    /** 任务状态变化：只有完成与否发生变化时才更新其关联目标 */
+    public void onTaskStatusChanged(Task task, TaskStatus previous) {
+        int doneDelta = doneValue(task.getEffectiveStatus()) - doneValue(previous);
+        if (doneDelta != 0) {
+            adjust(goalIdsOf(task.getId()), 0, doneDelta);
+        }
+    }
+
+    /** 新任务：通常创建时还没有关联（关联变更另行计数），已有关联时（如导入）计入 */
+    public void onTaskAdded(Task task) {
+        adjust(goalIdsOf(task.getId()), 1, doneValue(task.getEffectiveStatus()));
+    }
+
+    /** 任务删除：链接仍在时从其关联目标中扣除 */
+    public void onTaskRemoved(Task task) {
+        adjust(goalIdsOf(task.getId()), -1, -doneValue(task.getEffectiveStatus()));
+    }
+
+    /** 任务的目标关联变更：从 removed 中扣除、向 added 中计入 */
+    public void onLinksChanged(Task task, Collection<Long> removedGoalIds, Collection<Long> addedGoalIds) {
+        int done = doneValue(task.getEffectiveStatus());
+        adjust(removedGoalIds, -1, -done);
+        adjust(addedGoalIds, 1, done);
+    }
+
+    /**
+     * 一批任务由未完成变为完成（如目标归档时连带归档任务）：一次查询取出全部关联，
+     * 按目标汇总差量后，差量相同的目标合并成一条 UPDATE。
+     */
+    public void onTasksCompleted(Collection<Long> taskIds) {
+        if (taskIds.isEmpty()) return;
+        Map<Long, int[]> deltaByGoal = new LinkedHashMap<>();
+        forEachGoalLink(taskIds, (taskId, goalId) -> deltaByGoal.computeIfAbsent(goalId, k -> new int[2])[1]++);
+        adjustGrouped(deltaByGoal);
+    }
+
+    /** 一批任务被删除（链接仍在时）：按删除前的状态从其关联目标中扣除总数与完成数 */
+    public void onTasksRemoved(Collection<TaskSnapshot> tasks) {
+        if (tasks.isEmpty()) return;
+        Map<Long, Integer> doneById = new HashMap<>();
+        for (TaskSnapshot t : tasks) {
+            doneById.put(t.id(), doneValue(t.status()));
+        }
+        Map<Long, int[]> deltaByGoal = new LinkedHashMap<>();
+        forEachGoalLink(doneById.keySet(), (taskId, goalId) -> {
+            int[] delta = deltaByGoal.computeIfAbsent(goalId, k -> new int[2]);
+            delta[0]--;
+            delta[1] -= doneById.get(taskId);
+        });
+        adjustGrouped(deltaByGoal);
+    }
+
+    /**
+     * 有效目标的平均进度（0~1），与 InsightScoreService 口径一致：每个目标先做 pow(进度, 0.7)，
+     * 分母是全部有效目标数；只读取计数器，与关联任务数量无关。
+     */
+    public static double avgProgress(Collection<Goal> activeGoals) {
+        if (activeGoals.isEmpty()) return 0.0;
+        double sum = 0.0;
+        for (Goal g : activeGoals) {
+            double progress = g.progress();
+            if (progress > 0) {
+                sum += Math.pow(progress, 0.7);
+            }
+        }
+        return sum / activeGoals.size();
+    }
+
+    /** 任务关联的目标 ID（去重） */
+    private Set<Long> goalIdsOf(Long taskId) {
+        Set<Long> goalIds = new LinkedHashSet<>();
+        if (taskId == null) return goalIds;
+        for (Link l : linkRepository.findBySourceTypeAndSourceId(Link.LinkSourceType.TASK, taskId)) {
+            if (l.getTargetType() == Link.LinkTargetType.GOAL) {
+                goalIds.add(l.getTargetId());
+            }
+        }
+        return goalIds;
+    }
+
+    /**
+     * 一次 IN 查询遍历一批任务的 TASK→GOAL 链接，重复链接只回调一次：
+     * 按 (目标, 任务) 排序后重复的链接相邻，与上一条比较即可去重，不需要额外的集合。
+     * 目标按 ID 递增回调，之后的 UPDATE 也按这一顺序加锁。
+     */
+    private void forEachGoalLink(Collection<Long> taskIds, BiConsumer<Long, Long> action) {
+        List<Link> links = new ArrayList<>(linkRepository.findBySourceTypeAndSourceIdInAndTargetType(
+                Link.LinkSourceType.TASK, taskIds, Link.LinkTargetType.GOAL));
+        links.sort(GOAL_LINK_ORDER);
+        Link previous = null;
+        for (Link l : links) {
+            if (previous == null || GOAL_LINK_ORDER.compare(previous, l) != 0) {
+                action.accept(l.getSourceId(), l.getTargetId());
+            }
+            previous = l;
+        }
+    }
+
+    /** 差量（总数, 完成数）相同的目标合并成一条 UPDATE */
+    private void adjustGrouped(Map<Long, int[]> deltaByGoal) {
+        Map<List<Integer>, List<Long>> goalsByDelta = new LinkedHashMap<>();
+        deltaByGoal.forEach((goalId, delta) ->
+                goalsByDelta.computeIfAbsent(List.of(delta[0], delta[1]), k -> new ArrayList<>()).add(goalId));
+        goalsByDelta.forEach((delta, goalIds) -> adjust(goalIds, delta.get(0), delta.get(1)));
+    }
+
+    private void adjust(Collection<Long> goalIds, int totalDelta, int doneDelta) {
+        if (goalIds == null || goalIds.isEmpty() || (totalDelta == 0 && doneDelta == 0)) return;
+        goalRepository.adjustTaskCounters(goalIds, totalDelta, doneDelta);
+    }
+
+    private static int doneValue(TaskStatus status) {
+        return status == TaskStatus.DONE || status == TaskStatus.ARCHIVED ? 1 : 0;
+    }
+}
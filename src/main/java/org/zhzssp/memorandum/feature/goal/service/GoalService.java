@@ -1,20 +1,39 @@
 package org.zhzssp.memorandum.feature.goal.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.zhzssp.memorandum.core.event.TaskSnapshot;
+import org.zhzssp.memorandum.core.event.TasksArchivedEvent;
+import org.zhzssp.memorandum.core.event.TasksDeletedEvent;
 import org.zhzssp.memorandum.entity.Link;
 import org.zhzssp.memorandum.entity.Task;
 import org.zhzssp.memorandum.entity.TaskStatus;
 import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.dto.GoalTaskPair;
 import org.zhzssp.memorandum.feature.goal.dto.GoalWithTasks;
 import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.event.GoalChangedEvent;
 import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.mapper.LinkMapper;
 import org.zhzssp.memorandum.repository.LinkRepository;
 import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.service.LinkGraph;
+import org.zhzssp.memorandum.service.LinkGraphService;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -30,9 +49,25 @@ public class GoalService {
     @Autowired
     private LinkRepository linkRepository;
 
+    @Autowired
+    private LinkMapper linkMapper;
+
+    @Autowired
+    private LinkGraphService linkGraphService;
+
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private GoalProgressService goalProgressService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /** 目标归档/删除时每块处理的任务数（每块一条批量语句） */
+    @Value("${goal.bulk.chunk-size:1000}")
+    private int bulkChunkSize = 1000;
+
     public List<Goal> findActiveGoalsByUser(User user) {
         return goalRepository.findByUserAndArchivedAtIsNull(user);
     }
@@ -40,23 +75,23 @@ public class GoalService {
     /**
      * 获取「仅含有关联关系」的目标与任务树：每个目标下列出与其关联的任务。
      * 无关联的目标或任务不会出现在结果中。
+     * 通过一次连接查询取出目标/任务配对，再在内存中按目标分组。
      */
     public List<GoalWithTasks> findGoalTaskTree(User user) {
-        List<Goal> activeGoals = goalRepository.findByUserAndArchivedAtIsNull(user);
-        List<GoalWithTasks> result = new ArrayList<>();
-        for (Goal goal : activeGoals) {
-            List<Link> links = linkRepository.findByTargetTypeAndTargetId(Link.LinkTargetType.GOAL, goal.getId());
-            List<Long> taskIds = links.stream()
-                    .filter(l -> l.getSourceType() == Link.LinkSourceType.TASK)
-                    .map(Link::getSourceId)
-                    .distinct()
-                    .toList();
-            if (taskIds.isEmpty()) continue;
-            List<Task> tasks = taskRepository.findAllById(taskIds).stream()
-                    .filter(t -> t.getUser() != null && t.getUser().getId().equals(user.getId()))
-                    .toList();
-            if (tasks.isEmpty()) continue;
-            result.add(new GoalWithTasks(goal, tasks));
+        List<GoalTaskPair> pairs = goalRepository.findActiveGoalTaskPairs(
+                user, Link.LinkSourceType.TASK, Link.LinkTargetType.GOAL);
+        Map<Long, Goal> goalById = new LinkedHashMap<>();
+        Map<Long, Map<Long, Task>> tasksByGoal = new LinkedHashMap<>();
+        for (GoalTaskPair pair : pairs) {
+            Long goalId = pair.goal().getId();
+            goalById.putIfAbsent(goalId, pair.goal());
+            // 同一任务可能存在重复链接，按任务 ID 去重
+            tasksByGoal.computeIfAbsent(goalId, k -> new LinkedHashMap<>())
+                    .putIfAbsent(pair.task().getId(), pair.task());
+        }
+        List<GoalWithTasks> result = new ArrayList<>(goalById.size());
+        for (Map.Entry<Long, Goal> e : goalById.entrySet()) {
+            result.add(new GoalWithTasks(e.getValue(), List.copyOf(tasksByGoal.get(e.getKey()).values())));
         }
         return result;
     }
@@ -74,109 +109,197 @@ public class GoalService {
                 .collect(Collectors.toList());
     }
 
-    /** 获取任务关联的目标（需校验 goal 属于当前用户） */
+    /** 获取任务关联的目标（需校验 goal 属于当前用户）；关联从用户的 Link 关系图读取 */
     public List<Goal> findGoalsByTaskId(Long taskId, User user) {
-        List<Long> goalIds = findGoalIdsByTaskId(taskId);
-        if (goalIds.isEmpty()) return List.of();
-        return goalRepository.findAllById(goalIds).stream()
+        long[] goalIds = linkGraphService.graphFor(user)
+                .targetIds(LinkGraph.node(Link.LinkSourceType.TASK, taskId), Link.LinkTargetType.GOAL);
+        if (goalIds.length == 0) return List.of();
+        return goalRepository.findAllById(Arrays.stream(goalIds).boxed().toList()).stream()
                 .filter(g -> g.getUser().getId().equals(user.getId()))
                 .collect(Collectors.toList());
     }
 
-    /** 绑定任务到目标（替换原有绑定） */
+    /**
+     * 批量获取一组任务关联的目标（需校验 goal 属于当前用户）。
+     * 关联从用户的 Link 关系图读取，只按 ID 批量查询一次目标；每个传入的任务 ID 都会出现在结果中（无关联时为空列表）。
+     */
+    public Map<Long, List<Goal>> findGoalsByTaskIds(Collection<Long> taskIds, User user) {
+        Map<Long, List<Goal>> result = new LinkedHashMap<>();
+        if (taskIds == null || taskIds.isEmpty()) return result;
+        for (Long taskId : taskIds) {
+            result.put(taskId, new ArrayList<>());
+        }
+
+        LinkGraph graph = linkGraphService.graphFor(user);
+        Map<Long, long[]> goalIdsByTask = new LinkedHashMap<>();
+        Set<Long> goalIds = new HashSet<>();
+        for (Long taskId : result.keySet()) {
+            long[] ids = graph.targetIds(LinkGraph.node(Link.LinkSourceType.TASK, taskId), Link.LinkTargetType.GOAL);
+            if (ids.length == 0) continue;
+            goalIdsByTask.put(taskId, ids);
+            for (long id : ids) {
+                goalIds.add(id);
+            }
+        }
+        if (goalIds.isEmpty()) return result;
+
+        Map<Long, Goal> goalById = goalRepository.findAllById(goalIds).stream()
+                .filter(g -> g.getUser().getId().equals(user.getId()))
+                .collect(Collectors.toMap(Goal::getId, g -> g, (a, b) -> a));
+
+        goalIdsByTask.forEach((taskId, ids) -> {
+            List<Goal> goals = result.get(taskId);
+            for (long id : ids) {
+                Goal g = goalById.get(id);
+                if (g != null) {
+                    goals.add(g);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 绑定任务到目标（替换原有绑定）：与现有绑定求差，只删除移除的边、只插入新增的边，
+     * 新增的边用一条多值 INSERT 写入；并按差异更新进度计数器。
+     */
     public void linkTaskToGoals(Long taskId, List<Long> goalIds, User user) {
-        // 删除原有 TASK->GOAL 链接
-        List<Link> existing = linkRepository.findBySourceTypeAndSourceId(Link.LinkSourceType.TASK, taskId);
-        existing.stream()
-                .filter(l -> l.getTargetType() == Link.LinkTargetType.GOAL)
-                .forEach(linkRepository::delete);
+        Set<Long> oldGoalIds = new LinkedHashSet<>(findGoalIdsByTaskId(taskId));
 
-        // 校验 goal 归属后创建新链接
+        // 校验 goal 归属
+        Set<Long> newGoalIds = new LinkedHashSet<>();
         if (goalIds != null && !goalIds.isEmpty()) {
-            List<Goal> goals = goalRepository.findAllById(goalIds);
-            for (Goal g : goals) {
+            for (Goal g : goalRepository.findAllById(goalIds)) {
                 if (g.getUser().getId().equals(user.getId())) {
-                    Link link = new Link();
-                    link.setSourceType(Link.LinkSourceType.TASK);
-                    link.setSourceId(taskId);
-                    link.setTargetType(Link.LinkTargetType.GOAL);
-                    link.setTargetId(g.getId());
-                    linkRepository.save(link);
+                    newGoalIds.add(g.getId());
                 }
             }
         }
+
+        Set<Long> removed = new LinkedHashSet<>(oldGoalIds);
+        removed.removeAll(newGoalIds);
+        Set<Long> added = new LinkedHashSet<>(newGoalIds);
+        added.removeAll(oldGoalIds);
+        if (!removed.isEmpty()) {
+            linkRepository.deleteAllBySourceAndTargets(
+                    Link.LinkSourceType.TASK, taskId, Link.LinkTargetType.GOAL, removed);
+            linkGraphService.onLinksRemoved(user, Link.LinkSourceType.TASK, taskId, Link.LinkTargetType.GOAL, removed);
+        }
+        if (!added.isEmpty()) {
+            linkMapper.insertLinks(added.stream().map(goalId -> taskToGoal(taskId, goalId)).toList());
+            linkGraphService.onLinksAdded(user, Link.LinkSourceType.TASK, taskId, Link.LinkTargetType.GOAL, added);
+        }
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            taskRepository.findById(taskId).ifPresent(t -> goalProgressService.onLinksChanged(t, removed, added));
+        }
+        eventPublisher.publishEvent(new GoalChangedEvent(null, List.of(taskId), user));
     }
 
-    public Goal save(Goal goal) {
-        return goalRepository.save(goal);
+    private static Link taskToGoal(Long taskId, Long goalId) {
+        Link link = new Link();
+        link.setSourceType(Link.LinkSourceType.TASK);
+        link.setSourceId(taskId);
+        link.setTargetType(Link.LinkTargetType.GOAL);
+        link.setTargetId(goalId);
+        return link;
     }
 
-    public void archive(Long goalId, User user) {
-        goalRepository.findById(goalId).ifPresent(g -> {
-            if (!g.getUser().getId().equals(user.getId())) {
-                return;
-            }
-            // 1) 归档目标本身
-            g.setArchivedAt(LocalDateTime.now());
-            goalRepository.save(g);
-
-            // 2) 找到所有指向该目标的 TASK→GOAL 链接
-            List<Link> links = linkRepository.findByTargetTypeAndTargetId(Link.LinkTargetType.GOAL, goalId)
-                    .stream()
-                    .filter(l -> l.getSourceType() == Link.LinkSourceType.TASK)
-                    .collect(Collectors.toList());
-
-            if (links.isEmpty()) {
-                return;
-            }
+    public Goal save(Goal goal) {
+        Goal saved = goalRepository.save(goal);
+        eventPublisher.publishEvent(new GoalChangedEvent(saved, List.of(), saved.getUser()));
+        return saved;
+    }
 
-            Set<Long> taskIds = links.stream()
-                    .map(Link::getSourceId)
-                    .collect(Collectors.toSet());
+    /**
+     * 归档目标，并将其关联的任务全部设为 ARCHIVED（软归档）。
+     * 任务按 ID 分块处理：每块一次投影查询 + 一条批量 UPDATE，并发布一个 {@link TasksArchivedEvent}，
+     * 不加载任务实体，每条语句各自提交，不会为大目标长时间占用事务。
+     *
+     * @return 实际被归档的任务行数（目标不存在或不属于该用户时为 0）
+     */
+    public int archive(Long goalId, User user) {
+        Goal g = goalRepository.findById(goalId).orElse(null);
+        if (g == null || !g.getUser().getId().equals(user.getId())) {
+            return 0;
+        }
+        // 1) 归档目标本身
+        g.setArchivedAt(LocalDateTime.now());
+        goalRepository.save(g);
 
-            // 3) 将这些任务全部设为 ARCHIVED（软归档）
-            List<Task> tasks = taskRepository.findAllById(taskIds);
-            for (Task t : tasks) {
-                if (t.getUser() != null && t.getUser().getId().equals(user.getId())) {
-                    t.setStatus(TaskStatus.ARCHIVED);
-                }
-            }
-            taskRepository.saveAll(tasks);
-        });
+        // 2) 分块归档关联任务；已归档的任务跳过
+        int archived = 0;
+        for (List<TaskSnapshot> chunk : linkedTaskChunks(goalId, user)) {
+            List<TaskSnapshot> pending = chunk.stream()
+                    .filter(t -> t.status() != TaskStatus.ARCHIVED)
+                    .toList();
+            if (pending.isEmpty()) continue;
+            archived += taskRepository.archiveAllByIdInAndUser(pending.stream().map(TaskSnapshot::id).toList(), user);
+            eventPublisher.publishEvent(new TasksArchivedEvent(pending, user));
+        }
+        eventPublisher.publishEvent(new GoalChangedEvent(g, List.of(), user));
+        return archived;
     }
 
     /**
      * 删除目标及其关联：
-     * - mode = "deleteTasks": 删除目标 + 相关链接 + 相关任务
+     * - mode = "deleteTasks": 删除目标 + 相关链接 + 相关任务（按块批量 DELETE，每块发布一个 {@link TasksDeletedEvent}）
      * - mode = "keepTasks" : 删除目标 + 相关链接，保留任务
+     *
+     * @return 删除的任务行数（keepTasks 时为 0）
      */
-    public void deleteGoalWithMode(Long goalId, User user, String mode) {
-        goalRepository.findById(goalId).ifPresent(g -> {
-            if (!g.getUser().getId().equals(user.getId())) {
-                return;
+    public int deleteGoalWithMode(Long goalId, User user, String mode) {
+        Goal g = goalRepository.findById(goalId).orElse(null);
+        if (g == null || !g.getUser().getId().equals(user.getId())) {
+            return 0;
+        }
+
+        int deleted = 0;
+        List<Long> keptTaskIds = new ArrayList<>();
+        boolean deleteTasks = "deleteTasks".equalsIgnoreCase(mode);
+        for (List<TaskSnapshot> chunk : linkedTaskChunks(goalId, user)) {
+            if (deleteTasks) {
+                // 仅删除当前用户的任务（查询已按用户过滤）；事件在删除链接之前发布，监听方仍可按链接定位关联目标
+                deleted += taskRepository.deleteAllByIdInAndUser(chunk.stream().map(TaskSnapshot::id).toList(), user);
+                eventPublisher.publishEvent(new TasksDeletedEvent(chunk, user));
+            } else {
+                chunk.forEach(t -> keptTaskIds.add(t.id()));
             }
+        }
+
+        // 删除与该目标相关的所有链接（无论是否删除任务）
+        linkRepository.deleteAllByTarget(Link.LinkTargetType.GOAL, goalId);
+        linkGraphService.onNodeRemoved(user, Link.LinkTargetType.GOAL, goalId);
+
+        // 最后删除目标本身；保留的任务失去了该目标的覆盖，随事件带出
+        goalRepository.delete(g);
+        eventPublisher.publishEvent(new GoalChangedEvent(g, keptTaskIds, user));
+        return deleted;
+    }
+
+    /**
+     * 按任务 ID 递增分块遍历目标关联的任务快照（键集分页）。
+     * 每块在迭代时才查询，处理当前块时修改或删除已读过的任务不会影响后续分块。
+     */
+    private Iterable<List<TaskSnapshot>> linkedTaskChunks(Long goalId, User user) {
+        return () -> new Iterator<>() {
+            private List<TaskSnapshot> next = fetch(0L);
 
-            // 找出所有指向该目标的链接（主要是 TASK→GOAL）
-            List<Link> links = linkRepository.findByTargetTypeAndTargetId(Link.LinkTargetType.GOAL, goalId);
-            Set<Long> taskIds = links.stream()
-                    .filter(l -> l.getSourceType() == Link.LinkSourceType.TASK)
-                    .map(Link::getSourceId)
-                    .collect(Collectors.toSet());
-
-            if ("deleteTasks".equalsIgnoreCase(mode) && !taskIds.isEmpty()) {
-                List<Task> tasks = taskRepository.findAllById(taskIds);
-                // 仅删除当前用户的任务
-                List<Task> ownedTasks = tasks.stream()
-                        .filter(t -> t.getUser() != null && t.getUser().getId().equals(user.getId()))
-                        .collect(Collectors.toList());
-                taskRepository.deleteAll(ownedTasks);
+            private List<TaskSnapshot> fetch(Long afterId) {
+                return goalRepository.findLinkedTaskSnapshots(goalId, user, afterId, PageRequest.of(0, bulkChunkSize));
             }
 
-            // 删除与该目标相关的所有链接（无论是否删除任务）
-            linkRepository.deleteAll(links);
+            @Override
+            public boolean hasNext() {
+                return !next.isEmpty();
+            }
 
-            // 最后删除目标本身
-            goalRepository.delete(g);
-        });
+            @Override
+            public List<TaskSnapshot> next() {
+                if (next.isEmpty()) throw new NoSuchElementException();
+                List<TaskSnapshot> current = next;
+                next = current.size() < bulkChunkSize ? List.of() : fetch(current.get(current.size() - 1).id());
+                return current;
+            }
+        };
     }
 }
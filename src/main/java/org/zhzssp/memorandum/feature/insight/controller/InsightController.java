@@ -1,21 +1,40 @@
 package org.zhzssp.memorandum.feature.insight.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.insight.service.DailyScoreMaterializer;
+import org.zhzssp.memorandum.feature.insight.service.DailyScoreMaterializer.ConsistencyReport;
 import org.zhzssp.memorandum.feature.insight.service.InsightScoreService;
 import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+import org.zhzssp.memorandum.feature.insight.service.ScoreGranularity;
 import org.zhzssp.memorandum.feature.insight.service.AiSummaryService;
 import org.zhzssp.memorandum.feature.insight.service.ScoreSummaryResponse;
+import org.zhzssp.memorandum.feature.insight.service.SummaryJob;
+import org.zhzssp.memorandum.feature.insight.service.SummaryJobService;
 import org.zhzssp.memorandum.repository.UserRepository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.security.Principal;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 规划完成度评分接口（Insight 插件）。
@@ -32,17 +51,47 @@ public class InsightController {
     @Autowired
     private AiSummaryService aiSummaryService;
 
+    @Autowired
+    private SummaryJobService summaryJobService;
+
+    @Autowired
+    private DailyScoreMaterializer dailyScoreMaterializer;
+
     @Autowired
     private UserRepository userRepository;
 
+    /** 是否从 daily_score 物化表读取得分（关闭时每次请求实时计算） */
+    @Value("${insight.score.materialized.enabled:true}")
+    private boolean materializedEnabled;
+
+    /** SSE 连接的超时时间（毫秒），应覆盖模型流式输出的整段时间 */
+    @Value("${insight.summary.sse-timeout-ms:90000}")
+    private long summarySseTimeoutMillis;
+
+    /** 流式输出时每段计算/刷新的天数 */
+    @Value("${insight.score.stream.chunk-days:31}")
+    private int streamChunkDays;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 得分曲线。granularity=day|week|month：周/月粒度返回覆盖区间的各个整桶，
+     * date 为桶的第一天，得分为桶内每天得分的平均值。
+     */
     @GetMapping("/score")
-    public List<DailyScore> score(
+    public ResponseEntity<List<DailyScore>> score(
             @RequestParam(required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
             @RequestParam(required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "day") String granularity,
             Principal principal
     ) {
+        ScoreGranularity g = ScoreGranularity.parse(granularity);
+        if (g == null) {
+            return ResponseEntity.badRequest().build();
+        }
         User user = userRepository.findByUsername(principal.getName()).orElseThrow();
 
         LocalDate today = LocalDate.now();
@@ -53,7 +102,67 @@ public class InsightController {
             start = end.minusDays(13); // 默认展示近 14 天
         }
 
-        return insightScoreService.calculateScores(user, start, end);
+        if (g == ScoreGranularity.DAY) {
+            return ResponseEntity.ok(scores(user, start, end));
+        }
+        return ResponseEntity.ok(materializedEnabled
+                ? dailyScoreMaterializer.findBuckets(user, g, start, end)
+                : insightScoreService.calculateBuckets(user, g, start, end));
+    }
+
+    /**
+     * 流式得分曲线（NDJSON）：每行一个 DailyScore，按日期顺序逐段计算、逐段刷新，
+     * 适合多年区间；服务端不保留整个区间的结果，客户端读取慢时写出阻塞，计算随之暂停。
+     */
+    @GetMapping(value = "/score/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> scoreStream(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            Principal principal
+    ) {
+        User user = userRepository.findByUsername(principal.getName()).orElseThrow();
+
+        LocalDate today = LocalDate.now();
+        LocalDate rangeEnd = end != null ? end : today;
+        LocalDate rangeStart = start != null ? start : rangeEnd.minusDays(13); // 默认展示近 14 天
+        int chunkDays = Math.max(1, streamChunkDays);
+
+        StreamingResponseBody body = out -> {
+            Consumer<DailyScore> writer = new Consumer<>() {
+                private int pending;
+
+                @Override
+                public void accept(DailyScore score) {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(score));
+                        out.write('\n');
+                        if (++pending >= chunkDays) {
+                            out.flush();
+                            pending = 0;
+                        }
+                    } catch (IOException e) {
+                        // 客户端断开：中止后续计算
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+            try {
+                if (materializedEnabled) {
+                    dailyScoreMaterializer.streamScores(user, rangeStart, rangeEnd, chunkDays, writer);
+                } else {
+                    insightScoreService.streamScores(user, rangeStart, rangeEnd, chunkDays, writer);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header("X-Accel-Buffering", "no") // 避免反向代理缓冲整个响应
+                .body(body);
     }
 
     /**
@@ -77,9 +186,107 @@ public class InsightController {
             start = end.minusDays(13); // 默认展示近 14 天
         }
 
-        List<DailyScore> scores = insightScoreService.calculateScores(user, start, end);
+        List<DailyScore> scores = scores(user, start, end);
         String summary = aiSummaryService.summarizeScores(start, end, scores);
         return new ScoreSummaryResponse(summary);
     }
-}
 
+    /**
+     * 创建异步 AI 总结任务：立即返回任务 ID 与本地规则总结，模型输出通过
+     * {@link #streamSummaryJob} 以 SSE 推送，不占用请求线程等待模型。
+     */
+    @PostMapping("/score/summary/jobs")
+    public ResponseEntity<Map<String, String>> createSummaryJob(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            Principal principal
+    ) {
+        User user = userRepository.findByUsername(principal.getName()).orElseThrow();
+
+        LocalDate today = LocalDate.now();
+        if (end == null) {
+            end = today;
+        }
+        if (start == null) {
+            start = end.minusDays(13); // 默认展示近 14 天
+        }
+
+        List<DailyScore> scores = scores(user, start, end);
+        SummaryJob job = summaryJobService.start(principal.getName(), start, end, scores);
+        return ResponseEntity.accepted()
+                .body(Map.of("jobId", job.getId(), "fallback", job.getFallback()));
+    }
+
+    /**
+     * 订阅 AI 总结任务的输出（SSE）：事件 fallback / delta / done，连接晚于输出时会补发已有内容。
+     */
+    @GetMapping(value = "/score/summary/jobs/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSummaryJob(@PathVariable String jobId, Principal principal) {
+        return summaryJobService.find(principal.getName(), jobId)
+                .map(job -> {
+                    SseEmitter emitter = new SseEmitter(summarySseTimeoutMillis);
+                    job.subscribe(emitter);
+                    return ResponseEntity.ok()
+                            .header("X-Accel-Buffering", "no")
+                            .body(emitter);
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * AI 总结缓存统计：命中/未命中次数等，用于观察缓存效果。统计覆盖所有用户，仅管理员可访问（见 WebSecurityConfig）。
+     */
+    @GetMapping("/score/summary/cache-stats")
+    public Map<String, Object> scoreSummaryCacheStats() {
+        CacheStats stats = aiSummaryService.summaryCacheStats();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", aiSummaryService.summaryCacheSize());
+        body.put("hitCount", stats.hitCount());
+        body.put("missCount", stats.missCount());
+        body.put("hitRate", stats.hitRate());
+        body.put("evictionCount", stats.evictionCount());
+        body.put("averageLoadPenaltyMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return body;
+    }
+
+    /**
+     * 比对物化得分与实时计算结果，返回不一致的日期（用于排查增量维护遗漏）。
+     */
+    @GetMapping("/score/consistency")
+    public ConsistencyReport scoreConsistency(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            Principal principal
+    ) {
+        User user = userRepository.findByUsername(principal.getName()).orElseThrow();
+
+        LocalDate today = LocalDate.now();
+        if (end == null) {
+            end = today;
+        }
+        if (start == null) {
+            start = end.minusDays(89); // 默认检查近 90 天
+        }
+
+        return dailyScoreMaterializer.checkConsistency(user, start, end);
+    }
+
+    /**
+     * 根据现有数据重建当前用户的全部物化得分。
+     */
+    @PostMapping("/score/rebuild")
+    public Map<String, Integer> rebuildScores(Principal principal) {
+        User user = userRepository.findByUsername(principal.getName()).orElseThrow();
+        return Map.of("rows", dailyScoreMaterializer.rebuild(user));
+    }
+
+    private List<DailyScore> scores(User user, LocalDate start, LocalDate end) {
+        return materializedEnabled
+                ? dailyScoreMaterializer.findScores(user, start, end)
+                : insightScoreService.calculateScores(user, start, end);
+    }
+}
@@ -0,0 +1,29 @@
+package org.zhzssp.memorandum.feature.insight.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户的 daily_score 回填标记（Insight 插件）：全量重建完成时写入，存在即表示历史日期已全部物化。
+ */
+@Entity
+@Table(name = "daily_score_backfill")
+@Data
+public class DailyScoreBackfillRecord {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+
+    public static DailyScoreBackfillRecord of(Long userId) {
+        DailyScoreBackfillRecord r = new DailyScoreBackfillRecord();
+        r.setUserId(userId);
+        r.setCompletedAt(LocalDateTime.now());
+        return r;
+    }
+}
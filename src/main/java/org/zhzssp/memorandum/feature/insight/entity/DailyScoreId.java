@@ -0,0 +1,19 @@
+package org.zhzssp.memorandum.feature.insight.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * daily_score 复合主键：(user_id, score_date)。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyScoreId implements Serializable {
+    private Long userId;
+    private LocalDate scoreDate;
+}
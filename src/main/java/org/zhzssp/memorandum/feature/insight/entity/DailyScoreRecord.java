@@ -0,0 +1,73 @@
+package org.zhzssp.memorandum.feature.insight.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DayComponents;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 物化的单日评分分量（Insight 插件）。
+ *
+ * 只保存只依赖当天数据的分量；目标整体进度是全局量，读取时再与之合成得分。
+ * 当天没有任何任务、笔记、目标归档时不保存行。
+ */
+@Entity
+@Table(name = "daily_score")
+@IdClass(DailyScoreId.class)
+@Data
+public class DailyScoreRecord {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "score_date")
+    private LocalDate scoreDate;
+
+    @Column(name = "planned_tasks", nullable = false)
+    private int plannedTasks;
+
+    @Column(name = "completed_tasks", nullable = false)
+    private int completedTasks;
+
+    @Column(name = "planned_weight", nullable = false)
+    private double plannedWeight;
+
+    @Column(name = "completed_weight", nullable = false)
+    private double completedWeight;
+
+    @Column(name = "note_count", nullable = false)
+    private int noteCount;
+
+    @Column(name = "goals_completed", nullable = false)
+    private int goalsCompleted;
+
+    @Column(name = "touched_goals", nullable = false)
+    private int touchedGoals;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public DayComponents toComponents() {
+        return new DayComponents(plannedTasks, completedTasks, plannedWeight, completedWeight,
+                noteCount, goalsCompleted, touchedGoals);
+    }
+
+    public static DailyScoreRecord of(Long userId, LocalDate scoreDate, DayComponents c) {
+        DailyScoreRecord r = new DailyScoreRecord();
+        r.setUserId(userId);
+        r.setScoreDate(scoreDate);
+        r.setPlannedTasks(c.plannedTasks());
+        r.setCompletedTasks(c.completedTasks());
+        r.setPlannedWeight(c.plannedWeight());
+        r.setCompletedWeight(c.completedWeight());
+        r.setNoteCount(c.noteCount());
+        r.setGoalsCompleted(c.goalsCompleted());
+        r.setTouchedGoals(c.touchedGoals());
+        r.setUpdatedAt(LocalDateTime.now());
+        return r;
+    }
+}
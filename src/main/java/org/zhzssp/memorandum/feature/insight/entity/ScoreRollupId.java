@@ -0,0 +1,21 @@
+package org.zhzssp.memorandum.feature.insight.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.zhzssp.memorandum.feature.insight.service.ScoreGranularity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * score_rollup 复合主键：(user_id, granularity, bucket_start)。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreRollupId implements Serializable {
+    private Long userId;
+    private ScoreGranularity granularity;
+    private LocalDate bucketStart;
+}
@@ -0,0 +1,95 @@
+package org.zhzssp.memorandum.feature.insight.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DayComponents;
+import org.zhzssp.memorandum.feature.insight.service.ScoreGranularity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 按周/按月预聚合的评分（Insight 插件），由 daily_score 汇总而来。
+ *
+ * 只保存可合并的量：各分量之和，以及单日局部得分、笔记因子之和。
+ * 单日得分 = 局部得分 + 8 × 目标整体进度（各项均非负且总和不超过 100，截断不会生效），
+ * 因此桶内平均得分 = 局部得分之和 / 天数 + 8 × 目标整体进度，读取时与当前目标进度合成。
+ */
+@Entity
+@Table(name = "score_rollup")
+@IdClass(ScoreRollupId.class)
+@Data
+public class ScoreRollupRecord {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 10)
+    private ScoreGranularity granularity;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDate bucketStart;
+
+    @Column(name = "planned_tasks", nullable = false)
+    private int plannedTasks;
+
+    @Column(name = "completed_tasks", nullable = false)
+    private int completedTasks;
+
+    @Column(name = "planned_weight", nullable = false)
+    private double plannedWeight;
+
+    @Column(name = "completed_weight", nullable = false)
+    private double completedWeight;
+
+    @Column(name = "note_count", nullable = false)
+    private int noteCount;
+
+    @Column(name = "goals_completed", nullable = false)
+    private int goalsCompleted;
+
+    /** 各天「推进的目标数」之和（同一目标在不同天分别计数） */
+    @Column(name = "touched_goals", nullable = false)
+    private int touchedGoals;
+
+    @Column(name = "local_score_sum", nullable = false)
+    private double localScoreSum;
+
+    @Column(name = "note_factor_sum", nullable = false)
+    private double noteFactorSum;
+
+    /** 有物化行的天数 */
+    @Column(name = "active_days", nullable = false)
+    private int activeDays;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public static ScoreRollupRecord empty(Long userId, ScoreGranularity granularity, LocalDate bucketStart) {
+        ScoreRollupRecord r = new ScoreRollupRecord();
+        r.setUserId(userId);
+        r.setGranularity(granularity);
+        r.setBucketStart(bucketStart);
+        r.setUpdatedAt(LocalDateTime.now());
+        return r;
+    }
+
+    /** 合并一天的分量 */
+    public void add(DayComponents c) {
+        plannedTasks += c.plannedTasks();
+        completedTasks += c.completedTasks();
+        plannedWeight += c.plannedWeight();
+        completedWeight += c.completedWeight();
+        noteCount += c.noteCount();
+        goalsCompleted += c.goalsCompleted();
+        touchedGoals += c.touchedGoals();
+        localScoreSum += InsightScoreService.localScore(c);
+        noteFactorSum += InsightScoreService.noteFactor(c.noteCount());
+        activeDays++;
+    }
+}
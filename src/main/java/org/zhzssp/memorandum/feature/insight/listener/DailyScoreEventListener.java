@@ -0,0 +1,137 @@
+package org.zhzssp.memorandum.feature.insight.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.zhzssp.memorandum.core.event.NoteSavedEvent;
+import org.zhzssp.memorandum.core.event.TaskArchivedEvent;
+import org.zhzssp.memorandum.core.event.TaskCompletedEvent;
+import org.zhzssp.memorandum.core.event.TaskCreatedEvent;
+import org.zhzssp.memorandum.core.event.TaskDeletedEvent;
+import org.zhzssp.memorandum.core.event.TaskShelvedEvent;
+import org.zhzssp.memorandum.core.event.TaskSnapshot;
+import org.zhzssp.memorandum.core.event.TasksArchivedEvent;
+import org.zhzssp.memorandum.core.event.TasksDeletedEvent;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.event.GoalChangedEvent;
+import org.zhzssp.memorandum.feature.insight.service.DailyScoreMaterializer;
+import org.zhzssp.memorandum.repository.TaskRepository;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 增量维护 daily_score：任务按截止日期、笔记按创建日期、目标按归档日期定位受影响的日期并重算。
+ * 物化失败只记录日志，不影响业务写操作；可通过一致性检查和重建接口修复。
+ * 只在物化读取开启（insight.score.materialized.enabled，默认开启）时注册，关闭时业务写操作不再触发按天重算。
+ */
+@Component
+@ConditionalOnProperty(prefix = "insight.score.materialized", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class DailyScoreEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyScoreEventListener.class);
+
+    private final DailyScoreMaterializer materializer;
+    private final TaskRepository taskRepository;
+
+    public DailyScoreEventListener(DailyScoreMaterializer materializer, TaskRepository taskRepository) {
+        this.materializer = materializer;
+        this.taskRepository = taskRepository;
+    }
+
+    @EventListener
+    public void onTaskCreated(TaskCreatedEvent event) {
+        recomputeTaskDay(event.getTask(), event.getUser());
+    }
+
+    @EventListener
+    public void onTaskCompleted(TaskCompletedEvent event) {
+        recomputeTaskDay(event.getTask(), event.getUser());
+    }
+
+    @EventListener
+    public void onTaskArchived(TaskArchivedEvent event) {
+        recomputeTaskDay(event.getTask(), event.getUser());
+    }
+
+    @EventListener
+    public void onTaskShelved(TaskShelvedEvent event) {
+        recomputeTaskDay(event.getTask(), event.getUser());
+    }
+
+    @EventListener
+    public void onTaskDeleted(TaskDeletedEvent event) {
+        recomputeTaskDay(event.getTask(), event.getUser());
+    }
+
+    @EventListener
+    public void onTasksArchived(TasksArchivedEvent event) {
+        recomputeTaskDays(event.getTasks(), event.getUser());
+    }
+
+    @EventListener
+    public void onTasksDeleted(TasksDeletedEvent event) {
+        recomputeTaskDays(event.getTasks(), event.getUser());
+    }
+
+    @EventListener
+    public void onNoteSaved(NoteSavedEvent event) {
+        if (event.getNote() == null || event.getNote().getCreatedAt() == null) {
+            return;
+        }
+        recompute(event.getUser(), Set.of(event.getNote().getCreatedAt().toLocalDate()));
+    }
+
+    /** 目标归档/删除影响归档当天的目标完成数；关联任务的状态或目标覆盖变化影响这些任务的截止日期 */
+    @EventListener
+    public void onGoalChanged(GoalChangedEvent event) {
+        Set<LocalDate> days = new HashSet<>();
+        if (event.getGoal() != null && event.getGoal().getArchivedAt() != null) {
+            days.add(event.getGoal().getArchivedAt().toLocalDate());
+        }
+        if (!event.getTaskIds().isEmpty()) {
+            for (Task t : taskRepository.findAllById(event.getTaskIds())) {
+                if (t.getDeadline() != null) {
+                    days.add(t.getDeadline().toLocalDate());
+                }
+            }
+        }
+        recompute(event.getUser(), days);
+    }
+
+    /** 没有截止日期的任务不参与按天评分 */
+    private void recomputeTaskDay(Task task, User user) {
+        if (task == null || task.getDeadline() == null) {
+            return;
+        }
+        recompute(user, Set.of(task.getDeadline().toLocalDate()));
+    }
+
+    /** 批量事件：一批任务涉及的截止日期合并后一次重算 */
+    private void recomputeTaskDays(List<TaskSnapshot> tasks, User user) {
+        Set<LocalDate> days = new HashSet<>();
+        for (TaskSnapshot t : tasks) {
+            if (t.deadline() != null) {
+                days.add(t.deadline().toLocalDate());
+            }
+        }
+        recompute(user, days);
+    }
+
+    private void recompute(User user, Set<LocalDate> days) {
+        if (user == null || days.isEmpty()) {
+            return;
+        }
+        try {
+            materializer.recomputeDays(user, days);
+        } catch (Exception e) {
+            log.warn("daily_score 增量更新失败（user={}, days={}）", user.getId(), days, e);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package org.zhzssp.memorandum.feature.insight.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.zhzssp.memorandum.feature.insight.entity.DailyScoreBackfillRecord;
+
+public interface DailyScoreBackfillRepository extends JpaRepository<DailyScoreBackfillRecord, Long> {
+}
@@ -0,0 +1,20 @@
+package org.zhzssp.memorandum.feature.insight.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.annotation.Transactional;
+import org.zhzssp.memorandum.feature.insight.entity.DailyScoreId;
+import org.zhzssp.memorandum.feature.insight.entity.DailyScoreRecord;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyScoreRepository extends JpaRepository<DailyScoreRecord, DailyScoreId> {
+
+    /** 按主键 (user_id, score_date) 做区间扫描 */
+    List<DailyScoreRecord> findByUserIdAndScoreDateBetweenOrderByScoreDate(Long userId, LocalDate start, LocalDate end);
+
+    @Transactional
+    @Modifying
+    void deleteByUserId(Long userId);
+}
@@ -0,0 +1,22 @@
+package org.zhzssp.memorandum.feature.insight.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.annotation.Transactional;
+import org.zhzssp.memorandum.feature.insight.entity.ScoreRollupId;
+import org.zhzssp.memorandum.feature.insight.entity.ScoreRollupRecord;
+import org.zhzssp.memorandum.feature.insight.service.ScoreGranularity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ScoreRollupRepository extends JpaRepository<ScoreRollupRecord, ScoreRollupId> {
+
+    /** 按主键 (user_id, granularity, bucket_start) 做区间扫描 */
+    List<ScoreRollupRecord> findByUserIdAndGranularityAndBucketStartBetweenOrderByBucketStart(
+            Long userId, ScoreGranularity granularity, LocalDate start, LocalDate end);
+
+    @Transactional
+    @Modifying
+    void deleteByUserId(Long userId);
+}
@@ -1,19 +1,42 @@
 package org.zhzssp.memorandum.feature.insight.service;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.genai.Client;
+import com.google.genai.ResponseStream;
 import com.google.genai.types.GenerateContentResponse;
+import com.google.genai.types.HttpOptions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * 使用 Gemini 免费接口，对一段时间内的得分曲线做自然语言总结。
@@ -25,18 +48,27 @@ import java.util.stream.Collectors;
  * - 或在 application.properties 中配置 gemini.api.key=YOUR_KEY
  *
  * 如果三者都为空，则本服务会降级为“仅返回本地规则生成的基础总结”，不会调用外部接口。
+ *
+ * <p>调用保护：
+ * - Client 全局只构建一次（首次调用时），复用其连接池
+ * - 调用在专用虚拟线程执行器上运行，超时后中断调用线程，同时 Client 自身的 HTTP 超时保证连接被关闭
+ * - 信号量舱壁限制同时在途的 Gemini 调用数，超出时直接回退，不排队
+ * - 连续失败达到阈值后熔断一段时间，期间直接返回本地规则总结；冷却结束后放行一次试探调用
+ *
+ * <p>模型生成的总结按 Prompt 内容的 SHA-256 缓存（Prompt 由时间范围和得分序列唯一决定），
+ * 相同请求并发到达时（无论同步还是流式）只发起一次调用，其余请求等待或跟随同一结果；回退文本不缓存。
  */
 @Service
 public class AiSummaryService {
 
-    /** 使用的 Gemini 模型 ID（免费层可用）。你也可以改成 gemini-2.5-flash-lite 等。 */
-    private static final String GEMINI_MODEL_ID = "gemini-2.5-flash";
+    private static final Logger log = LoggerFactory.getLogger(AiSummaryService.class);
 
-    /**
-     * 调用 Gemini 的超时时间（秒）。
-     * 如果在该时间内没有得到模型返回，就会中断调用，回退到本地规则总结。
-     */
-    private static final long AI_TIMEOUT_SECONDS = 8L;
+    private static final String CALL_FAILED_HINT =
+            "\n\n（提示：调用 Gemini 接口失败，本摘要由本地规则生成。错误信息已记录在服务端日志。）";
+
+    /** 使用的 Gemini 模型 ID（免费层可用）。你也可以改成 gemini-2.5-flash-lite 等。 */
+    @Value("${gemini.model:gemini-2.5-flash}")
+    private String modelId;
 
     /**
      * 从配置文件注入的 key。如果未配置，会回退到环境变量 GEMINI_API_KEY。
@@ -49,9 +81,78 @@ public class AiSummaryService {
     @Value("${gemini.api.key:}")
     private String configuredApiKey;
 
+    /** Gemini 接口地址；为空时使用 SDK 默认地址，测试时可指向本地桩服务 */
+    @Value("${gemini.api.base-url:}")
+    private String baseUrl;
+
+    /**
+     * 调用 Gemini 的超时时间（毫秒）。
+     * 如果在该时间内没有得到模型返回，就会中断调用，回退到本地规则总结。
+     */
+    @Value("${gemini.timeout-ms:8000}")
+    private long timeoutMillis;
+
+    /** 同时在途的 Gemini 调用上限（舱壁） */
+    @Value("${gemini.max-concurrent-calls:4}")
+    private int maxConcurrentCalls;
+
+    /** 连续失败多少次后熔断 */
+    @Value("${gemini.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    /** 熔断持续时间（毫秒），到期后放行一次试探调用 */
+    @Value("${gemini.circuit-breaker.open-ms:60000}")
+    private long openMillis;
+
+    /** 最多缓存的 AI 总结条数 */
+    @Value("${gemini.summary-cache.max-size:500}")
+    private long summaryCacheMaxSize;
+
+    /** AI 总结缓存写入后的存活时间（秒） */
+    @Value("${gemini.summary-cache.ttl-seconds:3600}")
+    private long summaryCacheTtlSeconds;
+
+    /** Prompt 字符预算：长区间的统计摘要会在此范围内裁剪 */
+    @Value("${gemini.prompt.max-chars:6000}")
+    private int promptMaxChars;
+
+    /** 流式生成整段输出的超时时间（毫秒） */
+    @Value("${gemini.stream.timeout-ms:60000}")
+    private long streamTimeoutMillis;
+
+    private volatile Client client;
+
+    private volatile Client streamClient;
+
+    private AsyncCache<String, Summary> summaryCache;
+
+    private ExecutorService executor;
+
+    private Semaphore bulkhead;
+
+    private CircuitBreaker circuitBreaker;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        bulkhead = new Semaphore(Math.max(1, maxConcurrentCalls));
+        circuitBreaker = new CircuitBreaker(Math.max(1, failureThreshold), TimeUnit.MILLISECONDS.toNanos(openMillis));
+        summaryCache = Caffeine.newBuilder()
+                .maximumSize(summaryCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(summaryCacheTtlSeconds))
+                .executor(executor)
+                .recordStats()
+                .buildAsync();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
     /**
      * 对指定时间范围内的 DailyScore 列表做总结。
-     * 如果无法正常调用 Gemini（key 缺失或网络错误等），会回退到本地规则总结。
+     * 如果无法正常调用 Gemini（key 缺失、网络错误、超时、并发已满或熔断中），会回退到本地规则总结。
      */
     public String summarizeScores(LocalDate start, LocalDate end, List<DailyScore> scores) {
         String fallback = buildLocalSummary(start, end, scores);
@@ -63,39 +164,303 @@ public class AiSummaryService {
         }
 
         String prompt = buildPrompt(start, end, scores, fallback);
+        String key = cacheKey(prompt);
+        // 单飞：同一 key 的并发请求共享同一个进行中的调用
+        CompletableFuture<Summary> future = summaryCache.get(key, k -> callGemini(apiKey, prompt, fallback));
+        Summary summary;
+        try {
+            // 跟随的可能是期限更长的流式生成，同步请求只等待自己的期限
+            summary = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            // 共享的调用不取消也不移出缓存：其他请求仍可跟随，完成后结果照常缓存
+            log.warn("等待 AI 总结超过 {} ms，本次请求使用本地规则总结", timeoutMillis);
+            return fallback + "\n\n（提示：等待 Gemini 总结超过 "
+                    + formatSeconds(timeoutMillis)
+                    + " 秒未返回，已使用本地规则生成摘要。）";
+        } catch (ExecutionException | CancellationException ex) {
+            summaryCache.asMap().remove(key, future);
+            log.warn("AI 总结任务异常结束", ex);
+            return fallback + CALL_FAILED_HINT;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return fallback + CALL_FAILED_HINT;
+        }
+        if (!summary.fromModel()) {
+            // 回退文本只对当次请求有效，移除后下次请求会重新尝试调用模型
+            summaryCache.asMap().remove(key, future);
+        }
+        return summary.text();
+    }
 
+    public CacheStats summaryCacheStats() {
+        return summaryCache.synchronous().stats();
+    }
+
+    public long summaryCacheSize() {
+        return summaryCache.synchronous().estimatedSize();
+    }
+
+    /**
+     * 本地规则总结（不调用 Gemini），供异步总结任务先行展示。
+     */
+    public String localSummary(LocalDate start, LocalDate end, List<DailyScore> scores) {
+        return buildLocalSummary(start, end, scores);
+    }
+
+    /**
+     * 流式生成总结：模型每输出一段文本就回调一次 onDelta，返回最终结果。
+     * 在调用线程上阻塞执行，由调用方（异步任务）负责放到后台线程。
+     * 与 {@link #summarizeScores} 共用缓存、舱壁与熔断：开始生成前先把进行中的流登记到缓存，
+     * 相同 Prompt 的并发请求（流式或同步）都跟随这一次调用，流式跟随者先补发已输出的片段；
+     * 命中已完成的结果时一次性回调完整文本。
+     * 失败时返回回退文本（fromModel 为 false），此前已回调的片段应被调用方丢弃。
+     */
+    public Summary streamSummary(LocalDate start, LocalDate end, List<DailyScore> scores, Consumer<String> onDelta) {
+        String fallback = buildLocalSummary(start, end, scores);
+
+        String apiKey = resolveApiKey();
+        if (apiKey == null || apiKey.isBlank()) {
+            return new Summary(fallback + "\n\n（提示：当前未配置 Gemini API Key，本摘要由本地规则生成。）", false);
+        }
+
+        String prompt = buildPrompt(start, end, scores, fallback);
+        String key = cacheKey(prompt);
+        SummaryStream flight = new SummaryStream();
+        CompletableFuture<Summary> existing;
+        while ((existing = summaryCache.asMap().putIfAbsent(key, flight)) != null) {
+            if (!existing.isDone() || hasModelSummary(existing)) {
+                return follow(existing, onDelta, fallback);
+            }
+            // 已结束但没有可用结果（回退文本或异常）：移除后由本次请求重新生成
+            summaryCache.asMap().remove(key, existing);
+        }
+
+        flight.follow(onDelta);
+        Summary summary = new Summary(fallback + CALL_FAILED_HINT, false);
+        try {
+            summary = generateStream(apiKey, prompt, fallback, flight::publish);
+            return summary;
+        } finally {
+            flight.finish(summary);
+            if (!summary.fromModel()) {
+                summaryCache.asMap().remove(key, flight);
+            }
+        }
+    }
+
+    /** 跟随同一 Prompt 的进行中调用或已缓存结果 */
+    private Summary follow(CompletableFuture<Summary> existing, Consumer<String> onDelta, String fallback) {
+        boolean subscribed = existing instanceof SummaryStream stream && stream.follow(onDelta);
+        Summary summary;
         try {
-            // 使用异步 + 超时控制，避免模型响应过慢卡住请求。
-            CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
-                Client client = Client.builder()
-                        .apiKey(apiKey)
-                        .build();
-
-                GenerateContentResponse response =
-                        client.models.generateContent(GEMINI_MODEL_ID, prompt, null);
-
-                String aiText = response.text();
-                if (aiText == null || aiText.isBlank()) {
-                    throw new IllegalStateException("Gemini 返回了空文本");
+            summary = existing.join();
+        } catch (CompletionException | CancellationException ex) {
+            log.warn("跟随的 AI 总结调用异常结束", ex);
+            return new Summary(fallback + CALL_FAILED_HINT, false);
+        }
+        if (summary.fromModel() && !subscribed) {
+            onDelta.accept(summary.text());
+        }
+        return summary;
+    }
+
+    private static boolean hasModelSummary(CompletableFuture<Summary> future) {
+        return !future.isCompletedExceptionally() && !future.isCancelled() && future.join().fromModel();
+    }
+
+    /**
+     * 实际发起流式调用（经过熔断与舱壁）；任何失败都以回退文本返回，不抛异常。
+     * 整段输出的期限由定时任务强制执行：到期时关闭响应流，阻塞在读取下一段上的调用也会立即结束。
+     */
+    private Summary generateStream(String apiKey, String prompt, String fallback, Consumer<String> onDelta) {
+        if (!circuitBreaker.allowRequest()) {
+            return new Summary(fallback + "\n\n（提示：Gemini 接口近期连续调用失败，暂时停用，本摘要由本地规则生成。）", false);
+        }
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.release();
+            return new Summary(fallback + "\n\n（提示：当前 AI 总结请求较多，本摘要由本地规则生成，请稍后再试。）", false);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(streamTimeoutMillis);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        StringBuilder text = new StringBuilder();
+        try (ResponseStream<GenerateContentResponse> stream =
+                     streamClient(apiKey).models.generateContentStream(modelId, prompt, null)) {
+            CompletableFuture<Void> watchdog = CompletableFuture.runAsync(() -> {
+                timedOut.set(true);
+                try {
+                    stream.close();
+                } catch (Exception e) {
+                    log.debug("关闭超时的 Gemini 流失败", e);
+                }
+            }, CompletableFuture.delayedExecutor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS, executor));
+            try {
+                for (GenerateContentResponse chunk : stream) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException("AI 总结任务已取消");
+                    }
+                    if (timedOut.get()) {
+                        break;
+                    }
+                    String delta = chunk.text();
+                    if (delta != null && !delta.isEmpty()) {
+                        text.append(delta);
+                        onDelta.accept(delta);
+                    }
+                }
+            } finally {
+                watchdog.cancel(false);
+            }
+            if (timedOut.get() || System.nanoTime() - deadline > 0) {
+                throw new TimeoutException("Gemini 流式输出超过 " + streamTimeoutMillis + " ms");
+            }
+            if (text.toString().isBlank()) {
+                throw new IllegalStateException("Gemini 返回了空文本");
+            }
+            circuitBreaker.onSuccess();
+            return new Summary(text.toString().trim(), true);
+        } catch (Exception ex) {
+            circuitBreaker.onFailure();
+            if (timedOut.get()) {
+                log.warn("Gemini 流式输出超过 {} ms 未完成，已关闭", streamTimeoutMillis);
+                return new Summary(fallback + "\n\n（提示：Gemini 流式输出超过 "
+                        + formatSeconds(streamTimeoutMillis)
+                        + " 秒未完成，已使用本地规则生成摘要。）", false);
+            }
+            log.warn("Gemini 流式生成失败", ex);
+            return new Summary(fallback + CALL_FAILED_HINT, false);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /** 实际调用 Gemini（经过熔断与舱壁）；任何失败都以回退文本返回，不抛异常 */
+    private Summary callGemini(String apiKey, String prompt, String fallback) {
+        if (!circuitBreaker.allowRequest()) {
+            return new Summary(fallback + "\n\n（提示：Gemini 接口近期连续调用失败，暂时停用，本摘要由本地规则生成。）", false);
+        }
+
+        // 不排队：并发已满说明上游已经很慢，再等待只会占住请求线程
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.release();
+            return new Summary(fallback + "\n\n（提示：当前 AI 总结请求较多，本摘要由本地规则生成，请稍后再试。）", false);
+        }
+
+        Future<String> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    return generate(apiKey, prompt);
+                } finally {
+                    // 许可在调用真正结束时才归还，超时被中断的调用在退出前仍计入在途数
+                    bulkhead.release();
                 }
-                return aiText.trim();
             });
+        } catch (RuntimeException ex) {
+            bulkhead.release();
+            circuitBreaker.release();
+            log.warn("提交 Gemini 调用失败", ex);
+            return new Summary(fallback + CALL_FAILED_HINT, false);
+        }
+
+        try {
+            String text = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            return new Summary(text, true);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            circuitBreaker.onFailure();
+            log.warn("调用 Gemini 超过 {} ms 未返回，已取消", timeoutMillis);
+            return new Summary(fallback + "\n\n（提示：调用 Gemini 超过 "
+                    + formatSeconds(timeoutMillis)
+                    + " 秒未返回，已使用本地规则生成摘要。）", false);
+        } catch (ExecutionException ex) {
+            // 网络 / 配额 / Key 等异常，统一回退
+            circuitBreaker.onFailure();
+            log.warn("调用 Gemini 接口失败", ex.getCause());
+            return new Summary(fallback + CALL_FAILED_HINT, false);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            circuitBreaker.release();
+            Thread.currentThread().interrupt();
+            return new Summary(fallback + CALL_FAILED_HINT, false);
+        }
+    }
+
+    /** 当前在途的 Gemini 调用数（包括已超时但尚未退出的调用） */
+    int inFlightCalls() {
+        return Math.max(1, maxConcurrentCalls) - bulkhead.availablePermits();
+    }
+
+    private String generate(String apiKey, String prompt) {
+        GenerateContentResponse response = client(apiKey).models.generateContent(modelId, prompt, null);
+        String aiText = response.text();
+        if (aiText == null || aiText.isBlank()) {
+            throw new IllegalStateException("Gemini 返回了空文本");
+        }
+        return aiText.trim();
+    }
+
+    /**
+     * 懒加载的单例 Client：首次调用时按当时解析到的 key 构建，之后复用。
+     * Client 的 HTTP 超时与调用超时一致，中断无法打断阻塞读时由它关闭连接。
+     */
+    private Client client(String apiKey) {
+        Client c = client;
+        if (c == null) {
+            synchronized (this) {
+                c = client;
+                if (c == null) {
+                    c = newClient(apiKey, timeoutMillis);
+                    client = c;
+                }
+            }
+        }
+        return c;
+    }
 
-            // orTimeout 会在超时时将 future 以 TimeoutException 完成
-            return future.orTimeout(AI_TIMEOUT_SECONDS, TimeUnit.SECONDS).join();
-        } catch (CompletionException ex) {
-            Throwable cause = ex.getCause();
-            if (cause instanceof TimeoutException) {
-                return fallback + "\n\n（提示：调用 Gemini 超过 "
-                        + AI_TIMEOUT_SECONDS
-                        + " 秒未返回，已使用本地规则生成摘要。）";
+    /** 流式生成专用的单例 Client：整段输出的时间远长于一次普通调用，HTTP 超时按流式超时设置 */
+    private Client streamClient(String apiKey) {
+        Client c = streamClient;
+        if (c == null) {
+            synchronized (this) {
+                c = streamClient;
+                if (c == null) {
+                    c = newClient(apiKey, streamTimeoutMillis);
+                    streamClient = c;
+                }
             }
-            // 其他异常（网络 / 配额 / Key 等），统一回退
-            return fallback + "\n\n（提示：调用 Gemini 接口失败，本摘要由本地规则生成。错误信息已记录在服务端日志。）";
-        } catch (Exception ex) {
-            // 兜底：理论上不会走到这里，但为了保险起见仍然做一次回退
-            return fallback + "\n\n（提示：调用 Gemini 接口失败，本摘要由本地规则生成。错误信息已记录在服务端日志。）";
         }
+        return c;
+    }
+
+    private Client newClient(String apiKey, long httpTimeoutMillis) {
+        HttpOptions.Builder httpOptions = HttpOptions.builder()
+                .timeout((int) Math.min(Integer.MAX_VALUE, httpTimeoutMillis));
+        if (baseUrl != null && !baseUrl.isBlank()) {
+            httpOptions.baseUrl(baseUrl.trim());
+        }
+        return Client.builder()
+                .apiKey(apiKey)
+                .httpOptions(httpOptions.build())
+                .build();
+    }
+
+    /** 缓存键：模型 ID 与 Prompt 的 SHA-256 */
+    private String cacheKey(String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(prompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static String formatSeconds(long millis) {
+        return millis % 1000 == 0 ? String.valueOf(millis / 1000) : String.format("%.1f", millis / 1000.0);
     }
 
     private String resolveApiKey() {
@@ -116,46 +481,11 @@ public class AiSummaryService {
 
     /**
      * 构造传给 Gemini 的 Prompt 文本。
-     * 会携带一份简单的“规则总结”作为参考，方便模型在此基础上做润色和补充。
+     * 会携带一份简单的“规则总结”作为参考，方便模型在此基础上做润色和补充；
+     * 长区间发送压缩统计而不是逐日数据，整体长度受 gemini.prompt.max-chars 限制。
      */
     private String buildPrompt(LocalDate start, LocalDate end, List<DailyScore> scores, String fallbackSummary) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("你是一个帮助用户复盘自律情况的教练。")
-                .append("下面是一段时间内的每日规划完成得分与一些辅助指标，请用中文给出一个有洞见的总结。\n\n")
-                .append("需要输出的内容：\n")
-                .append("1. 整体评价：这段时间的规划完成情况、自律性水平。\n")
-                .append("2. 趋势：是变好、变差还是比较稳定？大致在哪几天发生了明显变化。\n")
-                .append("3. 模式：例如“周末高分、工作日低分”“前几天冲刺后几天疲软”等。\n")
-                .append("4. 可执行建议：给出 2~4 条具体、可操作的建议，帮助用户优化目标拆分、任务选择和笔记习惯。\n")
-                .append("5. 限制：不要出现“作为一个 AI 模型”之类的措辞，不要提到具体的得分算法实现细节。\n\n");
-
-        sb.append("时间范围：").append(start).append(" ~ ").append(end).append("\n\n");
-        sb.append("以下是系统根据规则生成的一个初步总结，你可以在此基础上进行改写、补充或纠偏：\n");
-        sb.append(fallbackSummary).append("\n\n");
-
-        sb.append("下面是按日期排列的原始数据（按日期升序）：\n");
-        sb.append("字段含义：date, totalScore(0-100), plannedTasks, completedTasks, noteCount, ")
-                .append("weightedTaskCompletionRate(0-1), goalsCompletedToday, avgGoalProgress(0-1)\n");
-
-        String lines = scores.stream()
-                .sorted((a, b) -> a.getDate().compareTo(b.getDate()))
-                .map(d -> String.format(
-                        "%s: totalScore=%d, planned=%d, done=%d, notes=%d, weightedCompletion=%.2f, goalsDone=%d, avgGoalProgress=%.2f",
-                        d.getDate(),
-                        d.getTotalScore(),
-                        d.getPlannedTasks(),
-                        d.getCompletedTasks(),
-                        d.getNoteCount(),
-                        d.getWeightedTaskCompletionRate(),
-                        d.getGoalsCompletedToday(),
-                        d.getAvgGoalProgress()
-                ))
-                .collect(Collectors.joining("\n"));
-        sb.append(lines);
-
-        sb.append("\n\n请基于上述数据给出一段 4~8 段落的总结，语言自然、口语化一些，但保持简洁和聚焦。");
-
-        return sb.toString();
+        return SummaryPromptBuilder.build(start, end, scores, fallbackSummary, promptMaxChars);
     }
 
     /**
@@ -222,6 +552,124 @@ public class AiSummaryService {
         return sb.toString();
     }
 
-    // 下面原来是手写的 REST DTO，使用官方 SDK 后不再需要，已删除。
+    /** 一次总结的结果；fromModel 为 false 表示回退到了本地规则总结 */
+    public record Summary(String text, boolean fromModel) {}
+
+    /**
+     * 进行中的流式调用，登记在总结缓存中代替普通的 future：同步请求直接等待其结果，
+     * 流式跟随者订阅后续片段（订阅时先补发已输出的部分）。结束后释放片段与订阅者，只保留结果。
+     */
+    private static final class SummaryStream extends CompletableFuture<Summary> {
+
+        private StringBuilder text = new StringBuilder();
+        private List<Follower> followers = new ArrayList<>();
+
+        /**
+         * 订阅后续片段；流已结束时返回 false，由调用方使用最终结果。
+         * 补发已输出的片段在锁外进行，期间持有该跟随者的发送锁，之后的片段排在补发内容之后。
+         */
+        boolean follow(Consumer<String> onDelta) {
+            Follower follower = new Follower(onDelta, new ReentrantLock());
+            follower.sendLock().lock();
+            try {
+                String buffered;
+                synchronized (this) {
+                    if (followers == null) {
+                        return false;
+                    }
+                    buffered = text.toString();
+                    followers.add(follower);
+                }
+                if (!buffered.isEmpty()) {
+                    onDelta.accept(buffered);
+                }
+                return true;
+            } finally {
+                follower.sendLock().unlock();
+            }
+        }
+
+        /** 回调（如向 SSE 连接发送）在锁外进行，慢的跟随者不会阻塞新跟随者的登记 */
+        void publish(String delta) {
+            List<Follower> targets;
+            synchronized (this) {
+                text.append(delta);
+                targets = List.copyOf(followers);
+            }
+            for (Follower follower : targets) {
+                follower.sendLock().lock();
+                try {
+                    follower.onDelta().accept(delta);
+                } finally {
+                    follower.sendLock().unlock();
+                }
+            }
+        }
+
+        synchronized void finish(Summary summary) {
+            text = null;
+            followers = null;
+            complete(summary);
+        }
+
+        /** 一个跟随者；sendLock 保证回调按顺序执行（补发内容在前） */
+        private record Follower(Consumer<String> onDelta, ReentrantLock sendLock) {}
+    }
+
+    /**
+     * 简单的连续失败熔断器。
+     * CLOSED：正常放行；连续失败达到阈值后进入 OPEN，冷却期内全部拒绝；
+     * 冷却结束后只放行一次试探调用（HALF_OPEN），成功则恢复，失败则重新计时。
+     */
+    static final class CircuitBreaker {
+
+        private final int failureThreshold;
+        private final long openNanos;
+
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean open;
+        private boolean trialInFlight;
+
+        CircuitBreaker(int failureThreshold, long openNanos) {
+            this.failureThreshold = failureThreshold;
+            this.openNanos = openNanos;
+        }
+
+        synchronized boolean allowRequest() {
+            if (!open) {
+                return true;
+            }
+            if (trialInFlight || System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            trialInFlight = true;
+            return true;
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            open = false;
+            trialInFlight = false;
+        }
+
+        synchronized void onFailure() {
+            consecutiveFailures++;
+            if (trialInFlight || consecutiveFailures >= failureThreshold) {
+                open = true;
+                openedAt = System.nanoTime();
+            }
+            trialInFlight = false;
+        }
+
+        /** 放行后未实际发起调用（舱壁已满等），归还试探名额，不计成功或失败 */
+        synchronized void release() {
+            trialInFlight = false;
+        }
+
+        synchronized boolean isOpen() {
+            return open;
+        }
+    }
 }
 
@@ -0,0 +1,291 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DayComponents;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.ScoreInputs;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式评分引擎（Insight 插件）。
+ *
+ * 构建阶段把评分数据压成基本类型数组（struct-of-arrays）：
+ * - 有截止日期的任务按截止日分桶（CSR：dayTaskStart 为每天的起始下标），桶内保持原始顺序，
+ *   权重和完成状态预先算好放进 taskWeight / taskDone；
+ * - 任务 → 目标的邻接同样是 CSR 的 int 数组（任务、目标都用下标表示，边已去重）；
+ * - 每天的笔记数、目标归档数是按天下标寻址的 int 数组；
+ * - 目标整体进度与日期无关，只计算一次。
+ * 计分阶段逐日单遍扫描，除输出对象外不分配内存；「推进的目标数」用按天递增的戳记数组去重。
+ *
+ * 浮点累加顺序与 {@link InsightScoreService#calculateScoresReference} 相同，输出逐字段一致。
+ * 快照构建后不可变，{@link #score} 可并发调用。
+ */
+public final class ColumnarScoreEngine {
+
+    /** 下标 0 对应的 epochDay；没有任何按天数据时 dayCount 为 0 */
+    private final long firstEpochDay;
+    private final int dayCount;
+
+    /** 长度 dayCount + 1；第 d 天的任务为 [dayTaskStart[d], dayTaskStart[d + 1]) */
+    private final int[] dayTaskStart;
+    private final double[] taskWeight;
+    private final boolean[] taskDone;
+
+    /** 分桶任务槽位 → 其目标邻接所在的任务下标（-1 表示无关联） */
+    private final int[] slotGoalOwner;
+    /** 长度 taskCount + 1；任务 i 关联的目标下标为 taskGoals[taskGoalStart[i] .. taskGoalStart[i + 1]) */
+    private final int[] taskGoalStart;
+    private final int[] taskGoals;
+    private final int goalCount;
+
+    private final int[] notesPerDay;
+    private final int[] goalsCompletedPerDay;
+
+    private final int activeGoalCount;
+    private final double avgGoalProgress;
+
+    private ColumnarScoreEngine(long firstEpochDay, int dayCount, int[] dayTaskStart, double[] taskWeight,
+                                boolean[] taskDone, int[] slotGoalOwner, int[] taskGoalStart, int[] taskGoals,
+                                int goalCount, int[] notesPerDay, int[] goalsCompletedPerDay,
+                                int activeGoalCount, double avgGoalProgress) {
+        this.firstEpochDay = firstEpochDay;
+        this.dayCount = dayCount;
+        this.dayTaskStart = dayTaskStart;
+        this.taskWeight = taskWeight;
+        this.taskDone = taskDone;
+        this.slotGoalOwner = slotGoalOwner;
+        this.taskGoalStart = taskGoalStart;
+        this.taskGoals = taskGoals;
+        this.goalCount = goalCount;
+        this.notesPerDay = notesPerDay;
+        this.goalsCompletedPerDay = goalsCompletedPerDay;
+        this.activeGoalCount = activeGoalCount;
+        this.avgGoalProgress = avgGoalProgress;
+    }
+
+    public static ColumnarScoreEngine build(ScoreInputs inputs) {
+        List<Task> tasks = inputs.tasks();
+        List<Note> notes = inputs.notes();
+        List<Goal> goals = inputs.goals();
+
+        // --- 日期范围：任务截止日、笔记创建日、目标归档日 ---
+        int taskTotal = tasks.size();
+        long[] taskDay = new long[taskTotal];
+        long minDay = Long.MAX_VALUE;
+        long maxDay = Long.MIN_VALUE;
+        int bucketed = 0;
+        for (int i = 0; i < taskTotal; i++) {
+            Task t = tasks.get(i);
+            if (t.getDeadline() == null) {
+                taskDay[i] = Long.MIN_VALUE;
+                continue;
+            }
+            long d = t.getDeadline().toLocalDate().toEpochDay();
+            taskDay[i] = d;
+            minDay = Math.min(minDay, d);
+            maxDay = Math.max(maxDay, d);
+            bucketed++;
+        }
+        long[] noteDay = new long[notes.size()];
+        for (int i = 0; i < noteDay.length; i++) {
+            Note n = notes.get(i);
+            noteDay[i] = n.getCreatedAt() == null ? Long.MIN_VALUE : n.getCreatedAt().toLocalDate().toEpochDay();
+            if (noteDay[i] != Long.MIN_VALUE) {
+                minDay = Math.min(minDay, noteDay[i]);
+                maxDay = Math.max(maxDay, noteDay[i]);
+            }
+        }
+        long[] archivedDay = new long[goals.size()];
+        for (int i = 0; i < archivedDay.length; i++) {
+            Goal g = goals.get(i);
+            archivedDay[i] = g.getArchivedAt() == null ? Long.MIN_VALUE : g.getArchivedAt().toLocalDate().toEpochDay();
+            if (archivedDay[i] != Long.MIN_VALUE) {
+                minDay = Math.min(minDay, archivedDay[i]);
+                maxDay = Math.max(maxDay, archivedDay[i]);
+            }
+        }
+        long firstDay = minDay == Long.MAX_VALUE ? 0L : minDay;
+        int dayCount = minDay == Long.MAX_VALUE ? 0 : Math.toIntExact(maxDay - minDay + 1);
+
+        // --- 任务按截止日分桶（计数排序，桶内保持输入顺序） ---
+        int[] dayTaskStart = new int[dayCount + 1];
+        for (int i = 0; i < taskTotal; i++) {
+            if (taskDay[i] != Long.MIN_VALUE) {
+                dayTaskStart[(int) (taskDay[i] - firstDay) + 1]++;
+            }
+        }
+        for (int d = 0; d < dayCount; d++) {
+            dayTaskStart[d + 1] += dayTaskStart[d];
+        }
+        int[] fill = Arrays.copyOf(dayTaskStart, dayCount);
+        double[] taskWeight = new double[bucketed];
+        boolean[] taskDone = new boolean[bucketed];
+        int[] slotOfTask = new int[taskTotal];
+        for (int i = 0; i < taskTotal; i++) {
+            if (taskDay[i] == Long.MIN_VALUE) {
+                slotOfTask[i] = -1;
+                continue;
+            }
+            Task t = tasks.get(i);
+            int slot = fill[(int) (taskDay[i] - firstDay)]++;
+            slotOfTask[i] = slot;
+            taskWeight[slot] = InsightScoreService.taskWeight(t, LocalDate.ofEpochDay(taskDay[i]));
+            taskDone[slot] = InsightScoreService.isCompleted(t);
+        }
+
+        // --- 下标映射：任务 ID 取首次出现，目标 ID 同理（与对照实现的 toMap 合并规则一致） ---
+        Map<Long, Integer> taskIndexById = new HashMap<>(taskTotal * 2);
+        for (int i = 0; i < taskTotal; i++) {
+            Long id = tasks.get(i).getId();
+            if (id != null) {
+                taskIndexById.putIfAbsent(id, i);
+            }
+        }
+        Map<Long, Integer> goalIndexById = new HashMap<>(goals.size() * 2);
+        for (int i = 0; i < goals.size(); i++) {
+            Long id = goals.get(i).getId();
+            if (id != null) {
+                goalIndexById.putIfAbsent(id, i);
+            }
+        }
+        int goalCount = goals.size();
+
+        // --- Task ↔ Goal 边：编码为 long 排序去重 ---
+        long[] edges = new long[inputs.links().size()];
+        int edgeCount = 0;
+        for (Link l : inputs.links()) {
+            if (l.getSourceType() != Link.LinkSourceType.TASK) continue;
+            if (l.getTargetType() != Link.LinkTargetType.GOAL) continue;
+            if (l.getSourceId() == null || l.getTargetId() == null) continue;
+            Integer ti = taskIndexById.get(l.getSourceId());
+            Integer gi = goalIndexById.get(l.getTargetId());
+            if (ti == null || gi == null) continue;  // 仅统计当前用户的任务与目标
+            edges[edgeCount++] = ((long) ti << 32) | gi;
+        }
+        Arrays.sort(edges, 0, edgeCount);
+        edgeCount = unique(edges, edgeCount);
+
+        // 任务 → 目标邻接，按任务下标组织（边已按任务下标排序）
+        int[] taskGoalStart = new int[taskTotal + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            taskGoalStart[(int) (edges[e] >>> 32) + 1]++;
+        }
+        for (int i = 0; i < taskTotal; i++) {
+            taskGoalStart[i + 1] += taskGoalStart[i];
+        }
+        int[] taskGoals = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            taskGoals[e] = (int) edges[e];
+        }
+        // 分桶任务通过 ID 找到邻接所在的任务下标（重复 ID 共享首次出现的邻接；无 ID 的任务没有关联）
+        int[] slotGoalOwner = new int[bucketed];
+        for (int i = 0; i < taskTotal; i++) {
+            if (slotOfTask[i] < 0) continue;
+            Long id = tasks.get(i).getId();
+            Integer owner = id == null ? null : taskIndexById.get(id);
+            slotGoalOwner[slotOfTask[i]] = owner == null ? -1 : owner;
+        }
+
+        // --- 目标进度：每个目标的关联任务总数与完成数（边已去重） ---
+        int[] goalTotal = new int[goalCount];
+        int[] goalDone = new int[goalCount];
+        for (int e = 0; e < edgeCount; e++) {
+            int g = (int) edges[e];
+            goalTotal[g]++;
+            if (InsightScoreService.isCompleted(tasks.get((int) (edges[e] >>> 32)))) {
+                goalDone[g]++;
+            }
+        }
+        int activeGoalCount = 0;
+        double progressSum = 0.0;
+        for (int i = 0; i < goalCount; i++) {
+            Goal g = goals.get(i);
+            if (g.getArchivedAt() != null) continue;
+            activeGoalCount++;
+            // 重复 ID 的目标共享首次出现的下标
+            Integer gi = g.getId() == null ? null : goalIndexById.get(g.getId());
+            if (gi != null && goalTotal[gi] > 0) {
+                progressSum += Math.pow(goalDone[gi] * 1.0 / goalTotal[gi], 0.7);
+            }
+        }
+        double avgGoalProgress = activeGoalCount == 0 ? 0.0 : progressSum / activeGoalCount;
+
+        // --- 笔记数、目标归档数按天计数 ---
+        int[] notesPerDay = new int[dayCount];
+        for (long d : noteDay) {
+            if (d != Long.MIN_VALUE) notesPerDay[(int) (d - firstDay)]++;
+        }
+        int[] goalsCompletedPerDay = new int[dayCount];
+        for (long d : archivedDay) {
+            if (d != Long.MIN_VALUE) goalsCompletedPerDay[(int) (d - firstDay)]++;
+        }
+
+        return new ColumnarScoreEngine(firstDay, dayCount, dayTaskStart, taskWeight, taskDone,
+                slotGoalOwner, taskGoalStart, taskGoals, goalCount, notesPerDay, goalsCompletedPerDay,
+                activeGoalCount, avgGoalProgress);
+    }
+
+    /** 计算 [start, end] 每天的得分 */
+    public List<DailyScore> score(LocalDate start, LocalDate end) {
+        long from = start.toEpochDay();
+        long to = end.toEpochDay();
+        List<DailyScore> result = new ArrayList<>((int) Math.max(0, to - from + 1));
+        int[] goalStamp = new int[goalCount];
+        int stamp = 0;
+        for (long epochDay = from; epochDay <= to; epochDay++) {
+            LocalDate day = LocalDate.ofEpochDay(epochDay);
+            long idx = epochDay - firstEpochDay;
+            if (idx < 0 || idx >= dayCount) {
+                result.add(InsightScoreService.composeScore(day, DayComponents.EMPTY, activeGoalCount, avgGoalProgress));
+                continue;
+            }
+            int d = (int) idx;
+            stamp++;
+            int completed = 0;
+            int touched = 0;
+            double plannedWeight = 0.0;
+            double completedWeight = 0.0;
+            for (int s = dayTaskStart[d], e = dayTaskStart[d + 1]; s < e; s++) {
+                double w = taskWeight[s];
+                plannedWeight += w;
+                if (taskDone[s]) {
+                    completed++;
+                    completedWeight += w;
+                    int owner = slotGoalOwner[s];
+                    if (owner < 0) continue;
+                    for (int k = taskGoalStart[owner], ke = taskGoalStart[owner + 1]; k < ke; k++) {
+                        int g = taskGoals[k];
+                        if (goalStamp[g] != stamp) {
+                            goalStamp[g] = stamp;
+                            touched++;
+                        }
+                    }
+                }
+            }
+            DayComponents c = new DayComponents(dayTaskStart[d + 1] - dayTaskStart[d], completed,
+                    plannedWeight, completedWeight, notesPerDay[d], goalsCompletedPerDay[d], touched);
+            result.add(InsightScoreService.composeScore(day, c, activeGoalCount, avgGoalProgress));
+        }
+        return result;
+    }
+
+    private static int unique(long[] sorted, int length) {
+        if (length == 0) return 0;
+        int n = 1;
+        for (int i = 1; i < length; i++) {
+            if (sorted[i] != sorted[n - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,55 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.repository.UserRepository;
+
+/**
+ * daily_score 回填任务：启动时为还没有回填标记（daily_score_backfill）的用户根据现有数据生成全部历史日期。
+ * 标记只在全量重建完成时写入，回填前由事件写入的零散物化行不影响判断；已回填的用户由事件增量维护，
+ * 不会重复回填；需要强制重建时调用 /insight/score/rebuild。
+ *
+ * 只在物化读取开启（insight.score.materialized.enabled）且开启启动回填时注册（两项默认均开启）；
+ * 回填在后台虚拟线程上执行，不阻塞应用启动。回填完成前物化读取可能缺少部分用户的数据。
+ */
+@Component
+@ConditionalOnProperty(prefix = "insight.score.materialized", name = {"enabled", "backfill-on-startup"},
+        havingValue = "true", matchIfMissing = true)
+public class DailyScoreBackfillJob implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyScoreBackfillJob.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DailyScoreMaterializer materializer;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread.ofVirtual().name("daily-score-backfill").start(this::backfill);
+    }
+
+    void backfill() {
+        int users = 0;
+        int rows = 0;
+        for (User user : userRepository.findAll()) {
+            if (!materializer.needsBackfill(user)) {
+                continue;
+            }
+            try {
+                rows += materializer.rebuild(user);
+                users++;
+            } catch (Exception e) {
+                log.warn("daily_score 回填失败（user={}）", user.getId(), e);
+            }
+        }
+        log.info("daily_score 回填完成：{} 个用户，{} 行", users, rows);
+    }
+}
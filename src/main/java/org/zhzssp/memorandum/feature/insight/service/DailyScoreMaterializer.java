@@ -0,0 +1,286 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.feature.goal.service.GoalProgressService;
+import org.zhzssp.memorandum.feature.goal.service.GoalService;
+import org.zhzssp.memorandum.feature.insight.entity.DailyScoreBackfillRecord;
+import org.zhzssp.memorandum.feature.insight.entity.DailyScoreId;
+import org.zhzssp.memorandum.feature.insight.entity.DailyScoreRecord;
+import org.zhzssp.memorandum.feature.insight.repository.DailyScoreBackfillRepository;
+import org.zhzssp.memorandum.feature.insight.repository.DailyScoreRepository;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DayComponents;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.ScoreInputs;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 每日评分物化（Insight 插件）。
+ *
+ * daily_score 表按 (user_id, score_date) 保存单日分量，任务/笔记/目标变更时只重算受影响的日期；
+ * 区间查询变为一次主键范围扫描，再与实时计算的目标整体进度合成得分。
+ */
+@Service
+public class DailyScoreMaterializer {
+
+    /** 权重为浮点累加，比对时允许的误差 */
+    private static final double WEIGHT_EPSILON = 1e-6;
+
+    @Autowired
+    private DailyScoreRepository dailyScoreRepository;
+
+    @Autowired
+    private DailyScoreBackfillRepository dailyScoreBackfillRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private GoalService goalService;
+
+    @Autowired
+    private InsightScoreService insightScoreService;
+
+    @Autowired
+    private ScoreRollupService scoreRollupService;
+
+    /**
+     * 读取指定区间的得分：物化行 + 目标整体进度。没有物化行的日期按空分量处理。
+     */
+    public List<DailyScore> findScores(User user, LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            LocalDate tmp = start;
+            start = end;
+            end = tmp;
+        }
+        List<DailyScore> result = new ArrayList<>();
+        composeRange(user, start, end, loadGoalProgress(user), result::add);
+        return result;
+    }
+
+    /**
+     * 读取按周/月聚合的得分：直接按桶读取 score_rollup，工作量与桶数成正比。
+     */
+    public List<DailyScore> findBuckets(User user, ScoreGranularity granularity, LocalDate start, LocalDate end) {
+        if (granularity == ScoreGranularity.DAY) {
+            return findScores(user, start, end);
+        }
+        if (end.isBefore(start)) {
+            LocalDate tmp = start;
+            start = end;
+            end = tmp;
+        }
+        GoalProgress goalProgress = loadGoalProgress(user);
+        return scoreRollupService.findBuckets(user.getId(), granularity, start, end,
+                goalProgress.activeGoalCount(), goalProgress.avgGoalProgress());
+    }
+
+    /**
+     * 按时间顺序逐个输出区间内的得分：每次只扫描 chunkDays 天的物化行，
+     * 内存占用与区间长度无关；consumer 阻塞时（如客户端读取慢）后续分段不会被读取。
+     */
+    public void streamScores(User user, LocalDate start, LocalDate end, int chunkDays, Consumer<DailyScore> consumer) {
+        if (end.isBefore(start)) {
+            LocalDate tmp = start;
+            start = end;
+            end = tmp;
+        }
+        GoalProgress goalProgress = loadGoalProgress(user);
+        for (LocalDate from = start; !from.isAfter(end); from = from.plusDays(chunkDays)) {
+            LocalDate to = from.plusDays(chunkDays - 1L);
+            composeRange(user, from, to.isAfter(end) ? end : to, goalProgress, consumer);
+        }
+    }
+
+    /** 目标整体进度：只依赖当前状态，一次请求计算一次 */
+    private record GoalProgress(int activeGoalCount, double avgGoalProgress) {}
+
+    /** 直接读取目标行上的进度计数器（GoalProgressService 维护），不再连接 link 与任务表 */
+    private GoalProgress loadGoalProgress(User user) {
+        try {
+            List<Goal> activeGoals = goalRepository.findByUserAndArchivedAtIsNull(user);
+            return new GoalProgress(activeGoals.size(), GoalProgressService.avgProgress(activeGoals));
+        } catch (Exception e) {
+            // 与实时计算一致：目标数据异常时降级为不考虑目标整体进度
+            return new GoalProgress(0, 0.0);
+        }
+    }
+
+    private void composeRange(User user, LocalDate start, LocalDate end, GoalProgress goalProgress,
+                              Consumer<DailyScore> consumer) {
+        Map<LocalDate, DayComponents> byDay = dailyScoreRepository
+                .findByUserIdAndScoreDateBetweenOrderByScoreDate(user.getId(), start, end)
+                .stream()
+                .collect(Collectors.toMap(DailyScoreRecord::getScoreDate, DailyScoreRecord::toComponents));
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            DayComponents c = byDay.getOrDefault(day, DayComponents.EMPTY);
+            consumer.accept(InsightScoreService.composeScore(day, c,
+                    goalProgress.activeGoalCount(), goalProgress.avgGoalProgress()));
+        }
+    }
+
+    /**
+     * 重算若干天的物化行，整批在一个事务内完成。
+     * 内部直接调用 recomputeDay 不经过代理，因此事务边界放在这里而不是依赖 recomputeDay 的注解。
+     */
+    @Transactional
+    public void recomputeDays(User user, Collection<LocalDate> days) {
+        for (LocalDate day : new TreeSet<>(days)) {
+            recomputeDay(user, day);
+        }
+    }
+
+    /**
+     * 只按当天数据重算一行：当天截止的任务、当天创建的笔记数、当天归档的目标数。
+     * 分量为空时删除该行，保证表中只有「有活动」的日期。
+     */
+    @Transactional
+    public void recomputeDay(User user, LocalDate day) {
+        if (user == null || user.getId() == null || day == null) {
+            return;
+        }
+        DayComponents c = computeDay(user, day);
+        if (c.isEmpty()) {
+            DailyScoreId id = new DailyScoreId(user.getId(), day);
+            if (dailyScoreRepository.existsById(id)) {
+                dailyScoreRepository.deleteById(id);
+            }
+        } else {
+            dailyScoreRepository.save(DailyScoreRecord.of(user.getId(), day, c));
+        }
+        scoreRollupService.refresh(user.getId(), day);
+    }
+
+    private DayComponents computeDay(User user, LocalDate day) {
+        List<Task> tasksOfDay = taskRepository.findByUserAndDeadlineGreaterThanEqualAndDeadlineLessThanOrderByIdAsc(
+                user, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        int notes = (int) noteRepository.countByUserAndCreatedAtGreaterThanEqualAndCreatedAtLessThan(
+                user, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+
+        int goalsCompleted = 0;
+        Map<Long, Set<Long>> taskToGoalIds = new HashMap<>();
+        try {
+            goalsCompleted = (int) goalRepository.countByUserAndArchivedAtGreaterThanEqualAndArchivedAtLessThan(
+                    user, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            // 只有已完成任务会计入「推进的目标」，其余任务不必解析目标
+            List<Long> doneIds = tasksOfDay.stream()
+                    .filter(InsightScoreService::isCompleted)
+                    .map(Task::getId)
+                    .toList();
+            goalService.findGoalsByTaskIds(doneIds, user).forEach((taskId, goals) ->
+                    taskToGoalIds.put(taskId, goals.stream().map(Goal::getId).collect(Collectors.toSet())));
+        } catch (Exception e) {
+            // 与实时计算一致：目标数据异常时只统计任务和笔记
+        }
+        return InsightScoreService.computeDayComponents(day, tasksOfDay, notes, goalsCompleted, taskToGoalIds);
+    }
+
+    /**
+     * 回填/重建用户的全部物化行及周/月预聚合：一次加载用户数据，在内存中按天计算后整体替换，
+     * 最后写入回填标记（与替换在同一事务中，失败时不会留下标记）。
+     *
+     * @return 写入的行数
+     */
+    @Transactional
+    public int rebuild(User user) {
+        Map<LocalDate, DayComponents> components =
+                InsightScoreService.computeActiveDayComponents(insightScoreService.loadInputs(user));
+        List<DailyScoreRecord> rows = components.entrySet().stream()
+                .filter(e -> !e.getValue().isEmpty())
+                .map(e -> DailyScoreRecord.of(user.getId(), e.getKey(), e.getValue()))
+                .toList();
+        dailyScoreRepository.deleteByUserId(user.getId());
+        dailyScoreRepository.saveAll(rows);
+        scoreRollupService.rebuild(user.getId(), components);
+        dailyScoreBackfillRepository.save(DailyScoreBackfillRecord.of(user.getId()));
+        return rows.size();
+    }
+
+    /**
+     * 还没有完成过全量重建。只看回填标记：回填前的任务/笔记事件可能已写入个别日期的物化行，
+     * 以「有没有物化行」判断会跳过这类用户，历史日期永远不会被物化。
+     */
+    public boolean needsBackfill(User user) {
+        return !dailyScoreBackfillRepository.existsById(user.getId());
+    }
+
+    /** 物化行与实时计算结果的一处差异 */
+    public record Mismatch(LocalDate date, DayComponents materialized, DayComponents expected,
+                           int materializedScore, int expectedScore) {}
+
+    /** 一致性检查结果 */
+    public record ConsistencyReport(LocalDate start, LocalDate end, int checkedDays, List<Mismatch> mismatches) {
+        public boolean consistent() {
+            return mismatches.isEmpty();
+        }
+    }
+
+    /**
+     * 一致性检查：以实时计算（{@link InsightScoreService#calculateScores}）为准，
+     * 逐日比对物化分量与最终得分，返回不一致的日期。
+     */
+    public ConsistencyReport checkConsistency(User user, LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            LocalDate tmp = start;
+            start = end;
+            end = tmp;
+        }
+        ScoreInputs inputs = insightScoreService.loadInputs(user);
+        Map<LocalDate, DayComponents> expectedComponents = InsightScoreService.computeActiveDayComponents(inputs);
+        Map<LocalDate, DailyScore> expectedScores = InsightScoreService.calculateScores(inputs, start, end).stream()
+                .collect(Collectors.toMap(DailyScore::getDate, Function.identity()));
+        Map<LocalDate, DailyScore> materializedScores = findScores(user, start, end).stream()
+                .collect(Collectors.toMap(DailyScore::getDate, Function.identity()));
+        Map<LocalDate, DayComponents> materialized = dailyScoreRepository
+                .findByUserIdAndScoreDateBetweenOrderByScoreDate(user.getId(), start, end)
+                .stream()
+                .collect(Collectors.toMap(DailyScoreRecord::getScoreDate, DailyScoreRecord::toComponents));
+
+        Set<LocalDate> days = new TreeSet<>(expectedScores.keySet());
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (LocalDate day : days) {
+            DayComponents actual = materialized.getOrDefault(day, DayComponents.EMPTY);
+            DayComponents expected = expectedComponents.getOrDefault(day, DayComponents.EMPTY);
+            int actualScore = materializedScores.get(day).getTotalScore();
+            int expectedScore = expectedScores.get(day).getTotalScore();
+            if (!sameComponents(actual, expected) || actualScore != expectedScore) {
+                mismatches.add(new Mismatch(day, actual, expected, actualScore, expectedScore));
+            }
+        }
+        return new ConsistencyReport(start, end, days.size(), mismatches);
+    }
+
+    private static boolean sameComponents(DayComponents a, DayComponents b) {
+        return a.plannedTasks() == b.plannedTasks()
+                && a.completedTasks() == b.completedTasks()
+                && a.noteCount() == b.noteCount()
+                && a.goalsCompleted() == b.goalsCompleted()
+                && a.touchedGoals() == b.touchedGoals()
+                && Math.abs(a.plannedWeight() - b.plannedWeight()) < WEIGHT_EPSILON
+                && Math.abs(a.completedWeight() - b.completedWeight()) < WEIGHT_EPSILON;
+    }
+}
@@ -1,7 +1,21 @@
 package org.zhzssp.memorandum.feature.insight.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.zhzssp.memorandum.core.event.NoteSavedEvent;
+import org.zhzssp.memorandum.core.event.TaskArchivedEvent;
+import org.zhzssp.memorandum.core.event.TaskCompletedEvent;
+import org.zhzssp.memorandum.core.event.TaskCreatedEvent;
+import org.zhzssp.memorandum.core.event.TaskDeletedEvent;
+import org.zhzssp.memorandum.core.event.TaskShelvedEvent;
+import org.zhzssp.memorandum.core.event.TasksArchivedEvent;
+import org.zhzssp.memorandum.core.event.TasksDeletedEvent;
 import org.zhzssp.memorandum.entity.Note;
 import org.zhzssp.memorandum.entity.EnergyLevel;
 import org.zhzssp.memorandum.entity.Link;
@@ -9,21 +23,27 @@ import org.zhzssp.memorandum.entity.MentalLoad;
 import org.zhzssp.memorandum.entity.Task;
 import org.zhzssp.memorandum.entity.TaskStatus;
 import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.dto.GoalTaskPair;
 import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.event.GoalChangedEvent;
 import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
-import org.zhzssp.memorandum.repository.LinkRepository;
 import org.zhzssp.memorandum.repository.NoteRepository;
 import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.service.LinkGraphService;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -46,11 +66,31 @@ public class InsightScoreService {
     private NoteRepository noteRepository;
 
     @Autowired
-    private LinkRepository linkRepository;
+    private LinkGraphService linkGraphService;
 
     @Autowired
     private GoalRepository goalRepository;
 
+    /** 最多缓存列式快照的用户数 */
+    @Value("${insight.score.engine-cache.max-users:200}")
+    private long engineCacheMaxUsers = 200;
+
+    /** 快照写入后的存活时间（秒），兜底处理未发布事件的数据变化 */
+    @Value("${insight.score.engine-cache.ttl-seconds:600}")
+    private long engineCacheTtlSeconds = 600;
+
+    /** 每个用户已构建的列式快照；任务、笔记、目标事件到达时失效，下次计分重新构建 */
+    private Cache<Long, ColumnarScoreEngine> engines;
+
+    @PostConstruct
+    void initCache() {
+        engines = Caffeine.newBuilder()
+                .maximumSize(engineCacheMaxUsers)
+                .expireAfterWrite(Duration.ofSeconds(engineCacheTtlSeconds))
+                .recordStats()
+                .build();
+    }
+
     public static class DailyScore {
         private LocalDate date;
         private int plannedTasks;
@@ -155,6 +195,11 @@ public class InsightScoreService {
         }
     }
 
+    /**
+     * 评分所需的用户原始数据（任务、笔记、目标、Task→Goal 链接）。
+     */
+    public record ScoreInputs(List<Task> tasks, List<Note> notes, List<Goal> goals, List<Link> links) {}
+
     /**
      * 计算指定时间范围内每天的得分。
      */
@@ -164,8 +209,93 @@ public class InsightScoreService {
             start = end;
             end = tmp;
         }
+        return engineFor(user).score(start, end);
+    }
+
+    /**
+     * 按时间顺序逐个输出区间内的得分：快照只构建一次，之后每次只计算 chunkDays 天，
+     * 不会在内存中保留整个区间的结果。
+     */
+    public void streamScores(User user, LocalDate start, LocalDate end, int chunkDays, Consumer<DailyScore> consumer) {
+        if (end.isBefore(start)) {
+            LocalDate tmp = start;
+            start = end;
+            end = tmp;
+        }
+        ColumnarScoreEngine engine = engineFor(user);
+        for (LocalDate from = start; !from.isAfter(end); from = from.plusDays(chunkDays)) {
+            LocalDate to = from.plusDays(chunkDays - 1L);
+            engine.score(from, to.isAfter(end) ? end : to).forEach(consumer);
+        }
+    }
+
+    /**
+     * 用户的列式快照：命中缓存时只需逐日计分；未命中时加载数据并构建。
+     * 快照不可变，可被并发请求共享；数据变化由事件使其失效（见 onTaskCreated 等）。
+     */
+    ColumnarScoreEngine engineFor(User user) {
+        return engines.get(user.getId(), id -> ColumnarScoreEngine.build(loadInputs(user)));
+    }
+
+    public void invalidate(User user) {
+        if (user != null && user.getId() != null) {
+            engines.invalidate(user.getId());
+        }
+    }
+
+    public CacheStats engineCacheStats() {
+        return engines.stats();
+    }
+
+    @EventListener
+    public void onTaskCreated(TaskCreatedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTaskCompleted(TaskCompletedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTaskArchived(TaskArchivedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTaskShelved(TaskShelvedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTaskDeleted(TaskDeletedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTasksArchived(TasksArchivedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTasksDeleted(TasksDeletedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onNoteSaved(NoteSavedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onGoalChanged(GoalChangedEvent event) {
+        invalidate(event.getUser());
+    }
 
-        // 取出用户所有任务和笔记，在内存中按日期聚合（个人应用数据量可接受）
+    /**
+     * 取出用户所有任务和笔记，在内存中按日期聚合（个人应用数据量可接受）。
+     */
+    public ScoreInputs loadInputs(User user) {
         List<Task> allTasks = taskRepository.findByUser(user);
         List<Note> allNotes = noteRepository.findByUser(user);
         List<Goal> allGoals;
@@ -174,138 +304,299 @@ public class InsightScoreService {
             // 目标/关联表属于可选增强能力，如果数据库还没对应表或数据异常，
             // 不应该影响基础“任务 + 笔记”得分的计算。
             allGoals = goalRepository.findByUser(user);
-            allLinks = linkRepository.findAll();
+            // 任务→目标关联取自用户的 Link 关系图（内存缓存），不再每次查询 link 表
+            allLinks = linkGraphService.links(user, Link.LinkSourceType.TASK, Link.LinkTargetType.GOAL);
         } catch (Exception e) {
             // 容错：记录日志由全局异常/日志框架处理，这里只在评分层面“降级”为不考虑目标因素
             allGoals = List.of();
             allLinks = List.of();
         }
+        return new ScoreInputs(allTasks, allNotes, allGoals, allLinks);
+    }
 
-        // 预构建 taskId -> task 便于关联过滤
-        Map<Long, Task> taskById = allTasks.stream()
-                .filter(t -> t.getId() != null)
-                .collect(Collectors.toMap(Task::getId, t -> t, (a, b) -> a));
-
-        // 目标只统计当前用户的
-        Map<Long, Goal> goalById = allGoals.stream()
-                .filter(g -> g.getId() != null)
-                .collect(Collectors.toMap(Goal::getId, g -> g, (a, b) -> a));
-
-        // Task ↔ Goal 关联（弱关联，来自 link 表）
-        // 个人应用：直接全表取出再过滤（后续若数据量大，可加 repository 查询方法优化）
-        Map<Long, Set<Long>> taskToGoalIds = new HashMap<>();
-        Map<Long, Set<Long>> goalToTaskIds = new HashMap<>();
-        for (Link l : allLinks) {
-            if (l.getSourceType() != Link.LinkSourceType.TASK) continue;
-            if (l.getTargetType() != Link.LinkTargetType.GOAL) continue;
-            Long taskId = l.getSourceId();
-            Long goalId = l.getTargetId();
-            if (taskId == null || goalId == null) continue;
-            if (!taskById.containsKey(taskId)) continue;  // 仅统计当前用户任务
-            if (!goalById.containsKey(goalId)) continue;  // 仅统计当前用户目标
-            taskToGoalIds.computeIfAbsent(taskId, k -> new HashSet<>()).add(goalId);
-            goalToTaskIds.computeIfAbsent(goalId, k -> new HashSet<>()).add(taskId);
-        }
-
-        Map<LocalDate, List<Task>> tasksByDeadline = allTasks.stream()
-                .filter(t -> t.getDeadline() != null)
-                .collect(Collectors.groupingBy(t -> t.getDeadline().toLocalDate()));
-
-        Map<LocalDate, List<Note>> notesByCreated = allNotes.stream()
-                .filter(n -> n.getCreatedAt() != null)
-                .collect(Collectors.groupingBy(n -> n.getCreatedAt().toLocalDate()));
-
-        // 当天完成目标：以目标 archivedAt 作为“目标完整完成”的事件信号
-        Map<LocalDate, Long> goalsCompletedByDay = allGoals.stream()
-                .filter(g -> g.getArchivedAt() != null)
-                .collect(Collectors.groupingBy(g -> g.getArchivedAt().toLocalDate(), Collectors.counting()));
-
-        List<Goal> activeGoals = allGoals.stream()
-                .filter(g -> g.getArchivedAt() == null)
-                .collect(Collectors.toList());
+    /**
+     * 基于已加载的数据计算指定时间范围内每天的得分（不访问数据库）。
+     * 先构建列式快照再逐日单遍扫描，见 {@link ColumnarScoreEngine}。
+     */
+    public static List<DailyScore> calculateScores(ScoreInputs inputs, LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            LocalDate tmp = start;
+            start = end;
+            end = tmp;
+        }
+        return ColumnarScoreEngine.build(inputs).score(start, end);
+    }
+
+    /**
+     * 基于 Map/Set 分组的逐日计算，作为 {@link ColumnarScoreEngine} 的对照实现（测试与基准使用）。
+     */
+    static List<DailyScore> calculateScoresReference(ScoreInputs inputs, LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            LocalDate tmp = start;
+            start = end;
+            end = tmp;
+        }
+
+        ScoreIndex index = new ScoreIndex(inputs);
+        int activeGoalCount = index.activeGoals.size();
+        double avgGoalProgress = index.avgGoalProgress();
 
         List<DailyScore> result = new ArrayList<>();
         LocalDate cursor = start;
         while (!cursor.isAfter(end)) {
-            List<Task> tasksOfDay = tasksByDeadline.getOrDefault(cursor, List.of());
-            List<Note> notesOfDay = notesByCreated.getOrDefault(cursor, List.of());
-
-            int planned = tasksOfDay.size();
-            int completed = (int) tasksOfDay.stream()
-                    .filter(t -> {
-                        TaskStatus s = t.getEffectiveStatus();
-                        return s == TaskStatus.DONE || s == TaskStatus.ARCHIVED;
-                    })
-                    .count();
-
-            double completionRate = planned == 0 ? 0.0 : (completed * 1.0 / planned);
-
-            // --- 新版任务评分：加权完成率 + 加权吞吐（考虑周期长度、心理负担、精力需求） ---
-            double plannedWeight = 0.0;
-            double completedWeight = 0.0;
-            for (Task t : tasksOfDay) {
-                double w = taskWeight(t, cursor);
-                plannedWeight += w;
-                TaskStatus s = t.getEffectiveStatus();
-                if (s == TaskStatus.DONE || s == TaskStatus.ARCHIVED) {
-                    completedWeight += w;
-                }
+            result.add(composeScore(cursor, index.dayComponents(cursor), activeGoalCount, avgGoalProgress));
+            cursor = cursor.plusDays(1);
+        }
+        return result;
+    }
+
+    /**
+     * 计算所有「有活动」日期（有任务截止、有笔记或有目标归档）的单日局部分量，用于物化回填。
+     */
+    public static Map<LocalDate, DayComponents> computeActiveDayComponents(ScoreInputs inputs) {
+        return activeDayComponents(new ScoreIndex(inputs));
+    }
+
+    private static Map<LocalDate, DayComponents> activeDayComponents(ScoreIndex index) {
+        Set<LocalDate> days = new TreeSet<>();
+        days.addAll(index.tasksByDeadline.keySet());
+        days.addAll(index.notesByCreated.keySet());
+        days.addAll(index.goalsCompletedByDay.keySet());
+        Map<LocalDate, DayComponents> result = new LinkedHashMap<>();
+        for (LocalDate day : days) {
+            result.put(day, index.dayComponents(day));
+        }
+        return result;
+    }
+
+    /**
+     * 由有效目标与其关联任务的配对计算目标整体进度，口径与 {@link #calculateScores(ScoreInputs, LocalDate, LocalDate)} 一致：
+     * 没有关联任务的目标进度记为 0，平均值的分母是全部有效目标数。
+     */
+    public static double avgGoalProgress(int activeGoalCount, List<GoalTaskPair> pairs) {
+        if (activeGoalCount == 0) return 0.0;
+        Map<Long, Set<Long>> goalToTaskIds = new LinkedHashMap<>();
+        Map<Long, Task> taskById = new HashMap<>();
+        Map<Long, Goal> goals = new TreeMap<>();
+        for (GoalTaskPair p : pairs) {
+            goals.putIfAbsent(p.goal().getId(), p.goal());
+            goalToTaskIds.computeIfAbsent(p.goal().getId(), k -> new HashSet<>()).add(p.task().getId());
+            taskById.putIfAbsent(p.task().getId(), p.task());
+        }
+        double sum = 0.0;
+        for (Goal g : goals.values()) {
+            sum += goalProgressPow(g, goalToTaskIds, taskById);
+        }
+        return sum / activeGoalCount;
+    }
+
+    /**
+     * 按日期、目标预先分组的评分数据。
+     */
+    private static final class ScoreIndex {
+        private final Map<Long, Task> taskById;
+        private final Map<Long, Set<Long>> taskToGoalIds = new HashMap<>();
+        private final Map<Long, Set<Long>> goalToTaskIds = new HashMap<>();
+        private final Map<LocalDate, List<Task>> tasksByDeadline;
+        private final Map<LocalDate, List<Note>> notesByCreated;
+        private final Map<LocalDate, Long> goalsCompletedByDay;
+        private final List<Goal> activeGoals;
+
+        ScoreIndex(ScoreInputs inputs) {
+            // 预构建 taskId -> task 便于关联过滤
+            taskById = inputs.tasks().stream()
+                    .filter(t -> t.getId() != null)
+                    .collect(Collectors.toMap(Task::getId, t -> t, (a, b) -> a));
+
+            // 目标只统计当前用户的
+            Map<Long, Goal> goalById = inputs.goals().stream()
+                    .filter(g -> g.getId() != null)
+                    .collect(Collectors.toMap(Goal::getId, g -> g, (a, b) -> a));
+
+            // Task ↔ Goal 关联（弱关联，来自 link 表）
+            for (Link l : inputs.links()) {
+                if (l.getSourceType() != Link.LinkSourceType.TASK) continue;
+                if (l.getTargetType() != Link.LinkTargetType.GOAL) continue;
+                Long taskId = l.getSourceId();
+                Long goalId = l.getTargetId();
+                if (taskId == null || goalId == null) continue;
+                if (!taskById.containsKey(taskId)) continue;  // 仅统计当前用户任务
+                if (!goalById.containsKey(goalId)) continue;  // 仅统计当前用户目标
+                taskToGoalIds.computeIfAbsent(taskId, k -> new HashSet<>()).add(goalId);
+                goalToTaskIds.computeIfAbsent(goalId, k -> new HashSet<>()).add(taskId);
             }
-            double weightedCompletionRate = plannedWeight <= 0.0 ? 0.0 : (completedWeight / plannedWeight);
-            // 吞吐因子：完成越多越高，但快速饱和，避免“堆很多小任务刷分”
-            double throughputFactor = 1.0 - Math.exp(-completedWeight / 3.0); // 0~1
-
-            int notes = notesOfDay.size();
-            // 笔记因子：0~1，饱和曲线（2~4 条就接近满分，超过仍会增加但非常慢）
-            double noteFactor = 1.0 - Math.exp(-notes / 2.0);
-
-            // --- 新版目标评分：整体进度 + 当天完成目标数 + 当天推进覆盖面 ---
-            double avgGoalProgress = 0.0;
-            if (!activeGoals.isEmpty()) {
-                double sum = 0.0;
-                for (Goal g : activeGoals) {
-                    sum += goalProgressPow(g, goalToTaskIds, taskById);
-                }
-                avgGoalProgress = sum / activeGoals.size(); // 0~1（已做 pow 变换）
+
+            tasksByDeadline = inputs.tasks().stream()
+                    .filter(t -> t.getDeadline() != null)
+                    .collect(Collectors.groupingBy(t -> t.getDeadline().toLocalDate()));
+
+            notesByCreated = inputs.notes().stream()
+                    .filter(n -> n.getCreatedAt() != null)
+                    .collect(Collectors.groupingBy(n -> n.getCreatedAt().toLocalDate()));
+
+            // 当天完成目标：以目标 archivedAt 作为“目标完整完成”的事件信号
+            goalsCompletedByDay = inputs.goals().stream()
+                    .filter(g -> g.getArchivedAt() != null)
+                    .collect(Collectors.groupingBy(g -> g.getArchivedAt().toLocalDate(), Collectors.counting()));
+
+            activeGoals = inputs.goals().stream()
+                    .filter(g -> g.getArchivedAt() == null)
+                    .collect(Collectors.toList());
+        }
+
+        /** 目标整体进度只依赖当前状态，与具体日期无关 */
+        double avgGoalProgress() {
+            if (activeGoals.isEmpty()) return 0.0;
+            double sum = 0.0;
+            for (Goal g : activeGoals) {
+                sum += goalProgressPow(g, goalToTaskIds, taskById);
             }
-            int goalsCompletedToday = goalsCompletedByDay.getOrDefault(cursor, 0L).intValue();
+            return sum / activeGoals.size(); // 0~1（已做 pow 变换）
+        }
+
+        DayComponents dayComponents(LocalDate day) {
+            List<Task> tasksOfDay = tasksByDeadline.getOrDefault(day, List.of());
+            int notes = notesByCreated.getOrDefault(day, List.of()).size();
+            int goalsCompleted = goalsCompletedByDay.getOrDefault(day, 0L).intValue();
+            return computeDayComponents(day, tasksOfDay, notes, goalsCompleted, taskToGoalIds);
+        }
+    }
 
-            // 当天“推进了多少个目标”：当天已完成的任务中，涉及到的目标覆盖数（鼓励目标对齐）
-            Set<Long> touchedGoals = new HashSet<>();
-            for (Task t : tasksOfDay) {
-                TaskStatus s = t.getEffectiveStatus();
-                if (s != TaskStatus.DONE && s != TaskStatus.ARCHIVED) continue;
+    /**
+     * 单日的局部分量：只依赖当天截止的任务、当天创建的笔记和当天归档的目标，
+     * 不含目标整体进度这类全局量，因此可以按天物化、增量维护。
+     *
+     * @param plannedWeight   当天任务权重之和
+     * @param completedWeight 当天已完成（DONE/ARCHIVED）任务权重之和
+     * @param touchedGoals    当天已完成任务涉及到的目标数
+     */
+    public record DayComponents(int plannedTasks,
+                                int completedTasks,
+                                double plannedWeight,
+                                double completedWeight,
+                                int noteCount,
+                                int goalsCompleted,
+                                int touchedGoals) {
+
+        public static final DayComponents EMPTY = new DayComponents(0, 0, 0.0, 0.0, 0, 0, 0);
+
+        public boolean isEmpty() {
+            return plannedTasks == 0 && noteCount == 0 && goalsCompleted == 0;
+        }
+    }
+
+    /**
+     * 计算单日局部分量。
+     *
+     * @param tasksOfDay    当天截止的任务（权重按列表顺序累加）
+     * @param taskToGoalIds 任务 → 关联的当前用户目标 ID
+     */
+    public static DayComponents computeDayComponents(LocalDate day,
+                                                     List<Task> tasksOfDay,
+                                                     int noteCount,
+                                                     int goalsCompleted,
+                                                     Map<Long, Set<Long>> taskToGoalIds) {
+        int planned = tasksOfDay.size();
+        int completed = 0;
+        double plannedWeight = 0.0;
+        double completedWeight = 0.0;
+        // 当天“推进了多少个目标”：当天已完成的任务中，涉及到的目标覆盖数（鼓励目标对齐）
+        Set<Long> touchedGoals = new HashSet<>();
+        for (Task t : tasksOfDay) {
+            double w = taskWeight(t, day);
+            plannedWeight += w;
+            if (isCompleted(t)) {
+                completed++;
+                completedWeight += w;
                 Set<Long> gids = taskToGoalIds.get(t.getId());
                 if (gids != null) touchedGoals.addAll(gids);
             }
-            double touchedFactor = touchedGoals.isEmpty() ? 0.0 : (1.0 - Math.exp(-touchedGoals.size() / 2.0)); // 0~1
-
-            // --- 总分拆分（0~100） ---
-            double taskScore = 50.0 * weightedCompletionRate + 20.0 * throughputFactor; // 0~70
-            double goalScore = 8.0 * avgGoalProgress
-                    + 8.0 * (1.0 - Math.exp(-goalsCompletedToday)) // 目标完成事件强信号
-                    + 4.0 * touchedFactor; // 0~20
-            double noteScore = 10.0 * noteFactor; // 0~10
-            int total = (int) Math.round(clamp(taskScore + goalScore + noteScore, 0.0, 100.0));
-
-            DailyScore ds = new DailyScore();
-            ds.setDate(cursor);
-            ds.setPlannedTasks(planned);
-            ds.setCompletedTasks(completed);
-            ds.setNoteCount(notes);
-            ds.setTaskCompletionRate(round1(completionRate));
-            ds.setNoteFactor(round1(noteFactor));
-            ds.setTotalScore(total);
-            ds.setWeightedTaskCompletionRate(round1(weightedCompletionRate));
-            ds.setActiveGoalCount(activeGoals.size());
-            ds.setGoalsCompletedToday(goalsCompletedToday);
-            ds.setAvgGoalProgress(round1(avgGoalProgress));
-
-            result.add(ds);
-            cursor = cursor.plusDays(1);
         }
+        return new DayComponents(planned, completed, plannedWeight, completedWeight,
+                noteCount, goalsCompleted, touchedGoals.size());
+    }
 
-        return result;
+    /** 计入完成的任务：DONE 或 ARCHIVED */
+    static boolean isCompleted(Task t) {
+        TaskStatus s = t.getEffectiveStatus();
+        return s == TaskStatus.DONE || s == TaskStatus.ARCHIVED;
+    }
+
+    /**
+     * 由单日局部分量与全局目标进度合成当天得分（0~100）。
+     */
+    public static DailyScore composeScore(LocalDate day,
+                                          DayComponents c,
+                                          int activeGoalCount,
+                                          double avgGoalProgress) {
+        int planned = c.plannedTasks();
+        int completed = c.completedTasks();
+        double completionRate = planned == 0 ? 0.0 : (completed * 1.0 / planned);
+
+        // --- 任务评分：加权完成率 + 加权吞吐（考虑周期长度、心理负担、精力需求） ---
+        double weightedCompletionRate = c.plannedWeight() <= 0.0 ? 0.0 : (c.completedWeight() / c.plannedWeight());
+        // 吞吐因子：完成越多越高，但快速饱和，避免“堆很多小任务刷分”
+        double throughputFactor = 1.0 - Math.exp(-c.completedWeight() / 3.0); // 0~1
+
+        int notes = c.noteCount();
+        // 笔记因子：0~1，饱和曲线（2~4 条就接近满分，超过仍会增加但非常慢）
+        double noteFactor = 1.0 - Math.exp(-notes / 2.0);
+
+        // --- 目标评分：整体进度 + 当天完成目标数 + 当天推进覆盖面 ---
+        int goalsCompletedToday = c.goalsCompleted();
+        double touchedFactor = c.touchedGoals() == 0 ? 0.0 : (1.0 - Math.exp(-c.touchedGoals() / 2.0)); // 0~1
+
+        // --- 总分拆分（0~100） ---
+        double taskScore = 50.0 * weightedCompletionRate + 20.0 * throughputFactor; // 0~70
+        double goalScore = 8.0 * avgGoalProgress
+                + 8.0 * (1.0 - Math.exp(-goalsCompletedToday)) // 目标完成事件强信号
+                + 4.0 * touchedFactor; // 0~20
+        double noteScore = 10.0 * noteFactor; // 0~10
+        int total = (int) Math.round(clamp(taskScore + goalScore + noteScore, 0.0, 100.0));
+
+        DailyScore ds = new DailyScore();
+        ds.setDate(day);
+        ds.setPlannedTasks(planned);
+        ds.setCompletedTasks(completed);
+        ds.setNoteCount(notes);
+        ds.setTaskCompletionRate(round1(completionRate));
+        ds.setNoteFactor(round1(noteFactor));
+        ds.setTotalScore(total);
+        ds.setWeightedTaskCompletionRate(round1(weightedCompletionRate));
+        ds.setActiveGoalCount(activeGoalCount);
+        ds.setGoalsCompletedToday(goalsCompletedToday);
+        ds.setAvgGoalProgress(round1(avgGoalProgress));
+        return ds;
+    }
+
+    /** 笔记因子：0~1，饱和曲线 */
+    public static double noteFactor(int notes) {
+        return 1.0 - Math.exp(-notes / 2.0);
+    }
+
+    /**
+     * 单日局部得分：当天得分中除「8 × 目标整体进度」以外的部分。
+     * 各项均非负且总分不超过 100，因此当天得分 = 局部得分 + 8 × 目标整体进度（截断不会生效），
+     * 局部得分可以跨天求和、合并，用于周/月预聚合。
+     */
+    public static double localScore(DayComponents c) {
+        double weightedCompletionRate = c.plannedWeight() <= 0.0 ? 0.0 : (c.completedWeight() / c.plannedWeight());
+        double throughputFactor = 1.0 - Math.exp(-c.completedWeight() / 3.0);
+        double touchedFactor = c.touchedGoals() == 0 ? 0.0 : (1.0 - Math.exp(-c.touchedGoals() / 2.0));
+        return 50.0 * weightedCompletionRate + 20.0 * throughputFactor
+                + 8.0 * (1.0 - Math.exp(-c.goalsCompleted()))
+                + 4.0 * touchedFactor
+                + 10.0 * noteFactor(c.noteCount());
+    }
+
+    /**
+     * 按周/月聚合的得分（live 模式，物化关闭时使用）：先计算区间内有活动日期的分量，再按桶合并。
+     */
+    public List<DailyScore> calculateBuckets(User user, ScoreGranularity granularity, LocalDate start, LocalDate end) {
+        ScoreInputs inputs = loadInputs(user);
+        ScoreIndex index = new ScoreIndex(inputs);
+        return ScoreRollupService.aggregate(granularity, activeDayComponents(index), start, end,
+                index.activeGoals.size(), index.avgGoalProgress());
     }
 
     /**
@@ -315,7 +606,7 @@ public class InsightScoreService {
      * - 同样完成 1 个任务，难度/负担更高、周期更长的任务贡献更大
      * - 在心理负担较重的任务上，即使精力需求较低，也能拿到不错的权重（符合“顶着压力做简单事也很难”）
      */
-    private double taskWeight(Task t, LocalDate day) {
+    static double taskWeight(Task t, LocalDate day) {
         // 兼容旧数据：energyRequirement / mentalLoad 可能为 null，这里给出温和默认值
         EnergyLevel energy = t.getEnergyRequirement();
         if (energy == null) {
@@ -363,7 +654,7 @@ public class InsightScoreService {
      * - 低进度也能得到一点反馈（避免用户早期完全没正反馈）
      * - 高进度仍然更值钱（接近完成更难）
      */
-    private double goalProgressPow(
+    private static double goalProgressPow(
             Goal g,
             Map<Long, Set<Long>> goalToTaskIds,
             Map<Long, Task> taskById
@@ -385,11 +676,11 @@ public class InsightScoreService {
         return Math.pow(progress, 0.7);
     }
 
-    private double round1(double v) {
+    static double round1(double v) {
         return Math.round(v * 10.0) / 10.0;
     }
 
-    private double clamp(double v, double min, double max) {
+    static double clamp(double v, double min, double max) {
         return Math.max(min, Math.min(max, v));
     }
 }
@@ -0,0 +1,45 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * 得分曲线的时间粒度：按天、按周（周一开始）、按月。
+ */
+public enum ScoreGranularity {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /** 解析请求参数（不区分大小写），无法识别时返回 null */
+    public static ScoreGranularity parse(String value) {
+        if (value == null || value.isBlank()) {
+            return DAY;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** 包含 day 的桶的第一天 */
+    public LocalDate bucketStart(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    /** 以 bucketStart 开始的桶的最后一天 */
+    public LocalDate bucketEnd(LocalDate bucketStart) {
+        return switch (this) {
+            case DAY -> bucketStart;
+            case WEEK -> bucketStart.plusDays(6);
+            case MONTH -> bucketStart.with(TemporalAdjusters.lastDayOfMonth());
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.zhzssp.memorandum.feature.insight.entity.DailyScoreRecord;
+import org.zhzssp.memorandum.feature.insight.entity.ScoreRollupId;
+import org.zhzssp.memorandum.feature.insight.entity.ScoreRollupRecord;
+import org.zhzssp.memorandum.feature.insight.repository.DailyScoreRepository;
+import org.zhzssp.memorandum.feature.insight.repository.ScoreRollupRepository;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DayComponents;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 评分周/月预聚合（Insight 插件）。
+ *
+ * score_rollup 由 daily_score 汇总：某天的物化行变化时，重算包含该天的周桶和月桶（各最多 31 行）。
+ * 粗粒度查询直接按桶读取，工作量与桶数成正比，与天数无关。
+ * 桶得分为桶内每个自然日得分（未取整）的平均值；桶以 date 字段的桶起始日表示。
+ */
+@Service
+public class ScoreRollupService {
+
+    /** 需要预聚合的粒度（按天直接读 daily_score） */
+    private static final List<ScoreGranularity> ROLLED_UP = List.of(ScoreGranularity.WEEK, ScoreGranularity.MONTH);
+
+    @Autowired
+    private DailyScoreRepository dailyScoreRepository;
+
+    @Autowired
+    private ScoreRollupRepository scoreRollupRepository;
+
+    /** daily_score 中某天的行变化后，重算包含该天的各粒度桶 */
+    @Transactional
+    public void refresh(Long userId, LocalDate day) {
+        for (ScoreGranularity granularity : ROLLED_UP) {
+            LocalDate bucketStart = granularity.bucketStart(day);
+            List<DailyScoreRecord> rows = dailyScoreRepository.findByUserIdAndScoreDateBetweenOrderByScoreDate(
+                    userId, bucketStart, granularity.bucketEnd(bucketStart));
+            ScoreRollupId id = new ScoreRollupId(userId, granularity, bucketStart);
+            if (rows.isEmpty()) {
+                if (scoreRollupRepository.existsById(id)) {
+                    scoreRollupRepository.deleteById(id);
+                }
+                continue;
+            }
+            ScoreRollupRecord rollup = ScoreRollupRecord.empty(userId, granularity, bucketStart);
+            rows.forEach(r -> rollup.add(r.toComponents()));
+            scoreRollupRepository.save(rollup);
+        }
+    }
+
+    /** 由用户全部单日分量重建预聚合 */
+    @Transactional
+    public void rebuild(Long userId, Map<LocalDate, DayComponents> days) {
+        Map<ScoreRollupId, ScoreRollupRecord> buckets = new LinkedHashMap<>();
+        days.forEach((day, c) -> {
+            if (c.isEmpty()) return;
+            for (ScoreGranularity granularity : ROLLED_UP) {
+                LocalDate bucketStart = granularity.bucketStart(day);
+                buckets.computeIfAbsent(new ScoreRollupId(userId, granularity, bucketStart),
+                        id -> ScoreRollupRecord.empty(userId, granularity, bucketStart)).add(c);
+            }
+        });
+        scoreRollupRepository.deleteByUserId(userId);
+        scoreRollupRepository.saveAll(buckets.values());
+    }
+
+    /**
+     * 读取覆盖 [start, end] 的各个桶的得分（首尾桶按整桶计算）。
+     */
+    public List<DailyScore> findBuckets(Long userId, ScoreGranularity granularity, LocalDate start, LocalDate end,
+                                        int activeGoalCount, double avgGoalProgress) {
+        LocalDate first = granularity.bucketStart(start);
+        LocalDate last = granularity.bucketStart(end);
+        Map<LocalDate, ScoreRollupRecord> rows = scoreRollupRepository
+                .findByUserIdAndGranularityAndBucketStartBetweenOrderByBucketStart(userId, granularity, first, last)
+                .stream()
+                .collect(Collectors.toMap(ScoreRollupRecord::getBucketStart, Function.identity()));
+        List<DailyScore> result = new ArrayList<>();
+        for (LocalDate bucket = first; !bucket.isAfter(last); bucket = granularity.bucketEnd(bucket).plusDays(1)) {
+            ScoreRollupRecord r = rows.get(bucket);
+            result.add(composeBucket(granularity, bucket,
+                    r != null ? r : ScoreRollupRecord.empty(userId, granularity, bucket),
+                    activeGoalCount, avgGoalProgress));
+        }
+        return result;
+    }
+
+    /** 不经过预聚合表，直接由单日分量合并出各个桶（物化关闭时使用） */
+    public static List<DailyScore> aggregate(ScoreGranularity granularity, Map<LocalDate, DayComponents> days,
+                                             LocalDate start, LocalDate end,
+                                             int activeGoalCount, double avgGoalProgress) {
+        if (end.isBefore(start)) {
+            LocalDate tmp = start;
+            start = end;
+            end = tmp;
+        }
+        LocalDate first = granularity.bucketStart(start);
+        LocalDate last = granularity.bucketEnd(granularity.bucketStart(end));
+        Map<LocalDate, ScoreRollupRecord> buckets = new LinkedHashMap<>();
+        for (LocalDate bucket = first; !bucket.isAfter(last); bucket = granularity.bucketEnd(bucket).plusDays(1)) {
+            buckets.put(bucket, ScoreRollupRecord.empty(null, granularity, bucket));
+        }
+        days.forEach((day, c) -> {
+            ScoreRollupRecord r = buckets.get(granularity.bucketStart(day));
+            if (r != null && !c.isEmpty()) {
+                r.add(c);
+            }
+        });
+        List<DailyScore> result = new ArrayList<>(buckets.size());
+        buckets.forEach((bucket, r) -> result.add(composeBucket(granularity, bucket, r, activeGoalCount, avgGoalProgress)));
+        return result;
+    }
+
+    /** 桶得分：分量取和，比率由和重新计算，得分取桶内每个自然日得分的平均值 */
+    static DailyScore composeBucket(ScoreGranularity granularity, LocalDate bucketStart, ScoreRollupRecord r,
+                                    int activeGoalCount, double avgGoalProgress) {
+        long calendarDays = ChronoUnit.DAYS.between(bucketStart, granularity.bucketEnd(bucketStart)) + 1;
+        double completionRate = r.getPlannedTasks() == 0 ? 0.0 : (r.getCompletedTasks() * 1.0 / r.getPlannedTasks());
+        double weightedCompletionRate = r.getPlannedWeight() <= 0.0 ? 0.0 : (r.getCompletedWeight() / r.getPlannedWeight());
+        double meanScore = r.getLocalScoreSum() / calendarDays + 8.0 * avgGoalProgress;
+
+        DailyScore ds = new DailyScore();
+        ds.setDate(bucketStart);
+        ds.setPlannedTasks(r.getPlannedTasks());
+        ds.setCompletedTasks(r.getCompletedTasks());
+        ds.setNoteCount(r.getNoteCount());
+        ds.setTaskCompletionRate(InsightScoreService.round1(completionRate));
+        ds.setNoteFactor(InsightScoreService.round1(r.getNoteFactorSum() / calendarDays));
+        ds.setTotalScore((int) Math.round(InsightScoreService.clamp(meanScore, 0.0, 100.0)));
+        ds.setWeightedTaskCompletionRate(InsightScoreService.round1(weightedCompletionRate));
+        ds.setActiveGoalCount(activeGoalCount);
+        ds.setGoalsCompletedToday(r.getGoalsCompleted());
+        ds.setAvgGoalProgress(InsightScoreService.round1(avgGoalProgress));
+        return ds;
+    }
+}
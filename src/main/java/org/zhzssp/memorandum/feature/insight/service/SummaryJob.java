@@ -0,0 +1,156 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.zhzssp.memorandum.feature.insight.service.AiSummaryService.Summary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 一次异步 AI 总结任务：保存本地规则总结、已生成的文本片段和最终结果，
+ * 并把后续片段推送给所有订阅的 SSE 连接。
+ *
+ * 订阅时先补发已有内容，因此浏览器晚连接或断线重连都能看到完整文本。
+ * 锁只保护文本与订阅列表，向连接发送事件在锁外进行。
+ * SSE 事件：fallback（本地规则总结）、delta（模型新输出的片段）、done（最终状态与完整文本）。
+ */
+public class SummaryJob {
+
+    public enum Status { RUNNING, COMPLETED, FALLBACK }
+
+    private final String id;
+    private final String owner;
+    private final String fallback;
+    private final StringBuilder text = new StringBuilder();
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    private Status status = Status.RUNNING;
+    private String finalText;
+
+    public SummaryJob(String id, String owner, String fallback) {
+        this.id = id;
+        this.owner = owner;
+        this.fallback = fallback;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getFallback() {
+        return fallback;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    /**
+     * 订阅任务输出：补发已有内容；任务已结束时补发后立即关闭连接。
+     * 补发在任务锁外进行，期间持有该连接的发送锁，之后的片段排在补发内容之后。
+     */
+    public void subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, new ReentrantLock());
+        subscriber.sendLock().lock();
+        try {
+            String buffered;
+            SseEmitter.SseEventBuilder done;
+            synchronized (this) {
+                buffered = text.toString();
+                done = status != Status.RUNNING ? doneEvent() : null;
+                if (done == null) {
+                    subscribers.add(subscriber);
+                }
+            }
+            if (done == null) {
+                emitter.onCompletion(() -> unsubscribe(subscriber));
+                emitter.onTimeout(() -> unsubscribe(subscriber));
+                emitter.onError(e -> unsubscribe(subscriber));
+            }
+            try {
+                emitter.send(event("fallback", Map.of("text", fallback)));
+                if (!buffered.isEmpty()) {
+                    emitter.send(event("delta", Map.of("text", buffered)));
+                }
+                if (done != null) {
+                    emitter.send(done);
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                unsubscribe(subscriber);
+                emitter.completeWithError(e);
+            }
+        } finally {
+            subscriber.sendLock().unlock();
+        }
+    }
+
+    void append(String delta) {
+        List<Subscriber> targets;
+        synchronized (this) {
+            text.append(delta);
+            targets = List.copyOf(subscribers);
+        }
+        broadcast(targets, () -> event("delta", Map.of("text", delta)), false);
+    }
+
+    void complete(Summary summary) {
+        List<Subscriber> targets;
+        String doneStatus;
+        synchronized (this) {
+            status = summary.fromModel() ? Status.COMPLETED : Status.FALLBACK;
+            finalText = summary.text();
+            doneStatus = status.name();
+            targets = List.copyOf(subscribers);
+            subscribers.clear();
+        }
+        broadcast(targets, () -> event("done", Map.of("status", doneStatus, "text", summary.text())), true);
+    }
+
+    private synchronized void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * 推送给订阅者快照，不持有任务的锁：慢连接不会阻塞其他订阅、状态查询和新的片段写入。
+     * 发送失败的连接（浏览器已关闭）直接移除，不影响任务本身。
+     * SseEventBuilder 构建后不可复用，每个连接单独构建一次。
+     */
+    private void broadcast(List<Subscriber> targets, Supplier<SseEmitter.SseEventBuilder> event, boolean close) {
+        for (Subscriber subscriber : targets) {
+            SseEmitter emitter = subscriber.emitter();
+            subscriber.sendLock().lock();
+            try {
+                emitter.send(event.get());
+                if (close) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                unsubscribe(subscriber);
+                emitter.completeWithError(e);
+            } finally {
+                subscriber.sendLock().unlock();
+            }
+        }
+    }
+
+    /** 一个 SSE 连接；sendLock 保证同一连接上的事件按顺序发送（补发内容在前） */
+    private record Subscriber(SseEmitter emitter, ReentrantLock sendLock) {}
+
+    private SseEmitter.SseEventBuilder doneEvent() {
+        return event("done", Map.of("status", status.name(), "text", finalText));
+    }
+
+    private static SseEmitter.SseEventBuilder event(String name, Object data) {
+        return SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,93 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.zhzssp.memorandum.feature.insight.service.AiSummaryService.Summary;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 异步 AI 总结任务：创建任务时立即返回本地规则总结，模型输出在后台虚拟线程上流式生成，
+ * 浏览器通过 SSE 订阅任务获取增量文本，请求线程不再等待模型返回。
+ *
+ * 任务按写入后存活时间淘汰，过期后订阅返回 404。
+ */
+@Service
+public class SummaryJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(SummaryJobService.class);
+
+    @Autowired
+    private AiSummaryService aiSummaryService;
+
+    /** 最多保留的任务数 */
+    @Value("${insight.summary.jobs.max-size:1000}")
+    private long maxJobs;
+
+    /** 任务结束后可供订阅（补发结果）的时间（秒） */
+    @Value("${insight.summary.jobs.ttl-seconds:600}")
+    private long jobTtlSeconds;
+
+    /** 任务过期计时所用的时钟，测试中可替换 */
+    Ticker ticker = Ticker.systemTicker();
+
+    private Cache<String, SummaryJob> jobs;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        jobs = Caffeine.newBuilder()
+                .maximumSize(maxJobs)
+                .expireAfterWrite(Duration.ofSeconds(jobTtlSeconds))
+                .ticker(ticker)
+                .build();
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** 创建总结任务并在后台开始生成；返回的任务已带有本地规则总结 */
+    public SummaryJob start(String owner, LocalDate start, LocalDate end, List<DailyScore> scores) {
+        SummaryJob job = new SummaryJob(UUID.randomUUID().toString(), owner,
+                aiSummaryService.localSummary(start, end, scores));
+        jobs.put(job.getId(), job);
+        executor.execute(() -> run(job, start, end, scores));
+        return job;
+    }
+
+    /** 查找属于该用户的任务；其他用户的任务视为不存在 */
+    public Optional<SummaryJob> find(String owner, String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId))
+                .filter(job -> job.getOwner().equals(owner));
+    }
+
+    private void run(SummaryJob job, LocalDate start, LocalDate end, List<DailyScore> scores) {
+        Summary summary;
+        try {
+            summary = aiSummaryService.streamSummary(start, end, scores, job::append);
+        } catch (RuntimeException e) {
+            log.warn("AI 总结任务 {} 失败", job.getId(), e);
+            summary = new Summary(job.getFallback(), false);
+        }
+        job.complete(summary);
+    }
+}
@@ -0,0 +1,370 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * AI 总结的 Prompt 构造。
+ *
+ * 短区间（不超过 {@link #RAW_DAYS_LIMIT} 天且逐日数据不超出预算）逐日发送原始数据；
+ * 更长的区间改为发送压缩后的统计：整体指标、变化点、星期画像、最高/最低的几天、分段聚合。
+ * 分段数有上限（区间越长、每段越粗），因此 Prompt 长度随区间增长是次线性的，并且整体不超过字符预算：
+ * 各部分按重要性依次加入，放不下的部分（以及分段聚合的尾部行）会被省略。
+ */
+public final class SummaryPromptBuilder {
+
+    /** 区间不超过该天数时优先发送逐日原始数据 */
+    static final int RAW_DAYS_LIMIT = 31;
+
+    /** 分段聚合最多的段数 */
+    static final int MAX_BUCKETS = 26;
+
+    /** 变化点：前后窗口的天数、最多报告的个数、前后均值至少相差的分数 */
+    static final int CHANGE_WINDOW_DAYS = 7;
+    static final int MAX_CHANGE_POINTS = 5;
+    static final double MIN_CHANGE_DELTA = 8.0;
+
+    /** 最高 / 最低各列出的天数 */
+    static final int EXTREME_DAYS = 5;
+
+    private static final String FOOTER = "\n请基于上述数据给出一段 4~8 段落的总结，语言自然、口语化一些，但保持简洁和聚焦。";
+
+    private static final String[] WEEKDAY_NAMES = {"周一", "周二", "周三", "周四", "周五", "周六", "周日"};
+
+    private SummaryPromptBuilder() {
+    }
+
+    /**
+     * 构造 Prompt；maxChars 为整个 Prompt 的字符预算（小于等于 0 表示不限制）。
+     */
+    public static String build(LocalDate start, LocalDate end, List<DailyScore> scores,
+                               String fallbackSummary, int maxChars) {
+        List<DailyScore> sorted = sortedByDate(scores);
+        int budget = maxChars > 0 ? maxChars : Integer.MAX_VALUE;
+        if (sorted.size() <= RAW_DAYS_LIMIT) {
+            String raw = buildRaw(start, end, sorted, fallbackSummary);
+            if (raw.length() <= budget) {
+                return raw;
+            }
+        }
+        return buildCompact(start, end, sorted, fallbackSummary, budget);
+    }
+
+    /** 逐日原始数据（每天一行） */
+    static String buildRaw(LocalDate start, LocalDate end, List<DailyScore> scores, String fallbackSummary) {
+        StringBuilder sb = header(start, end, fallbackSummary, "每日规划完成得分与一些辅助指标");
+
+        sb.append("下面是按日期排列的原始数据（按日期升序）：\n");
+        sb.append("字段含义：date, totalScore(0-100), plannedTasks, completedTasks, noteCount, ")
+                .append("weightedTaskCompletionRate(0-1), goalsCompletedToday, avgGoalProgress(0-1)\n");
+
+        String lines = sortedByDate(scores).stream()
+                .map(d -> String.format(
+                        "%s: totalScore=%d, planned=%d, done=%d, notes=%d, weightedCompletion=%.2f, goalsDone=%d, avgGoalProgress=%.2f",
+                        d.getDate(),
+                        d.getTotalScore(),
+                        d.getPlannedTasks(),
+                        d.getCompletedTasks(),
+                        d.getNoteCount(),
+                        d.getWeightedTaskCompletionRate(),
+                        d.getGoalsCompletedToday(),
+                        d.getAvgGoalProgress()
+                ))
+                .collect(Collectors.joining("\n"));
+        sb.append(lines);
+
+        sb.append(FOOTER);
+        return sb.toString();
+    }
+
+    /** 压缩统计；scores 需已按日期升序 */
+    static String buildCompact(LocalDate start, LocalDate end, List<DailyScore> scores,
+                               String fallbackSummary, int maxChars) {
+        StringBuilder sb = header(start, end, fallbackSummary, "规划完成得分的统计摘要（区间较长，已压缩为统计指标）");
+        int budget = maxChars - FOOTER.length();
+
+        if (!scores.isEmpty()) {
+            appendIfFits(sb, overview(scores), budget);
+            appendIfFits(sb, changePoints(scores), budget);
+            appendIfFits(sb, weekdayProfile(scores), budget);
+            appendIfFits(sb, extremes(scores), budget);
+            appendBuckets(sb, scores, budget);
+        }
+
+        sb.append(FOOTER);
+        return sb.toString();
+    }
+
+    private static StringBuilder header(LocalDate start, LocalDate end, String fallbackSummary, String dataDescription) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("你是一个帮助用户复盘自律情况的教练。")
+                .append("下面是一段时间内的").append(dataDescription).append("，请用中文给出一个有洞见的总结。\n\n")
+                .append("需要输出的内容：\n")
+                .append("1. 整体评价：这段时间的规划完成情况、自律性水平。\n")
+                .append("2. 趋势：是变好、变差还是比较稳定？大致在哪几天发生了明显变化。\n")
+                .append("3. 模式：例如“周末高分、工作日低分”“前几天冲刺后几天疲软”等。\n")
+                .append("4. 可执行建议：给出 2~4 条具体、可操作的建议，帮助用户优化目标拆分、任务选择和笔记习惯。\n")
+                .append("5. 限制：不要出现“作为一个 AI 模型”之类的措辞，不要提到具体的得分算法实现细节。\n\n");
+
+        sb.append("时间范围：").append(start).append(" ~ ").append(end).append("\n\n");
+        sb.append("以下是系统根据规则生成的一个初步总结，你可以在此基础上进行改写、补充或纠偏：\n");
+        sb.append(fallbackSummary).append("\n\n");
+        return sb;
+    }
+
+    private static void appendIfFits(StringBuilder sb, String section, int budget) {
+        if (sb.length() + section.length() <= budget) {
+            sb.append(section);
+        }
+    }
+
+    private static String overview(List<DailyScore> scores) {
+        int[] totals = scores.stream().mapToInt(DailyScore::getTotalScore).toArray();
+        double mean = Arrays.stream(totals).average().orElse(0.0);
+        double variance = Arrays.stream(totals).mapToDouble(t -> (t - mean) * (t - mean)).average().orElse(0.0);
+        int[] ordered = totals.clone();
+        Arrays.sort(ordered);
+        int planned = scores.stream().mapToInt(DailyScore::getPlannedTasks).sum();
+        int done = scores.stream().mapToInt(DailyScore::getCompletedTasks).sum();
+        int notes = scores.stream().mapToInt(DailyScore::getNoteCount).sum();
+        int goalsDone = scores.stream().mapToInt(DailyScore::getGoalsCompletedToday).sum();
+        long highDays = Arrays.stream(totals).filter(t -> t >= 75).count();
+        long lowDays = Arrays.stream(totals).filter(t -> t <= 45).count();
+        DailyScore last = scores.get(scores.size() - 1);
+
+        return "【整体】" + String.format(
+                "天数=%d, 平均分=%.1f, 中位数=%d, 标准差=%.1f, 最高=%d, 最低=%d, 高分(≥75)天数=%d, 低分(≤45)天数=%d, "
+                        + "计划任务=%d, 完成任务=%d, 笔记=%d, 完成目标=%d, 期末目标平均进度=%.2f\n",
+                totals.length, mean, ordered[ordered.length / 2], Math.sqrt(variance),
+                ordered[ordered.length - 1], ordered[0], highDays, lowDays,
+                planned, done, notes, goalsDone, last.getAvgGoalProgress());
+    }
+
+    /**
+     * 变化点：比较每天前后各 {@link #CHANGE_WINDOW_DAYS} 天的平均分，取差值最大的几处（互相至少间隔一个窗口）。
+     */
+    static List<ChangePoint> detectChangePoints(List<DailyScore> scores) {
+        int n = scores.size();
+        int w = CHANGE_WINDOW_DAYS;
+        if (n < 2 * w) {
+            return List.of();
+        }
+        long[] prefix = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = prefix[i] + scores.get(i).getTotalScore();
+        }
+        List<ChangePoint> candidates = new ArrayList<>();
+        for (int i = w; i + w <= n; i++) {
+            double before = (prefix[i] - prefix[i - w]) / (double) w;
+            double after = (prefix[i + w] - prefix[i]) / (double) w;
+            if (Math.abs(after - before) >= MIN_CHANGE_DELTA) {
+                candidates.add(new ChangePoint(i, scores.get(i).getDate(), before, after));
+            }
+        }
+        candidates.sort(Comparator.comparingDouble((ChangePoint c) -> -Math.abs(c.after() - c.before()))
+                .thenComparingInt(ChangePoint::index));
+        List<ChangePoint> picked = new ArrayList<>();
+        for (ChangePoint c : candidates) {
+            if (picked.size() == MAX_CHANGE_POINTS) {
+                break;
+            }
+            if (picked.stream().allMatch(p -> Math.abs(p.index() - c.index()) >= w)) {
+                picked.add(c);
+            }
+        }
+        picked.sort(Comparator.comparingInt(ChangePoint::index));
+        return picked;
+    }
+
+    private static String changePoints(List<DailyScore> scores) {
+        List<ChangePoint> points = detectChangePoints(scores);
+        if (points.isEmpty()) {
+            return "【变化点】没有检测到明显的阶段性变化（前后 " + CHANGE_WINDOW_DAYS + " 天均值差均小于 "
+                    + (int) MIN_CHANGE_DELTA + " 分）\n";
+        }
+        StringBuilder sb = new StringBuilder("【变化点】前后 ").append(CHANGE_WINDOW_DAYS).append(" 天平均分明显变化的日期：\n");
+        for (ChangePoint p : points) {
+            sb.append(String.format("%s: %.1f → %.1f\n", p.date(), p.before(), p.after()));
+        }
+        return sb.toString();
+    }
+
+    private static String weekdayProfile(List<DailyScore> scores) {
+        double[] sum = new double[7];
+        double[] completion = new double[7];
+        int[] count = new int[7];
+        double weekendSum = 0.0;
+        double weekdaySum = 0.0;
+        int weekendCount = 0;
+        for (DailyScore d : scores) {
+            DayOfWeek dow = d.getDate().getDayOfWeek();
+            int i = dow.getValue() - 1;
+            sum[i] += d.getTotalScore();
+            completion[i] += d.getWeightedTaskCompletionRate();
+            count[i]++;
+            if (dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY) {
+                weekendSum += d.getTotalScore();
+                weekendCount++;
+            } else {
+                weekdaySum += d.getTotalScore();
+            }
+        }
+        int weekdayCount = scores.size() - weekendCount;
+        StringBuilder sb = new StringBuilder("【星期画像】平均分 / 平均加权完成率：");
+        for (int i = 0; i < 7; i++) {
+            if (count[i] > 0) {
+                sb.append(String.format("%s %.1f/%.2f", WEEKDAY_NAMES[i], sum[i] / count[i], completion[i] / count[i]));
+                sb.append(i < 6 ? "；" : "");
+            }
+        }
+        sb.append(String.format("\n工作日平均 %.1f，周末平均 %.1f\n",
+                weekdayCount > 0 ? weekdaySum / weekdayCount : 0.0,
+                weekendCount > 0 ? weekendSum / weekendCount : 0.0));
+        return sb.toString();
+    }
+
+    private static String extremes(List<DailyScore> scores) {
+        Comparator<DailyScore> byScore = Comparator.comparingInt(DailyScore::getTotalScore)
+                .thenComparing(DailyScore::getDate);
+        List<DailyScore> top = scores.stream().sorted(byScore.reversed()).limit(EXTREME_DAYS).toList();
+        List<DailyScore> bottom = scores.stream().sorted(byScore).limit(EXTREME_DAYS).toList();
+        return "【最高的几天】" + dayList(top) + "\n【最低的几天】" + dayList(bottom) + "\n";
+    }
+
+    private static String dayList(List<DailyScore> days) {
+        return days.stream()
+                .map(d -> String.format("%s %d分(计划%d/完成%d/笔记%d)", d.getDate(), d.getTotalScore(),
+                        d.getPlannedTasks(), d.getCompletedTasks(), d.getNoteCount()))
+                .collect(Collectors.joining("；"));
+    }
+
+    /**
+     * 分段聚合：区间内周数不超过上限时按周，否则按月；月数仍超过上限时把相邻的月合并成一段。
+     * 逐行加入直到预算用完，省略的段数会注明。
+     */
+    private static void appendBuckets(StringBuilder sb, List<DailyScore> scores, int budget) {
+        List<Bucket> buckets = buckets(scores, ScoreGranularity.WEEK);
+        String unit = "1 周";
+        if (buckets.size() > MAX_BUCKETS) {
+            buckets = buckets(scores, ScoreGranularity.MONTH);
+            unit = "1 个月";
+            if (buckets.size() > MAX_BUCKETS) {
+                int group = (buckets.size() + MAX_BUCKETS - 1) / MAX_BUCKETS;
+                buckets = merge(buckets, group);
+                unit = group + " 个月";
+            }
+        }
+
+        String title = "【分段聚合（每段 " + unit + "）】起止日期: 平均分, 计划/完成任务, 笔记, 完成目标\n";
+        if (sb.length() + title.length() > budget) {
+            return;
+        }
+        sb.append(title);
+        for (int i = 0; i < buckets.size(); i++) {
+            String line = buckets.get(i).line();
+            String omitted = "（其余 " + (buckets.size() - i) + " 段因长度限制已省略）\n";
+            boolean isLast = i == buckets.size() - 1;
+            // 非最后一行时，为省略说明预留位置
+            int reserve = isLast ? 0 : omitted.length();
+            if (sb.length() + line.length() + reserve > budget) {
+                if (sb.length() + omitted.length() <= budget) {
+                    sb.append(omitted);
+                }
+                return;
+            }
+            sb.append(line);
+        }
+    }
+
+    private static List<Bucket> buckets(List<DailyScore> scores, ScoreGranularity granularity) {
+        List<Bucket> buckets = new ArrayList<>();
+        Bucket current = null;
+        for (DailyScore d : scores) {
+            LocalDate bucketStart = granularity.bucketStart(d.getDate());
+            if (current == null || !current.key.equals(bucketStart)) {
+                current = new Bucket(bucketStart);
+                buckets.add(current);
+            }
+            current.add(d);
+        }
+        return buckets;
+    }
+
+    private static List<Bucket> merge(List<Bucket> buckets, int group) {
+        List<Bucket> merged = new ArrayList<>();
+        for (int i = 0; i < buckets.size(); i += group) {
+            Bucket m = new Bucket(buckets.get(i).key);
+            for (int j = i; j < Math.min(buckets.size(), i + group); j++) {
+                m.merge(buckets.get(j));
+            }
+            merged.add(m);
+        }
+        return merged;
+    }
+
+    private static List<DailyScore> sortedByDate(List<DailyScore> scores) {
+        if (scores == null) {
+            return List.of();
+        }
+        return scores.stream()
+                .sorted(Comparator.comparing(DailyScore::getDate))
+                .toList();
+    }
+
+    record ChangePoint(int index, LocalDate date, double before, double after) {}
+
+    /** 一段日期内的累计值；key 为所属周/月的第一天，from/to 为段内实际有数据的首尾日期 */
+    private static final class Bucket {
+        private final LocalDate key;
+        private LocalDate from;
+        private LocalDate to;
+        private int days;
+        private long scoreSum;
+        private int planned;
+        private int done;
+        private int notes;
+        private int goalsDone;
+
+        Bucket(LocalDate key) {
+            this.key = key;
+        }
+
+        void add(DailyScore d) {
+            if (from == null) {
+                from = d.getDate();
+            }
+            to = d.getDate();
+            days++;
+            scoreSum += d.getTotalScore();
+            planned += d.getPlannedTasks();
+            done += d.getCompletedTasks();
+            notes += d.getNoteCount();
+            goalsDone += d.getGoalsCompletedToday();
+        }
+
+        void merge(Bucket other) {
+            if (from == null) {
+                from = other.from;
+            }
+            to = other.to;
+            days += other.days;
+            scoreSum += other.scoreSum;
+            planned += other.planned;
+            done += other.done;
+            notes += other.notes;
+            goalsDone += other.goalsDone;
+        }
+
+        String line() {
+            return String.format("%s~%s: %.1f, %d/%d, %d, %d\n",
+                    from, to, scoreSum / (double) days, planned, done, notes, goalsDone);
+        }
+    }
+}
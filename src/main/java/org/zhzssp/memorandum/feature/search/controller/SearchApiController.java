@@ -0,0 +1,156 @@
+package org.zhzssp.memorandum.feature.search.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.zhzssp.memorandum.core.service.TaskSearchCursor;
+import org.zhzssp.memorandum.core.service.TaskService;
+import org.zhzssp.memorandum.core.service.TaskService.TaskPage;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.service.GoalService;
+import org.zhzssp.memorandum.feature.search.dto.RelatedItemsDto;
+import org.zhzssp.memorandum.feature.search.dto.TaskSearchPageDto;
+import org.zhzssp.memorandum.feature.search.dto.UnifiedSearchResultDto;
+import org.zhzssp.memorandum.feature.search.service.RelatedItemsService;
+import org.zhzssp.memorandum.feature.search.service.SearchIndexService;
+import org.zhzssp.memorandum.feature.search.service.UnifiedSearchService;
+import org.zhzssp.memorandum.repository.UserRepository;
+
+import java.security.Principal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 检索 JSON API（检索插件）。
+ */
+@RestController
+@RequestMapping("/api")
+public class SearchApiController {
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DEADLINE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+    /** 统一检索单次返回的上限 */
+    private static final int MAX_UNIFIED_RESULTS = 50;
+
+    /** 关联条目单次返回的上限 */
+    private static final int MAX_RELATED_RESULTS = 50;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private GoalService goalService;
+
+    @Autowired
+    private UnifiedSearchService unifiedSearchService;
+
+    @Autowired
+    private RelatedItemsService relatedItemsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    /** 关键字检索方式，与 /memo/search 页面一致 */
+    @Value("${search.backend:memory}")
+    private String searchBackend;
+
+    /** 关联遍历的最大跳数 */
+    @Value("${search.related.max-hops:4}")
+    private int maxRelatedHops;
+
+    /**
+     * 统一检索任务、笔记、目标，按同一相关度返回前 k 条并附带关联条目；超时时返回部分结果（partial=true）。
+     */
+    @GetMapping("/search")
+    public UnifiedSearchResultDto search(@RequestParam String q,
+                                         @RequestParam(defaultValue = "20") int k,
+                                         Principal principal) {
+        User user = userRepository.findByUsername(principal.getName()).orElseThrow();
+        return unifiedSearchService.search(user, q, Math.max(1, Math.min(k, MAX_UNIFIED_RESULTS)));
+    }
+
+    /**
+     * 多跳关联条目：从 task / note / goal 出发沿 Link 关系遍历 hops 跳，按到达路径数返回前 k 条。
+     * 类型无效时返回 400，起点不存在或不属于当前用户时返回 404；遍历受节点数与耗时上限约束（truncated=true）。
+     */
+    @GetMapping("/related/{type}/{id}")
+    public ResponseEntity<?> related(@PathVariable String type,
+                                     @PathVariable Long id,
+                                     @RequestParam(defaultValue = "2") int hops,
+                                     @RequestParam(defaultValue = "20") int k,
+                                     Principal principal) {
+        Link.LinkTargetType startType;
+        try {
+            startType = Link.LinkTargetType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("invalid type");
+        }
+        User user = userRepository.findByUsername(principal.getName()).orElseThrow();
+        RelatedItemsDto result = relatedItemsService.related(user, startType, id,
+                Math.max(1, Math.min(hops, maxRelatedHops)), Math.max(1, Math.min(k, MAX_RELATED_RESULTS)));
+        return result != null ? ResponseEntity.ok(result) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 分页检索任务：条件与 /memo/search 相同，按截止时间倒序（无截止时间排最后）。
+     * 首页不传 cursor，之后传上一页返回的 nextCursor；每页的关联目标一次批量查出。
+     */
+    @GetMapping("/memo/search")
+    public ResponseEntity<?> searchTasks(@RequestParam(required = false) String keyword,
+                                         @RequestParam(required = false, name = "start") String startDate,
+                                         @RequestParam(required = false, name = "end") String endDate,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "20") int size,
+                                         Principal principal) {
+        LocalDateTime start;
+        LocalDateTime end;
+        TaskSearchCursor after;
+        try {
+            start = StringUtils.hasText(startDate) ? LocalDate.parse(startDate, DATE_FMT).atStartOfDay() : null;
+            end = StringUtils.hasText(endDate) ? LocalDate.parse(endDate, DATE_FMT).atTime(23, 59, 59) : null;
+            after = TaskSearchCursor.decode(cursor);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("invalid date or cursor");
+        }
+
+        User user = userRepository.findByUsername(principal.getName()).orElseThrow();
+        // 与 /memo/search 页面一致：search.backend=memory 且有关键字时走内存 n-gram 索引，按同样的键集分页
+        TaskPage page = "memory".equals(searchBackend) && StringUtils.hasText(keyword)
+                ? searchIndexService.searchTasksPage(user, keyword, start, end, after, size)
+                : taskService.searchTasksPage(user.getId(), keyword, start, end, after, size);
+        Map<Long, List<Goal>> taskToGoals = goalService.findGoalsByTaskIds(
+                page.tasks().stream().map(Task::getId).toList(), user);
+
+        List<TaskSearchPageDto.Item> items = page.tasks().stream()
+                .map(t -> new TaskSearchPageDto.Item(
+                        t.getId(),
+                        t.getTitle(),
+                        t.getDescription(),
+                        t.getDeadline() != null ? t.getDeadline().format(DEADLINE_FMT) : null,
+                        t.getStatus() != null ? t.getStatus().name() : null,
+                        taskToGoals.getOrDefault(t.getId(), List.of()).stream()
+                                .map(g -> new TaskSearchPageDto.GoalRef(g.getId(), g.getName()))
+                                .toList()
+                ))
+                .toList();
+        return ResponseEntity.ok(new TaskSearchPageDto(items, page.next() != null ? page.next().encode() : null));
+    }
+}
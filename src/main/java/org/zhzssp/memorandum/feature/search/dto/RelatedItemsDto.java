@@ -0,0 +1,18 @@
+package org.zhzssp.memorandum.feature.search.dto;
+
+import java.util.List;
+
+/**
+ * 多跳关联条目：从起点 (type, id) 出发经 Link 可达的任务、笔记、目标，按到达路径数排序。
+ * truncated 为 true 表示遍历因节点数或耗时上限提前停止，结果可能不完整。
+ */
+public record RelatedItemsDto(
+    String type,
+    Long id,
+    List<Item> items,
+    boolean truncated
+) {
+
+    /** hops 为距起点的最短跳数，paths 为最短路径条数 */
+    public record Item(String type, Long id, String title, int hops, long paths) {}
+}
@@ -0,0 +1,24 @@
+package org.zhzssp.memorandum.feature.search.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/** 任务检索的一页结果；nextCursor 原样传回可取下一页，为空表示已到最后一页 */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TaskSearchPageDto(
+    List<Item> items,
+    String nextCursor
+) {
+
+    public record Item(
+        Long id,
+        String title,
+        String description,
+        String deadline,
+        String status,
+        List<GoalRef> goals
+    ) {}
+
+    public record GoalRef(Long id, String name) {}
+}
@@ -0,0 +1,28 @@
+package org.zhzssp.memorandum.feature.search.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * 统一检索结果：任务、笔记、目标按同一相关度排序后的前 k 条，附带经 Link 关联的条目。
+ * partial 为 true 时 missing 列出在截止时间内未返回的部分（TASK / NOTE / GOAL / RELATED）。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UnifiedSearchResultDto(
+    List<Item> items,
+    boolean partial,
+    List<String> missing
+) {
+
+    public record Item(
+        String type,
+        Long id,
+        String title,
+        double score,
+        String deadline,
+        List<Related> related
+    ) {}
+
+    public record Related(String type, Long id, String title) {}
+}
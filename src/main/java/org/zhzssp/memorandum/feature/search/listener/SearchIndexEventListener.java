@@ -0,0 +1,43 @@
+package org.zhzssp.memorandum.feature.search.listener;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.zhzssp.memorandum.core.event.NoteSavedEvent;
+import org.zhzssp.memorandum.core.event.TaskCreatedEvent;
+import org.zhzssp.memorandum.core.event.TaskDeletedEvent;
+import org.zhzssp.memorandum.core.event.TasksDeletedEvent;
+import org.zhzssp.memorandum.feature.search.service.SearchIndexService;
+
+/**
+ * 检索索引的事件监听器（插件层）：任务创建/删除、笔记保存时增量更新内存索引。
+ * 完成、归档、搁置只改变状态，不影响索引中的文本，无需处理。
+ */
+@Component
+public class SearchIndexEventListener {
+
+    private final SearchIndexService searchIndexService;
+
+    public SearchIndexEventListener(SearchIndexService searchIndexService) {
+        this.searchIndexService = searchIndexService;
+    }
+
+    @EventListener
+    public void onTaskCreated(TaskCreatedEvent event) {
+        searchIndexService.onTaskSaved(event.getTask(), event.getUser());
+    }
+
+    @EventListener
+    public void onTaskDeleted(TaskDeletedEvent event) {
+        searchIndexService.onTaskDeleted(event.getTask(), event.getUser());
+    }
+
+    @EventListener
+    public void onTasksDeleted(TasksDeletedEvent event) {
+        searchIndexService.onTasksDeleted(event.getTaskIds(), event.getUser());
+    }
+
+    @EventListener
+    public void onNoteSaved(NoteSavedEvent event) {
+        searchIndexService.onNoteSaved(event.getNote(), event.getUser());
+    }
+}
@@ -0,0 +1,338 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * 单个用户的字符 n-gram 倒排索引（检索插件）。
+ *
+ * 中文没有空格分词，按字切分：每个非空白字符记一个单字 gram，相邻两个非空白字符记一个二元 gram，
+ * gram 统一编码成 int（单字为字符本身，二元为 高位字符 << 16 | 低位字符）。
+ * 倒排表是按文档槽位递增的 int 数组；查询时取所有查询 gram 的倒排表求交（从最短的开始），
+ * 再对候选文档做子串校验，语义与 {@code LIKE '%kw%'} 一致（多个空格分隔的词需同时命中）。
+ * 查询耗时取决于最短倒排表的长度，而不是文档总数。
+ *
+ * 更新：文档重新写入时旧槽位标记为删除、新内容占用新槽位；删除的槽位过多时整体重建倒排表。
+ * 读写通过读写锁保护，可并发查询。
+ */
+public final class NGramIndex {
+
+    /** GOAL 不进入索引（目标只有名称且数量少），统一检索时按名称现场打分 */
+    public enum DocType { TASK, NOTE, GOAL }
+
+    /** 命中结果：按 score 降序，其次截止时间降序（无截止时间排最后），再按 id 降序 */
+    public record Hit(DocType type, long id, double score, LocalDateTime deadline) {}
+
+    public static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparing(Hit::deadline, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Comparator.comparingLong(Hit::id).reversed());
+
+    /** 删除槽位超过该数量且多于存活文档时重建倒排表 */
+    private static final int COMPACT_MIN_DEAD = 1024;
+
+    private record Doc(DocType type, long id, String title, String body, LocalDateTime deadline) {}
+
+    private record DocKey(DocType type, long id) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Doc> docs = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<DocKey, Integer> slotByKey = new HashMap<>();
+    private final Map<Integer, Postings> postings = new HashMap<>();
+
+    /** 写入或覆盖一篇文档（title / body 可为 null） */
+    public void upsert(DocType type, long id, String title, String body, LocalDateTime deadline) {
+        Doc doc = new Doc(type, id, normalize(title), normalize(body), deadline);
+        lock.writeLock().lock();
+        try {
+            removeLocked(new DocKey(type, id));
+            int slot = docs.size();
+            docs.add(doc);
+            live.set(slot);
+            slotByKey.put(new DocKey(type, id), slot);
+            addPostings(slot, doc);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(DocType type, long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(new DocKey(type, id));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 存活文档数 */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询指定类型的文档，返回全部命中（已排序）。
+     *
+     * @param deadlineFilter 对截止时间的额外过滤（null 表示不过滤）
+     */
+    public List<Hit> search(DocType type, String query, Predicate<LocalDateTime> deadlineFilter) {
+        return search(type, query, deadlineFilter, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 查询指定类型的文档，只返回排名前 limit 的命中（已排序）；用有界堆选取，不对全部命中排序。
+     *
+     * @param deadlineFilter 对截止时间的额外过滤（null 表示不过滤）
+     */
+    public List<Hit> search(DocType type, String query, Predicate<LocalDateTime> deadlineFilter, int limit) {
+        return search(type, query, deadlineFilter, null, limit, RANKING);
+    }
+
+    /**
+     * 查询指定类型的文档，按 order 返回前 limit 个命中（已排序），如键集分页时按分页顺序只取一页。
+     *
+     * @param deadlineFilter 对截止时间的额外过滤（null 表示不过滤），在打分前执行
+     * @param hitFilter      对命中的额外过滤（null 表示不过滤），如分页游标条件
+     */
+    public List<Hit> search(DocType type, String query, Predicate<LocalDateTime> deadlineFilter,
+                            Predicate<Hit> hitFilter, int limit, Comparator<Hit> order) {
+        String[] terms = terms(query);
+        if (terms.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(terms);
+            TopK<Hit> top = new TopK<>(Math.min(limit, candidates.length), order);
+            for (int slot : candidates) {
+                Doc doc = docs.get(slot);
+                if (doc.type() != type || !live.get(slot)) {
+                    continue;
+                }
+                if (deadlineFilter != null && !deadlineFilter.test(doc.deadline())) {
+                    continue;
+                }
+                double score = score(doc.title(), doc.body(), terms);
+                if (score > 0) {
+                    Hit hit = new Hit(doc.type(), doc.id(), score, doc.deadline());
+                    if (hitFilter == null || hitFilter.test(hit)) {
+                        top.offer(hit);
+                    }
+                }
+            }
+            return top.toSortedList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 相关度：每个词在标题中出现记 2 分（标题以该词开头再加 1 分），
+     * 在正文中每出现一次记 0.5 分（最多 3 次）；任一词都未出现则为 0（不命中）。
+     * title / body 须已经过 {@link #normalize}，terms 来自 {@link #terms}。
+     */
+    static double score(String title, String body, String[] terms) {
+        double score = 0.0;
+        for (String term : terms) {
+            double termScore = 0.0;
+            if (title.contains(term)) {
+                termScore += title.startsWith(term) ? 3.0 : 2.0;
+            }
+            int occurrences = 0;
+            for (int from = body.indexOf(term); from >= 0 && occurrences < 3;
+                 from = body.indexOf(term, from + term.length())) {
+                occurrences++;
+            }
+            termScore += occurrences * 0.5;
+            if (termScore == 0.0) {
+                return 0.0;
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+    /** 所有查询 gram 的倒排表求交；任一 gram 不存在时为空 */
+    private int[] candidates(String[] terms) {
+        List<Postings> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (int gram : queryGrams(term)) {
+                Postings p = postings.get(gram);
+                if (p == null) {
+                    return new int[0];
+                }
+                lists.add(p);
+            }
+        }
+        lists.sort(Comparator.comparingInt(p -> p.size));
+        int[] result = Arrays.copyOf(lists.get(0).slots, lists.get(0).size);
+        int length = result.length;
+        for (int i = 1; i < lists.size() && length > 0; i++) {
+            length = intersect(result, length, lists.get(i));
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /** 就地求交：result[0..length) 与 other 的交集写回 result 开头，返回新长度 */
+    private static int intersect(int[] result, int length, Postings other) {
+        int out = 0;
+        int j = 0;
+        for (int i = 0; i < length && j < other.size; i++) {
+            int slot = result[i];
+            // 倒排表较长时用二分跳跃，避免线性扫描整张表
+            j = gallop(other.slots, j, other.size, slot);
+            if (j < other.size && other.slots[j] == slot) {
+                result[out++] = slot;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    /** 在 a[from..to) 中找第一个 >= key 的位置 */
+    private static int gallop(int[] a, int from, int to, int key) {
+        int step = 1;
+        int lo = from;
+        int hi = from;
+        while (hi < to && a[hi] < key) {
+            lo = hi + 1;
+            hi = from + step;
+            step <<= 1;
+        }
+        hi = Math.min(hi, to);
+        int idx = Arrays.binarySearch(a, lo, hi, key);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+
+    private void removeLocked(DocKey key) {
+        Integer old = slotByKey.remove(key);
+        if (old != null) {
+            live.clear(old);
+        }
+    }
+
+    private void addPostings(int slot, Doc doc) {
+        for (int gram : docGrams(doc)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(slot);
+        }
+    }
+
+    private void compactIfNeeded() {
+        int liveCount = live.cardinality();
+        int dead = docs.size() - liveCount;
+        if (dead < COMPACT_MIN_DEAD || dead <= liveCount) {
+            return;
+        }
+        List<Doc> kept = new ArrayList<>(liveCount);
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            kept.add(docs.get(slot));
+        }
+        docs.clear();
+        live.clear();
+        slotByKey.clear();
+        postings.clear();
+        for (Doc doc : kept) {
+            int slot = docs.size();
+            docs.add(doc);
+            live.set(slot);
+            slotByKey.put(new DocKey(doc.type(), doc.id()), slot);
+            addPostings(slot, doc);
+        }
+    }
+
+    /** 文档的全部不重复 gram（已排序） */
+    private static int[] docGrams(Doc doc) {
+        int[] grams = new int[2 * (doc.title().length() + doc.body().length())];
+        int n = appendGrams(doc.title(), grams, 0);
+        n = appendGrams(doc.body(), grams, n);
+        Arrays.sort(grams, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static int appendGrams(String text, int[] out, int n) {
+        char prev = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                prev = 0;
+                continue;
+            }
+            out[n++] = c;
+            if (prev != 0) {
+                out[n++] = bigram(prev, c);
+            }
+            prev = c;
+        }
+        return n;
+    }
+
+    /** 查询词的 gram：单字词用单字 gram，否则用全部二元 gram */
+    private static int[] queryGrams(String term) {
+        if (term.length() == 1) {
+            return new int[]{term.charAt(0)};
+        }
+        int[] grams = new int[term.length() - 1];
+        for (int i = 1; i < term.length(); i++) {
+            grams[i - 1] = bigram(term.charAt(i - 1), term.charAt(i));
+        }
+        return grams;
+    }
+
+    private static int bigram(char a, char b) {
+        return (a << 16) | b;
+    }
+
+    /** 归一化后按空白切分的查询词（去重） */
+    static String[] terms(String query) {
+        String normalized = normalize(query).trim();
+        if (normalized.isEmpty()) {
+            return new String[0];
+        }
+        return Arrays.stream(normalized.split("\\s+")).distinct().toArray(String[]::new);
+    }
+
+    /** NFKC（全角转半角等）+ 小写 */
+    static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /** 按槽位递增追加的 int 倒排表 */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+}
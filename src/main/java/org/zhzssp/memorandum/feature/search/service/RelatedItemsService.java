@@ -0,0 +1,314 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.feature.search.dto.RelatedItemsDto;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.service.LinkGraph;
+import org.zhzssp.memorandum.service.LinkGraphService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多跳关联条目（检索插件）：从一个任务/笔记/目标出发，沿 Link 关系（不分方向）做广度优先遍历，
+ * 按到达路径数对可达的条目排序。
+ *
+ * 遍历完全在用户的 {@link LinkGraph}（内存缓存）上进行，不按节点查询数据库；
+ * 只在开始时校验起点归属、结束时按排名分批（每批 k 条，每种类型一次 IN 查询）加载标题，
+ * 不属于该用户的条目被过滤后由后续候选补足，结果仍是归属过滤后的前 k 条。
+ * 遍历用基于 long 的开放寻址表记录已访问节点，不装箱。
+ * 访问节点数与耗时都有上限，超出时停止扩展并标记 truncated；加载标题同样受这一耗时上限约束，
+ * 且最多检查排名前 {@value #MAX_TITLE_BATCHES}×k 个候选，补不足 k 条时同样标记 truncated。
+ */
+@Service
+public class RelatedItemsService {
+
+    /** 遍历到达的节点：最短跳数与最短路径条数 */
+    record Reached(long node, int hops, long paths) {}
+
+    record Traversal(List<Reached> reached, boolean truncated) {}
+
+    /** 路径数多的在前，其次跳数少的在前，再按类型、ID */
+    static final Comparator<Reached> RANKING = Comparator.comparingLong(Reached::paths).reversed()
+            .thenComparingInt(Reached::hops)
+            .thenComparing(r -> LinkGraph.typeOf(r.node()))
+            .thenComparingLong(r -> LinkGraph.idOf(r.node()));
+
+    /** 归属过滤后补足 k 条时最多加载的标题批数（每批 k 条） */
+    static final int MAX_TITLE_BATCHES = 4;
+
+    @Autowired
+    private LinkGraphService linkGraphService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    /** 单次遍历最多访问的节点数 */
+    @Value("${search.related.max-nodes:2000}")
+    private int maxNodes;
+
+    /** 单次遍历的时间上限（毫秒） */
+    @Value("${search.related.timeout-ms:200}")
+    private long timeoutMillis;
+
+    /**
+     * 起点的 hops 跳内关联条目，按路径数排序取前 k 条。
+     *
+     * @return 起点不存在或不属于该用户时返回 null
+     */
+    public RelatedItemsDto related(User user, Link.LinkTargetType type, Long id, int hops, int k) {
+        if (!owns(user, type, id)) {
+            return null;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Traversal traversal = traverse(linkGraphService.graphFor(user), LinkGraph.node(type, id),
+                hops, maxNodes, deadline);
+
+        // 先按归属过滤再取前 k 条：按排名分批加载标题，被过滤掉的条目由后续候选补足
+        List<Reached> candidates = new ArrayList<>(traversal.reached());
+        candidates.sort(RANKING);
+        int limit = (int) Math.min(candidates.size(), (long) k * MAX_TITLE_BATCHES);
+        boolean truncated = traversal.truncated();
+        List<RelatedItemsDto.Item> items = new ArrayList<>(Math.min(k, candidates.size()));
+        int from = 0;
+        while (from < limit && items.size() < k) {
+            // 第一批总是加载，之后的补足批次受同一截止时间约束
+            if (from > 0 && System.nanoTime() > deadline) {
+                break;
+            }
+            int to = Math.min(limit, from + k);
+            List<Reached> batch = candidates.subList(from, to);
+            Map<Link.LinkTargetType, Map<Long, String>> titles = loadTitles(user, batch);
+            for (Reached r : batch) {
+                Link.LinkTargetType itemType = LinkGraph.typeOf(r.node());
+                long itemId = LinkGraph.idOf(r.node());
+                String title = titles.get(itemType).get(itemId);
+                if (title == null) {
+                    // 关系图与数据库短暂不一致（如并发删除），或链接指向其他用户的数据
+                    continue;
+                }
+                items.add(new RelatedItemsDto.Item(itemType.name(), itemId, title, r.hops(), r.paths()));
+                if (items.size() == k) {
+                    break;
+                }
+            }
+            from = to;
+        }
+        if (items.size() < k && from < candidates.size()) {
+            // 还有未检查的候选：截止时间已到，或已达到批数上限
+            truncated = true;
+        }
+        return new RelatedItemsDto(type.name(), id, items, truncated);
+    }
+
+    /**
+     * 从 start 出发的分层广度优先遍历（出边与入边都算相邻），最多 maxHops 跳。
+     * 每个节点记录首次到达的跳数，以及到达它的最短路径条数（上一层所有相邻节点的路径数之和，饱和到 Long.MAX_VALUE）。
+     * 已访问节点数达到 maxNodes 或超过 deadline（System.nanoTime）时停止，truncated 为 true。结果不含起点。
+     */
+    static Traversal traverse(LinkGraph graph, long start, int maxHops, int maxNodes, long deadline) {
+        VisitedNodes visited = new VisitedNodes();
+        visited.add(start, 0, 1);
+        // 节点按首次到达顺序追加，每一层的前沿就是上一层追加的连续区间 [levelStart, levelEnd)
+        int levelStart = 0;
+        boolean truncated = false;
+        for (int hop = 1; hop <= maxHops && levelStart < visited.size() && !truncated; hop++) {
+            int levelEnd = visited.size();
+            for (int i = levelStart; i < levelEnd; i++) {
+                if (System.nanoTime() > deadline) {
+                    truncated = true;
+                    break;
+                }
+                long node = visited.node(i);
+                long paths = visited.paths(i);
+                for (long[] neighbours : new long[][]{graph.targets(node), graph.sources(node)}) {
+                    for (long neighbour : neighbours) {
+                        int seen = visited.indexOf(neighbour);
+                        if (seen < 0) {
+                            if (visited.size() - 1 >= maxNodes) {
+                                truncated = true;
+                                continue;
+                            }
+                            visited.add(neighbour, hop, paths);
+                        } else if (visited.hops(seen) == hop) {
+                            visited.addPaths(seen, paths);
+                        }
+                    }
+                }
+            }
+            levelStart = levelEnd;
+        }
+        List<Reached> reached = new ArrayList<>(visited.size() - 1);
+        for (int i = 1; i < visited.size(); i++) {
+            reached.add(new Reached(visited.node(i), visited.hops(i), visited.paths(i)));
+        }
+        return new Traversal(reached, truncated);
+    }
+
+    private boolean owns(User user, Link.LinkTargetType type, Long id) {
+        Long userId = user.getId();
+        return switch (type) {
+            case TASK -> taskRepository.findById(id)
+                    .map(t -> t.getUser() != null && userId.equals(t.getUser().getId())).orElse(false);
+            case NOTE -> noteRepository.findById(id)
+                    .map(n -> n.getUser() != null && userId.equals(n.getUser().getId())).orElse(false);
+            case GOAL -> goalRepository.findById(id)
+                    .map(g -> g.getUser() != null && userId.equals(g.getUser().getId())).orElse(false);
+        };
+    }
+
+    /** 结果条目的标题：每种类型至多一次 IN 查询，只保留属于该用户的条目 */
+    private Map<Link.LinkTargetType, Map<Long, String>> loadTitles(User user, List<Reached> ranked) {
+        Map<Link.LinkTargetType, Set<Long>> ids = new EnumMap<>(Link.LinkTargetType.class);
+        Map<Link.LinkTargetType, Map<Long, String>> titles = new EnumMap<>(Link.LinkTargetType.class);
+        for (Link.LinkTargetType t : Link.LinkTargetType.values()) {
+            ids.put(t, new HashSet<>());
+            titles.put(t, new HashMap<>());
+        }
+        for (Reached r : ranked) {
+            ids.get(LinkGraph.typeOf(r.node())).add(LinkGraph.idOf(r.node()));
+        }
+
+        Long userId = user.getId();
+        if (!ids.get(Link.LinkTargetType.TASK).isEmpty()) {
+            for (Task t : taskRepository.findAllById(ids.get(Link.LinkTargetType.TASK))) {
+                if (t.getUser() != null && userId.equals(t.getUser().getId())) {
+                    titles.get(Link.LinkTargetType.TASK).put(t.getId(), Objects.toString(t.getTitle(), ""));
+                }
+            }
+        }
+        if (!ids.get(Link.LinkTargetType.NOTE).isEmpty()) {
+            for (Note n : noteRepository.findAllById(ids.get(Link.LinkTargetType.NOTE))) {
+                if (n.getUser() != null && userId.equals(n.getUser().getId())) {
+                    titles.get(Link.LinkTargetType.NOTE).put(n.getId(), Objects.toString(n.getTitle(), ""));
+                }
+            }
+        }
+        if (!ids.get(Link.LinkTargetType.GOAL).isEmpty()) {
+            for (Goal g : goalRepository.findAllById(ids.get(Link.LinkTargetType.GOAL))) {
+                if (g.getUser() != null && userId.equals(g.getUser().getId())) {
+                    titles.get(Link.LinkTargetType.GOAL).put(g.getId(), Objects.toString(g.getName(), ""));
+                }
+            }
+        }
+        return titles;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * 遍历的已访问节点：long 节点 → 序号的开放寻址哈希表（线性探测，负载因子 0.5），
+     * 节点、跳数、路径数按首次到达顺序存于平行数组，全程不装箱。
+     * 键 0 表示空槽：节点编码中 ID 为正数，编码值不会为 0。
+     */
+    private static final class VisitedNodes {
+        private static final long EMPTY = 0L;
+
+        private long[] keys = new long[16];
+        private int[] indexes = new int[16];
+        private long[] nodes = new long[8];
+        private int[] hops = new int[8];
+        private long[] paths = new long[8];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long node(int i) {
+            return nodes[i];
+        }
+
+        int hops(int i) {
+            return hops[i];
+        }
+
+        long paths(int i) {
+            return paths[i];
+        }
+
+        /** 节点的序号，未访问过返回 -1 */
+        int indexOf(long node) {
+            int slot = slotOf(node);
+            return keys[slot] == EMPTY ? -1 : indexes[slot];
+        }
+
+        /** 追加一个未访问过的节点 */
+        void add(long node, int hop, long pathCount) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                hops = Arrays.copyOf(hops, size * 2);
+                paths = Arrays.copyOf(paths, size * 2);
+            }
+            int slot = slotOf(node);
+            keys[slot] = node;
+            indexes[slot] = size;
+            nodes[size] = node;
+            hops[size] = hop;
+            paths[size] = pathCount;
+            size++;
+        }
+
+        void addPaths(int i, long pathCount) {
+            paths[i] = saturatedAdd(paths[i], pathCount);
+        }
+
+        /** 键所在的槽，或应插入的空槽 */
+        private int slotOf(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldIndexes = indexes;
+            keys = new long[capacity];
+            indexes = new int[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) continue;
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                indexes[slot] = oldIndexes[i];
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.zhzssp.memorandum.core.service.TaskSearchCursor;
+import org.zhzssp.memorandum.core.service.TaskService;
+import org.zhzssp.memorandum.core.service.TaskService.TaskPage;
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.search.service.NGramIndex.DocType;
+import org.zhzssp.memorandum.feature.search.service.NGramIndex.Hit;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 任务与笔记的内存检索（检索插件）。
+ *
+ * 每个用户一份 {@link NGramIndex}，首次查询时从数据库构建（启动后懒加载），之后由任务/笔记事件增量维护；
+ * 尚未构建索引的用户忽略事件，下次查询时按最新数据构建。
+ * 索引只保存文本和截止时间，命中后按主键加载实体，保证状态等字段是最新的。
+ */
+@Service
+public class SearchIndexService {
+
+    /** 与 TaskService#searchTasksPage 相同的分页顺序，两种检索方式返回的游标可以互用 */
+    private static final Comparator<Hit> PAGE_ORDER = TaskSearchCursor.pageOrder(Hit::deadline, Hit::id);
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    /** 最多常驻内存的用户索引数，超出后按最近最少使用淘汰 */
+    @Value("${search.index.max-users:1000}")
+    private long maxUsers;
+
+    private Cache<Long, NGramIndex> indexes;
+
+    @PostConstruct
+    void initCache() {
+        indexes = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 按关键字检索任务，可选截止时间范围（与 TaskMapper#searchTasks 的过滤条件一致），按相关度排序。
+     */
+    public List<Task> searchTasks(User user, String keyword, LocalDateTime start, LocalDateTime end) {
+        List<Hit> hits = indexFor(user).search(DocType.TASK, keyword, deadlineFilter(start, end));
+        return load(hits, taskRepository::findAllById, Task::getId);
+    }
+
+    /**
+     * 与 {@link TaskService#searchTasksPage} 相同的键集分页：游标条件与分页顺序作用在索引命中上，
+     * 有界堆只保留一页（多一条判断是否有下一页），只按主键加载这一页的任务。
+     *
+     * @param after 上一页返回的游标，null 表示第一页
+     * @param size  每页条数，限制在 [1, TaskService.MAX_PAGE_SIZE]
+     */
+    public TaskPage searchTasksPage(User user, String keyword, LocalDateTime start, LocalDateTime end,
+                                    TaskSearchCursor after, int size) {
+        int limit = Math.max(1, Math.min(size, TaskService.MAX_PAGE_SIZE));
+        List<Hit> hits = indexFor(user).search(DocType.TASK, keyword, deadlineFilter(start, end),
+                after != null ? hit -> after.precedes(hit.deadline(), hit.id()) : null, limit + 1, PAGE_ORDER);
+        if (hits.size() <= limit) {
+            return new TaskPage(load(hits, taskRepository::findAllById, Task::getId), null);
+        }
+        List<Hit> page = hits.subList(0, limit);
+        // 游标取自索引命中：即使最后一条已被并发删除，下一页仍从同一位置继续
+        Hit last = page.get(limit - 1);
+        return new TaskPage(load(page, taskRepository::findAllById, Task::getId),
+                new TaskSearchCursor(last.deadline(), last.id()));
+    }
+
+    /** 按关键字检索笔记（标题与内容），按相关度排序 */
+    public List<Note> searchNotes(User user, String keyword) {
+        List<Hit> hits = indexFor(user).search(DocType.NOTE, keyword, null);
+        return load(hits, noteRepository::findAllById, Note::getId);
+    }
+
+    /** 指定类型（TASK / NOTE）排名前 limit 的命中，不加载实体 */
+    public List<Hit> topHits(User user, DocType type, String keyword, int limit) {
+        return indexFor(user).search(type, keyword, null, limit);
+    }
+
+    public void onTaskSaved(Task task, User user) {
+        update(user, index -> index.upsert(DocType.TASK, task.getId(), task.getTitle(), task.getDescription(),
+                task.getDeadline()));
+    }
+
+    public void onTaskDeleted(Task task, User user) {
+        update(user, index -> index.remove(DocType.TASK, task.getId()));
+    }
+
+    public void onTasksDeleted(Collection<Long> taskIds, User user) {
+        update(user, index -> taskIds.forEach(id -> index.remove(DocType.TASK, id)));
+    }
+
+    public void onNoteSaved(Note note, User user) {
+        update(user, index -> index.upsert(DocType.NOTE, note.getId(), note.getTitle(), note.getContent(), null));
+    }
+
+    public CacheStats stats() {
+        return indexes.stats();
+    }
+
+    public long size() {
+        return indexes.estimatedSize();
+    }
+
+    NGramIndex indexFor(User user) {
+        return indexes.get(user.getId(), id -> build(user));
+    }
+
+    private NGramIndex build(User user) {
+        NGramIndex index = new NGramIndex();
+        for (Task t : taskRepository.findByUser(user)) {
+            index.upsert(DocType.TASK, t.getId(), t.getTitle(), t.getDescription(), t.getDeadline());
+        }
+        for (Note n : noteRepository.findByUser(user)) {
+            index.upsert(DocType.NOTE, n.getId(), n.getTitle(), n.getContent(), null);
+        }
+        return index;
+    }
+
+    /** 只更新已构建的索引；构建过程中到达的更新会等待构建完成后再应用 */
+    private void update(User user, Consumer<NGramIndex> change) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        indexes.asMap().computeIfPresent(user.getId(), (id, index) -> {
+            change.accept(index);
+            return index;
+        });
+    }
+
+    private static Predicate<LocalDateTime> deadlineFilter(LocalDateTime start, LocalDateTime end) {
+        if (start == null && end == null) {
+            return null;
+        }
+        return deadline -> deadline != null
+                && (start == null || !deadline.isBefore(start))
+                && (end == null || !deadline.isAfter(end));
+    }
+
+    /** 按命中顺序加载实体；索引与数据库短暂不一致时（如并发删除）跳过缺失的记录 */
+    private static <T> List<T> load(List<Hit> hits, Function<List<Long>, List<T>> findAllById,
+                                    Function<T, Long> idOf) {
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = hits.stream().map(Hit::id).toList();
+        Map<Long, T> byId = findAllById.apply(ids).stream()
+                .collect(Collectors.toMap(idOf, Function.identity(), (a, b) -> a));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+}
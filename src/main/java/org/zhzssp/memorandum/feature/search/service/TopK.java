@@ -0,0 +1,45 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 按排序规则保留前 k 个元素的有界堆（检索插件）。
+ *
+ * 堆顶是当前保留元素中排名最靠后的一个，新元素只需与堆顶比较；
+ * n 个候选取前 k 的代价为 O(n log k)，只有最终保留的 k 个需要排序。
+ */
+final class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> ranking;
+    private final PriorityQueue<T> heap;
+
+    /** @param ranking 排名靠前的元素比较结果更小（与 List#sort 的顺序一致） */
+    TopK(int k, Comparator<? super T> ranking) {
+        this.k = k;
+        this.ranking = ranking;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), ranking.reversed());
+    }
+
+    void offer(T item) {
+        if (k <= 0) {
+            return;
+        }
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (ranking.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    /** 保留的元素，按排名从前到后 */
+    List<T> toSortedList() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(ranking);
+        return result;
+    }
+}
@@ -0,0 +1,246 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.feature.search.dto.UnifiedSearchResultDto;
+import org.zhzssp.memorandum.feature.search.service.NGramIndex.DocType;
+import org.zhzssp.memorandum.feature.search.service.NGramIndex.Hit;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.service.LinkGraph;
+import org.zhzssp.memorandum.service.LinkGraphService;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 任务、笔记、目标的统一检索（检索插件）。
+ *
+ * 三类数据在虚拟线程上并发查询：任务与笔记走内存 n-gram 索引，目标按名称现场打分（{@link NGramIndex#score}），
+ * 因此三者的分数可直接比较。每类最多取 k 条，再用有界堆合并出总的前 k 条。
+ * 所有子查询共享同一截止时间，超时的部分不等待，结果标记为 partial；
+ * 之后从用户的 Link 关系图（{@link LinkGraphService}，内存缓存）取前 k 条的相邻条目作为关联条目（截止时间已过则跳过）。
+ */
+@Service
+public class UnifiedSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(UnifiedSearchService.class);
+
+    private static final DateTimeFormatter DEADLINE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private LinkGraphService linkGraphService;
+
+    /** 单次检索的截止时间（毫秒），超时返回已完成部分 */
+    @Value("${search.unified.timeout-ms:500}")
+    private long timeoutMillis;
+
+    /** 每条结果最多附带的关联条目数 */
+    @Value("${search.unified.max-related:5}")
+    private int maxRelated;
+
+    public UnifiedSearchResultDto search(User user, String keyword, int k) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<String> missing = new ArrayList<>();
+        TopK<Hit> top = new TopK<>(k, NGramIndex.RANKING);
+
+        ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Map<DocType, Future<List<Hit>>> futures = new EnumMap<>(DocType.class);
+            futures.put(DocType.TASK, scope.submit(() -> searchIndexService.topHits(user, DocType.TASK, keyword, k)));
+            futures.put(DocType.NOTE, scope.submit(() -> searchIndexService.topHits(user, DocType.NOTE, keyword, k)));
+            futures.put(DocType.GOAL, scope.submit(() -> searchGoals(user, keyword, k)));
+            futures.forEach((type, future) -> {
+                List<Hit> hits = awaitOrNull(future, deadline, type);
+                if (hits == null) {
+                    missing.add(type.name());
+                } else {
+                    hits.forEach(top::offer);
+                }
+            });
+        } finally {
+            // 超时的子任务不中断：首次查询时的索引构建继续完成，下一次请求即可命中
+            scope.shutdown();
+        }
+
+        List<Hit> ranked = top.toSortedList();
+        Map<Hit, long[]> neighbours = new HashMap<>();
+        if (System.nanoTime() < deadline) {
+            loadNeighbours(user, ranked, neighbours);
+        } else if (!ranked.isEmpty()) {
+            missing.add("RELATED");
+        }
+
+        Map<DocType, Map<Long, String>> titles = loadTitles(user, ranked, neighbours);
+        List<UnifiedSearchResultDto.Item> items = new ArrayList<>(ranked.size());
+        for (Hit hit : ranked) {
+            String title = titles.get(hit.type()).get(hit.id());
+            if (title == null) {
+                // 索引与数据库短暂不一致（如并发删除）
+                continue;
+            }
+            items.add(new UnifiedSearchResultDto.Item(
+                    hit.type().name(),
+                    hit.id(),
+                    title,
+                    hit.score(),
+                    hit.deadline() != null ? hit.deadline().format(DEADLINE_FMT) : null,
+                    related(neighbours.get(hit), titles)
+            ));
+        }
+        return new UnifiedSearchResultDto(items, !missing.isEmpty(), missing.isEmpty() ? null : missing);
+    }
+
+    /** 有效目标按名称打分，目标数量少，不建索引 */
+    private List<Hit> searchGoals(User user, String keyword, int k) {
+        String[] terms = NGramIndex.terms(keyword);
+        if (terms.length == 0) {
+            return List.of();
+        }
+        TopK<Hit> top = new TopK<>(k, NGramIndex.RANKING);
+        for (Goal goal : goalRepository.findByUserAndArchivedAtIsNull(user)) {
+            double score = NGramIndex.score(NGramIndex.normalize(goal.getName()), "", terms);
+            if (score > 0) {
+                top.offer(new Hit(DocType.GOAL, goal.getId(), score, null));
+            }
+        }
+        return top.toSortedList();
+    }
+
+    /** 前 k 条在关系图中的相邻节点（出边与入边的另一端），不查询数据库 */
+    private void loadNeighbours(User user, List<Hit> ranked, Map<Hit, long[]> neighbours) {
+        LinkGraph graph = linkGraphService.graphFor(user);
+        for (Hit hit : ranked) {
+            long node = LinkGraph.node(Link.LinkTargetType.valueOf(hit.type().name()), hit.id());
+            long[] targets = graph.targets(node);
+            long[] sources = graph.sources(node);
+            long[] all = Arrays.copyOf(targets, targets.length + sources.length);
+            System.arraycopy(sources, 0, all, targets.length, sources.length);
+            neighbours.put(hit, all);
+        }
+    }
+
+    /** 结果与关联条目的标题，每类一次按主键批量查询，并校验归属当前用户 */
+    private Map<DocType, Map<Long, String>> loadTitles(User user, List<Hit> ranked, Map<Hit, long[]> neighbours) {
+        Map<DocType, Set<Long>> ids = idsByType(ranked);
+        neighbours.values().forEach(nodes -> {
+            for (long node : nodes) {
+                ids.get(docType(node)).add(LinkGraph.idOf(node));
+            }
+        });
+
+        Long userId = user.getId();
+        Map<DocType, Map<Long, String>> titles = new EnumMap<>(DocType.class);
+        titles.put(DocType.TASK, new HashMap<>());
+        titles.put(DocType.NOTE, new HashMap<>());
+        titles.put(DocType.GOAL, new HashMap<>());
+        if (!ids.get(DocType.TASK).isEmpty()) {
+            for (Task t : taskRepository.findAllById(ids.get(DocType.TASK))) {
+                if (t.getUser() != null && userId.equals(t.getUser().getId())) {
+                    titles.get(DocType.TASK).put(t.getId(), Objects.toString(t.getTitle(), ""));
+                }
+            }
+        }
+        if (!ids.get(DocType.NOTE).isEmpty()) {
+            for (Note n : noteRepository.findAllById(ids.get(DocType.NOTE))) {
+                if (n.getUser() != null && userId.equals(n.getUser().getId())) {
+                    titles.get(DocType.NOTE).put(n.getId(), Objects.toString(n.getTitle(), ""));
+                }
+            }
+        }
+        if (!ids.get(DocType.GOAL).isEmpty()) {
+            for (Goal g : goalRepository.findAllById(ids.get(DocType.GOAL))) {
+                if (g.getUser() != null && userId.equals(g.getUser().getId())) {
+                    titles.get(DocType.GOAL).put(g.getId(), Objects.toString(g.getName(), ""));
+                }
+            }
+        }
+        return titles;
+    }
+
+    /** 一条结果的关联条目（相邻节点去重，只保留属于当前用户的，最多 maxRelated 条） */
+    private List<UnifiedSearchResultDto.Related> related(long[] nodes, Map<DocType, Map<Long, String>> titles) {
+        if (nodes == null || nodes.length == 0) {
+            return List.of();
+        }
+        Map<Long, UnifiedSearchResultDto.Related> related = new LinkedHashMap<>();
+        for (long node : nodes) {
+            DocType otherType = docType(node);
+            long otherId = LinkGraph.idOf(node);
+            String title = titles.get(otherType).get(otherId);
+            if (title != null) {
+                related.putIfAbsent(node, new UnifiedSearchResultDto.Related(otherType.name(), otherId, title));
+            }
+            if (related.size() >= maxRelated) {
+                break;
+            }
+        }
+        return List.copyOf(related.values());
+    }
+
+    private static DocType docType(long node) {
+        return DocType.valueOf(LinkGraph.typeOf(node).name());
+    }
+
+    private static Map<DocType, Set<Long>> idsByType(Collection<Hit> hits) {
+        Map<DocType, Set<Long>> ids = new EnumMap<>(DocType.class);
+        for (DocType type : DocType.values()) {
+            ids.put(type, new LinkedHashSet<>());
+        }
+        hits.forEach(h -> ids.get(h.type()).add(h.id()));
+        return ids;
+    }
+
+    /** 截止时间前等待子查询；超时或失败返回 null，由调用方记为缺失部分 */
+    private static List<Hit> awaitOrNull(Future<List<Hit>> future, long deadlineNanos, DocType type) {
+        long remaining = Math.max(0L, deadlineNanos - System.nanoTime());
+        try {
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("统一检索 {} 部分失败", type, e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
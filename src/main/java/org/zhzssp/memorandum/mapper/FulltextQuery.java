@@ -0,0 +1,48 @@
+package org.zhzssp.memorandum.mapper;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * 把用户输入的关键字转换成 {@code MATCH ... AGAINST (... IN BOOLEAN MODE)} 的查询串。
+ *
+ * 与 LIKE 查询的语义对齐：按空白切分的每个词都必须命中（+），词内按短语匹配（"..."），
+ * 这样 ngram 切出的相邻 gram 需要连续出现，而不是任意一个 gram 命中即可。
+ * 短于 ngram_token_size（默认 2）的词无法作为短语命中，改用前缀匹配（词*）。
+ * 布尔模式的运算符字符会被去掉，避免用户输入改变查询结构。
+ */
+public final class FulltextQuery {
+
+    /** 与 MySQL 的 ngram_token_size 保持一致 */
+    static final int NGRAM_TOKEN_SIZE = 2;
+
+    private static final String OPERATORS = "+-<>()~*\"@";
+
+    private FulltextQuery() {
+    }
+
+    /** 关键字为空（或只含运算符）时返回 null，调用方应回退到不带关键字的查询 */
+    public static String booleanQuery(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        String query = Arrays.stream(keyword.trim().split("\\s+"))
+                .map(FulltextQuery::stripOperators)
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .map(term -> term.length() < NGRAM_TOKEN_SIZE ? "+" + term + "*" : "+\"" + term + "\"")
+                .collect(Collectors.joining(" "));
+        return query.isEmpty() ? null : query;
+    }
+
+    private static String stripOperators(String term) {
+        StringBuilder sb = new StringBuilder(term.length());
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (OPERATORS.indexOf(c) < 0) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package org.zhzssp.memorandum.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.zhzssp.memorandum.entity.Link;
+
+import java.util.List;
+
+@Mapper
+public interface LinkMapper {
+
+    /**
+     * 多值 INSERT：一条语句、一次往返写入全部链接（Link 使用 IDENTITY 主键，JPA 无法批量插入）。
+     * 不回填主键；created_at 取数据库当前时间。links 不能为空。
+     */
+    int insertLinks(@Param("links") List<Link> links);
+}
@@ -13,4 +13,23 @@ public interface TaskMapper {
                            @Param("keyword") String keyword,
                            @Param("startDate") LocalDateTime startDate,
                            @Param("endDate") LocalDateTime endDate);
+
+    /** 全文索引检索，query 由 {@link FulltextQuery#booleanQuery(String)} 生成 */
+    List<Task> searchTasksFulltext(@Param("userId") Long userId,
+                                   @Param("query") String query,
+                                   @Param("startDate") LocalDateTime startDate,
+                                   @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * 键集分页检索：返回排在 (afterDeadline, afterId) 之后的至多 limit 条（afterId 为 null 时从第一条开始）。
+     * query 非空时走全文索引，否则按 keyword 做 LIKE 匹配。
+     */
+    List<Task> searchTasksPage(@Param("userId") Long userId,
+                               @Param("keyword") String keyword,
+                               @Param("query") String query,
+                               @Param("startDate") LocalDateTime startDate,
+                               @Param("endDate") LocalDateTime endDate,
+                               @Param("afterDeadline") LocalDateTime afterDeadline,
+                               @Param("afterId") Long afterId,
+                               @Param("limit") int limit);
 }
@@ -1,8 +1,14 @@
 package org.zhzssp.memorandum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface LinkRepository extends JpaRepository<Link, Long> {
@@ -10,4 +16,42 @@ public interface LinkRepository extends JpaRepository<Link, Long> {
     List<Link> findBySourceTypeAndSourceId(Link.LinkSourceType sourceType, Long sourceId);
 
     List<Link> findByTargetTypeAndTargetId(Link.LinkTargetType targetType, Long targetId);
+
+    /** 一条 DELETE 删除指向某个目标对象的全部链接，返回删除的行数 */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Link l WHERE l.targetType = :targetType AND l.targetId = :targetId")
+    int deleteAllByTarget(@Param("targetType") Link.LinkTargetType targetType, @Param("targetId") Long targetId);
+
+    /** 一条 DELETE 删除某个源对象指向一组目标的链接（含重复链接），返回删除的行数 */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Link l WHERE l.sourceType = :sourceType AND l.sourceId = :sourceId "
+            + "AND l.targetType = :targetType AND l.targetId IN :targetIds")
+    int deleteAllBySourceAndTargets(@Param("sourceType") Link.LinkSourceType sourceType,
+                                    @Param("sourceId") Long sourceId,
+                                    @Param("targetType") Link.LinkTargetType targetType,
+                                    @Param("targetIds") Collection<Long> targetIds);
+
+    /** 批量查询一组源对象指向某类目标的链接（IN 查询，一次往返） */
+    List<Link> findBySourceTypeAndSourceIdInAndTargetType(Link.LinkSourceType sourceType,
+                                                         Collection<Long> sourceIds,
+                                                         Link.LinkTargetType targetType);
+
+    /** 批量查询一组源对象发出的全部链接 */
+    List<Link> findBySourceTypeAndSourceIdIn(Link.LinkSourceType sourceType, Collection<Long> sourceIds);
+
+    /** 批量查询指向一组目标对象的全部链接 */
+    List<Link> findByTargetTypeAndTargetIdIn(Link.LinkTargetType targetType, Collection<Long> targetIds);
+
+    /**
+     * 某用户任务与笔记发出的全部链接（两个子查询分别走 memo / note 的 user_id 索引），用于构建关系图。
+     * 目标侧的归属由调用方校验。
+     */
+    @Query("SELECT l FROM Link l WHERE "
+            + "(l.sourceType = org.zhzssp.memorandum.entity.Link.LinkSourceType.TASK "
+            + "AND l.sourceId IN (SELECT t.id FROM Task t WHERE t.user = :user)) "
+            + "OR (l.sourceType = org.zhzssp.memorandum.entity.Link.LinkSourceType.NOTE "
+            + "AND l.sourceId IN (SELECT n.id FROM Note n WHERE n.user = :user))")
+    List<Link> findAllByUser(@Param("user") User user);
 }
@@ -1,13 +1,26 @@
 package org.zhzssp.memorandum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.zhzssp.memorandum.entity.Note;
 import org.zhzssp.memorandum.entity.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long> {
     List<Note> findByUser(User user);
+
+    /** 创建时间落在 [start, end) 的笔记数 */
+    long countByUserAndCreatedAtGreaterThanEqualAndCreatedAtLessThan(User user, LocalDateTime start, LocalDateTime end);
+
+    /** 全文索引检索标题与内容（V7 迁移的 ft_note_title_content），query 为布尔模式查询串，按相关度排序 */
+    @Query(value = "SELECT * FROM note WHERE user_id = :userId "
+            + "AND MATCH(title, content) AGAINST(:query IN BOOLEAN MODE) "
+            + "ORDER BY MATCH(title, content) AGAINST(:query IN BOOLEAN MODE) DESC, id DESC",
+            nativeQuery = true)
+    List<Note> searchFulltext(@Param("userId") Long userId, @Param("query") String query);
 }
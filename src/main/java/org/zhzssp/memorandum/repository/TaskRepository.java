@@ -1,12 +1,17 @@
 package org.zhzssp.memorandum.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import org.zhzssp.memorandum.entity.Task;
 import org.zhzssp.memorandum.entity.TaskGranularity;
 import org.zhzssp.memorandum.entity.TaskStatus;
 import org.zhzssp.memorandum.entity.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
@@ -18,6 +23,35 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     /** 可行动项：PENDING 且未搁置 */
     List<Task> findByUserAndStatusIn(User user, List<TaskStatus> statuses);
 
+    /**
+     * 今日可行动任务：状态为 PENDING 或 NULL，且 deadline 落在 [dayStart, dayEnd) 或未设置。
+     * 排序与 TaskService#taskComparatorBySlotAndEnergy 一致：时间段（上午/下午/晚上/未指定）→ 精力需求（HIGH/MEDIUM/LOW/未指定）→ ID。
+     */
+    @Query("SELECT t FROM Task t WHERE t.user = :user "
+            + "AND (t.status IS NULL OR t.status = org.zhzssp.memorandum.entity.TaskStatus.PENDING) "
+            + "AND (t.deadline IS NULL OR (t.deadline >= :dayStart AND t.deadline < :dayEnd)) "
+            + "ORDER BY CASE t.preferredSlot "
+            + "WHEN org.zhzssp.memorandum.entity.TimeSlot.MORNING THEN 0 "
+            + "WHEN org.zhzssp.memorandum.entity.TimeSlot.AFTERNOON THEN 1 "
+            + "WHEN org.zhzssp.memorandum.entity.TimeSlot.EVENING THEN 2 "
+            + "ELSE 3 END, "
+            + "CASE t.energyRequirement "
+            + "WHEN org.zhzssp.memorandum.entity.EnergyLevel.HIGH THEN 0 "
+            + "WHEN org.zhzssp.memorandum.entity.EnergyLevel.MEDIUM THEN 1 "
+            + "WHEN org.zhzssp.memorandum.entity.EnergyLevel.LOW THEN 2 "
+            + "ELSE 3 END, "
+            + "t.id")
+    List<Task> findTodayActionable(@Param("user") User user,
+                                   @Param("dayStart") LocalDateTime dayStart,
+                                   @Param("dayEnd") LocalDateTime dayEnd);
+
+    /** 截止时间落在 [dayStart, dayEnd) 的任务，按 ID 排序（评分物化按天重算时使用） */
+    List<Task> findByUserAndDeadlineGreaterThanEqualAndDeadlineLessThanOrderByIdAsc(
+            User user,
+            LocalDateTime dayStart,
+            LocalDateTime dayEnd
+    );
+
     /** 模糊任务 + 待办 + 创建时间早于指定时间（用于“存在 N 天未拆分”提示） */
     List<Task> findByUserAndGranularityAndStatusAndCreatedAtBefore(
             User user,
@@ -25,4 +59,21 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
             TaskStatus status,
             LocalDateTime createdAtBefore
     );
+
+    /**
+     * 批量归档：一条 UPDATE 将一组任务设为 ARCHIVED（只处理该用户的、尚未归档的任务），返回实际更新的行数。
+     * 不经过持久化上下文，调用方不应在同一事务中继续使用这些任务的已加载实体。
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Task t SET t.status = org.zhzssp.memorandum.entity.TaskStatus.ARCHIVED "
+            + "WHERE t.id IN :ids AND t.user = :user "
+            + "AND (t.status IS NULL OR t.status <> org.zhzssp.memorandum.entity.TaskStatus.ARCHIVED)")
+    int archiveAllByIdInAndUser(@Param("ids") Collection<Long> ids, @Param("user") User user);
+
+    /** 批量删除：一条 DELETE 删除一组任务（只删除该用户的任务），返回实际删除的行数 */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Task t WHERE t.id IN :ids AND t.user = :user")
+    int deleteAllByIdInAndUser(@Param("ids") Collection<Long> ids, @Param("user") User user);
 }
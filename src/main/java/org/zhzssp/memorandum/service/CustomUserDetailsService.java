@@ -3,9 +3,12 @@ package org.zhzssp.memorandum.service;
 import org.zhzssp.memorandum.entity.User;
 import org.zhzssp.memorandum.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
+import java.util.Set;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
@@ -13,6 +16,10 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    /** 拥有 ADMIN 角色的用户名（逗号分隔），可访问缓存统计等运维接口 */
+    @Value("${security.admin-usernames:}")
+    private Set<String> adminUsernames;
+
     // 可以自动拦截login提交的表单？ --> 自动跳转到dashboard?
     @Override
     public UserDetails loadUserByUsername(String username)
@@ -22,7 +29,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         return org.springframework.security.core.userdetails.User
                 .withUsername(user.getUsername())
                 .password(user.getPassword())
-                .roles("USER")
+                .roles(adminUsernames.contains(user.getUsername()) ? new String[]{"USER", "ADMIN"} : new String[]{"USER"})
                 .build();
     }
 }
@@ -0,0 +1,128 @@
+package org.zhzssp.memorandum.service;
+
+import org.zhzssp.memorandum.entity.EnergyLevel;
+import org.zhzssp.memorandum.entity.GoalType;
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.NoteType;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.entity.TimeSlot;
+import org.zhzssp.memorandum.entity.UserPreference;
+import org.zhzssp.memorandum.feature.goal.dto.GoalWithTasks;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 某个用户 Dashboard 所需数据的不可变快照。
+ * 组装时把实体复制为只读的视图记录，缓存中不持有 JPA 实体，多个请求可以安全共享同一份快照。
+ *
+ * @param day          快照对应的日期（跨天后快照失效，今日任务需要重新计算）
+ * @param pendingTasks 所有待办任务（规划模式的数据源）
+ * @param taskToGoals  所有待办任务 → 关联目标（用于展示标签）
+ */
+public record DashboardSnapshot(
+        LocalDate day,
+        Long userId,
+        PreferenceView preference,
+        List<TaskView> allTasks,
+        List<TaskView> pendingTasks,
+        List<TaskView> archivedOrShelved,
+        List<TaskView> todayTasks,
+        List<GoalTasksView> goalTaskTree,
+        List<GoalView> activeGoals,
+        List<TaskView> fuzzyNeedSplit,
+        List<NoteView> notes,
+        Map<Long, List<GoalView>> taskToGoals
+) {
+
+    public DashboardSnapshot {
+        allTasks = List.copyOf(allTasks);
+        pendingTasks = List.copyOf(pendingTasks);
+        archivedOrShelved = List.copyOf(archivedOrShelved);
+        todayTasks = List.copyOf(todayTasks);
+        goalTaskTree = List.copyOf(goalTaskTree);
+        activeGoals = List.copyOf(activeGoals);
+        fuzzyNeedSplit = List.copyOf(fuzzyNeedSplit);
+        notes = List.copyOf(notes);
+        Map<Long, List<GoalView>> labels = new HashMap<>();
+        taskToGoals.forEach((taskId, goals) -> labels.put(taskId, List.copyOf(goals)));
+        taskToGoals = Map.copyOf(labels);
+    }
+
+    /** Dashboard 展示与过滤用到的任务字段 */
+    public record TaskView(
+            Long id,
+            String title,
+            String description,
+            LocalDateTime deadline,
+            TaskStatus status,
+            TaskStatus effectiveStatus,
+            TimeSlot preferredSlot,
+            EnergyLevel energyRequirement,
+            LocalDateTime createdAt
+    ) {
+
+        public static TaskView of(Task t) {
+            return new TaskView(t.getId(), t.getTitle(), t.getDescription(), t.getDeadline(), t.getStatus(),
+                    t.getEffectiveStatus(), t.getPreferredSlot(), t.getEnergyRequirement(), t.getCreatedAt());
+        }
+
+        public static List<TaskView> of(List<Task> tasks) {
+            return tasks.stream().map(TaskView::of).toList();
+        }
+    }
+
+    public record GoalView(Long id, String name, GoalType goalType) {
+
+        public static GoalView of(Goal g) {
+            return new GoalView(g.getId(), g.getName(), g.getGoalType());
+        }
+
+        public static List<GoalView> of(List<Goal> goals) {
+            return goals.stream().map(GoalView::of).toList();
+        }
+    }
+
+    /** 目标树节点：一个目标及其关联的任务 */
+    public record GoalTasksView(GoalView goal, List<TaskView> tasks) {
+
+        public GoalTasksView {
+            tasks = List.copyOf(tasks);
+        }
+
+        public static GoalTasksView of(GoalWithTasks g) {
+            return new GoalTasksView(GoalView.of(g.goal()), TaskView.of(g.tasks()));
+        }
+    }
+
+    public record NoteView(Long id, String title, NoteType type) {
+
+        public static NoteView of(Note n) {
+            return new NoteView(n.getId(), n.getTitle(), n.getType());
+        }
+    }
+
+    /** Dashboard 用到的偏好项 */
+    public record PreferenceView(
+            Boolean showFutureTasks,
+            Integer maxVisibleTasks,
+            Boolean showStatistics,
+            String defaultTaskView,
+            Boolean showGoals,
+            Boolean showArchivedSection,
+            Boolean showScoreSection,
+            String theme
+    ) {
+
+        public static PreferenceView of(UserPreference p) {
+            return new PreferenceView(p.getShowFutureTasks(), p.getMaxVisibleTasks(), p.getShowStatistics(),
+                    p.getDefaultTaskView(), p.getShowGoals(), p.getShowArchivedSection(), p.getShowScoreSection(),
+                    p.getTheme());
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package org.zhzssp.memorandum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.zhzssp.memorandum.core.event.NoteSavedEvent;
+import org.zhzssp.memorandum.core.event.TaskArchivedEvent;
+import org.zhzssp.memorandum.core.event.TaskCompletedEvent;
+import org.zhzssp.memorandum.core.event.TaskCreatedEvent;
+import org.zhzssp.memorandum.core.event.TaskDeletedEvent;
+import org.zhzssp.memorandum.core.event.TaskShelvedEvent;
+import org.zhzssp.memorandum.core.event.TasksArchivedEvent;
+import org.zhzssp.memorandum.core.event.TasksDeletedEvent;
+import org.zhzssp.memorandum.core.event.UserPreferenceChangedEvent;
+import org.zhzssp.memorandum.core.service.TaskService;
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.entity.UserPreference;
+import org.zhzssp.memorandum.feature.goal.dto.GoalWithTasks;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.event.GoalChangedEvent;
+import org.zhzssp.memorandum.feature.goal.service.GoalService;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.repository.UserRepository;
+import org.zhzssp.memorandum.service.DashboardSnapshot.GoalTasksView;
+import org.zhzssp.memorandum.service.DashboardSnapshot.GoalView;
+import org.zhzssp.memorandum.service.DashboardSnapshot.NoteView;
+import org.zhzssp.memorandum.service.DashboardSnapshot.PreferenceView;
+import org.zhzssp.memorandum.service.DashboardSnapshot.TaskView;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Dashboard 快照缓存：按用户缓存 {@link DashboardSnapshot}，命中时不访问数据库。
+ *
+ * 以用户名为键（与 Principal 一致），按容量和写入后存活时间淘汰；
+ * 任务、笔记、目标、偏好的写路径会发布事件，这里监听后使对应用户的快照失效。
+ */
+@Service
+public class DashboardSnapshotService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private UserPreferenceService userPreferenceService;
+
+    @Autowired
+    private GoalService goalService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    /** 最多缓存的用户快照数 */
+    @Value("${dashboard.snapshot.max-size:1000}")
+    private long maxSize;
+
+    /** 快照写入后的存活时间（秒），兜底处理未发布事件的数据变化（如模糊任务天数阈值随时间推移） */
+    @Value("${dashboard.snapshot.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /** 是否在虚拟线程上并发组装快照（未命中缓存时） */
+    @Value("${dashboard.parallel-assembly.enabled:true}")
+    private boolean parallelAssemblyEnabled;
+
+    /** 并发组装的单次请求截止时间（毫秒） */
+    @Value("${dashboard.parallel-assembly.timeout-ms:3000}")
+    private long parallelTimeoutMillis;
+
+    /** 所有并发组装共享的同时执行查询数上限，默认与连接池大小一致，避免未命中高峰时把连接池占满 */
+    @Value("${dashboard.parallel-assembly.max-concurrent-queries:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int maxConcurrentQueries;
+
+    private Cache<String, DashboardSnapshot> cache;
+
+    private Semaphore queryPermits;
+
+    @PostConstruct
+    void initCache() {
+        queryPermits = new Semaphore(maxConcurrentQueries);
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取用户的 Dashboard 快照；未命中或快照已跨天时重新加载。
+     */
+    public DashboardSnapshot getSnapshot(String username) {
+        DashboardSnapshot snapshot = cache.get(username, this::load);
+        if (!snapshot.day().equals(LocalDate.now())) {
+            cache.invalidate(username);
+            snapshot = cache.get(username, this::load);
+        }
+        return snapshot;
+    }
+
+    public void invalidate(User user) {
+        if (user != null && user.getUsername() != null) {
+            cache.invalidate(user.getUsername());
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private DashboardSnapshot load(String username) {
+        User user = userRepository.findByUsername(username).orElseThrow();
+        return parallelAssemblyEnabled ? assembleParallel(user) : assembleSequential(user);
+    }
+
+    /** 顺序加载快照所需的全部数据（关闭并行组装时使用，也作为基准对照） */
+    DashboardSnapshot assembleSequential(User user) {
+        LocalDate day = LocalDate.now();
+        List<Task> allTasks = taskRepository.findByUser(user);
+        UserPreference preference = userPreferenceService.getOrCreatePreference(user);
+        List<GoalWithTasks> goalTaskTree = goalService.findGoalTaskTree(user);
+        List<Task> todayTasks = taskService.getTodayActionableTasks(user);
+        List<Goal> activeGoals = goalService.findActiveGoalsByUser(user);
+        List<Note> notes = noteRepository.findByUser(user);
+        List<Task> fuzzyNeedSplit = loadFuzzyNeedSplit(user, preference);
+        Map<Long, List<Goal>> taskToGoals = loadGoalLabels(user, allTasks);
+        return toSnapshot(day, user, preference, allTasks, todayTasks, goalTaskTree, activeGoals,
+                fuzzyNeedSplit, notes, taskToGoals);
+    }
+
+    /**
+     * 在虚拟线程上并发加载互相独立的数据，页面耗时趋近于最慢的单个查询。
+     * 依赖前序结果的加载（模糊任务依赖偏好、目标标签依赖任务列表）在子任务内等待前序结果。
+     * 所有子任务共享同一截止时间；任一子任务失败或超时，其余子任务会被中断取消，异常向上抛出。
+     * 每个查询执行前先取得全局许可（{@link #maxConcurrentQueries}），等待依赖结果时不占用许可。
+     */
+    DashboardSnapshot assembleParallel(User user) {
+        LocalDate day = LocalDate.now();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parallelTimeoutMillis);
+        ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor();
+        boolean completed = false;
+        try {
+            Future<List<Task>> allTasksF = scope.submit(
+                    () -> withPermit(deadline, () -> taskRepository.findByUser(user)));
+            Future<UserPreference> preferenceF = scope.submit(
+                    () -> withPermit(deadline, () -> userPreferenceService.getOrCreatePreference(user)));
+            Future<List<GoalWithTasks>> goalTaskTreeF = scope.submit(
+                    () -> withPermit(deadline, () -> goalService.findGoalTaskTree(user)));
+            Future<List<Task>> todayTasksF = scope.submit(
+                    () -> withPermit(deadline, () -> taskService.getTodayActionableTasks(user)));
+            Future<List<Goal>> activeGoalsF = scope.submit(
+                    () -> withPermit(deadline, () -> goalService.findActiveGoalsByUser(user)));
+            Future<List<Note>> notesF = scope.submit(
+                    () -> withPermit(deadline, () -> noteRepository.findByUser(user)));
+            Future<List<Task>> fuzzyNeedSplitF = scope.submit(() -> {
+                UserPreference preference = await(preferenceF, deadline);
+                return withPermit(deadline, () -> loadFuzzyNeedSplit(user, preference));
+            });
+            Future<Map<Long, List<Goal>>> taskToGoalsF = scope.submit(() -> {
+                List<Task> allTasks = await(allTasksF, deadline);
+                return withPermit(deadline, () -> loadGoalLabels(user, allTasks));
+            });
+
+            DashboardSnapshot snapshot = toSnapshot(day, user,
+                    await(preferenceF, deadline),
+                    await(allTasksF, deadline),
+                    await(todayTasksF, deadline),
+                    await(goalTaskTreeF, deadline),
+                    await(activeGoalsF, deadline),
+                    await(fuzzyNeedSplitF, deadline),
+                    await(notesF, deadline),
+                    await(taskToGoalsF, deadline));
+            completed = true;
+            return snapshot;
+        } finally {
+            if (completed) {
+                scope.shutdown();
+            } else {
+                // 结构化取消：父任务失败时中断所有仍在运行的子任务，不等待其结束
+                scope.shutdownNow();
+            }
+        }
+    }
+
+    /** 在截止时间前取得查询许可后执行查询；截止时间前拿不到许可按超时处理 */
+    private <T> T withPermit(long deadlineNanos, Callable<T> query) throws Exception {
+        long remaining = Math.max(0L, deadlineNanos - System.nanoTime());
+        if (!queryPermits.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+            throw new IllegalStateException("Dashboard 数据加载超时：等待查询许可");
+        }
+        try {
+            return query.call();
+        } finally {
+            queryPermits.release();
+        }
+    }
+
+    /** 在截止时间前等待子任务结果；超时、失败或被中断都转换为非受检异常 */
+    private static <T> T await(Future<T> future, long deadlineNanos) {
+        long remaining = Math.max(0L, deadlineNanos - System.nanoTime());
+        try {
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IllegalStateException("Dashboard 数据加载超时", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Dashboard 数据加载失败", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dashboard 数据加载被中断", e);
+        }
+    }
+
+    /** 实体复制为视图记录后组成快照，缓存中不保留实体引用 */
+    private DashboardSnapshot toSnapshot(LocalDate day, User user, UserPreference preference,
+                                         List<Task> allTasks, List<Task> todayTasks,
+                                         List<GoalWithTasks> goalTaskTree, List<Goal> activeGoals,
+                                         List<Task> fuzzyNeedSplit, List<Note> notes,
+                                         Map<Long, List<Goal>> taskToGoals) {
+        List<TaskView> allViews = TaskView.of(allTasks);
+        List<TaskView> pendingTasks = allViews.stream()
+                .filter(t -> t.effectiveStatus() == TaskStatus.PENDING)
+                .toList();
+        List<TaskView> archivedOrShelved = allViews.stream()
+                .filter(t -> t.effectiveStatus() != TaskStatus.PENDING)
+                .toList();
+        Map<Long, List<GoalView>> labels = new HashMap<>();
+        taskToGoals.forEach((taskId, goals) -> labels.put(taskId, GoalView.of(goals)));
+        return new DashboardSnapshot(day, user.getId(), PreferenceView.of(preference), allViews, pendingTasks,
+                archivedOrShelved, TaskView.of(todayTasks),
+                goalTaskTree.stream().map(GoalTasksView::of).toList(),
+                GoalView.of(activeGoals), TaskView.of(fuzzyNeedSplit),
+                notes.stream().map(NoteView::of).toList(), labels);
+    }
+
+    /** 各视图展示的任务都是待办任务的子集，一次性解析全部待办任务的目标标签 */
+    private Map<Long, List<Goal>> loadGoalLabels(User user, List<Task> allTasks) {
+        List<Long> pendingIds = allTasks.stream()
+                .filter(t -> t.getEffectiveStatus() == TaskStatus.PENDING)
+                .map(Task::getId)
+                .toList();
+        return goalService.findGoalsByTaskIds(pendingIds, user);
+    }
+
+    /** 模糊任务 N 天存在提示（偏好关闭或阈值为 0 时为空） */
+    private List<Task> loadFuzzyNeedSplit(User user, UserPreference preference) {
+        if (preference.getShowFuzzyHint() == Boolean.FALSE) {
+            return List.of();
+        }
+        int fuzzyDays = preference.getFuzzyTaskDaysThreshold() != null && preference.getFuzzyTaskDaysThreshold() >= 0
+                ? preference.getFuzzyTaskDaysThreshold() : 5;
+        return fuzzyDays > 0 ? taskService.findFuzzyTasksNeedingSplit(user, fuzzyDays) : List.of();
+    }
+
+    @EventListener
+    public void onTaskCreated(TaskCreatedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTaskCompleted(TaskCompletedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTaskArchived(TaskArchivedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTaskShelved(TaskShelvedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTaskDeleted(TaskDeletedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTasksArchived(TasksArchivedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onTasksDeleted(TasksDeletedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onNoteSaved(NoteSavedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onPreferenceChanged(UserPreferenceChangedEvent event) {
+        invalidate(event.getUser());
+    }
+
+    @EventListener
+    public void onGoalChanged(GoalChangedEvent event) {
+        invalidate(event.getUser());
+    }
+}
@@ -0,0 +1,356 @@
+package org.zhzssp.memorandum.service;
+
+import org.zhzssp.memorandum.entity.Link;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单个用户的 Link 关系图（内存缓存，见 {@link LinkGraphService}）。
+ *
+ * 节点是 (类型, ID)，编码成一个 long：高 2 位为 {@link Link.LinkTargetType} 的序号，低 62 位为 ID；
+ * 正向邻接（源 → 目标）与反向邻接（目标 → 源）各一张开放寻址哈希表，键和邻接表都是 long 数组，
+ * 不产生装箱的 Long 与 Set 节点。同一对节点的重复链接只保留一条边。
+ *
+ * 读写通过读写锁保护，可并发查询；查询返回邻接表的副本。
+ */
+public final class LinkGraph {
+
+    private static final long[] NONE = new long[0];
+    private static final int TYPE_SHIFT = 62;
+    private static final long ID_MASK = (1L << TYPE_SHIFT) - 1;
+    private static final Link.LinkTargetType[] TYPES = Link.LinkTargetType.values();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongAdjacency forward = new LongAdjacency();
+    private final LongAdjacency reverse = new LongAdjacency();
+
+    /** 节点编码；ID 须为正数 */
+    public static long node(Link.LinkTargetType type, long id) {
+        return ((long) type.ordinal() << TYPE_SHIFT) | (id & ID_MASK);
+    }
+
+    public static long node(Link.LinkSourceType type, long id) {
+        return node(Link.LinkTargetType.valueOf(type.name()), id);
+    }
+
+    public static Link.LinkTargetType typeOf(long node) {
+        return TYPES[(int) (node >>> TYPE_SHIFT)];
+    }
+
+    public static long idOf(long node) {
+        return node & ID_MASK;
+    }
+
+    /** 加入一条边；已存在时忽略，返回是否新增 */
+    public boolean addEdge(long source, long target) {
+        lock.writeLock().lock();
+        try {
+            if (!forward.add(source, target, true)) {
+                return false;
+            }
+            reverse.add(target, source, false);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量加入边（首次构建时使用）：先追加不去重，最后统一排序去重，避免大度数节点逐条查重。
+     * sources / targets 按下标一一对应。
+     */
+    public void addEdges(long[] sources, long[] targets, int count) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                forward.add(sources[i], targets[i], false);
+                reverse.add(targets[i], sources[i], false);
+            }
+            forward.dedupe();
+            reverse.dedupe();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean removeEdge(long source, long target) {
+        lock.writeLock().lock();
+        try {
+            if (!forward.remove(source, target)) {
+                return false;
+            }
+            reverse.remove(target, source);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 删除节点及其全部出边与入边（节点被删除时使用） */
+    public void removeNode(long node) {
+        lock.writeLock().lock();
+        try {
+            for (long target : forward.removeKey(node)) {
+                reverse.remove(target, node);
+            }
+            for (long source : reverse.removeKey(node)) {
+                forward.remove(source, node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 节点指向的全部目标节点 */
+    public long[] targets(long source) {
+        lock.readLock().lock();
+        try {
+            return forward.get(source);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** 指向节点的全部源节点 */
+    public long[] sources(long target) {
+        lock.readLock().lock();
+        try {
+            return reverse.get(target);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** 节点指向的、指定类型的目标 ID */
+    public long[] targetIds(long source, Link.LinkTargetType targetType) {
+        return idsOfType(targets(source), targetType);
+    }
+
+    /** 指向节点的、指定类型的源 ID */
+    public long[] sourceIds(long target, Link.LinkTargetType sourceType) {
+        return idsOfType(sources(target), sourceType);
+    }
+
+    /** 按源节点遍历全部边（持有读锁，回调中不能修改本图） */
+    public void forEachEdge(EdgeConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            forward.forEach(consumer);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long edgeCount() {
+        lock.readLock().lock();
+        try {
+            return forward.values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 估算占用的堆内存（字节）：两张哈希表的键数组、邻接表引用与长度数组，以及每个邻接表数组
+     * （按 64 位 JVM、压缩指针、16 字节数组头估算）。
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return forward.estimatedBytes() + reverse.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @FunctionalInterface
+    public interface EdgeConsumer {
+        void accept(long source, long target);
+    }
+
+    private static long[] idsOfType(long[] nodes, Link.LinkTargetType type) {
+        long[] ids = new long[nodes.length];
+        int n = 0;
+        for (long node : nodes) {
+            if (typeOf(node) == type) {
+                ids[n++] = idOf(node);
+            }
+        }
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    /**
+     * long → long[] 的开放寻址哈希表（线性探测，负载因子 0.5），邻接表按需倍增。
+     * 键 0 表示空槽：节点编码中 ID 为正数，编码值不会为 0。
+     */
+    private static final class LongAdjacency {
+        private static final long EMPTY = 0L;
+
+        private long[] keys = new long[16];
+        private long[][] lists = new long[16][];
+        private int[] sizes = new int[16];
+        private int keyCount;
+        private long values;
+
+        boolean add(long key, long value, boolean checkDuplicate) {
+            int slot = slotOf(key);
+            if (keys[slot] == EMPTY) {
+                if ((keyCount + 1) * 2 > keys.length) {
+                    rehash(keys.length * 2);
+                    slot = slotOf(key);
+                }
+                keys[slot] = key;
+                lists[slot] = new long[2];
+                keyCount++;
+            } else if (checkDuplicate && indexOf(slot, value) >= 0) {
+                return false;
+            }
+            long[] list = lists[slot];
+            if (sizes[slot] == list.length) {
+                list = lists[slot] = Arrays.copyOf(list, list.length * 2);
+            }
+            list[sizes[slot]++] = value;
+            values++;
+            return true;
+        }
+
+        boolean remove(long key, long value) {
+            int slot = slotOf(key);
+            if (keys[slot] == EMPTY) {
+                return false;
+            }
+            int i = indexOf(slot, value);
+            if (i < 0) {
+                return false;
+            }
+            long[] list = lists[slot];
+            list[i] = list[--sizes[slot]];
+            values--;
+            if (sizes[slot] == 0) {
+                deleteSlot(slot);
+            } else if (sizes[slot] * 4 < list.length && list.length > 8) {
+                lists[slot] = Arrays.copyOf(list, list.length / 2);
+            }
+            return true;
+        }
+
+        long[] removeKey(long key) {
+            int slot = slotOf(key);
+            if (keys[slot] == EMPTY) {
+                return NONE;
+            }
+            long[] removed = Arrays.copyOf(lists[slot], sizes[slot]);
+            values -= sizes[slot];
+            deleteSlot(slot);
+            return removed;
+        }
+
+        long[] get(long key) {
+            int slot = slotOf(key);
+            return keys[slot] == EMPTY ? NONE : Arrays.copyOf(lists[slot], sizes[slot]);
+        }
+
+        void forEach(EdgeConsumer consumer) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] == EMPTY) continue;
+                long[] list = lists[slot];
+                for (int i = 0; i < sizes[slot]; i++) {
+                    consumer.accept(keys[slot], list[i]);
+                }
+            }
+        }
+
+        /** 每个邻接表排序去重并收紧容量 */
+        void dedupe() {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] == EMPTY) continue;
+                long[] list = lists[slot];
+                int size = sizes[slot];
+                Arrays.sort(list, 0, size);
+                int distinct = 0;
+                for (int i = 0; i < size; i++) {
+                    if (distinct == 0 || list[i] != list[distinct - 1]) {
+                        list[distinct++] = list[i];
+                    }
+                }
+                values -= size - distinct;
+                sizes[slot] = distinct;
+                lists[slot] = Arrays.copyOf(list, Math.max(distinct, 2));
+            }
+        }
+
+        long estimatedBytes() {
+            long bytes = 16 + 8L * keys.length + 16 + 4L * lists.length + 16 + 4L * sizes.length;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (lists[slot] != null) {
+                    bytes += 16 + 8L * lists[slot].length;
+                }
+            }
+            return bytes;
+        }
+
+        private int indexOf(int slot, long value) {
+            long[] list = lists[slot];
+            for (int i = 0; i < sizes[slot]; i++) {
+                if (list[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /** 键所在的槽，或应插入的空槽 */
+        private int slotOf(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /** 线性探测下的删除：把后续同簇的键前移，保持探测链连续 */
+        private void deleteSlot(int slot) {
+            int mask = keys.length - 1;
+            keyCount--;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = mix(keys[next]) & mask;
+                // home 不在 (hole, next] 区间内时，该键可以移到 hole
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    lists[hole] = lists[next];
+                    sizes[hole] = sizes[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = EMPTY;
+            lists[hole] = null;
+            sizes[hole] = 0;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            long[][] oldLists = lists;
+            int[] oldSizes = sizes;
+            keys = new long[capacity];
+            lists = new long[capacity][];
+            sizes = new int[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) continue;
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                lists[slot] = oldLists[i];
+                sizes[slot] = oldSizes[i];
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
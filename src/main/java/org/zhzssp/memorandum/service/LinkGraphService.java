@@ -0,0 +1,158 @@
+package org.zhzssp.memorandum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.zhzssp.memorandum.core.event.TaskDeletedEvent;
+import org.zhzssp.memorandum.core.event.TasksDeletedEvent;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.repository.LinkRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 按用户缓存的 Link 关系图（见 {@link LinkGraph}）。
+ *
+ * 首次使用时一次查询取出该用户任务与笔记发出的全部链接并构建，之后由链接的写入路径
+ * （GoalService 绑定/删除目标）和任务删除事件增量维护；尚未构建的用户忽略更新，下次使用时按最新数据构建。
+ * 图以软引用缓存，内存紧张时由 GC 回收，另按用户数上限淘汰。
+ */
+@Service
+public class LinkGraphService {
+
+    private static final Logger log = LoggerFactory.getLogger(LinkGraphService.class);
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    /** 最多常驻内存的用户关系图数，超出后按最近最少使用淘汰 */
+    @Value("${link.graph.max-users:1000}")
+    private long maxUsers;
+
+    private Cache<Long, LinkGraph> graphs;
+
+    @PostConstruct
+    void initCache() {
+        graphs = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .softValues()
+                .recordStats()
+                .build();
+    }
+
+    /** 用户的关系图（懒加载） */
+    public LinkGraph graphFor(User user) {
+        return graphs.get(user.getId(), id -> load(user));
+    }
+
+    /**
+     * 用户某类源对象指向某类目标的全部链接，按图中的边构造（不查询数据库，实体未持久化、没有 ID）。
+     * 供按 List&lt;Link&gt; 计算的调用方使用，如评分输入。
+     */
+    public List<Link> links(User user, Link.LinkSourceType sourceType, Link.LinkTargetType targetType) {
+        Link.LinkTargetType sourceNodeType = Link.LinkTargetType.valueOf(sourceType.name());
+        List<Link> links = new ArrayList<>();
+        graphFor(user).forEachEdge((source, target) -> {
+            if (LinkGraph.typeOf(source) == sourceNodeType && LinkGraph.typeOf(target) == targetType) {
+                Link l = new Link();
+                l.setSourceType(sourceType);
+                l.setSourceId(LinkGraph.idOf(source));
+                l.setTargetType(targetType);
+                l.setTargetId(LinkGraph.idOf(target));
+                links.add(l);
+            }
+        });
+        return links;
+    }
+
+    /** 链接已写入数据库后同步到图 */
+    public void onLinksAdded(User user, Link.LinkSourceType sourceType, Long sourceId,
+                             Link.LinkTargetType targetType, Collection<Long> targetIds) {
+        long source = LinkGraph.node(sourceType, sourceId);
+        update(user, graph -> targetIds.forEach(id -> graph.addEdge(source, LinkGraph.node(targetType, id))));
+    }
+
+    /** 链接已从数据库删除后同步到图 */
+    public void onLinksRemoved(User user, Link.LinkSourceType sourceType, Long sourceId,
+                               Link.LinkTargetType targetType, Collection<Long> targetIds) {
+        long source = LinkGraph.node(sourceType, sourceId);
+        update(user, graph -> targetIds.forEach(id -> graph.removeEdge(source, LinkGraph.node(targetType, id))));
+    }
+
+    /** 对象被删除：从图中去掉该节点的全部边 */
+    public void onNodeRemoved(User user, Link.LinkTargetType type, Long id) {
+        update(user, graph -> graph.removeNode(LinkGraph.node(type, id)));
+    }
+
+    @EventListener
+    public void onTaskDeleted(TaskDeletedEvent event) {
+        if (event.getTask() != null && event.getTask().getId() != null) {
+            onNodeRemoved(event.getUser(), Link.LinkTargetType.TASK, event.getTask().getId());
+        }
+    }
+
+    @EventListener
+    public void onTasksDeleted(TasksDeletedEvent event) {
+        update(event.getUser(), graph -> event.getTaskIds()
+                .forEach(id -> graph.removeNode(LinkGraph.node(Link.LinkTargetType.TASK, id))));
+    }
+
+    public CacheStats stats() {
+        return graphs.stats();
+    }
+
+    public long size() {
+        return graphs.estimatedSize();
+    }
+
+    /** 当前缓存的全部关系图的边数 */
+    public long edgeCount() {
+        return graphs.asMap().values().stream().mapToLong(LinkGraph::edgeCount).sum();
+    }
+
+    /** 当前缓存的全部关系图估算占用的堆内存（字节） */
+    public long estimatedBytes() {
+        return graphs.asMap().values().stream().mapToLong(LinkGraph::estimatedBytes).sum();
+    }
+
+    private LinkGraph load(User user) {
+        List<Link> links = linkRepository.findAllByUser(user);
+        long[] sources = new long[links.size()];
+        long[] targets = new long[links.size()];
+        int n = 0;
+        for (Link l : links) {
+            if (l.getSourceId() == null || l.getTargetId() == null) continue;
+            sources[n] = LinkGraph.node(l.getSourceType(), l.getSourceId());
+            targets[n] = LinkGraph.node(l.getTargetType(), l.getTargetId());
+            n++;
+        }
+        LinkGraph graph = new LinkGraph();
+        graph.addEdges(sources, targets, n);
+        long edges = graph.edgeCount();
+        log.debug("link graph loaded: user={}, edges={}, bytes={}, bytesPerEdge={}", user.getId(), edges,
+                graph.estimatedBytes(), edges == 0 ? 0 : graph.estimatedBytes() / edges);
+        return graph;
+    }
+
+    /** 只更新已构建的图；构建过程中到达的更新会等待构建完成后再应用 */
+    private void update(User user, Consumer<LinkGraph> change) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        graphs.asMap().computeIfPresent(user.getId(), (id, graph) -> {
+            change.accept(graph);
+            return graph;
+        });
+    }
+}
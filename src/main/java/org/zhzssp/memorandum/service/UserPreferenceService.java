@@ -1,14 +1,18 @@
 package org.zhzssp.memorandum.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.zhzssp.memorandum.core.event.UserPreferenceChangedEvent;
 import org.zhzssp.memorandum.entity.Task;
 import org.zhzssp.memorandum.entity.User;
 import org.zhzssp.memorandum.entity.UserPreference;
 import org.zhzssp.memorandum.repository.UserPreferenceRepository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -20,6 +24,9 @@ public class UserPreferenceService {
     @Autowired
     private UserPreferenceRepository preferenceRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public UserPreference getOrCreatePreference(User user) {
         return preferenceRepository.findByUser(user)
                 .orElseGet(() -> {
@@ -31,30 +38,63 @@ public class UserPreferenceService {
                 });
     }
 
+    /**
+     * 保存偏好并发布变更事件。
+     */
     public UserPreference savePreference(UserPreference preference) {
-        return preferenceRepository.save(preference);
+        UserPreference saved = preferenceRepository.save(preference);
+        eventPublisher.publishEvent(new UserPreferenceChangedEvent(saved, saved.getUser()));
+        return saved;
     }
 
     /**
      * 根据用户偏好过滤任务列表。
      */
     public List<Task> applyTaskFilters(List<Task> tasks, User user) {
-        UserPreference pref = getOrCreatePreference(user);
+        return applyTaskFilters(tasks, getOrCreatePreference(user));
+    }
+
+    /**
+     * 根据已加载的偏好过滤任务列表（不访问数据库）。
+     */
+    public List<Task> applyTaskFilters(List<Task> tasks, UserPreference pref) {
+        return applyTaskFilters(tasks, pref, LocalDate.now());
+    }
+
+    /**
+     * 同上，以指定日期作为「今天」区分未来任务（基准测试用固定日期保证可复现）。
+     */
+    public List<Task> applyTaskFilters(List<Task> tasks, UserPreference pref, LocalDate today) {
+        return filter(tasks, pref.getShowFutureTasks(), pref.getMaxVisibleTasks(), Task::getDeadline, today);
+    }
+
+    /**
+     * 按 Dashboard 快照中的偏好过滤快照任务，规则同上。
+     */
+    public List<DashboardSnapshot.TaskView> applyTaskFilters(List<DashboardSnapshot.TaskView> tasks,
+                                                             DashboardSnapshot.PreferenceView pref) {
+        return filter(tasks, pref.showFutureTasks(), pref.maxVisibleTasks(), DashboardSnapshot.TaskView::deadline,
+                LocalDate.now());
+    }
 
-        List<Task> filtered = tasks;
+    private static <T> List<T> filter(List<T> tasks, Boolean showFutureTasks, Integer maxVisibleTasks,
+                                      Function<T, LocalDateTime> deadlineOf, LocalDate today) {
+        List<T> filtered = tasks;
 
         // 是否显示未来任务
-        if (!pref.getShowFutureTasks()) {
-            LocalDate today = LocalDate.now();
+        if (!showFutureTasks) {
             filtered = filtered.stream()
-                    .filter(t -> t.getDeadline() == null || t.getDeadline().toLocalDate().isEqual(today) || t.getDeadline().toLocalDate().isBefore(today))
+                    .filter(t -> {
+                        LocalDateTime deadline = deadlineOf.apply(t);
+                        return deadline == null || deadline.toLocalDate().isEqual(today) || deadline.toLocalDate().isBefore(today);
+                    })
                     .collect(Collectors.toList());
         }
 
         // 限制每屏显示数量
-        if (pref.getMaxVisibleTasks() != null && pref.getMaxVisibleTasks() > 0) {
+        if (maxVisibleTasks != null && maxVisibleTasks > 0) {
             filtered = filtered.stream()
-                    .limit(pref.getMaxVisibleTasks())
+                    .limit(maxVisibleTasks)
                     .collect(Collectors.toList());
         }
 
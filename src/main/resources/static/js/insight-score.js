@@ -6,6 +6,7 @@ document.addEventListener('DOMContentLoaded', function () {
 
     const startInput = document.getElementById('scoreStart');
     const endInput = document.getElementById('scoreEnd');
+    const granularitySelect = document.getElementById('scoreGranularity');
     const refreshBtn = document.getElementById('scoreRefreshBtn');
     const summaryBtn = document.getElementById('scoreSummaryBtn');
     const summaryBox = document.getElementById('scoreSummary');
@@ -38,80 +39,231 @@ document.addEventListener('DOMContentLoaded', function () {
         return input ? input.value : null;
     }
 
+    const CHART_LABELS = { day: '每日规划得分', week: '每周平均得分', month: '每月平均得分' };
+
+    function createChart(label) {
+        if (scoreChart) {
+            scoreChart.destroy();
+        }
+        scoreChart = new Chart(chartCanvas.getContext('2d'), {
+            type: 'line',
+            data: {
+                labels: [],
+                datasets: [{
+                    label: label,
+                    data: [],
+                    fill: false,
+                    borderColor: '#4a90e2',
+                    tension: 0.2,
+                    pointRadius: 3
+                }]
+            },
+            options: {
+                responsive: true,
+                animation: false,
+                scales: {
+                    y: {
+                        beginAtZero: true,
+                        max: 100
+                    }
+                }
+            }
+        });
+        return scoreChart;
+    }
+
+    // 每次加载递增，旧请求的数据到达时直接丢弃
+    let loadSeq = 0;
+    let loadController = null;
+
     function loadScores() {
         const startVal = startInput.value;
         const endVal = endInput.value;
         if (!startVal || !endVal) return;
 
         const csrfToken = getCsrfToken();
+        const seq = ++loadSeq;
+        if (loadController) {
+            loadController.abort();
+        }
+        loadController = typeof AbortController !== 'undefined' ? new AbortController() : null;
+
+        const granularity = granularitySelect ? granularitySelect.value : 'day';
+        const chart = createChart(CHART_LABELS[granularity] || CHART_LABELS.day);
+        let pendingFrame = false;
+
+        // 数据逐行到达时只做追加，合并到下一帧统一重绘
+        function appendScore(d) {
+            if (seq !== loadSeq) return;
+            chart.data.labels.push(d.date);
+            chart.data.datasets[0].data.push(d.totalScore);
+            if (!pendingFrame) {
+                pendingFrame = true;
+                requestAnimationFrame(() => {
+                    pendingFrame = false;
+                    if (seq === loadSeq) chart.update('none');
+                });
+            }
+        }
+
+        if (granularity !== 'day') {
+            // 周/月粒度由预聚合按桶返回，数据量小，整体加载
+            fetch(`/insight/score?start=${startVal}&end=${endVal}&granularity=${granularity}`, {
+                method: 'GET',
+                headers: csrfToken ? { 'X-CSRF-TOKEN': csrfToken } : {},
+                signal: loadController ? loadController.signal : undefined
+            })
+                .then(resp => resp.ok ? resp.json() : Promise.reject(new Error(resp.statusText)))
+                .then(data => {
+                    data.forEach(appendScore);
+                    if (seq === loadSeq) chart.update('none');
+                })
+                .catch(err => {
+                    if (err && err.name === 'AbortError') return;
+                    console.error('加载得分数据失败', err);
+                });
+            return;
+        }
 
-        fetch(`/insight/score?start=${startVal}&end=${endVal}`, {
+        fetch(`/insight/score/stream?start=${startVal}&end=${endVal}`, {
             method: 'GET',
-            headers: csrfToken ? { 'X-CSRF-TOKEN': csrfToken } : {}
+            headers: Object.assign({ 'Accept': 'application/x-ndjson' },
+                csrfToken ? { 'X-CSRF-TOKEN': csrfToken } : {}),
+            signal: loadController ? loadController.signal : undefined
         })
-            .then(resp => resp.ok ? resp.json() : Promise.reject(new Error(resp.statusText)))
-            .then(data => {
-                const labels = data.map(d => d.date);
-                const scores = data.map(d => d.totalScore);
-
-                if (scoreChart) {
-                    scoreChart.destroy();
+            .then(resp => {
+                if (!resp.ok) return Promise.reject(new Error(resp.statusText));
+                if (!resp.body || !resp.body.getReader || typeof TextDecoder === 'undefined') {
+                    // 浏览器不支持流式读取：整体读取后逐行解析
+                    return resp.text().then(text => text.split('\n').forEach(line => {
+                        if (line.trim()) appendScore(JSON.parse(line));
+                    }));
                 }
+                const reader = resp.body.getReader();
+                const decoder = new TextDecoder();
+                let buffer = '';
 
-                scoreChart = new Chart(chartCanvas.getContext('2d'), {
-                    type: 'line',
-                    data: {
-                        labels: labels,
-                        datasets: [{
-                            label: '每日规划得分',
-                            data: scores,
-                            fill: false,
-                            borderColor: '#4a90e2',
-                            tension: 0.2,
-                            pointRadius: 3
-                        }]
-                    },
-                    options: {
-                        responsive: true,
-                        scales: {
-                            y: {
-                                beginAtZero: true,
-                                max: 100
+                // 按需拉取：上一段解析、入图之后才读取下一段，服务端写出随之节流
+                function pump() {
+                    return reader.read().then(({ done, value }) => {
+                        if (seq !== loadSeq) {
+                            reader.cancel();
+                            return;
+                        }
+                        if (value) {
+                            buffer += decoder.decode(value, { stream: true });
+                            let idx;
+                            while ((idx = buffer.indexOf('\n')) >= 0) {
+                                const line = buffer.slice(0, idx).trim();
+                                buffer = buffer.slice(idx + 1);
+                                if (line) appendScore(JSON.parse(line));
                             }
                         }
-                    }
-                });
+                        if (done) {
+                            const rest = (buffer + decoder.decode()).trim();
+                            if (rest) appendScore(JSON.parse(rest));
+                            return;
+                        }
+                        return pump();
+                    });
+                }
+                return pump();
+            })
+            .then(() => {
+                if (seq === loadSeq) chart.update('none');
             })
             .catch(err => {
+                if (err && err.name === 'AbortError') return;
                 console.error('加载得分数据失败', err);
             });
     }
 
+    let summarySource = null;
+
+    function closeSummarySource() {
+        if (summarySource) {
+            summarySource.close();
+            summarySource = null;
+        }
+    }
+
+    // 不支持 EventSource 的浏览器：同步等待完整总结
+    function loadSummaryBlocking(startVal, endVal, csrfToken) {
+        fetch(`/insight/score/summary?start=${startVal}&end=${endVal}`, {
+            method: 'GET',
+            headers: csrfToken ? { 'X-CSRF-TOKEN': csrfToken } : {}
+        })
+            .then(resp => resp.ok ? resp.json() : Promise.reject(new Error(resp.statusText)))
+            .then(data => {
+                if (summaryBox) {
+                    summaryBox.textContent = data && data.summary
+                        ? data.summary
+                        : '没有获得有效的 AI 总结。';
+                }
+            })
+            .catch(err => {
+                console.error('加载 AI 总结失败', err);
+                if (summaryBox) {
+                    summaryBox.textContent = 'AI 总结暂时不可用，请稍后重试。';
+                }
+            });
+    }
+
     function loadSummary() {
         const startVal = startInput.value;
         const endVal = endInput.value;
         if (!startVal || !endVal) return;
 
         const csrfToken = getCsrfToken();
+        closeSummarySource();
 
         if (summaryBox) {
             summaryBox.textContent = 'AI 正在分析这一段时间的规划完成情况...';
         }
 
-        fetch(`/insight/score/summary?start=${startVal}&end=${endVal}`, {
-            method: 'GET',
+        if (typeof EventSource === 'undefined') {
+            loadSummaryBlocking(startVal, endVal, csrfToken);
+            return;
+        }
+
+        // 先创建任务并立即展示本地规则总结，AI 文本随后通过 SSE 逐段替换
+        fetch(`/insight/score/summary/jobs?start=${startVal}&end=${endVal}`, {
+            method: 'POST',
             headers: csrfToken ? { 'X-CSRF-TOKEN': csrfToken } : {}
         })
             .then(resp => resp.ok ? resp.json() : Promise.reject(new Error(resp.statusText)))
-            .then(data => {
+            .then(job => {
+                const fallbackText = job.fallback + '\n\nAI 正在生成更详细的总结...';
                 if (summaryBox) {
-                    summaryBox.textContent = data && data.summary
-                        ? data.summary
-                        : '没有获得有效的 AI 总结。';
+                    summaryBox.textContent = fallbackText;
                 }
+                let aiText = '';
+                let finished = false;
+                const source = new EventSource(`/insight/score/summary/jobs/${job.jobId}/stream`);
+                summarySource = source;
+
+                source.addEventListener('delta', e => {
+                    if (source !== summarySource) return;
+                    aiText += JSON.parse(e.data).text;
+                    if (summaryBox) summaryBox.textContent = aiText;
+                });
+                source.addEventListener('done', e => {
+                    finished = true;
+                    closeSummarySource();
+                    const data = JSON.parse(e.data);
+                    if (summaryBox) summaryBox.textContent = data.text;
+                });
+                source.onerror = () => {
+                    if (finished || source !== summarySource) return;
+                    // 任务已过期或连接中断：保留已展示的内容，不自动重连
+                    closeSummarySource();
+                    if (summaryBox && !aiText) {
+                        summaryBox.textContent = job.fallback + '\n\n（提示：AI 总结连接中断，本摘要由本地规则生成。）';
+                    }
+                };
             })
             .catch(err => {
-                console.error('加载 AI 总结失败', err);
+                console.error('创建 AI 总结任务失败', err);
                 if (summaryBox) {
                     summaryBox.textContent = 'AI 总结暂时不可用，请稍后重试。';
                 }
@@ -124,6 +276,12 @@ document.addEventListener('DOMContentLoaded', function () {
         });
     }
 
+    if (granularitySelect) {
+        granularitySelect.addEventListener('change', function () {
+            loadScores();
+        });
+    }
+
     if (summaryBtn) {
         summaryBtn.addEventListener('click', function () {
             loadSummary();
@@ -0,0 +1,186 @@
+package org.zhzssp.memorandum.config;
+
+import jakarta.persistence.EntityManager;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.TaskGranularity;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.repository.LinkRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 通过 EXPLAIN 检查热点查询命中预期的索引（依赖 V4 / V8 迁移脚本）。
+ * JPA 查询取 Hibernate 实际生成的 SQL（StatementInspector 截获），TaskMapper 查询取 MyBatis 生成的 SQL，
+ * 再按调用时的参数顺序执行 EXPLAIN。需要可用的 MySQL，默认不随 test 运行：./gradlew benchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class SchemaIndexExplainTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SqlCapture sqlCapture;
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sqlCaptureInspector(SqlCapture sqlCapture) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlCapture);
+        }
+    }
+
+    /** 记录 Hibernate 发出的 SQL */
+    static class SqlCapture implements StatementInspector {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        /** 执行查询并返回它发出的第一条 SQL（后续可能是关联实体的加载） */
+        String firstStatementOf(Runnable query) {
+            statements.clear();
+            query.run();
+            assertFalse(statements.isEmpty(), "查询未发出 SQL");
+            return statements.get(0);
+        }
+    }
+
+    @Test
+    void taskRepositoryQueriesUseIndex() {
+        User user = entityManager.getReference(User.class, 1L);
+        LocalDateTime dayStart = LocalDate.now().atStartOfDay();
+
+        // 只按用户过滤：任何以 user_id 开头的索引都可以
+        assertUsesIndex(leadingIndexes("memo", "user_id"),
+                sqlCapture.firstStatementOf(() -> taskRepository.findByUser(user)), 1L);
+        assertUsesIndex(Set.of("idx_memo_user_status_deadline"),
+                sqlCapture.firstStatementOf(() -> taskRepository.findTodayActionable(user, dayStart, dayStart.plusDays(1))),
+                1L, dayStart, dayStart.plusDays(1));
+        assertUsesIndex(Set.of("idx_memo_user_deadline"),
+                sqlCapture.firstStatementOf(() -> taskRepository
+                        .findByUserAndDeadlineGreaterThanEqualAndDeadlineLessThanOrderByIdAsc(user, dayStart, dayStart.plusDays(1))),
+                1L, dayStart, dayStart.plusDays(1));
+        assertUsesIndex(Set.of("idx_memo_user_granularity_status_created"),
+                sqlCapture.firstStatementOf(() -> taskRepository.findByUserAndGranularityAndStatusAndCreatedAtBefore(
+                        user, TaskGranularity.FUZZY, TaskStatus.PENDING, dayStart)),
+                1L, TaskGranularity.FUZZY.name(), TaskStatus.PENDING.name(), dayStart);
+    }
+
+    @Test
+    void linkRepositoryQueriesUseIndex() {
+        assertUsesIndex(Set.of("idx_link_source"),
+                sqlCapture.firstStatementOf(() -> linkRepository.findBySourceTypeAndSourceId(Link.LinkSourceType.TASK, 1L)),
+                Link.LinkSourceType.TASK.name(), 1L);
+        assertUsesIndex(Set.of("idx_link_target"),
+                sqlCapture.firstStatementOf(() -> linkRepository.findByTargetTypeAndTargetId(Link.LinkTargetType.GOAL, 1L)),
+                Link.LinkTargetType.GOAL.name(), 1L);
+        assertUsesIndex(Set.of("idx_link_source"),
+                sqlCapture.firstStatementOf(() -> linkRepository.findBySourceTypeAndSourceIdInAndTargetType(
+                        Link.LinkSourceType.TASK, List.of(1L, 2L, 3L), Link.LinkTargetType.GOAL)),
+                Link.LinkSourceType.TASK.name(), 1L, 2L, 3L, Link.LinkTargetType.GOAL.name());
+    }
+
+    @Test
+    void taskMapperSearchTasksUsesIndex() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", 1L);
+        params.put("keyword", "复习");
+        params.put("startDate", LocalDate.now().minusDays(30).atStartOfDay());
+        params.put("endDate", LocalDate.now().atTime(23, 59, 59));
+        assertMapperUsesIndex(Set.of("idx_memo_user_deadline"), "searchTasks", params);
+    }
+
+    /** 键集分页从游标处开始范围扫描（依赖 V8 迁移脚本） */
+    @Test
+    void taskMapperSearchTasksPageUsesIndex() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", 1L);
+        params.put("keyword", "复习");
+        params.put("query", null);
+        params.put("startDate", null);
+        params.put("endDate", null);
+        params.put("afterDeadline", LocalDate.now().atStartOfDay());
+        params.put("afterId", 100L);
+        params.put("limit", 21);
+        assertMapperUsesIndex(Set.of("idx_memo_user_deadline"), "searchTasksPage", params);
+    }
+
+    private void assertMapperUsesIndex(Set<String> expected, String statement, Map<String, Object> params) {
+        BoundSql boundSql = sqlSessionFactory.getConfiguration()
+                .getMappedStatement("org.zhzssp.memorandum.mapper.TaskMapper." + statement)
+                .getBoundSql(params);
+        Object[] args = boundSql.getParameterMappings().stream()
+                .map(ParameterMapping::getProperty)
+                .map(params::get)
+                .toArray();
+        assertUsesIndex(expected, boundSql.getSql(), args);
+    }
+
+    /** 表上以指定列为第一列的全部索引 */
+    private Set<String> leadingIndexes(String table, String column) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME FROM information_schema.STATISTICS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ? AND SEQ_IN_INDEX = 1",
+                String.class, table, column));
+    }
+
+    private void assertUsesIndex(Set<String> expected, String sql, Object... args) {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, args);
+        assertFalse(plan.isEmpty(), "EXPLAIN 无输出: " + sql);
+        for (Map<String, Object> row : plan) {
+            assertTrue(expected.contains(String.valueOf(row.get("key"))),
+                    "查询未命中预期索引 " + expected + ": " + sql + " -> " + row);
+        }
+    }
+}
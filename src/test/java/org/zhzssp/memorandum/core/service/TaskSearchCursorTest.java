@@ -0,0 +1,63 @@
+package org.zhzssp.memorandum.core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskSearchCursorTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 9, 30);
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        TaskSearchCursor cursor = new TaskSearchCursor(NOW, 42L);
+        assertEquals(cursor, TaskSearchCursor.decode(cursor.encode()));
+
+        TaskSearchCursor tail = new TaskSearchCursor(null, 7L);
+        assertEquals(tail, TaskSearchCursor.decode(tail.encode()));
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertNull(TaskSearchCursor.decode(null));
+        assertNull(TaskSearchCursor.decode(""));
+        assertNull(TaskSearchCursor.decode("  "));
+    }
+
+    @Test
+    void invalidCursorsAreRejected() {
+        for (String raw : List.of("2|2024-06-01T09:30|1", "1|2024-06-01T09:30", "1|昨天|1", "1||abc", "1|||1")) {
+            String cursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+            assertThrows(IllegalArgumentException.class, () -> TaskSearchCursor.decode(cursor), raw);
+        }
+        assertThrows(IllegalArgumentException.class, () -> TaskSearchCursor.decode("不是游标"));
+    }
+
+    /** 游标条件与分页顺序一致：排在某条之后的恰好是按分页顺序位于它后面的那些（含无截止时间的尾部） */
+    @Test
+    void precedesMatchesPageOrder() {
+        record Row(LocalDateTime deadline, long id) {}
+        List<Row> rows = new ArrayList<>();
+        long id = 1;
+        for (LocalDateTime deadline : new LocalDateTime[]{NOW, NOW, NOW.plusDays(1), NOW.minusHours(1), null, null}) {
+            rows.add(new Row(deadline, id++));
+        }
+        rows.sort(TaskSearchCursor.pageOrder(Row::deadline, Row::id));
+        assertEquals(List.of(3L, 2L, 1L, 4L, 6L, 5L), rows.stream().map(Row::id).toList());
+
+        for (int i = 0; i < rows.size(); i++) {
+            TaskSearchCursor cursor = new TaskSearchCursor(rows.get(i).deadline(), rows.get(i).id());
+            List<Row> after = rows.stream().filter(r -> cursor.precedes(r.deadline(), r.id())).toList();
+            assertEquals(rows.subList(i + 1, rows.size()), after);
+        }
+    }
+}
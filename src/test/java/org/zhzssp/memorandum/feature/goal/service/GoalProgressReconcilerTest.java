@@ -0,0 +1,65 @@
+package org.zhzssp.memorandum.feature.goal.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GoalProgressReconcilerTest {
+
+    @Mock
+    private GoalRepository goalRepository;
+
+    @InjectMocks
+    private GoalProgressReconciler goalProgressReconciler;
+
+    /** 按主键分块检查，每块从上一块最后一个 ID 之后继续，只重算有偏差的目标 */
+    @Test
+    void reconcilesInKeysetChunks() {
+        List<Long> first = ids(1, 500);
+        List<Long> second = ids(501, 1000);
+        List<Long> last = ids(1001, 1200);
+        when(goalRepository.findGoalIdsAfter(0L, 500)).thenReturn(first);
+        when(goalRepository.findGoalIdsAfter(500L, 500)).thenReturn(second);
+        when(goalRepository.findGoalIdsAfter(1000L, 500)).thenReturn(last);
+        when(goalRepository.findGoalIdsWithCounterDrift(first)).thenReturn(List.of(7L, 9L));
+        when(goalRepository.findGoalIdsWithCounterDrift(second)).thenReturn(List.of());
+        when(goalRepository.findGoalIdsWithCounterDrift(last)).thenReturn(List.of(1200L));
+
+        assertEquals(3, goalProgressReconciler.reconcile());
+
+        verify(goalRepository).recountTaskCounters(List.of(7L, 9L));
+        verify(goalRepository).recountTaskCounters(List.of(1200L));
+        // 最后一块不足 CHUNK_SIZE，不再读取下一块
+        verify(goalRepository).findGoalIdsAfter(1000L, 500);
+        verify(goalRepository, never()).findGoalIdsAfter(1200L, 500);
+    }
+
+    @Test
+    void noGoalsMeansNoWork() {
+        when(goalRepository.findGoalIdsAfter(0L, 500)).thenReturn(List.of());
+
+        assertEquals(0, goalProgressReconciler.reconcile());
+
+        verify(goalRepository).findGoalIdsAfter(0L, 500);
+        verify(goalRepository, never()).findGoalIdsWithCounterDrift(anyCollection());
+        verifyNoMoreInteractions(goalRepository);
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+}
@@ -0,0 +1,123 @@
+package org.zhzssp.memorandum.feature.goal.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.repository.LinkRepository;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GoalProgressServiceTest {
+
+    @Mock
+    private GoalRepository goalRepository;
+
+    @Mock
+    private LinkRepository linkRepository;
+
+    @InjectMocks
+    private GoalProgressService goalProgressService;
+
+    @Test
+    void completingTaskIncrementsDoneOfLinkedGoalsOnce() {
+        // 同一目标的重复链接只计一次
+        when(linkRepository.findBySourceTypeAndSourceId(Link.LinkSourceType.TASK, 7L))
+                .thenReturn(List.of(taskToGoal(7L, 100L), taskToGoal(7L, 100L), taskToGoal(7L, 101L)));
+
+        goalProgressService.onTaskStatusChanged(task(7L, TaskStatus.DONE), TaskStatus.PENDING);
+
+        verify(goalRepository).adjustTaskCounters(Set.of(100L, 101L), 0, 1);
+    }
+
+    @Test
+    void statusChangeWithinDoneStatesIsIgnored() {
+        goalProgressService.onTaskStatusChanged(task(7L, TaskStatus.ARCHIVED), TaskStatus.DONE);
+        goalProgressService.onTaskStatusChanged(task(8L, TaskStatus.SHELVED), null);
+
+        verifyNoInteractions(linkRepository, goalRepository);
+    }
+
+    @Test
+    void shelvingDoneTaskDecrementsDone() {
+        when(linkRepository.findBySourceTypeAndSourceId(Link.LinkSourceType.TASK, 7L))
+                .thenReturn(List.of(taskToGoal(7L, 100L)));
+
+        goalProgressService.onTaskStatusChanged(task(7L, TaskStatus.SHELVED), TaskStatus.DONE);
+
+        verify(goalRepository).adjustTaskCounters(Set.of(100L), 0, -1);
+    }
+
+    @Test
+    void linkChangeMovesTaskBetweenGoals() {
+        goalProgressService.onLinksChanged(task(7L, TaskStatus.DONE), Set.of(100L), Set.of(101L, 102L));
+
+        verify(goalRepository).adjustTaskCounters(Set.of(100L), -1, -1);
+        verify(goalRepository).adjustTaskCounters(Set.of(101L, 102L), 1, 1);
+    }
+
+    /** 批量完成时按目标汇总差量，差量相同的目标合并为一条更新 */
+    @Test
+    void batchCompletionGroupsGoalsBySameDelta() {
+        when(linkRepository.findBySourceTypeAndSourceIdInAndTargetType(
+                eq(Link.LinkSourceType.TASK), anyCollection(), eq(Link.LinkTargetType.GOAL)))
+                .thenReturn(List.of(taskToGoal(1L, 100L), taskToGoal(2L, 100L), taskToGoal(2L, 100L),
+                        taskToGoal(1L, 101L), taskToGoal(3L, 102L)));
+
+        goalProgressService.onTasksCompleted(List.of(1L, 2L, 3L));
+
+        verify(goalRepository).adjustTaskCounters(List.of(100L), 0, 2);
+        verify(goalRepository).adjustTaskCounters(List.of(101L, 102L), 0, 1);
+        verifyNoMoreInteractions(goalRepository);
+    }
+
+    @Test
+    void avgProgressMatchesScoreFormula() {
+        Goal half = goal(2, 1);
+        Goal done = goal(3, 3);
+        Goal empty = goal(0, 0);
+
+        double expected = (Math.pow(0.5, 0.7) + 1.0 + 0.0) / 3;
+        assertEquals(expected, GoalProgressService.avgProgress(List.of(half, done, empty)), 1e-9);
+        assertEquals(0.0, GoalProgressService.avgProgress(List.of()), 1e-9);
+    }
+
+    private static Task task(Long id, TaskStatus status) {
+        Task t = new Task();
+        t.setId(id);
+        t.setStatus(status);
+        return t;
+    }
+
+    private static Goal goal(int total, int done) {
+        Goal g = new Goal();
+        g.setTotalTasks(total);
+        g.setDoneTasks(done);
+        return g;
+    }
+
+    private static Link taskToGoal(Long taskId, Long goalId) {
+        Link l = new Link();
+        l.setSourceType(Link.LinkSourceType.TASK);
+        l.setSourceId(taskId);
+        l.setTargetType(Link.LinkTargetType.GOAL);
+        l.setTargetId(goalId);
+        return l;
+    }
+}
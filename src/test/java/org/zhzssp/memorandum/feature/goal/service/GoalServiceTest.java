@@ -0,0 +1,200 @@
+package org.zhzssp.memorandum.feature.goal.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.zhzssp.memorandum.core.event.TaskSnapshot;
+import org.zhzssp.memorandum.core.event.TasksArchivedEvent;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.mapper.LinkMapper;
+import org.zhzssp.memorandum.repository.LinkRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.service.LinkGraph;
+import org.zhzssp.memorandum.service.LinkGraphService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GoalServiceTest {
+
+    @Mock
+    private GoalRepository goalRepository;
+
+    @Mock
+    private LinkRepository linkRepository;
+
+    @Mock
+    private LinkMapper linkMapper;
+
+    @Mock
+    private LinkGraphService linkGraphService;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private GoalService goalService;
+
+    /** 无论任务数量多少，批量解析目标标签都只发出一次链接查询和一次目标查询 */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 500})
+    void findGoalsByTaskIdsUsesConstantQueryCount(int taskCount) {
+        User user = user(1L);
+        Goal goalA = goal(100L, user);
+        Goal goalB = goal(101L, user);
+        List<Long> taskIds = LongStream.rangeClosed(1, taskCount).boxed().toList();
+
+        LinkGraph graph = new LinkGraph();
+        for (Long taskId : taskIds) {
+            addTaskToGoal(graph, taskId, taskId % 2 == 0 ? goalA.getId() : goalB.getId());
+        }
+        when(linkGraphService.graphFor(user)).thenReturn(graph);
+        when(goalRepository.findAllById(anyIterable())).thenReturn(List.of(goalA, goalB));
+
+        Map<Long, List<Goal>> result = goalService.findGoalsByTaskIds(taskIds, user);
+
+        assertEquals(taskCount, result.size());
+        assertEquals(List.of(goalB), result.get(1L));
+        // 关联从关系图读取，只有一次目标查询，不访问 link 表
+        verify(linkGraphService, times(1)).graphFor(user);
+        verify(goalRepository, times(1)).findAllById(anyIterable());
+        verifyNoMoreInteractions(linkRepository, goalRepository);
+    }
+
+    @Test
+    void findGoalsByTaskIdsFiltersOtherUsersGoals() {
+        User user = user(1L);
+        Goal own = goal(100L, user);
+        Goal foreign = goal(200L, user(2L));
+        LinkGraph graph = new LinkGraph();
+        addTaskToGoal(graph, 7L, 100L);
+        addTaskToGoal(graph, 7L, 200L);
+        addTaskToGoal(graph, 8L, 200L);
+        when(linkGraphService.graphFor(user)).thenReturn(graph);
+        when(goalRepository.findAllById(anyIterable())).thenReturn(List.of(own, foreign));
+
+        Map<Long, List<Goal>> result = goalService.findGoalsByTaskIds(List.of(7L, 8L, 9L), user);
+
+        assertEquals(List.of(own), result.get(7L));
+        assertTrue(result.get(8L).isEmpty());
+        assertTrue(result.get(9L).isEmpty());
+    }
+
+    @Test
+    void findGoalsByTaskIdsSkipsQueriesForEmptyInput() {
+        assertTrue(goalService.findGoalsByTaskIds(List.of(), user(1L)).isEmpty());
+        verifyNoMoreInteractions(linkRepository, goalRepository, linkGraphService);
+    }
+
+    /** 重新绑定 50 个目标：只删除移除的边，新增的边一次多值 INSERT 写入，不逐条 save */
+    @Test
+    @SuppressWarnings("unchecked")
+    void linkTaskToGoalsWritesOnlyChangedEdges() {
+        User user = user(1L);
+        List<Goal> goals = LongStream.rangeClosed(1, 50).mapToObj(id -> goal(id, user)).toList();
+        List<Long> goalIds = goals.stream().map(Goal::getId).toList();
+        // 原有绑定：目标 1、2（保留）与 99（移除）
+        when(linkRepository.findBySourceTypeAndSourceId(Link.LinkSourceType.TASK, 7L))
+                .thenReturn(List.of(taskToGoal(7L, 1L), taskToGoal(7L, 2L), taskToGoal(7L, 99L)));
+        when(goalRepository.findAllById(goalIds)).thenReturn(goals);
+
+        goalService.linkTaskToGoals(7L, goalIds, user);
+
+        verify(linkRepository).deleteAllBySourceAndTargets(
+                Link.LinkSourceType.TASK, 7L, Link.LinkTargetType.GOAL, Set.of(99L));
+        ArgumentCaptor<List<Link>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(linkMapper, times(1)).insertLinks(inserted.capture());
+        assertEquals(LongStream.rangeClosed(3, 50).boxed().toList(),
+                inserted.getValue().stream().map(Link::getTargetId).toList());
+        verify(linkRepository, never()).save(any());
+        verify(linkRepository, never()).delete(any());
+    }
+
+    /** 归档按块执行：每块一次快照查询 + 一条批量 UPDATE + 一个批量事件，已归档的任务不再更新 */
+    @Test
+    void archiveUpdatesLinkedTasksInChunks() {
+        ReflectionTestUtils.setField(goalService, "bulkChunkSize", 2);
+        User user = user(1L);
+        Goal g = goal(100L, user);
+        when(goalRepository.findById(100L)).thenReturn(Optional.of(g));
+        when(goalRepository.findLinkedTaskSnapshots(eq(100L), eq(user), eq(0L), any())).thenReturn(List.of(
+                new TaskSnapshot(1L, TaskStatus.PENDING, null), new TaskSnapshot(2L, TaskStatus.ARCHIVED, null)));
+        when(goalRepository.findLinkedTaskSnapshots(eq(100L), eq(user), eq(2L), any())).thenReturn(List.of(
+                new TaskSnapshot(3L, TaskStatus.DONE, null)));
+        when(taskRepository.archiveAllByIdInAndUser(List.of(1L), user)).thenReturn(1);
+        when(taskRepository.archiveAllByIdInAndUser(List.of(3L), user)).thenReturn(1);
+
+        assertEquals(2, goalService.archive(100L, user));
+
+        assertNotNull(g.getArchivedAt());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        List<List<Long>> archivedChunks = events.getAllValues().stream()
+                .filter(TasksArchivedEvent.class::isInstance)
+                .map(e -> ((TasksArchivedEvent) e).getTaskIds())
+                .toList();
+        assertEquals(List.of(List.of(1L), List.of(3L)), archivedChunks);
+        verify(goalRepository, times(2)).findLinkedTaskSnapshots(eq(100L), eq(user), anyLong(), any());
+        verify(taskRepository, times(2)).archiveAllByIdInAndUser(anyCollection(), eq(user));
+        verifyNoMoreInteractions(taskRepository);
+    }
+
+    private static User user(Long id) {
+        User u = new User();
+        u.setId(id);
+        return u;
+    }
+
+    private static Goal goal(Long id, User user) {
+        Goal g = new Goal();
+        g.setId(id);
+        g.setName("goal-" + id);
+        g.setUser(user);
+        return g;
+    }
+
+    private static void addTaskToGoal(LinkGraph graph, Long taskId, Long goalId) {
+        graph.addEdge(LinkGraph.node(Link.LinkSourceType.TASK, taskId), LinkGraph.node(Link.LinkTargetType.GOAL, goalId));
+    }
+
+    private static Link taskToGoal(Long taskId, Long goalId) {
+        Link l = new Link();
+        l.setSourceType(Link.LinkSourceType.TASK);
+        l.setSourceId(taskId);
+        l.setTargetType(Link.LinkTargetType.GOAL);
+        l.setTargetId(goalId);
+        return l;
+    }
+}
@@ -0,0 +1,339 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 用本地 HTTP 桩服务代替 Gemini，验证总结缓存、请求合并、超时取消、舱壁和熔断的回退路径。
+ */
+class AiSummaryServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 14);
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile Handler handler;
+    private AiSummaryService service;
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                handler.handle(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        if (service != null) {
+            service.shutdown();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void returnsModelTextFromStubAndCachesIt() {
+        handler = exchange -> respond(exchange, 200, candidate("这是一段来自桩服务的总结。"));
+        service = newService(2000, 4, 3, 60_000);
+
+        assertEquals("这是一段来自桩服务的总结。", summarize());
+        assertEquals("这是一段来自桩服务的总结。", summarize());
+        assertEquals(1, requests.get());
+        assertEquals(1, service.summaryCacheStats().hitCount());
+
+        // 不同的时间范围对应不同的 Prompt，不命中缓存
+        service.summarizeScores(START, END.plusDays(1), List.of());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        handler = exchange -> {
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, candidate("合并后的总结"));
+        };
+        service = newService(5000, 4, 5, 60_000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            callers.add(CompletableFuture.supplyAsync(this::summarize, pool));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (CompletableFuture<String> caller : callers) {
+            assertEquals("合并后的总结", caller.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, requests.get());
+        pool.shutdown();
+    }
+
+    @Test
+    void fallbackIsNotCached() {
+        handler = exchange -> respond(exchange, 400, "{\"error\":{\"code\":400,\"message\":\"bad request\"}}");
+        service = newService(2000, 4, 5, 60_000);
+
+        assertTrue(summarize().contains("调用 Gemini 接口失败"));
+        handler = exchange -> respond(exchange, 200, candidate("第二次成功"));
+        assertEquals("第二次成功", summarize());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void streamSummaryEmitsDeltasAndFillsCache() {
+        handler = exchange -> respond(exchange, 200, "text/event-stream",
+                "data: " + candidate("第一段，") + "\r\n\r\n"
+                        + "data: " + candidate("第二段。") + "\r\n\r\n");
+        service = newService(2000, 4, 3, 60_000);
+
+        List<String> deltas = new ArrayList<>();
+        AiSummaryService.Summary summary = service.streamSummary(START, END, List.of(), deltas::add);
+
+        assertTrue(summary.fromModel());
+        assertEquals(List.of("第一段，", "第二段。"), deltas);
+        assertEquals("第一段，第二段。", summary.text());
+        // 流式结果写入缓存，同步接口不再调用 Gemini
+        assertEquals("第一段，第二段。", summarize());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void concurrentIdenticalStreamsShareOneCall() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        handler = exchange -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, "text/event-stream",
+                    "data: " + candidate("第一段，") + "\r\n\r\n"
+                            + "data: " + candidate("第二段。") + "\r\n\r\n");
+        };
+        service = newService(5000, 4, 5, 60_000);
+
+        List<String> leaderDeltas = new CopyOnWriteArrayList<>();
+        CompletableFuture<AiSummaryService.Summary> leader = CompletableFuture.supplyAsync(
+                () -> service.streamSummary(START, END, List.of(), leaderDeltas::add));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // 第一个流已在途：相同 Prompt 的流式与同步请求都跟随它，不再发起新的调用
+        List<String> followerDeltas = new CopyOnWriteArrayList<>();
+        CompletableFuture<AiSummaryService.Summary> follower = CompletableFuture.supplyAsync(
+                () -> service.streamSummary(START, END, List.of(), followerDeltas::add));
+        CompletableFuture<String> blocking = CompletableFuture.supplyAsync(this::summarize);
+        Thread.sleep(200);
+        release.countDown();
+
+        assertEquals("第一段，第二段。", leader.get(5, TimeUnit.SECONDS).text());
+        assertEquals("第一段，第二段。", follower.get(5, TimeUnit.SECONDS).text());
+        assertEquals("第一段，第二段。", blocking.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("第一段，", "第二段。"), leaderDeltas);
+        assertEquals("第一段，第二段。", String.join("", followerDeltas));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void blockingFollowerStopsWaitingAtItsOwnDeadline() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        handler = exchange -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, "text/event-stream", "data: " + candidate("慢的总结") + "\r\n\r\n");
+        };
+        // 同步期限 300 ms，流式期限 5 秒
+        service = newService(300, 4, 5, 60_000);
+
+        CompletableFuture<AiSummaryService.Summary> leader = CompletableFuture.supplyAsync(
+                () -> service.streamSummary(START, END, List.of(), delta -> {}));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        long begin = System.nanoTime();
+        String summary = summarize();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        assertTrue(summary.contains("未返回"), summary);
+        assertTrue(elapsedMillis < 2000, "同步请求应在自己的期限后回退，实际耗时 " + elapsedMillis + " ms");
+
+        // 进行中的流没有被取消或移出缓存，完成后的结果供后续请求直接命中
+        release.countDown();
+        assertEquals("慢的总结", leader.get(5, TimeUnit.SECONDS).text());
+        assertEquals("慢的总结", summarize());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void stalledStreamIsClosedAtDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        service = newService(2000, 4, 5, 60_000);
+        // 先按默认期限建好流式 Client（HTTP 超时 5 秒），再缩短整段期限，确保结束调用的是定时关闭而不是 HTTP 超时
+        handler = exchange -> respond(exchange, 200, "text/event-stream", "data: " + candidate("预热") + "\r\n\r\n");
+        service.streamSummary(START, END.plusDays(1), List.of(), delta -> {});
+        ReflectionTestUtils.setField(service, "streamTimeoutMillis", 300L);
+
+        handler = exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.write(("data: " + candidate("第一段，") + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            // 输出一段后停住，不再发送后续片段
+            release.await(5, TimeUnit.SECONDS);
+        };
+        long begin = System.nanoTime();
+        AiSummaryService.Summary summary = service.streamSummary(START, END, List.of(), delta -> {});
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertTrue(summary.text().contains("未完成"), summary.text());
+        assertTrue(elapsedMillis < 2000, "到期后应立即回退，实际耗时 " + elapsedMillis + " ms");
+        assertEquals(0, service.inFlightCalls());
+        release.countDown();
+    }
+
+    @Test
+    void timedOutCallIsCancelledAndFallsBack() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        handler = exchange -> {
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, candidate("太晚了"));
+        };
+        service = newService(300, 4, 5, 60_000);
+
+        long begin = System.nanoTime();
+        String summary = summarize();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        assertTrue(summary.contains("未返回"), summary);
+        assertTrue(elapsedMillis < 2000, "超时后应立即回退，实际耗时 " + elapsedMillis + " ms");
+        // 被取消的调用应很快退出并归还舱壁许可，而不是一直挂到上游返回
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (service.inFlightCalls() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, service.inFlightCalls());
+        release.countDown();
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondLimit() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        handler = exchange -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            respond(exchange, 200, candidate("第一次调用"));
+        };
+        service = newService(5000, 1, 5, 60_000);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(this::summarize);
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // 换一个时间范围，避免与第一个请求合并
+        String second = service.summarizeScores(START, END.plusDays(1), List.of());
+        assertTrue(second.contains("请求较多"), second);
+        assertEquals(1, requests.get());
+
+        release.countDown();
+        assertEquals("第一次调用", first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void circuitOpensAfterRepeatedFailuresAndRecovers() throws Exception {
+        handler = exchange -> respond(exchange, 400, "{\"error\":{\"code\":400,\"message\":\"bad request\"}}");
+        service = newService(2000, 4, 3, 300);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(summarize().contains("调用 Gemini 接口失败"));
+        }
+        int requestsWhenOpened = requests.get();
+
+        String rejected = summarize();
+        assertTrue(rejected.contains("暂时停用"), rejected);
+        assertEquals(requestsWhenOpened, requests.get());
+
+        // 冷却结束后放行试探调用，成功则恢复
+        handler = exchange -> respond(exchange, 200, candidate("恢复正常"));
+        Thread.sleep(400);
+        assertEquals("恢复正常", summarize());
+        assertEquals("恢复正常", summarize());
+    }
+
+    private String summarize() {
+        return service.summarizeScores(START, END, List.of());
+    }
+
+    private AiSummaryService newService(long timeoutMillis, int maxConcurrentCalls,
+                                        int failureThreshold, long openMillis) {
+        AiSummaryService s = new AiSummaryService();
+        ReflectionTestUtils.setField(s, "modelId", "gemini-2.5-flash");
+        ReflectionTestUtils.setField(s, "configuredApiKey", "test-key");
+        ReflectionTestUtils.setField(s, "baseUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        ReflectionTestUtils.setField(s, "timeoutMillis", timeoutMillis);
+        ReflectionTestUtils.setField(s, "maxConcurrentCalls", maxConcurrentCalls);
+        ReflectionTestUtils.setField(s, "failureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(s, "openMillis", openMillis);
+        ReflectionTestUtils.setField(s, "summaryCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(s, "summaryCacheTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(s, "streamTimeoutMillis", 5000L);
+        s.init();
+        return s;
+    }
+
+    private static String candidate(String text) {
+        return "{\"candidates\":[{\"content\":{\"role\":\"model\",\"parts\":[{\"text\":\"" + text + "\"}]},"
+                + "\"finishReason\":\"STOP\"}]}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, "application/json", body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
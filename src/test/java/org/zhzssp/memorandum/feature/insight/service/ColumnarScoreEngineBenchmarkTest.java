@@ -0,0 +1,64 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.ScoreInputs;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 基准：365 天区间下，列式引擎与 Map/Set 对照实现的耗时对比。
+ * 实时计分按用户缓存已构建的快照（InsightScoreService#engineFor，数据变更事件使其失效），
+ * 因此分别断言两条生产路径：
+ * - 命中缓存的请求只付逐日计分的代价，要求至少快 10 倍；
+ * - 未命中缓存（数据变更后的首个请求）付构建 + 计分的代价，与对照实现同为 O(任务 + 链接)、耗时相当，
+ *   只要求不明显慢于对照实现（1.5 倍以内）。
+ * 纯内存计算，不依赖数据库；默认不随 test 运行：./gradlew benchmarkTest
+ */
+@Tag("benchmark")
+class ColumnarScoreEngineBenchmarkTest {
+
+    private static final int TASKS = 20_000;
+    private static final int NOTES = 3_000;
+    private static final int GOALS = 200;
+    private static final int DAYS = 365;
+    private static final int WARMUP = 100;
+    private static final int ITERATIONS = 100;
+
+    @Test
+    void compareColumnarEngineWithReference() {
+        ScoreInputs inputs = InsightScoreServiceTest.randomInputs(new Random(7), TASKS, NOTES, GOALS, DAYS);
+        LocalDate start = InsightScoreServiceTest.BASE;
+        LocalDate end = start.plusDays(DAYS - 1);
+        ColumnarScoreEngine engine = ColumnarScoreEngine.build(inputs);
+        InsightScoreServiceTest.assertSameScores(InsightScoreService.calculateScoresReference(inputs, start, end),
+                engine.score(start, end));
+
+        double referenceMillis = measure(() -> InsightScoreService.calculateScoresReference(inputs, start, end));
+        double buildAndScoreMillis = measure(() -> ColumnarScoreEngine.build(inputs).score(start, end));
+        double scoreMillis = measure(() -> engine.score(start, end));
+        System.out.printf("insight scoring (%d tasks, %d goals, %d notes, %d days): reference=%.3f ms, "
+                        + "cache miss build+score=%.3f ms (%.1fx), cache hit score pass=%.3f ms (%.1fx)%n",
+                TASKS, GOALS, NOTES, DAYS, referenceMillis,
+                buildAndScoreMillis, referenceMillis / buildAndScoreMillis,
+                scoreMillis, referenceMillis / scoreMillis);
+
+        assertTrue(referenceMillis / scoreMillis >= 10.0, "cached 365-day request should be at least 10x faster");
+        assertTrue(buildAndScoreMillis <= referenceMillis * 1.5, "uncached 365-day request should not be much slower");
+    }
+
+    private static double measure(Supplier<?> scoring) {
+        for (int i = 0; i < WARMUP; i++) {
+            scoring.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            scoring.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,232 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.zhzssp.memorandum.core.event.NoteSavedEvent;
+import org.zhzssp.memorandum.core.event.TaskCompletedEvent;
+import org.zhzssp.memorandum.core.event.TaskCreatedEvent;
+import org.zhzssp.memorandum.core.event.TaskDeletedEvent;
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.feature.goal.service.GoalService;
+import org.zhzssp.memorandum.feature.insight.entity.DailyScoreBackfillRecord;
+import org.zhzssp.memorandum.feature.insight.entity.DailyScoreId;
+import org.zhzssp.memorandum.feature.insight.entity.DailyScoreRecord;
+import org.zhzssp.memorandum.feature.insight.listener.DailyScoreEventListener;
+import org.zhzssp.memorandum.feature.insight.repository.DailyScoreBackfillRepository;
+import org.zhzssp.memorandum.feature.insight.repository.DailyScoreRepository;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DayComponents;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.ScoreInputs;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 增量维护的物化行必须与整体重建、实时计算一致：仓库以内存数据代替数据库，
+ * 任务与笔记的变更经 DailyScoreEventListener 触发按天重算。
+ */
+class DailyScoreMaterializerTest {
+
+    private static final LocalDate BASE = InsightScoreServiceTest.BASE;
+    private static final LocalDate START = BASE.minusDays(5);
+    private static final LocalDate END = BASE.plusDays(40);
+
+    private final TreeMap<LocalDate, DailyScoreRecord> rows = new TreeMap<>();
+    private final Set<Long> backfilled = new HashSet<>();
+    private List<Task> tasks;
+    private List<Note> notes;
+    private User user;
+    private DailyScoreMaterializer materializer;
+    private DailyScoreEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        ScoreInputs seed = InsightScoreServiceTest.randomInputs(new Random(11), 150, 40, 1, 30);
+        tasks = new ArrayList<>(seed.tasks());
+        notes = new ArrayList<>(seed.notes());
+        user = tasks.get(0).getUser();
+
+        TaskRepository taskRepository = mock(TaskRepository.class);
+        when(taskRepository.findByUserAndDeadlineGreaterThanEqualAndDeadlineLessThanOrderByIdAsc(any(), any(), any()))
+                .thenAnswer(inv -> tasks.stream()
+                        .filter(t -> t.getDeadline() != null
+                                && !t.getDeadline().isBefore(inv.getArgument(1))
+                                && t.getDeadline().isBefore(inv.getArgument(2)))
+                        .sorted(Comparator.comparing(Task::getId))
+                        .toList());
+        NoteRepository noteRepository = mock(NoteRepository.class);
+        when(noteRepository.countByUserAndCreatedAtGreaterThanEqualAndCreatedAtLessThan(any(), any(), any()))
+                .thenAnswer(inv -> notes.stream()
+                        .filter(n -> !n.getCreatedAt().isBefore(inv.getArgument(1))
+                                && n.getCreatedAt().isBefore(inv.getArgument(2)))
+                        .count());
+        InsightScoreService insightScoreService = mock(InsightScoreService.class);
+        when(insightScoreService.loadInputs(any()))
+                .thenAnswer(inv -> new ScoreInputs(List.copyOf(tasks), List.copyOf(notes), List.of(), List.of()));
+
+        materializer = new DailyScoreMaterializer();
+        ReflectionTestUtils.setField(materializer, "dailyScoreRepository", inMemoryRepository());
+        ReflectionTestUtils.setField(materializer, "dailyScoreBackfillRepository", inMemoryBackfillRepository());
+        ReflectionTestUtils.setField(materializer, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(materializer, "noteRepository", noteRepository);
+        ReflectionTestUtils.setField(materializer, "goalRepository", mock(GoalRepository.class));
+        ReflectionTestUtils.setField(materializer, "goalService", mock(GoalService.class));
+        ReflectionTestUtils.setField(materializer, "insightScoreService", insightScoreService);
+        ReflectionTestUtils.setField(materializer, "scoreRollupService", mock(ScoreRollupService.class));
+        listener = new DailyScoreEventListener(materializer, taskRepository);
+
+        materializer.rebuild(user);
+    }
+
+    @Test
+    void incrementalUpdatesMatchRebuildAndRealtime() {
+        // 新建任务（截止日期落在已有行的日期和新日期上）
+        Task created = newTask(1001L, BASE.plusDays(3).atTime(10, 0), null);
+        tasks.add(created);
+        listener.onTaskCreated(new TaskCreatedEvent(created, user));
+        Task createdOnNewDay = newTask(1002L, BASE.plusDays(35).atTime(8, 0), TaskStatus.DONE);
+        tasks.add(createdOnNewDay);
+        listener.onTaskCreated(new TaskCreatedEvent(createdOnNewDay, user));
+
+        // 完成一个已有任务
+        Task pending = tasks.stream()
+                .filter(t -> t.getDeadline() != null && !InsightScoreService.isCompleted(t))
+                .findFirst().orElseThrow();
+        TaskStatus previous = pending.getStatus();
+        pending.setStatus(TaskStatus.DONE);
+        listener.onTaskCompleted(new TaskCompletedEvent(pending, user, previous));
+
+        // 删除当天唯一的任务后，该日期的行应被删除
+        tasks.add(newTask(1003L, BASE.minusDays(3).atTime(9, 0), null));
+        listener.onTaskCreated(new TaskCreatedEvent(tasks.get(tasks.size() - 1), user));
+        Task removed = tasks.remove(tasks.size() - 1);
+        listener.onTaskDeleted(new TaskDeletedEvent(removed, user));
+        assertFalse(rows.containsKey(BASE.minusDays(3)));
+
+        // 新建笔记
+        Note note = new Note();
+        note.setId(2001L);
+        note.setUser(user);
+        note.setCreatedAt(BASE.plusDays(7).atTime(21, 0));
+        notes.add(note);
+        listener.onNoteSaved(new NoteSavedEvent(note, user));
+
+        ScoreInputs current = new ScoreInputs(tasks, notes, List.of(), List.of());
+        InsightScoreServiceTest.assertSameScores(
+                InsightScoreService.calculateScoresReference(current, START, END),
+                materializer.findScores(user, START, END));
+        assertTrue(materializer.checkConsistency(user, START, END).consistent());
+
+        Map<LocalDate, DayComponents> incremental = snapshot();
+        materializer.rebuild(user);
+        Map<LocalDate, DayComponents> rebuilt = snapshot();
+        assertEquals(rebuilt.keySet(), incremental.keySet());
+        rebuilt.forEach((day, expected) -> assertSameComponents(expected, incremental.get(day), day));
+    }
+
+    /** 回填前事件已写入个别日期的行，用户仍需回填；重建完成后才不再需要 */
+    @Test
+    void eventRowsBeforeBackfillDoNotSkipBackfill() {
+        rows.clear();
+        backfilled.clear();
+        assertTrue(materializer.needsBackfill(user));
+
+        Task created = newTask(1001L, BASE.plusDays(3).atTime(10, 0), null);
+        tasks.add(created);
+        listener.onTaskCreated(new TaskCreatedEvent(created, user));
+        assertFalse(rows.isEmpty());
+        assertTrue(materializer.needsBackfill(user));
+
+        materializer.rebuild(user);
+        assertFalse(materializer.needsBackfill(user));
+        assertTrue(materializer.checkConsistency(user, START, END).consistent());
+    }
+
+    private Task newTask(Long id, LocalDateTime deadline, TaskStatus status) {
+        Task t = new Task();
+        t.setId(id);
+        t.setUser(user);
+        t.setCreatedAt(BASE.minusDays(1).atTime(9, 0));
+        t.setDeadline(deadline);
+        t.setStatus(status);
+        return t;
+    }
+
+    private Map<LocalDate, DayComponents> snapshot() {
+        Map<LocalDate, DayComponents> result = new TreeMap<>();
+        rows.forEach((day, r) -> result.put(day, r.toComponents()));
+        return result;
+    }
+
+    /** 权重为浮点累加，重建与按天重算的累加顺序可能不同 */
+    private static void assertSameComponents(DayComponents expected, DayComponents actual, LocalDate day) {
+        String at = String.valueOf(day);
+        assertEquals(expected.plannedTasks(), actual.plannedTasks(), at);
+        assertEquals(expected.completedTasks(), actual.completedTasks(), at);
+        assertEquals(expected.noteCount(), actual.noteCount(), at);
+        assertEquals(expected.goalsCompleted(), actual.goalsCompleted(), at);
+        assertEquals(expected.touchedGoals(), actual.touchedGoals(), at);
+        assertEquals(expected.plannedWeight(), actual.plannedWeight(), 1e-6, at);
+        assertEquals(expected.completedWeight(), actual.completedWeight(), 1e-6, at);
+    }
+
+    /** 以 TreeMap 代替 daily_score 表（测试只有一个用户） */
+    private DailyScoreRepository inMemoryRepository() {
+        DailyScoreRepository repository = mock(DailyScoreRepository.class);
+        when(repository.findByUserIdAndScoreDateBetweenOrderByScoreDate(anyLong(), any(), any()))
+                .thenAnswer(inv -> List.copyOf(rows.subMap(inv.getArgument(1), true, inv.getArgument(2), true).values()));
+        when(repository.existsById(any()))
+                .thenAnswer(inv -> rows.containsKey(((DailyScoreId) inv.getArgument(0)).getScoreDate()));
+        when(repository.save(any())).thenAnswer(inv -> {
+            DailyScoreRecord r = inv.getArgument(0);
+            rows.put(r.getScoreDate(), r);
+            return r;
+        });
+        when(repository.saveAll(any())).thenAnswer(inv -> {
+            Iterable<DailyScoreRecord> all = inv.getArgument(0);
+            all.forEach(r -> rows.put(r.getScoreDate(), r));
+            return all;
+        });
+        doAnswer(inv -> rows.remove(((DailyScoreId) inv.getArgument(0)).getScoreDate()))
+                .when(repository).deleteById(any());
+        doAnswer(inv -> {
+            rows.clear();
+            return null;
+        }).when(repository).deleteByUserId(anyLong());
+        return repository;
+    }
+
+    private DailyScoreBackfillRepository inMemoryBackfillRepository() {
+        DailyScoreBackfillRepository repository = mock(DailyScoreBackfillRepository.class);
+        when(repository.existsById(any())).thenAnswer(inv -> backfilled.contains((Long) inv.getArgument(0)));
+        when(repository.save(any())).thenAnswer(inv -> {
+            DailyScoreBackfillRecord r = inv.getArgument(0);
+            backfilled.add(r.getUserId());
+            return r;
+        });
+        return repository;
+    }
+}
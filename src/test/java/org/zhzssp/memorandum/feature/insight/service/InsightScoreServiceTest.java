@@ -0,0 +1,240 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.zhzssp.memorandum.core.event.TaskCreatedEvent;
+import org.zhzssp.memorandum.entity.EnergyLevel;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.MentalLoad;
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.dto.GoalTaskPair;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DayComponents;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.ScoreInputs;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.service.LinkGraphService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 列式引擎、物化读取路径（单日分量 + 目标整体进度合成）都必须与对照实现逐日一致。
+ */
+class InsightScoreServiceTest {
+
+    static final LocalDate BASE = LocalDate.of(2025, 3, 1);
+
+    @Test
+    void columnarEngineMatchesReferenceImplementation() {
+        for (long seed = 1; seed <= 5; seed++) {
+            ScoreInputs inputs = randomInputs(new Random(seed), 300, 80, 15, 60);
+            LocalDate start = BASE.minusDays(10);
+            LocalDate end = BASE.plusDays(70);
+            assertSameScores(InsightScoreService.calculateScoresReference(inputs, start, end),
+                    ColumnarScoreEngine.build(inputs).score(start, end));
+        }
+    }
+
+    /** 实时计分复用已构建的列式快照，只有该用户的数据变更事件使其失效 */
+    @Test
+    void engineIsCachedUntilUserDataChanges() {
+        InsightScoreService service = new InsightScoreService();
+        TaskRepository taskRepository = mock(TaskRepository.class);
+        ReflectionTestUtils.setField(service, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(service, "noteRepository", mock(NoteRepository.class));
+        ReflectionTestUtils.setField(service, "goalRepository", mock(GoalRepository.class));
+        ReflectionTestUtils.setField(service, "linkGraphService", mock(LinkGraphService.class));
+        service.initCache();
+        User user = new User();
+        user.setId(1L);
+        User other = new User();
+        other.setId(2L);
+
+        service.calculateScores(user, BASE, BASE.plusDays(6));
+        service.calculateScores(user, BASE, BASE.plusDays(364));
+        verify(taskRepository, times(1)).findByUser(user);
+
+        service.onTaskCreated(new TaskCreatedEvent(new Task(), other));
+        service.calculateScores(user, BASE, BASE.plusDays(6));
+        verify(taskRepository, times(1)).findByUser(user);
+
+        service.onTaskCreated(new TaskCreatedEvent(new Task(), user));
+        service.calculateScores(user, BASE, BASE.plusDays(6));
+        verify(taskRepository, times(2)).findByUser(user);
+    }
+
+    @Test
+    void columnarEngineHandlesEmptyInputs() {
+        ScoreInputs empty = new ScoreInputs(List.of(), List.of(), List.of(), List.of());
+        assertSameScores(InsightScoreService.calculateScoresReference(empty, BASE, BASE.plusDays(3)),
+                ColumnarScoreEngine.build(empty).score(BASE, BASE.plusDays(3)));
+    }
+
+    @Test
+    void materializedComponentsComposeToSameScores() {
+        ScoreInputs inputs = randomInputs(new Random(42), 200, 60, 12, 30);
+        LocalDate start = BASE.minusDays(5);
+        LocalDate end = BASE.plusDays(40);
+
+        List<DailyScore> expected = InsightScoreService.calculateScoresReference(inputs, start, end);
+
+        Map<LocalDate, DayComponents> rows = InsightScoreService.computeActiveDayComponents(inputs);
+        List<Goal> activeGoals = inputs.goals().stream().filter(g -> g.getArchivedAt() == null).toList();
+        double avgGoalProgress = InsightScoreService.avgGoalProgress(activeGoals.size(), activeGoalPairs(inputs, activeGoals));
+
+        assertTrue(rows.size() > 10);
+        for (DailyScore e : expected) {
+            DayComponents c = rows.getOrDefault(e.getDate(), DayComponents.EMPTY);
+            DailyScore actual = InsightScoreService.composeScore(e.getDate(), c, activeGoals.size(), avgGoalProgress);
+            assertEquals(e.getTotalScore(), actual.getTotalScore(), () -> "totalScore @ " + e.getDate());
+            assertEquals(e.getPlannedTasks(), actual.getPlannedTasks());
+            assertEquals(e.getCompletedTasks(), actual.getCompletedTasks());
+            assertEquals(e.getNoteCount(), actual.getNoteCount());
+            assertEquals(e.getGoalsCompletedToday(), actual.getGoalsCompletedToday());
+            assertEquals(e.getWeightedTaskCompletionRate(), actual.getWeightedTaskCompletionRate());
+            assertEquals(e.getAvgGoalProgress(), actual.getAvgGoalProgress());
+        }
+    }
+
+    /** 单日得分 = 局部得分 + 8 × 目标整体进度；周桶的分量为各天之和、得分为各天平均 */
+    @Test
+    void weeklyBucketsMergeDailyComponents() {
+        ScoreInputs inputs = randomInputs(new Random(11), 200, 60, 12, 30);
+        Map<LocalDate, DayComponents> rows = InsightScoreService.computeActiveDayComponents(inputs);
+        List<Goal> activeGoals = inputs.goals().stream().filter(g -> g.getArchivedAt() == null).toList();
+        double avg = InsightScoreService.avgGoalProgress(activeGoals.size(), activeGoalPairs(inputs, activeGoals));
+
+        LocalDate start = LocalDate.of(2025, 3, 3); // 周一
+        LocalDate end = start.plusDays(27);
+        List<DailyScore> buckets = ScoreRollupService.aggregate(ScoreGranularity.WEEK, rows, start, end,
+                activeGoals.size(), avg);
+        assertEquals(4, buckets.size());
+
+        for (int w = 0; w < 4; w++) {
+            LocalDate weekStart = start.plusWeeks(w);
+            int planned = 0;
+            double scoreSum = 0.0;
+            for (int d = 0; d < 7; d++) {
+                LocalDate day = weekStart.plusDays(d);
+                DayComponents c = rows.getOrDefault(day, DayComponents.EMPTY);
+                DailyScore daily = InsightScoreService.composeScore(day, c, activeGoals.size(), avg);
+                double unrounded = InsightScoreService.localScore(c) + 8.0 * avg;
+                assertEquals(daily.getTotalScore(), (int) Math.round(unrounded), day::toString);
+                planned += c.plannedTasks();
+                scoreSum += unrounded;
+            }
+            DailyScore bucket = buckets.get(w);
+            assertEquals(weekStart, bucket.getDate());
+            assertEquals(planned, bucket.getPlannedTasks());
+            assertEquals((int) Math.round(scoreSum / 7), bucket.getTotalScore());
+        }
+    }
+
+    static void assertSameScores(List<DailyScore> expected, List<DailyScore> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            DailyScore e = expected.get(i);
+            DailyScore a = actual.get(i);
+            String day = String.valueOf(e.getDate());
+            assertEquals(e.getDate(), a.getDate());
+            assertEquals(e.getPlannedTasks(), a.getPlannedTasks(), day);
+            assertEquals(e.getCompletedTasks(), a.getCompletedTasks(), day);
+            assertEquals(e.getNoteCount(), a.getNoteCount(), day);
+            assertEquals(e.getTaskCompletionRate(), a.getTaskCompletionRate(), day);
+            assertEquals(e.getNoteFactor(), a.getNoteFactor(), day);
+            assertEquals(e.getTotalScore(), a.getTotalScore(), day);
+            assertEquals(e.getWeightedTaskCompletionRate(), a.getWeightedTaskCompletionRate(), day);
+            assertEquals(e.getActiveGoalCount(), a.getActiveGoalCount(), day);
+            assertEquals(e.getGoalsCompletedToday(), a.getGoalsCompletedToday(), day);
+            assertEquals(e.getAvgGoalProgress(), a.getAvgGoalProgress(), day);
+        }
+    }
+
+    private static List<GoalTaskPair> activeGoalPairs(ScoreInputs inputs, List<Goal> activeGoals) {
+        Map<Long, Task> taskById = inputs.tasks().stream().collect(Collectors.toMap(Task::getId, Function.identity()));
+        Map<Long, Goal> goalById = activeGoals.stream().collect(Collectors.toMap(Goal::getId, Function.identity()));
+        List<GoalTaskPair> pairs = new ArrayList<>();
+        for (Link l : inputs.links()) {
+            Goal g = goalById.get(l.getTargetId());
+            Task t = taskById.get(l.getSourceId());
+            if (g != null && t != null) {
+                pairs.add(new GoalTaskPair(g, t));
+            }
+        }
+        return pairs;
+    }
+
+    /** 生成单个用户的随机数据：截止日期与笔记分布在 BASE 之后 days 天内 */
+    static ScoreInputs randomInputs(Random random, int taskCount, int noteCount, int goalCount, int days) {
+        User user = new User();
+        user.setId(1L);
+
+        List<Task> tasks = new ArrayList<>();
+        for (long id = 1; id <= taskCount; id++) {
+            Task t = new Task();
+            t.setId(id);
+            t.setUser(user);
+            LocalDateTime created = BASE.minusDays(random.nextInt(20)).atTime(9, 0);
+            t.setCreatedAt(created);
+            if (random.nextInt(10) > 0) {
+                t.setDeadline(BASE.plusDays(random.nextInt(days)).atTime(random.nextInt(24), 0));
+            }
+            t.setStatus(random.nextBoolean() ? null : TaskStatus.values()[random.nextInt(TaskStatus.values().length)]);
+            t.setEnergyRequirement(random.nextInt(4) == 0 ? null : EnergyLevel.values()[random.nextInt(3)]);
+            t.setMentalLoad(random.nextInt(3) == 0 ? null : MentalLoad.values()[random.nextInt(2)]);
+            tasks.add(t);
+        }
+
+        List<Note> notes = new ArrayList<>();
+        for (long id = 1; id <= noteCount; id++) {
+            Note n = new Note();
+            n.setId(id);
+            n.setUser(user);
+            n.setCreatedAt(BASE.plusDays(random.nextInt(days)).atTime(20, 0));
+            notes.add(n);
+        }
+
+        List<Goal> goals = new ArrayList<>();
+        for (long id = 1; id <= goalCount; id++) {
+            Goal g = new Goal();
+            g.setId(id);
+            g.setUser(user);
+            if (id % 4 == 0) {
+                g.setArchivedAt(BASE.plusDays(random.nextInt(days)).atTime(18, 0));
+            }
+            goals.add(g);
+        }
+
+        List<Link> links = new ArrayList<>();
+        for (Task t : tasks) {
+            int count = random.nextInt(3);
+            for (int i = 0; i < count; i++) {
+                Link l = new Link();
+                l.setSourceType(Link.LinkSourceType.TASK);
+                l.setSourceId(t.getId());
+                l.setTargetType(Link.LinkTargetType.GOAL);
+                l.setTargetId(1L + random.nextInt(goals.size()));
+                links.add(l);
+            }
+        }
+        return new ScoreInputs(tasks, notes, goals, links);
+    }
+}
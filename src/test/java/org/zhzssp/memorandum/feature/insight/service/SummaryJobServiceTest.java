@@ -0,0 +1,85 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.zhzssp.memorandum.feature.insight.service.AiSummaryService.Summary;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 异步总结任务的归属校验与过期淘汰。
+ */
+class SummaryJobServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 14);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private SummaryJobService service;
+
+    @BeforeEach
+    void setUp() {
+        AiSummaryService aiSummaryService = mock(AiSummaryService.class);
+        when(aiSummaryService.localSummary(any(), any(), any())).thenReturn("本地总结");
+        when(aiSummaryService.streamSummary(any(), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<String> onDelta = invocation.getArgument(3);
+            onDelta.accept("模型总结");
+            return new Summary("模型总结", true);
+        });
+
+        service = new SummaryJobService();
+        ReflectionTestUtils.setField(service, "aiSummaryService", aiSummaryService);
+        ReflectionTestUtils.setField(service, "maxJobs", 100L);
+        ReflectionTestUtils.setField(service, "jobTtlSeconds", 600L);
+        service.ticker = nanos::get;
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void jobIsVisibleOnlyToItsOwner() throws Exception {
+        SummaryJob job = service.start("alice", START, END, List.of());
+        assertEquals("本地总结", job.getFallback());
+        awaitFinished(job);
+
+        assertTrue(service.find("alice", job.getId()).isPresent());
+        assertTrue(service.find("bob", job.getId()).isEmpty());
+        assertTrue(service.find("alice", "no-such-job").isEmpty());
+        assertEquals(SummaryJob.Status.COMPLETED, job.getStatus());
+    }
+
+    @Test
+    void jobExpiresAfterTtl() throws Exception {
+        SummaryJob job = service.start("alice", START, END, List.of());
+        awaitFinished(job);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(599));
+        assertTrue(service.find("alice", job.getId()).isPresent());
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertTrue(service.find("alice", job.getId()).isEmpty());
+    }
+
+    private static void awaitFinished(SummaryJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.getStatus() == SummaryJob.Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.getStatus() != SummaryJob.Status.RUNNING, "任务应在后台结束");
+    }
+}
@@ -0,0 +1,125 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.zhzssp.memorandum.feature.insight.service.AiSummaryService.Summary;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订阅时补发已有内容：晚连接或重连的浏览器看到与全程在线相同的文本。
+ */
+class SummaryJobTest {
+
+    @Test
+    void lateSubscriberReceivesBufferedTextThenLiveDeltas() {
+        SummaryJob job = new SummaryJob("job-1", "alice", "本地总结");
+        job.append("第一段，");
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        job.subscribe(emitter);
+        job.append("第二段。");
+        job.complete(new Summary("第一段，第二段。", true));
+
+        assertEquals(List.of(
+                "fallback:{text=本地总结}",
+                "delta:{text=第一段，}",
+                "delta:{text=第二段。}",
+                "done:{status=COMPLETED, text=第一段，第二段。}"
+        ), emitter.events);
+        assertTrue(emitter.completed);
+        assertEquals(SummaryJob.Status.COMPLETED, job.getStatus());
+    }
+
+    @Test
+    void subscribingToFinishedJobReplaysEverythingAndCloses() {
+        SummaryJob job = new SummaryJob("job-2", "alice", "本地总结");
+        job.append("片段");
+        job.complete(new Summary("本地总结（回退）", false));
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        job.subscribe(emitter);
+
+        assertEquals(List.of(
+                "fallback:{text=本地总结}",
+                "delta:{text=片段}",
+                "done:{status=FALLBACK, text=本地总结（回退）}"
+        ), emitter.events);
+        assertTrue(emitter.completed);
+    }
+
+    /** 慢连接发送时不持有任务的锁：状态查询与新的订阅不会被阻塞，新订阅也不会重复收到片段 */
+    @Test
+    void slowSubscriberDoesNotBlockJob() throws Exception {
+        SummaryJob job = new SummaryJob("job-3", "alice", "本地总结");
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                if (!events.isEmpty()) {
+                    // 补发之后的片段卡住，模拟读取很慢的浏览器
+                    sending.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.send(builder);
+            }
+        };
+        job.subscribe(slow);
+        Thread appender = Thread.ofVirtual().start(() -> job.append("片段"));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        RecordingEmitter late = new RecordingEmitter();
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            assertEquals(SummaryJob.Status.RUNNING, job.getStatus());
+            job.subscribe(late);
+        });
+        assertEquals(List.of("fallback:{text=本地总结}", "delta:{text=片段}"), late.events);
+
+        release.countDown();
+        appender.join();
+        assertEquals(List.of("fallback:{text=本地总结}", "delta:{text=片段}"), slow.events);
+    }
+
+    /** 记录发送的事件（事件名:数据），不连接真实的 HTTP 响应 */
+    static class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new ArrayList<>();
+        boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            String name = null;
+            Object data = null;
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String s && s.startsWith("event:")) {
+                    name = s.substring("event:".length(), s.indexOf('\n'));
+                } else if (part.getData() instanceof Map<?, ?> map) {
+                    // Map.of 的遍历顺序不固定，按键排序后比较
+                    data = new TreeMap<>(map);
+                }
+            }
+            events.add(name + ":" + data);
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import org.junit.jupiter.api.Test;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SummaryPromptBuilderTest {
+
+    private static final LocalDate BASE = LocalDate.of(2024, 1, 1);
+    private static final int BUDGET = 6000;
+
+    @Test
+    void shortRangeKeepsOneLinePerDay() {
+        List<DailyScore> scores = series(14, new Random(1));
+
+        String prompt = SummaryPromptBuilder.build(BASE, BASE.plusDays(13), scores, "规则总结", BUDGET);
+
+        for (DailyScore d : scores) {
+            assertTrue(prompt.contains(d.getDate() + ": totalScore=" + d.getTotalScore()));
+        }
+        assertFalse(prompt.contains("【整体】"));
+    }
+
+    /** 区间从 1 年增长到 10 年，Prompt 长度不随天数线性增长，并且始终不超过预算 */
+    @Test
+    void longRangeIsCompactedWithinBudget() {
+        Random random = new Random(7);
+        String year = SummaryPromptBuilder.build(BASE, BASE.plusDays(364), series(365, random), "规则总结", BUDGET);
+        String decade = SummaryPromptBuilder.build(BASE, BASE.plusDays(3649), series(3650, random), "规则总结", BUDGET);
+
+        assertTrue(year.contains("【整体】"));
+        assertTrue(year.contains("【星期画像】"));
+        assertTrue(year.contains("【最高的几天】"));
+        assertTrue(year.contains("【分段聚合"));
+        assertTrue(year.length() <= BUDGET, "length=" + year.length());
+        assertTrue(decade.length() <= BUDGET, "length=" + decade.length());
+        assertTrue(decade.length() < year.length() * 2, year.length() + " -> " + decade.length());
+        assertTrue(decade.length() < SummaryPromptBuilder.buildRaw(BASE, BASE.plusDays(3649),
+                series(3650, random), "规则总结").length() / 20);
+    }
+
+    @Test
+    void tightBudgetDropsLowPrioritySectionsFirst() {
+        List<DailyScore> scores = series(365, new Random(3));
+        String header = SummaryPromptBuilder.buildCompact(BASE, BASE.plusDays(364), List.of(), "规则总结", 0);
+
+        String prompt = SummaryPromptBuilder.build(BASE, BASE.plusDays(364), scores, "规则总结", header.length() + 400);
+
+        assertTrue(prompt.length() <= header.length() + 400);
+        assertTrue(prompt.contains("【整体】"));
+        assertFalse(prompt.contains("【分段聚合"));
+    }
+
+    @Test
+    void detectsLevelShift() {
+        List<DailyScore> scores = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            scores.add(day(BASE.plusDays(i), i < 60 ? 40 : 80));
+        }
+
+        List<SummaryPromptBuilder.ChangePoint> points = SummaryPromptBuilder.detectChangePoints(scores);
+
+        assertEquals(1, points.size());
+        assertEquals(BASE.plusDays(60), points.get(0).date());
+        assertEquals(40.0, points.get(0).before(), 1e-9);
+        assertEquals(80.0, points.get(0).after(), 1e-9);
+    }
+
+    static List<DailyScore> series(int days, Random random) {
+        List<DailyScore> scores = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            LocalDate date = BASE.plusDays(i);
+            int level = (i / 90) % 2 == 0 ? 55 : 75;
+            scores.add(day(date, Math.max(0, Math.min(100, level + random.nextInt(21) - 10))));
+        }
+        return scores;
+    }
+
+    private static DailyScore day(LocalDate date, int totalScore) {
+        DailyScore d = new DailyScore();
+        d.setDate(date);
+        d.setTotalScore(totalScore);
+        d.setPlannedTasks(4);
+        d.setCompletedTasks(totalScore / 25);
+        d.setNoteCount(totalScore % 3);
+        d.setWeightedTaskCompletionRate(totalScore / 100.0);
+        d.setAvgGoalProgress(0.5);
+        return d;
+    }
+}
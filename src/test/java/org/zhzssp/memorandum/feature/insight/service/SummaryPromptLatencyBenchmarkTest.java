@@ -0,0 +1,50 @@
+package org.zhzssp.memorandum.feature.insight.service;
+
+import com.google.genai.Client;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.zhzssp.memorandum.feature.insight.service.InsightScoreService.DailyScore;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 基准：逐日原始 Prompt 与压缩 Prompt 在真实 Gemini 上的端到端耗时，随区间长度变化。
+ * 需要环境变量 GEMINI_API_KEY（会消耗调用配额），未配置时跳过；只打印不断言。
+ * 默认不随 test 运行：./gradlew benchmarkTest
+ */
+@Tag("benchmark")
+class SummaryPromptLatencyBenchmarkTest {
+
+    private static final String MODEL = "gemini-2.5-flash";
+    private static final int[] RANGES = {14, 90, 365, 1825};
+
+    @Test
+    void compareEndToEndLatency() {
+        String apiKey = System.getenv("GEMINI_API_KEY");
+        assumeTrue(apiKey != null && !apiKey.isBlank(), "GEMINI_API_KEY 未配置");
+        Client client = Client.builder().apiKey(apiKey).build();
+
+        for (int days : RANGES) {
+            List<DailyScore> scores = SummaryPromptBuilderTest.series(days, new Random(days));
+            LocalDate start = scores.get(0).getDate();
+            LocalDate end = scores.get(days - 1).getDate();
+            String raw = SummaryPromptBuilder.buildRaw(start, end, scores, "规则总结");
+            String compact = SummaryPromptBuilder.build(start, end, scores, "规则总结", 6000);
+
+            long rawMillis = timeMillis(client, raw);
+            long compactMillis = timeMillis(client, compact);
+            System.out.printf("summary prompt (%d days): raw=%d chars / %d ms, compact=%d chars / %d ms%n",
+                    days, raw.length(), rawMillis, compact.length(), compactMillis);
+        }
+    }
+
+    private static long timeMillis(Client client, String prompt) {
+        long begin = System.nanoTime();
+        client.models.generateContent(MODEL, prompt, null);
+        return (System.nanoTime() - begin) / 1_000_000;
+    }
+}
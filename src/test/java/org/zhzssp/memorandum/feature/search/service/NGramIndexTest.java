@@ -0,0 +1,125 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import org.junit.jupiter.api.Test;
+import org.zhzssp.memorandum.feature.search.service.NGramIndex.DocType;
+import org.zhzssp.memorandum.feature.search.service.NGramIndex.Hit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NGramIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    @Test
+    void matchesChineseSubstringsLikeLikeQuery() {
+        NGramIndex index = new NGramIndex();
+        index.upsert(DocType.TASK, 1L, "准备季度汇报", "整理销售数据", NOW);
+        index.upsert(DocType.TASK, 2L, "汇总报销单", "季度末提交", NOW);
+        index.upsert(DocType.TASK, 3L, "读书", null, null);
+
+        assertEquals(List.of(1L), ids(index.search(DocType.TASK, "季度汇报", null)));
+        // 「报」「汇」都出现在文档 2 中但不相邻，不能算命中
+        assertEquals(List.of(), ids(index.search(DocType.TASK, "报汇", null)));
+        assertEquals(List.of(3L), ids(index.search(DocType.TASK, "书", null)));
+        assertEquals(List.of(), ids(index.search(DocType.NOTE, "读书", null)));
+    }
+
+    @Test
+    void ranksTitleHitsAboveBodyHits() {
+        NGramIndex index = new NGramIndex();
+        index.upsert(DocType.NOTE, 1L, "周末计划", "复盘上周的 Spring 学习", null);
+        index.upsert(DocType.NOTE, 2L, "Spring Boot 笔记", "自动配置", null);
+        index.upsert(DocType.NOTE, 3L, "学习 spring 事件", "", null);
+
+        // 大小写与全角字符归一化后匹配；标题开头 > 标题中间 > 正文
+        assertEquals(List.of(2L, 3L, 1L), ids(index.search(DocType.NOTE, "ＳＰＲＩＮＧ", null)));
+        // 多个词需同时命中
+        assertEquals(List.of(1L), ids(index.search(DocType.NOTE, "spring 复盘", null)));
+    }
+
+    @Test
+    void upsertReplacesAndRemoveDeletes() {
+        NGramIndex index = new NGramIndex();
+        index.upsert(DocType.TASK, 1L, "写周报", null, NOW);
+        index.upsert(DocType.TASK, 1L, "写月报", null, NOW);
+
+        assertEquals(List.of(), ids(index.search(DocType.TASK, "周报", null)));
+        assertEquals(List.of(1L), ids(index.search(DocType.TASK, "月报", null)));
+
+        index.remove(DocType.TASK, 1L);
+        assertEquals(List.of(), ids(index.search(DocType.TASK, "月报", null)));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void deadlineFilterAndTieBreakFollowDeadlineDesc() {
+        NGramIndex index = new NGramIndex();
+        index.upsert(DocType.TASK, 1L, "跑步", null, NOW.minusDays(2));
+        index.upsert(DocType.TASK, 2L, "跑步", null, NOW);
+        index.upsert(DocType.TASK, 3L, "跑步", null, null);
+
+        assertEquals(List.of(2L, 1L, 3L), ids(index.search(DocType.TASK, "跑步", null)));
+        assertEquals(List.of(2L), ids(index.search(DocType.TASK, "跑步",
+                d -> d != null && !d.isBefore(NOW.minusDays(1)))));
+    }
+
+    /** 限定条数时的结果等于全部命中排序后的前缀 */
+    @Test
+    void limitedSearchReturnsTopOfFullRanking() {
+        Random random = new Random(5);
+        NGramIndex index = new NGramIndex();
+        for (long id = 0; id < 300; id++) {
+            String title = random.nextBoolean() ? "复盘计划" : "计划复盘";
+            String body = "复盘".repeat(random.nextInt(4));
+            index.upsert(DocType.NOTE, id, title, body, null);
+        }
+        List<Hit> all = index.search(DocType.NOTE, "复盘", null);
+
+        assertEquals(300, all.size());
+        assertEquals(all.subList(0, 10), index.search(DocType.NOTE, "复盘", null, 10));
+        assertEquals(all, index.search(DocType.NOTE, "复盘", null, 1000));
+        assertTrue(index.search(DocType.NOTE, "复盘", null, 0).isEmpty());
+    }
+
+    /** 大量更新触发重建后，结果与逐条子串匹配一致 */
+    @Test
+    void matchesBruteForceAfterCompaction() {
+        String alphabet = "计划任务目标学习复盘笔记整理周报";
+        Random random = new Random(11);
+        NGramIndex index = new NGramIndex();
+        String[] titles = new String[500];
+        for (int round = 0; round < 8; round++) {
+            for (int id = 0; id < titles.length; id++) {
+                StringBuilder sb = new StringBuilder();
+                for (int k = 0; k < 6; k++) {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                titles[id] = sb.toString();
+                index.upsert(DocType.TASK, id, titles[id], null, null);
+            }
+        }
+        for (String query : List.of("计划", "复盘笔", "周", "标学习")) {
+            List<Long> expected = new ArrayList<>();
+            for (int id = 0; id < titles.length; id++) {
+                if (titles[id].contains(query)) {
+                    expected.add((long) id);
+                }
+            }
+            List<Long> actual = new ArrayList<>(ids(index.search(DocType.TASK, query, null)));
+            actual.sort(null);
+            assertEquals(expected, actual, query);
+        }
+        assertEquals(titles.length, index.size());
+        assertTrue(index.search(DocType.TASK, "   ", null).isEmpty());
+    }
+
+    private static List<Long> ids(List<Hit> hits) {
+        return hits.stream().map(Hit::id).toList();
+    }
+}
@@ -0,0 +1,154 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.feature.search.dto.RelatedItemsDto;
+import org.zhzssp.memorandum.feature.search.service.RelatedItemsService.Reached;
+import org.zhzssp.memorandum.feature.search.service.RelatedItemsService.Traversal;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.service.LinkGraph;
+import org.zhzssp.memorandum.service.LinkGraphService;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.zhzssp.memorandum.feature.search.service.SearchFixtures.user;
+
+class RelatedItemsServiceTest {
+
+    private static final long FAR_DEADLINE = Long.MAX_VALUE;
+
+    private static long task(long id) {
+        return LinkGraph.node(Link.LinkTargetType.TASK, id);
+    }
+
+    private static long note(long id) {
+        return LinkGraph.node(Link.LinkTargetType.NOTE, id);
+    }
+
+    private static long goal(long id) {
+        return LinkGraph.node(Link.LinkTargetType.GOAL, id);
+    }
+
+    /** T1 与 T2 同时关联 G1 和 N1，T3 只关联 G1：从 T1 出发，T2 有两条两跳路径，排在最前 */
+    private static LinkGraph diamond() {
+        LinkGraph graph = new LinkGraph();
+        graph.addEdge(task(1), goal(1));
+        graph.addEdge(task(1), note(1));
+        graph.addEdge(task(2), goal(1));
+        graph.addEdge(note(1), task(2));
+        graph.addEdge(task(3), goal(1));
+        return graph;
+    }
+
+    @Test
+    void countsShortestPathsAcrossBothEdgeDirections() {
+        Traversal traversal = RelatedItemsService.traverse(diamond(), task(1), 2, 100, FAR_DEADLINE);
+
+        List<Reached> ranked = traversal.reached().stream().sorted(RelatedItemsService.RANKING).toList();
+        assertEquals(List.of(
+                new Reached(task(2), 2, 2),
+                new Reached(note(1), 1, 1),
+                new Reached(goal(1), 1, 1),
+                new Reached(task(3), 2, 1)
+        ), ranked);
+        assertEquals(false, traversal.truncated());
+    }
+
+    @Test
+    void stopsAtMaxHops() {
+        Traversal traversal = RelatedItemsService.traverse(diamond(), task(1), 1, 100, FAR_DEADLINE);
+        assertEquals(2, traversal.reached().size());
+        assertTrue(traversal.reached().stream().allMatch(r -> r.hops() == 1));
+    }
+
+    @Test
+    void stopsAtNodeBudget() {
+        LinkGraph graph = new LinkGraph();
+        for (long id = 1; id <= 1000; id++) {
+            graph.addEdge(task(id), goal(1));
+        }
+        Traversal traversal = RelatedItemsService.traverse(graph, goal(1), 3, 50, FAR_DEADLINE);
+        assertEquals(50, traversal.reached().size());
+        assertTrue(traversal.truncated());
+    }
+
+    @Test
+    void stopsAtTimeBudget() {
+        Traversal traversal = RelatedItemsService.traverse(diamond(), task(1), 2, 100, System.nanoTime() - 1);
+        assertTrue(traversal.reached().isEmpty());
+        assertTrue(traversal.truncated());
+    }
+
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    private final NoteRepository noteRepository = mock(NoteRepository.class);
+    private final GoalRepository goalRepository = mock(GoalRepository.class);
+    private final LinkGraphService linkGraphService = mock(LinkGraphService.class);
+
+    private RelatedItemsService newService() {
+        RelatedItemsService service = new RelatedItemsService();
+        ReflectionTestUtils.setField(service, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(service, "noteRepository", noteRepository);
+        ReflectionTestUtils.setField(service, "goalRepository", goalRepository);
+        ReflectionTestUtils.setField(service, "linkGraphService", linkGraphService);
+        ReflectionTestUtils.setField(service, "maxNodes", 100);
+        ReflectionTestUtils.setField(service, "timeoutMillis", 1000L);
+        return service;
+    }
+
+    /** 排名靠前的条目不属于该用户时被过滤，由后续候选补足 k 条 */
+    @Test
+    void refillsTopKAfterOwnershipFilter() {
+        User user = user(1L);
+        User other = user(2L);
+        RelatedItemsService service = newService();
+
+        when(linkGraphService.graphFor(user)).thenReturn(diamond());
+        when(taskRepository.findById(1L)).thenReturn(Optional.of(SearchFixtures.task(1L, user)));
+        // 排名第一的 T2 属于其他用户
+        when(taskRepository.findAllById(anyIterable()))
+                .thenReturn(List.of(SearchFixtures.task(2L, other), SearchFixtures.task(3L, user)));
+        when(noteRepository.findAllById(anyIterable())).thenReturn(List.of(SearchFixtures.note(1L, user)));
+        when(goalRepository.findAllById(anyIterable())).thenReturn(List.of(SearchFixtures.goal(1L, user)));
+
+        RelatedItemsDto result = service.related(user, Link.LinkTargetType.TASK, 1L, 2, 2);
+
+        assertEquals(List.of("NOTE:1", "GOAL:1"),
+                result.items().stream().map(i -> i.type() + ":" + i.id()).toList());
+        assertFalse(result.truncated());
+    }
+
+    /** 候选全被归属过滤时最多检查 MAX_TITLE_BATCHES×k 个，补不足 k 条则标记 truncated */
+    @Test
+    void stopsRefillingAfterBatchLimit() {
+        User user = user(1L);
+        User other = user(2L);
+        RelatedItemsService service = newService();
+        LinkGraph graph = new LinkGraph();
+        for (long id = 1; id <= 20; id++) {
+            graph.addEdge(task(id), goal(1));
+        }
+
+        when(linkGraphService.graphFor(user)).thenReturn(graph);
+        when(goalRepository.findById(1L)).thenReturn(Optional.of(SearchFixtures.goal(1L, user)));
+        when(taskRepository.findAllById(anyIterable())).thenReturn(List.of(SearchFixtures.task(1L, other)));
+
+        RelatedItemsDto result = service.related(user, Link.LinkTargetType.GOAL, 1L, 1, 2);
+
+        assertTrue(result.items().isEmpty());
+        assertTrue(result.truncated());
+        verify(taskRepository, times(RelatedItemsService.MAX_TITLE_BATCHES)).findAllById(anyIterable());
+    }
+}
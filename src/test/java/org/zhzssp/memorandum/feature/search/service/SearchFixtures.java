@@ -0,0 +1,49 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+
+/**
+ * 检索插件测试共用的实体构造：只填 ID、标题与归属用户，标题带 ID 便于断言。
+ */
+final class SearchFixtures {
+
+    private SearchFixtures() {
+    }
+
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    static Task task(long id, User owner) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle("任务" + id);
+        task.setUser(owner);
+        return task;
+    }
+
+    static Note note(long id, User owner) {
+        Note note = new Note();
+        note.setId(id);
+        note.setTitle("笔记" + id);
+        note.setUser(owner);
+        return note;
+    }
+
+    static Goal goal(long id, User owner) {
+        return goal(id, owner, "目标" + id);
+    }
+
+    static Goal goal(long id, User owner, String name) {
+        Goal goal = new Goal();
+        goal.setId(id);
+        goal.setName(name);
+        goal.setUser(owner);
+        return goal;
+    }
+}
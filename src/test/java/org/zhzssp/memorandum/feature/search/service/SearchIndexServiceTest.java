@@ -0,0 +1,141 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.zhzssp.memorandum.core.service.TaskSearchCursor;
+import org.zhzssp.memorandum.core.service.TaskService.TaskPage;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SearchIndexServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 9, 0);
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @InjectMocks
+    private SearchIndexService searchIndexService;
+
+    private final User user = new User();
+
+    private final List<Task> tasks = new ArrayList<>();
+
+    /** 每次按主键加载的 id 数 */
+    private final List<Integer> loadSizes = new ArrayList<>();
+
+    private final Set<Long> deleted = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(searchIndexService, "maxUsers", 10L);
+        searchIndexService.initCache();
+        user.setId(1L);
+
+        // 截止时间有重复，最后三条没有截止时间
+        LocalDateTime[] deadlines = {NOW, NOW.plusDays(2), NOW, NOW.minusDays(1), null, NOW.plusDays(2), null,
+                NOW.plusHours(3), NOW.minusDays(1), null};
+        for (int i = 0; i < deadlines.length; i++) {
+            tasks.add(task(i + 1L, "复习第" + i + "章", deadlines[i]));
+        }
+        tasks.add(task(100L, "买菜", NOW));
+        when(taskRepository.findByUser(user)).thenReturn(tasks);
+        when(noteRepository.findByUser(user)).thenReturn(List.of());
+        when(taskRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Collection<Long> ids = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(ids::add);
+            loadSizes.add(ids.size());
+            return tasks.stream().filter(t -> ids.contains(t.getId()) && !deleted.contains(t.getId())).toList();
+        });
+    }
+
+    /** 逐页翻完与整体按分页顺序排序一致（无截止时间的排在最后），每页只加载该页的任务 */
+    @Test
+    void pagesFollowPageOrderAndLoadOnlyPageIds() {
+        List<Long> expected = tasks.stream()
+                .filter(t -> t.getTitle().startsWith("复习"))
+                .sorted(TaskSearchCursor.pageOrder(Task::getDeadline, Task::getId))
+                .map(Task::getId)
+                .toList();
+        assertEquals(List.of(10L, 7L, 5L), expected.subList(expected.size() - 3, expected.size()));
+
+        List<Long> paged = new ArrayList<>();
+        TaskSearchCursor cursor = null;
+        int pages = 0;
+        do {
+            TaskPage page = searchIndexService.searchTasksPage(user, "复习", null, null, cursor, 3);
+            page.tasks().forEach(t -> paged.add(t.getId()));
+            // 游标经字符串往返后继续翻页
+            cursor = page.next() != null ? TaskSearchCursor.decode(page.next().encode()) : null;
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, paged);
+        assertEquals(4, pages);
+        assertTrue(loadSizes.stream().allMatch(n -> n <= 3), loadSizes.toString());
+    }
+
+    /** 本页最后一条已被并发删除时跳过该条，游标仍取自索引命中，下一页不重复也不遗漏 */
+    @Test
+    void deletedRowDoesNotBreakCursor() {
+        TaskPage first = searchIndexService.searchTasksPage(user, "复习", null, null, null, 2);
+        assertEquals(List.of(6L, 2L), first.tasks().stream().map(Task::getId).toList());
+
+        deleted.add(8L);
+        TaskPage second = searchIndexService.searchTasksPage(user, "复习", null, null, first.next(), 2);
+        assertEquals(List.of(3L), second.tasks().stream().map(Task::getId).toList());
+        assertEquals(new TaskSearchCursor(NOW, 3L), second.next());
+
+        TaskPage third = searchIndexService.searchTasksPage(user, "复习", null, null, second.next(), 2);
+        assertEquals(List.of(1L, 9L), third.tasks().stream().map(Task::getId).toList());
+    }
+
+    /** 截止时间范围过滤掉无截止时间的任务，最后一页没有游标 */
+    @Test
+    void deadlineRangeExcludesTailAndLastPageHasNoCursor() {
+        TaskPage page = searchIndexService.searchTasksPage(user, "复习", NOW, NOW.plusDays(1), null, 10);
+
+        assertEquals(List.of(8L, 3L, 1L), page.tasks().stream().map(Task::getId).toList());
+        assertNull(page.next());
+
+        TaskPage empty = searchIndexService.searchTasksPage(user, "复习", NOW, NOW.plusDays(1),
+                new TaskSearchCursor(NOW, 1L), 10);
+        assertTrue(empty.tasks().isEmpty());
+        assertNull(empty.next());
+        assertNotNull(searchIndexService.searchTasksPage(user, "复习", null, null, null, 1).next());
+    }
+
+    private Task task(long id, String title, LocalDateTime deadline) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle(title);
+        task.setDeadline(deadline);
+        task.setUser(user);
+        return task;
+    }
+}
@@ -0,0 +1,153 @@
+package org.zhzssp.memorandum.feature.search.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.feature.search.dto.UnifiedSearchResultDto;
+import org.zhzssp.memorandum.feature.search.service.NGramIndex.DocType;
+import org.zhzssp.memorandum.feature.search.service.NGramIndex.Hit;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.service.LinkGraph;
+import org.zhzssp.memorandum.service.LinkGraphService;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.zhzssp.memorandum.feature.search.service.SearchFixtures.goal;
+import static org.zhzssp.memorandum.feature.search.service.SearchFixtures.note;
+import static org.zhzssp.memorandum.feature.search.service.SearchFixtures.task;
+import static org.zhzssp.memorandum.feature.search.service.SearchFixtures.user;
+
+@ExtendWith(MockitoExtension.class)
+class UnifiedSearchServiceTest {
+
+    private static final String KEYWORD = "复习";
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    @Mock
+    private GoalRepository goalRepository;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private LinkGraphService linkGraphService;
+
+    @InjectMocks
+    private UnifiedSearchService unifiedSearchService;
+
+    private final User user = user(1L);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(unifiedSearchService, "timeoutMillis", 2000L);
+        ReflectionTestUtils.setField(unifiedSearchService, "maxRelated", 5);
+    }
+
+    /** 任务、笔记、目标三路结果按同一分数合并，只保留总的前 k 条 */
+    @Test
+    void mergesRankingAcrossTaskNoteAndGoal() {
+        Goal goal = goal(30L, user, "复习计划");
+        double goalScore = NGramIndex.score(NGramIndex.normalize(goal.getName()), "", NGramIndex.terms(KEYWORD));
+        assertTrue(goalScore > 0);
+
+        when(searchIndexService.topHits(user, DocType.TASK, KEYWORD, 3)).thenReturn(List.of(
+                new Hit(DocType.TASK, 10L, goalScore + 1, null),
+                new Hit(DocType.TASK, 11L, goalScore - 0.5, null)));
+        when(searchIndexService.topHits(user, DocType.NOTE, KEYWORD, 3)).thenReturn(List.of(
+                new Hit(DocType.NOTE, 20L, goalScore + 0.5, null)));
+        when(goalRepository.findByUserAndArchivedAtIsNull(user)).thenReturn(List.of(goal));
+        when(linkGraphService.graphFor(user)).thenReturn(new LinkGraph());
+        when(taskRepository.findAllById(anyIterable())).thenReturn(List.of(task(10L, user)));
+        when(noteRepository.findAllById(anyIterable())).thenReturn(List.of(note(20L, user)));
+        when(goalRepository.findAllById(anyIterable())).thenReturn(List.of(goal));
+
+        UnifiedSearchResultDto result = unifiedSearchService.search(user, KEYWORD, 3);
+
+        assertEquals(List.of("TASK:10", "NOTE:20", "GOAL:30"),
+                result.items().stream().map(i -> i.type() + ":" + i.id()).toList());
+        assertFalse(result.partial());
+        assertNull(result.missing());
+    }
+
+    /** 超过截止时间的部分不等待：列入 missing，结果标记 partial，关联条目也不再加载 */
+    @Test
+    void slowPartIsReportedMissingAndRelatedIsSkipped() throws Exception {
+        ReflectionTestUtils.setField(unifiedSearchService, "timeoutMillis", 100L);
+        CountDownLatch release = new CountDownLatch(1);
+        when(searchIndexService.topHits(user, DocType.TASK, KEYWORD, 10)).thenReturn(List.of(
+                new Hit(DocType.TASK, 10L, 1.0, null)));
+        when(searchIndexService.topHits(user, DocType.NOTE, KEYWORD, 10)).thenAnswer(invocation -> {
+            release.await();
+            return List.of(new Hit(DocType.NOTE, 20L, 2.0, null));
+        });
+        when(taskRepository.findAllById(anyIterable())).thenReturn(List.of(task(10L, user)));
+
+        try {
+            UnifiedSearchResultDto result = unifiedSearchService.search(user, KEYWORD, 10);
+
+            assertTrue(result.partial());
+            assertEquals(List.of("NOTE", "RELATED"), result.missing());
+            assertEquals(List.of(10L), result.items().stream().map(UnifiedSearchResultDto.Item::id).toList());
+            assertTrue(result.items().get(0).related().isEmpty());
+            verify(linkGraphService, never()).graphFor(any());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /** 关系图中指向其他用户数据（或已删除数据）的链接不出现在关联条目里 */
+    @Test
+    void relatedItemsExcludeOtherUsersData() {
+        User other = user(2L);
+        long hitNode = LinkGraph.node(Link.LinkTargetType.TASK, 10L);
+        LinkGraph graph = new LinkGraph();
+        graph.addEdge(hitNode, LinkGraph.node(Link.LinkTargetType.GOAL, 30L));
+        graph.addEdge(hitNode, LinkGraph.node(Link.LinkTargetType.NOTE, 21L));
+        graph.addEdge(LinkGraph.node(Link.LinkTargetType.NOTE, 20L), hitNode);
+        graph.addEdge(LinkGraph.node(Link.LinkTargetType.NOTE, 22L), hitNode);
+
+        when(searchIndexService.topHits(user, DocType.TASK, KEYWORD, 10)).thenReturn(List.of(
+                new Hit(DocType.TASK, 10L, 1.0, null)));
+        when(searchIndexService.topHits(user, DocType.NOTE, KEYWORD, 10)).thenReturn(List.of());
+        when(linkGraphService.graphFor(user)).thenReturn(graph);
+        when(taskRepository.findAllById(anyIterable())).thenReturn(List.of(task(10L, user)));
+        // 21 属于其他用户，22 已不存在
+        when(noteRepository.findAllById(anyIterable())).thenReturn(List.of(note(20L, user), note(21L, other)));
+        when(goalRepository.findAllById(anyIterable())).thenReturn(List.of(goal(30L, user, "目标")));
+
+        UnifiedSearchResultDto result = unifiedSearchService.search(user, KEYWORD, 10);
+
+        assertEquals(1, result.items().size());
+        Set<String> related = result.items().get(0).related().stream()
+                .map(r -> r.type() + ":" + r.id())
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("GOAL:30", "NOTE:20"), related);
+        assertFalse(result.partial());
+    }
+}
@@ -0,0 +1,27 @@
+package org.zhzssp.memorandum.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FulltextQueryTest {
+
+    @Test
+    void everyTermIsRequiredAsPhrase() {
+        assertEquals("+\"复习\" +\"数学作业\"", FulltextQuery.booleanQuery("  复习 数学作业 复习 "));
+    }
+
+    @Test
+    void shortTermFallsBackToPrefix() {
+        assertEquals("+书* +\"周报\"", FulltextQuery.booleanQuery("书 周报"));
+    }
+
+    @Test
+    void operatorsAreStripped() {
+        assertEquals("+\"ab\"", FulltextQuery.booleanQuery("-a\"b"));
+        assertEquals("+\"报告\"", FulltextQuery.booleanQuery("+(报告)* ~"));
+        assertNull(FulltextQuery.booleanQuery("+ - ()"));
+        assertNull(FulltextQuery.booleanQuery(null));
+    }
+}
@@ -0,0 +1,138 @@
+package org.zhzssp.memorandum.mapper;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * 基准：50 万行 memo 上 TaskMapper.searchTasks（LIKE）与 searchTasksFulltext（ngram 全文索引）的查询耗时。
+ * 需要可用的 MySQL 且已执行 V7 迁移，默认不随 test 运行：./gradlew benchmarkTest
+ * 只打印耗时与命中数；两者语义接近但不完全相同（全文索引按 ngram 分词），命中数仅供对照。
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TaskSearchFulltextBenchmarkTest {
+
+    private static final int ROWS = 500_000;
+    private static final int BATCH = 5_000;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 10;
+
+    /** 常见词、少见词、多词组合与只配合日期条件的查询 */
+    private static final String[] KEYWORDS = {"复习", "季度预算", "整理 周报", "不存在的词"};
+
+    private static final String[] WORDS = {
+            "复习", "数学", "作业", "整理", "周报", "会议", "准备", "材料", "阅读", "论文",
+            "健身", "跑步", "购买", "日用品", "联系", "客户", "提交", "报销", "修复", "缺陷",
+            "学习", "英语", "单词", "计划", "旅行", "预订", "机票", "回顾", "项目", "进度"
+    };
+
+    @Autowired
+    private TaskMapper taskMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeAll
+    void seed() {
+        user = new User();
+        user.setUsername("bench-fulltext-" + System.nanoTime());
+        user.setPassword("-");
+        user = userRepository.save(user);
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        for (int i = 0; i < ROWS; i++) {
+            // 少见词只出现在约 0.1% 的行中
+            String title = random.nextInt(1000) == 0 ? "季度预算" + word(random) : word(random) + word(random);
+            String description = word(random) + word(random) + word(random) + " #" + i;
+            rows.add(new Object[]{title, description, Timestamp.valueOf(now.plusDays(random.nextInt(730) - 365)),
+                    "PENDING", user.getId()});
+            if (rows.size() == BATCH) {
+                insert(rows);
+            }
+        }
+        insert(rows);
+        jdbcTemplate.execute("ANALYZE TABLE memo");
+    }
+
+    @AfterAll
+    void cleanup() {
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM memo WHERE user_id = ? LIMIT 10000", user.getId());
+        } while (deleted > 0);
+        userRepository.delete(user);
+    }
+
+    @Test
+    void compareLikeAndFulltext() {
+        LocalDateTime start = LocalDate.now().minusDays(30).atStartOfDay();
+        LocalDateTime end = LocalDate.now().atTime(23, 59, 59);
+        for (String keyword : KEYWORDS) {
+            String query = FulltextQuery.booleanQuery(keyword);
+            report(keyword, "all dates",
+                    () -> taskMapper.searchTasks(user.getId(), keyword, null, null),
+                    () -> taskMapper.searchTasksFulltext(user.getId(), query, null, null));
+            report(keyword, "30 days",
+                    () -> taskMapper.searchTasks(user.getId(), keyword, start, end),
+                    () -> taskMapper.searchTasksFulltext(user.getId(), query, start, end));
+        }
+    }
+
+    private void report(String keyword, String range, Supplier<List<Task>> like, Supplier<List<Task>> fulltext) {
+        int likeHits = like.get().size();
+        int fulltextHits = fulltext.get().size();
+        double likeMillis = measure(like);
+        double fulltextMillis = measure(fulltext);
+        System.out.printf("task search \"%s\" (%s, %d rows): like=%.2f ms / %d hits, fulltext=%.2f ms / %d hits, speedup=%.2fx%n",
+                keyword, range, ROWS, likeMillis, likeHits, fulltextMillis, fulltextHits, likeMillis / fulltextMillis);
+    }
+
+    private void insert(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO memo (title, description, deadline, status, user_id) VALUES (?, ?, ?, ?, ?)",
+                rows);
+        rows.clear();
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static double measure(Supplier<List<Task>> search) {
+        for (int i = 0; i < WARMUP; i++) {
+            search.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            search.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+}
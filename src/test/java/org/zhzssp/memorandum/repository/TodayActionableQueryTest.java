@@ -0,0 +1,124 @@
+package org.zhzssp.memorandum.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.zhzssp.memorandum.core.service.TaskService;
+import org.zhzssp.memorandum.entity.EnergyLevel;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.entity.TimeSlot;
+import org.zhzssp.memorandum.entity.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * TaskRepository#findTodayActionable 与下推前的内存实现（全部任务 → 过滤 PENDING 与今日 → 按时间段/精力稳定排序）
+ * 在同一组数据上结果与顺序完全一致。数据覆盖时间段、精力、状态的全部取值（含 NULL），
+ * 以及当天 00:00、次日 00:00 等边界截止时间。需要可用的 MySQL，默认不随 test 运行：./gradlew benchmarkTest
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TodayActionableQueryTest {
+
+    /** 固定日期，结果不随运行日期变化 */
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 1);
+
+    /** 无截止时间、当天的三个时刻（含 00:00 与最后一微秒），以及前一天最后一微秒、次日 00:00、一周后 */
+    private static final List<LocalDateTime> DEADLINES = Arrays.asList(
+            null,
+            DAY.atStartOfDay(),
+            DAY.atTime(12, 0),
+            DAY.plusDays(1).atStartOfDay().minusNanos(1000),
+            DAY.atStartOfDay().minusNanos(1000),
+            DAY.plusDays(1).atStartOfDay(),
+            DAY.plusDays(7).atTime(9, 0)
+    );
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeAll
+    void seed() {
+        user = new User();
+        user.setUsername("today-actionable-" + System.nanoTime());
+        user.setPassword("-");
+        user = userRepository.save(user);
+
+        List<Task> tasks = new ArrayList<>();
+        for (TimeSlot slot : withNull(TimeSlot.values())) {
+            for (EnergyLevel energy : withNull(EnergyLevel.values())) {
+                for (TaskStatus status : withNull(TaskStatus.values())) {
+                    for (LocalDateTime deadline : DEADLINES) {
+                        Task t = new Task();
+                        t.setTitle(slot + "/" + energy + "/" + status);
+                        t.setUser(user);
+                        t.setPreferredSlot(slot);
+                        t.setEnergyRequirement(energy);
+                        t.setStatus(status);
+                        t.setDeadline(deadline);
+                        tasks.add(t);
+                    }
+                }
+            }
+        }
+        // 打乱插入顺序，使 ID 顺序与排序键无关，ID 作为最后的排序键才会被真正检验
+        Collections.shuffle(tasks, new Random(5));
+        taskRepository.saveAll(tasks);
+    }
+
+    @AfterAll
+    void cleanup() {
+        taskRepository.deleteAll(taskRepository.findByUser(user));
+        userRepository.delete(user);
+    }
+
+    @Test
+    void queryMatchesInMemoryFilterAndOrder() {
+        // 下推前 findByUser 按 ID 返回，流排序是稳定的
+        List<Task> all = new ArrayList<>(taskRepository.findByUser(user));
+        all.sort(Comparator.comparing(Task::getId));
+        List<Long> expected = all.stream()
+                .filter(t -> t.getEffectiveStatus() == TaskStatus.PENDING)
+                .filter(t -> t.getDeadline() == null || t.getDeadline().toLocalDate().isEqual(DAY))
+                .sorted(TaskService.taskComparatorBySlotAndEnergy())
+                .map(Task::getId)
+                .toList();
+
+        List<Long> actual = taskRepository
+                .findTodayActionable(user, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay())
+                .stream()
+                .map(Task::getId)
+                .toList();
+
+        // 4 种时间段 × 4 种精力（含 NULL）× 2 种待办状态（PENDING、NULL）× 4 个无截止时间或当天的截止时间
+        assertEquals(4 * 4 * 2 * 4, expected.size());
+        assertEquals(expected, actual);
+    }
+
+    @SafeVarargs
+    private static <T> List<T> withNull(T... values) {
+        List<T> result = new ArrayList<>(Arrays.asList(values));
+        result.add(null);
+        return result;
+    }
+}
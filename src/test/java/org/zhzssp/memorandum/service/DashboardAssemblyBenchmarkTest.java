@@ -0,0 +1,163 @@
+package org.zhzssp.memorandum.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.zhzssp.memorandum.entity.EnergyLevel;
+import org.zhzssp.memorandum.entity.Link;
+import org.zhzssp.memorandum.entity.Note;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.TaskGranularity;
+import org.zhzssp.memorandum.entity.TaskStatus;
+import org.zhzssp.memorandum.entity.TimeSlot;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.repository.GoalRepository;
+import org.zhzssp.memorandum.repository.LinkRepository;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 基准：对比 Dashboard 快照的顺序组装与虚拟线程并发组装。
+ * 需要可用的 MySQL，默认不随 test 运行：./gradlew benchmarkTest
+ * 数据写入独立的库 {@value #SCHEMA}（不存在时由驱动创建，迁移脚本在启动时建表），结束后整库删除，不触碰配置的开发库。
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:mysql://localhost:3306/" + DashboardAssemblyBenchmarkTest.SCHEMA
+        + "?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true"
+        + "&createDatabaseIfNotExist=true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class DashboardAssemblyBenchmarkTest {
+
+    static final String SCHEMA = "memo_db_benchmark";
+
+    private static final int TASKS = 2_000;
+    private static final int GOALS = 50;
+    private static final int NOTES = 300;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private DashboardSnapshotService dashboardSnapshotService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private LinkRepository linkRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    private User user;
+
+    @BeforeAll
+    void seed() {
+        Random random = new Random(42);
+        user = new User();
+        user.setUsername("bench-dashboard-" + System.nanoTime());
+        user.setPassword("-");
+        user = userRepository.save(user);
+
+        List<Goal> goals = new ArrayList<>();
+        for (int i = 0; i < GOALS; i++) {
+            Goal g = new Goal();
+            g.setName("goal-" + i);
+            g.setUser(user);
+            goals.add(g);
+        }
+        goals = goalRepository.saveAll(goals);
+
+        List<Task> tasks = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < TASKS; i++) {
+            Task t = new Task();
+            t.setTitle("task-" + i);
+            t.setDescription("benchmark task " + i);
+            t.setDeadline(now.plusDays(random.nextInt(60) - 30));
+            t.setStatus(TaskStatus.values()[random.nextInt(TaskStatus.values().length)]);
+            t.setGranularity(TaskGranularity.values()[random.nextInt(TaskGranularity.values().length)]);
+            t.setEnergyRequirement(EnergyLevel.values()[random.nextInt(EnergyLevel.values().length)]);
+            t.setPreferredSlot(TimeSlot.values()[random.nextInt(TimeSlot.values().length)]);
+            t.setUser(user);
+            tasks.add(t);
+        }
+        tasks = taskRepository.saveAll(tasks);
+
+        List<Link> newLinks = new ArrayList<>();
+        for (Task t : tasks) {
+            Link l = new Link();
+            l.setSourceType(Link.LinkSourceType.TASK);
+            l.setSourceId(t.getId());
+            l.setTargetType(Link.LinkTargetType.GOAL);
+            l.setTargetId(goals.get(random.nextInt(GOALS)).getId());
+            newLinks.add(l);
+        }
+        linkRepository.saveAll(newLinks);
+
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < NOTES; i++) {
+            Note n = new Note();
+            n.setTitle("note-" + i);
+            n.setContent("benchmark note " + i);
+            n.setUser(user);
+            notes.add(n);
+        }
+        noteRepository.saveAll(notes);
+    }
+
+    @AfterAll
+    void cleanup() {
+        // 只删除基准专用库，防止误配置时删掉其他库
+        String current = jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+        assertEquals(SCHEMA, current);
+        jdbcTemplate.execute("DROP DATABASE " + SCHEMA);
+    }
+
+    @Test
+    void compareSequentialAndParallelAssembly() {
+        DashboardSnapshot sequential = dashboardSnapshotService.assembleSequential(user);
+        DashboardSnapshot parallel = dashboardSnapshotService.assembleParallel(user);
+        assertEquals(sequential.allTasks().size(), parallel.allTasks().size());
+        assertEquals(sequential.taskToGoals().size(), parallel.taskToGoals().size());
+
+        double sequentialMillis = measure(() -> dashboardSnapshotService.assembleSequential(user));
+        double parallelMillis = measure(() -> dashboardSnapshotService.assembleParallel(user));
+        System.out.printf("dashboard assembly (%d tasks, %d goals, %d notes): sequential=%.2f ms, parallel=%.2f ms, speedup=%.2fx%n",
+                TASKS, GOALS, NOTES, sequentialMillis, parallelMillis, sequentialMillis / parallelMillis);
+    }
+
+    private double measure(Supplier<DashboardSnapshot> assembly) {
+        for (int i = 0; i < WARMUP; i++) {
+            assembly.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assembly.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+}
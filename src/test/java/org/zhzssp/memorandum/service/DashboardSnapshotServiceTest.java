@@ -0,0 +1,152 @@
+package org.zhzssp.memorandum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.zhzssp.memorandum.core.event.TaskCreatedEvent;
+import org.zhzssp.memorandum.core.service.TaskService;
+import org.zhzssp.memorandum.entity.Task;
+import org.zhzssp.memorandum.entity.User;
+import org.zhzssp.memorandum.entity.UserPreference;
+import org.zhzssp.memorandum.feature.goal.entity.Goal;
+import org.zhzssp.memorandum.feature.goal.event.GoalChangedEvent;
+import org.zhzssp.memorandum.feature.goal.service.GoalService;
+import org.zhzssp.memorandum.repository.NoteRepository;
+import org.zhzssp.memorandum.repository.TaskRepository;
+import org.zhzssp.memorandum.repository.UserRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardSnapshotServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private UserPreferenceService userPreferenceService;
+
+    @Mock
+    private GoalService goalService;
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @InjectMocks
+    private DashboardSnapshotService dashboardSnapshotService;
+
+    private final User user = user(1L, "alice");
+
+    private final Task task = new Task();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dashboardSnapshotService, "maxSize", 100L);
+        ReflectionTestUtils.setField(dashboardSnapshotService, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(dashboardSnapshotService, "parallelAssemblyEnabled", false);
+        dashboardSnapshotService.initCache();
+
+        task.setId(10L);
+        task.setTitle("写周报");
+        task.setUser(user);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        when(taskRepository.findByUser(user)).thenReturn(List.of(task));
+        when(userPreferenceService.getOrCreatePreference(user)).thenReturn(new UserPreference());
+    }
+
+    /** 快照命中时不重新加载；该用户的任务或目标事件使快照失效，其他用户的事件不影响 */
+    @Test
+    void taskAndGoalEventsEvictSnapshot() {
+        DashboardSnapshot first = dashboardSnapshotService.getSnapshot("alice");
+        assertSame(first, dashboardSnapshotService.getSnapshot("alice"));
+        verify(taskRepository, times(1)).findByUser(user);
+
+        dashboardSnapshotService.onTaskCreated(new TaskCreatedEvent(new Task(), user(2L, "bob")));
+        assertSame(first, dashboardSnapshotService.getSnapshot("alice"));
+
+        dashboardSnapshotService.onTaskCreated(new TaskCreatedEvent(new Task(), user));
+        DashboardSnapshot afterTask = dashboardSnapshotService.getSnapshot("alice");
+        verify(taskRepository, times(2)).findByUser(user);
+
+        dashboardSnapshotService.onGoalChanged(new GoalChangedEvent(new Goal(), List.of(10L), user));
+        DashboardSnapshot afterGoal = dashboardSnapshotService.getSnapshot("alice");
+        verify(taskRepository, times(3)).findByUser(user);
+        assertEquals(afterTask.allTasks(), afterGoal.allTasks());
+    }
+
+    /** 快照保存的是视图副本：之后修改实体不影响已缓存的快照，快照集合也不可修改 */
+    @Test
+    void snapshotDoesNotShareEntities() {
+        DashboardSnapshot snapshot = dashboardSnapshotService.getSnapshot("alice");
+
+        task.setTitle("已修改");
+        assertEquals("写周报", snapshot.allTasks().get(0).title());
+        assertEquals(List.of(10L), snapshot.pendingTasks().stream().map(DashboardSnapshot.TaskView::id).toList());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.allTasks().clear());
+    }
+
+    /** 并发组装时同时执行的查询数不超过许可数 */
+    @Test
+    void parallelAssemblyBoundsConcurrentQueries() {
+        ReflectionTestUtils.setField(dashboardSnapshotService, "parallelAssemblyEnabled", true);
+        ReflectionTestUtils.setField(dashboardSnapshotService, "parallelTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(dashboardSnapshotService, "maxConcurrentQueries", 2);
+        dashboardSnapshotService.initCache();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(taskRepository.findByUser(user)).thenAnswer(slowQuery(running, peak, List.of(task)));
+        when(userPreferenceService.getOrCreatePreference(user)).thenAnswer(slowQuery(running, peak, new UserPreference()));
+        when(goalService.findGoalTaskTree(user)).thenAnswer(slowQuery(running, peak, List.of()));
+        when(taskService.getTodayActionableTasks(user)).thenAnswer(slowQuery(running, peak, List.of()));
+        when(goalService.findActiveGoalsByUser(user)).thenAnswer(slowQuery(running, peak, List.of()));
+        when(noteRepository.findByUser(user)).thenAnswer(slowQuery(running, peak, List.of()));
+        when(taskService.findFuzzyTasksNeedingSplit(user, 5)).thenAnswer(slowQuery(running, peak, List.of()));
+        when(goalService.findGoalsByTaskIds(List.of(10L), user)).thenAnswer(slowQuery(running, peak, Map.of()));
+
+        DashboardSnapshot snapshot = dashboardSnapshotService.getSnapshot("alice");
+
+        assertEquals(1, snapshot.allTasks().size());
+        assertTrue(peak.get() <= 2, "同时执行的查询数: " + peak.get());
+    }
+
+    private static Answer<Object> slowQuery(AtomicInteger running, AtomicInteger peak, Object result) {
+        return invocation -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(30);
+                return result;
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+    }
+
+    private static User user(long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
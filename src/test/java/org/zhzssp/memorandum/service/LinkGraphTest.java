@@ -0,0 +1,106 @@
+package org.zhzssp.memorandum.service;
+
+import org.junit.jupiter.api.Test;
+import org.zhzssp.memorandum.entity.Link;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinkGraphTest {
+
+    private static final long TASK_1 = LinkGraph.node(Link.LinkSourceType.TASK, 1);
+    private static final long TASK_2 = LinkGraph.node(Link.LinkSourceType.TASK, 2);
+    private static final long GOAL_1 = LinkGraph.node(Link.LinkTargetType.GOAL, 1);
+    private static final long NOTE_1 = LinkGraph.node(Link.LinkTargetType.NOTE, 1);
+
+    @Test
+    void nodeEncodingRoundTrips() {
+        long node = LinkGraph.node(Link.LinkTargetType.GOAL, 123456789L);
+        assertEquals(Link.LinkTargetType.GOAL, LinkGraph.typeOf(node));
+        assertEquals(123456789L, LinkGraph.idOf(node));
+        assertEquals(LinkGraph.node(Link.LinkTargetType.TASK, 5), LinkGraph.node(Link.LinkSourceType.TASK, 5));
+    }
+
+    @Test
+    void keepsForwardAndReverseAdjacencyInSync() {
+        LinkGraph graph = new LinkGraph();
+        assertTrue(graph.addEdge(TASK_1, GOAL_1));
+        assertTrue(graph.addEdge(TASK_1, NOTE_1));
+        assertTrue(graph.addEdge(TASK_2, GOAL_1));
+        // 重复链接只保留一条边
+        assertEquals(false, graph.addEdge(TASK_1, GOAL_1));
+        assertEquals(3, graph.edgeCount());
+
+        assertArrayEquals(new long[]{1}, graph.targetIds(TASK_1, Link.LinkTargetType.GOAL));
+        assertArrayEquals(new long[]{1, 2}, sorted(graph.sourceIds(GOAL_1, Link.LinkTargetType.TASK)));
+
+        graph.removeEdge(TASK_1, GOAL_1);
+        assertArrayEquals(new long[]{2}, graph.sourceIds(GOAL_1, Link.LinkTargetType.TASK));
+
+        graph.removeNode(GOAL_1);
+        assertEquals(0, graph.targets(TASK_2).length);
+        assertArrayEquals(new long[]{NOTE_1}, graph.targets(TASK_1));
+        assertEquals(1, graph.edgeCount());
+    }
+
+    /** 随机增删与按 Map<Long, Set<Long>> 维护的对照结果一致（覆盖扩容与线性探测删除） */
+    @Test
+    void matchesReferenceUnderRandomChanges() {
+        Random random = new Random(7);
+        LinkGraph graph = new LinkGraph();
+        Map<Long, Set<Long>> reference = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            long source = LinkGraph.node(Link.LinkSourceType.TASK, 1 + random.nextInt(500));
+            long target = LinkGraph.node(Link.LinkTargetType.GOAL, 1 + random.nextInt(50));
+            int op = random.nextInt(10);
+            if (op < 6) {
+                assertEquals(reference.computeIfAbsent(source, k -> new HashSet<>()).add(target),
+                        graph.addEdge(source, target));
+            } else if (op < 9) {
+                Set<Long> targets = reference.get(source);
+                assertEquals(targets != null && targets.remove(target), graph.removeEdge(source, target));
+            } else {
+                reference.remove(source);
+                graph.removeNode(source);
+            }
+        }
+        long edges = 0;
+        for (int id = 1; id <= 500; id++) {
+            long source = LinkGraph.node(Link.LinkSourceType.TASK, id);
+            long[] expected = reference.getOrDefault(source, Set.of()).stream().mapToLong(Long::longValue).sorted().toArray();
+            assertArrayEquals(expected, sorted(graph.targets(source)));
+            edges += expected.length;
+        }
+        assertEquals(edges, graph.edgeCount());
+        for (int id = 1; id <= 50; id++) {
+            long target = LinkGraph.node(Link.LinkTargetType.GOAL, id);
+            long count = reference.values().stream().filter(s -> s.contains(target)).count();
+            assertEquals(count, (long) graph.sources(target).length);
+        }
+    }
+
+    @Test
+    void bulkLoadDeduplicates() {
+        LinkGraph graph = new LinkGraph();
+        long[] sources = {TASK_1, TASK_1, TASK_2, TASK_1};
+        long[] targets = {GOAL_1, NOTE_1, GOAL_1, GOAL_1};
+        graph.addEdges(sources, targets, sources.length);
+        assertEquals(3, graph.edgeCount());
+        assertArrayEquals(new long[]{1, 2}, sorted(graph.sourceIds(GOAL_1, Link.LinkTargetType.TASK)));
+        assertTrue(graph.estimatedBytes() > 0);
+    }
+
+    private static long[] sorted(long[] values) {
+        long[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}